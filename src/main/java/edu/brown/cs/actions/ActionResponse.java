@@ -1,5 +1,9 @@
 package edu.brown.cs.actions;
 
+import java.util.function.Supplier;
+
+import edu.brown.cs.events.GameEvent;
+
 /**
  * General form for reponse from Actions.
  *
@@ -11,6 +15,8 @@ public class ActionResponse {
   private boolean success;
   private String message;
   private Object data;
+  // Renders message the first time it is asked for; not serialized.
+  private transient Supplier<String> render;
 
   /**
    * Constructor for the class.
@@ -29,6 +35,41 @@ public class ActionResponse {
     this.data = data;
   }
 
+  /**
+   * Creates a response whose message is only rendered when it is read, which
+   * is when the response is sent to its player.
+   *
+   * @param success
+   *          Boolean stating whether or not the action succeeded.
+   * @param message
+   *          Renders the message for the player.
+   * @param data
+   *          Information specific to the action.
+   * @return The response.
+   */
+  public static ActionResponse lazy(boolean success, Supplier<String> message,
+      Object data) {
+    ActionResponse response = new ActionResponse(success, null, data);
+    response.render = message;
+    return response;
+  }
+
+  /**
+   * Creates a response describing an event to one player, rendered lazily.
+   *
+   * @param event
+   *          The event.
+   * @param playerID
+   *          Player the response is for.
+   * @param data
+   *          Information specific to the action.
+   * @return A successful response.
+   */
+  public static ActionResponse describing(GameEvent event, int playerID,
+      Object data) {
+    return lazy(true, () -> event.describe(playerID), data);
+  }
+
   /**
    * Getter for success.
    * 
@@ -44,6 +85,10 @@ public class ActionResponse {
    * @return message.
    */
   public String getMessage() {
+    if (render != null) {
+      message = render.get();
+      render = null;
+    }
     return message;
   }
 
@@ -12,6 +12,7 @@ import edu.brown.cs.board.PathCoordinate;
 import edu.brown.cs.catan.Player;
 import edu.brown.cs.catan.Referee;
 import edu.brown.cs.catan.Referee.GameStatus;
+import edu.brown.cs.events.RoadBuilt;
 
 /**
  * Action responsible for building a road during game play.
@@ -85,17 +86,13 @@ public class BuildRoad implements Action {
     _player.useRoad();
     _path.placeRoad(_player);
 
-    ActionResponse toPlayer = new ActionResponse(true, "You built a Road",
-        null);
-    String message = String.format("%s built a Road", _player.getName());
-    ActionResponse toAll = new ActionResponse(true, message, null);
+    RoadBuilt built = new RoadBuilt(_player.getID(), _player.getName(),
+        _path.getStart().getPosition(), _path.getEnd().getPosition());
+    _ref.getEventBus().publish(built);
     Map<Integer, ActionResponse> toReturn = new HashMap<>();
     for (Player player : _ref.getPlayers()) {
-      if (player.equals(_player)) {
-        toReturn.put(player.getID(), toPlayer);
-      } else {
-        toReturn.put(player.getID(), toAll);
-      }
+      toReturn.put(player.getID(), ActionResponse.describing(built,
+          player.getID(), null));
     }
     return toReturn;
   }
@@ -18,6 +18,8 @@ import edu.brown.cs.catan.Resource;
  */
 public class ChooseOpponentCards implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
     private Referee _ref;
     private int _playerID;
     private int _targetPlayerID;
@@ -60,7 +62,7 @@ public class ChooseOpponentCards implements FollowUpAction {
         }
 
         int toTake = Math.min(2, availableCards.size());
-        Random rand = new Random();
+        Random rand = _ref.getRandom();
         List<Resource> taken = new ArrayList<>();
         for (int i = 0; i < toTake; i++) {
             int idx = rand.nextInt(availableCards.size());
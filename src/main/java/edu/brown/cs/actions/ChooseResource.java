@@ -15,6 +15,8 @@ import edu.brown.cs.catan.Resource;
  */
 public class ChooseResource implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
     private Referee _ref;
     private int _playerID;
     private Resource _resource;
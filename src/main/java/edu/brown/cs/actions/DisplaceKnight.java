@@ -18,6 +18,8 @@ import edu.brown.cs.catan.Referee;
  */
 public class DisplaceKnight implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
     private Referee _ref;
     private int _playerID;
     private IntersectionCoordinate _coord;
@@ -19,6 +19,8 @@ import edu.brown.cs.catan.Resource;
  */
 public class DropCards implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
   private boolean _isSetup;
   private double _numToDrop;
   private int _requiredPlayer;
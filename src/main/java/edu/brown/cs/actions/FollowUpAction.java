@@ -1,5 +1,7 @@
 package edu.brown.cs.actions;
 
+import java.io.Serializable;
+
 import com.google.gson.JsonObject;
 
 import edu.brown.cs.catan.Referee;
@@ -10,7 +12,7 @@ import edu.brown.cs.catan.Referee;
  * @author anselvahle
  *
  */
-public interface FollowUpAction extends Action {
+public interface FollowUpAction extends Action, Serializable {
 
   JsonObject getData();
 
@@ -16,6 +16,8 @@ import edu.brown.cs.catan.Referee;
  *
  */
 public class KnightOrDice implements FollowUpAction {
+  private static final long serialVersionUID = 1L;
+
   private Player _player;
   private final int _playerID;
   private Referee _ref;
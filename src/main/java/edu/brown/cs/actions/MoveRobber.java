@@ -14,6 +14,7 @@ import edu.brown.cs.board.HexCoordinate;
 import edu.brown.cs.catan.Player;
 import edu.brown.cs.catan.Referee;
 import edu.brown.cs.catan.Resource;
+import edu.brown.cs.events.RobberMoved;
 
 /**
  * Action Responsible for moving the robber.
@@ -23,6 +24,8 @@ import edu.brown.cs.catan.Resource;
  */
 public class MoveRobber implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
   private boolean _isSetup;
   private Referee _ref;
   private int _playerID;
@@ -91,20 +94,12 @@ public class MoveRobber implements FollowUpAction {
     if(_isTurnStart){
       _ref.addFollowUp(ImmutableList.of(new RollDice(_playerID)));
     }
-    String message = "You moved the Robber. There was no one to steal from where you placed the Robber.";
-    if (originalPlayersOnTile > 0) {
-      message = "You moved the Robber. No player has enough cards for you to steal.";
-    }
-    ActionResponse toPlayer = new ActionResponse(true, message, playersOnTile);
-    String messageToAll = String.format("%s moved the Robber", _ref
-        .getPlayerByID(_playerID).getName());
-    ActionResponse toAll = new ActionResponse(true, messageToAll, null);
+    RobberMoved moved = new RobberMoved(_playerID, _ref.getPlayerByID(
+        _playerID).getName(), _newLocation, originalPlayersOnTile > 0);
+    _ref.getEventBus().publish(moved);
     for (Player p : _ref.getPlayers()) {
-      if (p.getID() == _playerID) {
-        toRet.put(p.getID(), toPlayer);
-      } else {
-        toRet.put(p.getID(), toAll);
-      }
+      toRet.put(p.getID(), ActionResponse.describing(moved, p.getID(),
+          p.getID() == _playerID ? playersOnTile : null));
     }
     return toRet;
   }
@@ -24,6 +24,8 @@ import edu.brown.cs.catan.Resource;
  */
 public class PlaceInitialSettlement implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
   private static final String ID = "placeSettlement";
   private int _playerID;
   private boolean _isSetup;
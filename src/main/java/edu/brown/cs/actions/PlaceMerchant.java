@@ -18,6 +18,8 @@ import edu.brown.cs.catan.Referee;
  */
 public class PlaceMerchant implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
     private Referee _ref;
     private int _playerID;
     private HexCoordinate _hex;
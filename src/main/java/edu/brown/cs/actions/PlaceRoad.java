@@ -22,6 +22,8 @@ import edu.brown.cs.catan.Referee.GameStatus;
  */
 public class PlaceRoad implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
   private static final String ID = "placeRoad";
   private int _playerID;
   private boolean _isSetup;
@@ -46,8 +48,14 @@ public class PlaceRoad implements FollowUpAction {
 
     // TODO: validate based on isGameSetup or based on canPlaceRoad!!!
 
-    // Build the road
-    new BuildRoad(_ref, _playerID, _start, _end, false).execute();
+    // Build the road; BuildRoad publishes RoadBuilt, so setup roads and free
+    // roads are seen like any other. If it cannot be built, nothing happened
+    // and the player is asked again.
+    ActionResponse built = new BuildRoad(_ref, _playerID, _start, _end, false)
+        .execute().get(_playerID);
+    if (!built.getSuccess()) {
+      return ImmutableMap.of(_playerID, built);
+    }
     _ref.removeFollowUp(this);
 
     boolean canPlace = false;
@@ -14,6 +14,7 @@ import edu.brown.cs.catan.ProgressCard;
 import edu.brown.cs.catan.Referee;
 import edu.brown.cs.catan.Resource;
 import edu.brown.cs.catan.Settings;
+import edu.brown.cs.events.ProgressCardPlayed;
 
 /**
  * Action for playing a progress card from the player's hand. Handles all
@@ -57,9 +58,11 @@ public class PlayProgressCard implements Action {
     // Remove the card from the player's hand
     _player.removeProgressCard(_card);
 
+    ProgressCardPlayed played = new ProgressCardPlayed(_player.getID(),
+        _player.getName(), _card);
+
     Map<Integer, ActionResponse> toRet = new HashMap<>();
-    String publicMsg = String.format("%s played %s.", _player.getName(),
-        _card.getName());
+    String publicMsg = played.describe(-1);
 
     switch (_card) {
 
@@ -554,6 +557,8 @@ public class PlayProgressCard implements Action {
         break;
     }
 
+    // Only once the card has taken effect; failures above give it back.
+    _ref.getEventBus().publish(played);
     return toRet;
   }
 }
@@ -17,6 +17,8 @@ import edu.brown.cs.catan.Referee;
  */
 public class RemoveRoad implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
     private Referee _ref;
     private int _playerID;
     private IntersectionCoordinate _start;
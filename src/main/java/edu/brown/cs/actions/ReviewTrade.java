@@ -3,10 +3,10 @@ package edu.brown.cs.actions;
 import java.util.HashMap;
 import java.util.Map;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import edu.brown.cs.api.Serialization;
 import edu.brown.cs.catan.Player;
 import edu.brown.cs.catan.Referee;
 import edu.brown.cs.catan.Resource;
@@ -19,6 +19,8 @@ import edu.brown.cs.catan.Trade;
  *
  */
 public class ReviewTrade implements FollowUpAction {
+  private static final long serialVersionUID = 1L;
+
   private Player _player;
   private final int _playerID;
   private Referee _ref;
@@ -27,7 +29,6 @@ public class ReviewTrade implements FollowUpAction {
   private boolean _isSetUp = false;
   private boolean _acceptedTrade;
   private Map<Resource, Double> _resources;
-  private Gson gson = new Gson();
   private final Trade _trade;
 
   public ReviewTrade(int playerID,
@@ -135,7 +136,7 @@ public class ReviewTrade implements FollowUpAction {
         + " whether or not to accept the offer.";
     JsonObject toRet = new JsonObject();
     toRet.addProperty("message", message);
-    JsonElement trade = gson.toJsonTree(_trade);
+    JsonElement trade = Serialization.GSON.toJsonTree(_trade);
     toRet.add("trade", trade);
     return toRet;
   }
@@ -3,10 +3,14 @@ package edu.brown.cs.actions;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.PrimitiveIterator;
 import java.util.Random;
+import java.util.Set;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 import edu.brown.cs.board.Intersection;
@@ -19,6 +23,8 @@ import edu.brown.cs.catan.ProgressCard;
 import edu.brown.cs.catan.Referee;
 import edu.brown.cs.catan.Resource;
 import edu.brown.cs.catan.Settings;
+import edu.brown.cs.events.BarbarianAttackResolved;
+import edu.brown.cs.events.ResourcesProduced;
 
 /**
  * Action responsible for rolling the dice.
@@ -28,6 +34,8 @@ import edu.brown.cs.catan.Settings;
  */
 public class RollDice implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
   private Player _player;
   private final int _playerID;
   private Referee _ref;
@@ -60,7 +68,7 @@ public class RollDice implements FollowUpAction {
       throw new UnsupportedOperationException(
           "A FollowUpAction must be setup before executed.");
     }
-    Random r = new Random();
+    Random r = _ref.getRandom();
     PrimitiveIterator.OfInt rolls = r.ints(1, 7).iterator();
     int[] override = _ref.consumeOverriddenDice();
     int redDie, whiteDie;
@@ -72,7 +80,6 @@ public class RollDice implements FollowUpAction {
       whiteDie = rolls.nextInt();
     }
     int diceRoll = redDie + whiteDie;
-    _ref.getGameStats().addRoll(diceRoll);
     Map<Integer, Map<Resource, Integer>> playerResourceCount = new HashMap<>();
     Map<Integer, ActionResponse> toRet = new HashMap<>();
 
@@ -109,52 +116,18 @@ public class RollDice implements FollowUpAction {
           }
         }
       }
-      for (Integer playerID : playerResourceCount.keySet()) {
-        StringBuilder message = new StringBuilder();
-        message.append(String.format("%d was rolled", diceRoll));
-        Map<Resource, Integer> resourceCount = playerResourceCount
-            .get(playerID);
-        for (Resource res : resourceCount.keySet()) {
-          switch (res) {
-            case WHEAT:
-              message.append(String.format(", you received %d wheat",
-                  resourceCount.get(res)));
-              break;
-            case SHEEP:
-              message.append(String.format(", you received %d sheep",
-                  resourceCount.get(res)));
-              break;
-            case ORE:
-              message.append(String.format(", you received %d ore",
-                  resourceCount.get(res)));
-              break;
-            case BRICK:
-              message.append(String.format(", you received %d brick",
-                  resourceCount.get(res)));
-              break;
-            case WOOD:
-              message.append(String.format(", you received %d wood",
-                  resourceCount.get(res)));
-              break;
-            default:
-              message.append(".");
-              break;
-          }
-        }
-        message.append(".");
-        ActionResponse toAdd = new ActionResponse(true, message.toString(),
-            resourceCount);
-        toRet.put(playerID, toAdd);
-      }
+      ResourcesProduced produced = new ResourcesProduced(redDie, whiteDie,
+          playerResourceCount);
+      _ref.getEventBus().publish(produced);
       for (Player p : _ref.getPlayers()) {
-        if (!toRet.containsKey(p.getID())) {
-          ActionResponse toAdd = new ActionResponse(true, String.format(
-              "%d was rolled.", diceRoll), new HashMap<Resource, Integer>());
-          toRet.put(p.getID(), toAdd);
-        }
+        toRet.put(p.getID(), ActionResponse.describing(produced, p.getID(),
+            playerResourceCount.containsKey(p.getID()) ? playerResourceCount
+                .get(p.getID()) : new HashMap<Resource, Integer>()));
       }
     } else {
-      // 7 is rolled:
+      // 7 is rolled: nothing is produced, but the roll is still an event.
+      _ref.getEventBus().publish(new ResourcesProduced(redDie, whiteDie,
+          new HashMap<Integer, Map<Resource, Integer>>()));
       Map<Integer, Double> playersToDrop = new HashMap<>();
       Map<Integer, JsonObject> jsonToSend = new HashMap<>();
       String message = "7 was rolled.";
@@ -225,105 +198,15 @@ public class RollDice implements FollowUpAction {
         boolean attack = mr.getBarbarianTrack().advance();
         String msg = " Event: Barbarian ship advanced!";
         if (attack) {
-          // --- Barbarian Attack Resolution ---
-          int totalKnightStrength = 0;
-          int totalBuiltCities = 0;
-          for (Player p : _ref.getPlayers()) {
-            totalKnightStrength += p.getActiveKnightStrength();
-            int builtCities = Settings.INITIAL_CITIES - p.numCities();
-            totalBuiltCities += builtCities;
-          }
-
-          if (totalKnightStrength >= totalBuiltCities) {
-            // --- Knights Win: Defender of Catan ---
-            msg += " Knights defended Catan!";
-            int maxStrength = 0;
-            for (Player p : _ref.getPlayers()) {
-              int str = p.getActiveKnightStrength();
-              if (str > maxStrength) {
-                maxStrength = str;
-              }
-            }
-            if (maxStrength > 0) {
-              for (Player p : _ref.getPlayers()) {
-                if (p.getActiveKnightStrength() == maxStrength) {
-                  p.addDefenderPoint();
-                  msg += String.format(" %s earns Defender of Catan!", p.getName());
-                }
-              }
-            }
-          } else {
-            // --- Knights Lose: Pillage weakest contributor's city ---
-            msg += " Barbarians pillage!";
-            // Find lowest knight strength among players with at least 1 built city
-            int minStrength = Integer.MAX_VALUE;
-            for (Player p : _ref.getPlayers()) {
-              int builtCities = Settings.INITIAL_CITIES - p.numCities();
-              if (builtCities > 0) {
-                int str = p.getActiveKnightStrength();
-                if (str < minStrength) {
-                  minStrength = str;
-                }
-              }
-            }
-            // Pillage one city from each player with the lowest strength
-            for (Player p : _ref.getPlayers()) {
-              int builtCities = Settings.INITIAL_CITIES - p.numCities();
-              if (builtCities > 0 && p.getActiveKnightStrength() == minStrength) {
-                // Demote one city on the board to a settlement
-                for (Intersection inter : mr.getBoard().getIntersections().values()) {
-                  if (inter.demoteToSettlement(p)) {
-                    // Return a city piece and consume a settlement piece
-                    // (useCity adds back a settlement, so we undo that by
-                    // just adjusting the counts directly — but the simplest
-                    // approach: the player effectively gets a city piece back
-                    // and loses a settlement piece)
-                    msg += String.format(" %s's city was pillaged!", p.getName());
-                    // Remove a city wall if the player has one
-                    if (p.getCityWallCount() > 0) {
-                      p.removeCityWall();
-                      msg += String.format(" %s lost a city wall.", p.getName());
-                    }
-                    break; // Only pillage one city per player
-                  }
-                }
-              }
-            }
-          }
-
-          // Deactivate all knights after the attack
-          for (Player p : _ref.getPlayers()) {
-            for (KnightPiece k : p.getKnights()) {
-              if (k.isActive()) {
-                k.deactivate();
-              }
-            }
-          }
-        }
-        for (Integer pid : toRet.keySet()) {
-          ActionResponse orig = toRet.get(pid);
-          // Merge data
-          Object existingData = orig.getData();
-          JsonObject data = new JsonObject();
-          if (existingData instanceof Map) {
-            Map<?, ?> m = (Map<?, ?>) existingData;
-            for (Map.Entry<?, ?> e : m.entrySet()) {
-              data.addProperty(e.getKey().toString(), e.getValue().toString());
-            }
-          } else if (existingData instanceof JsonObject) {
-            JsonObject old = (JsonObject) existingData;
-            for (Map.Entry<String, com.google.gson.JsonElement> entry : old.entrySet()) {
-              data.add(entry.getKey(), entry.getValue());
-            }
-          }
-          data.addProperty("eventDie", "ship");
-          data.addProperty("barbarianPosition", mr.getBarbarianTrack().getPosition());
-          data.addProperty("redDie", redDie);
-          data.addProperty("whiteDie", whiteDie);
-
-          toRet.put(pid, new ActionResponse(orig.getSuccess(),
-              orig.getMessage() + msg, data));
+          BarbarianAttackResolved resolved = resolveBarbarianAttack(mr);
+          _ref.getEventBus().publish(resolved);
+          msg += resolved.describe(_playerID);
         }
+        JsonObject die = new JsonObject();
+        die.addProperty("eventDie", "ship");
+        die.addProperty("barbarianPosition", mr.getBarbarianTrack()
+            .getPosition());
+        addEventDie(toRet, die, redDie, whiteDie, msg);
       } else {
         // City Gate (Green/Blue/Yellow) on 4, 5, 6
         CityImprovement.Track matchTrack;
@@ -364,34 +247,108 @@ public class RollDice implements FollowUpAction {
           }
         }
         // Append event die info to all players' messages
-        for (Integer pid : toRet.keySet()) {
-          ActionResponse orig = toRet.get(pid);
-          // Merge data
-          Object existingData = orig.getData();
-          JsonObject data = new JsonObject();
-          if (existingData instanceof Map) {
-            Map<?, ?> m = (Map<?, ?>) existingData;
-            for (Map.Entry<?, ?> e : m.entrySet()) {
-              data.addProperty(e.getKey().toString(), e.getValue().toString());
-            }
-          } else if (existingData instanceof JsonObject) {
-            JsonObject old = (JsonObject) existingData;
-            for (Map.Entry<String, com.google.gson.JsonElement> entry : old.entrySet()) {
-              data.add(entry.getKey(), entry.getValue());
+        JsonObject die = new JsonObject();
+        die.addProperty("eventDie", eventDie);
+        addEventDie(toRet, die, redDie, whiteDie, gateMsg);
+      }
+    }
+
+    _ref.removeFollowUp(this);
+    return toRet;
+  }
+
+  // Resolves a barbarian attack: if the knights are at least as strong as the
+  // cities built, the strongest players become Defenders of Catan; otherwise
+  // the weakest players each lose a city and a city wall. Knights are
+  // deactivated either way.
+  private BarbarianAttackResolved resolveBarbarianAttack(MasterReferee mr) {
+    int totalKnightStrength = 0;
+    int totalBuiltCities = 0;
+    Map<Integer, String> names = new HashMap<>();
+    for (Player p : _ref.getPlayers()) {
+      totalKnightStrength += p.getActiveKnightStrength();
+      totalBuiltCities += Settings.INITIAL_CITIES - p.numCities();
+      names.put(p.getID(), p.getName());
+    }
+    List<Integer> defenders = new ArrayList<>();
+    List<Integer> pillaged = new ArrayList<>();
+    Set<Integer> lostWalls = new HashSet<>();
+    if (totalKnightStrength >= totalBuiltCities) {
+      int maxStrength = 0;
+      for (Player p : _ref.getPlayers()) {
+        maxStrength = Math.max(maxStrength, p.getActiveKnightStrength());
+      }
+      if (maxStrength > 0) {
+        for (Player p : _ref.getPlayers()) {
+          if (p.getActiveKnightStrength() == maxStrength) {
+            p.addDefenderPoint();
+            defenders.add(p.getID());
+          }
+        }
+      }
+    } else {
+      // Lowest knight strength among players with at least one city.
+      int minStrength = Integer.MAX_VALUE;
+      for (Player p : _ref.getPlayers()) {
+        if (Settings.INITIAL_CITIES - p.numCities() > 0) {
+          minStrength = Math.min(minStrength, p.getActiveKnightStrength());
+        }
+      }
+      for (Player p : _ref.getPlayers()) {
+        int builtCities = Settings.INITIAL_CITIES - p.numCities();
+        if (builtCities > 0 && p.getActiveKnightStrength() == minStrength) {
+          // Demote one of the player's cities to a settlement.
+          for (Intersection inter : mr.getBoard().getIntersections()
+              .values()) {
+            if (inter.demoteToSettlement(p)) {
+              pillaged.add(p.getID());
+              if (p.getCityWallCount() > 0) {
+                p.removeCityWall();
+                lostWalls.add(p.getID());
+              }
+              break;
             }
           }
-          data.addProperty("eventDie", eventDie);
-          data.addProperty("redDie", redDie);
-          data.addProperty("whiteDie", whiteDie);
-
-          toRet.put(pid, new ActionResponse(orig.getSuccess(),
-              orig.getMessage() + gateMsg, data));
         }
       }
     }
+    for (Player p : _ref.getPlayers()) {
+      for (KnightPiece k : p.getKnights()) {
+        if (k.isActive()) {
+          k.deactivate();
+        }
+      }
+    }
+    return new BarbarianAttackResolved(totalKnightStrength, totalBuiltCities,
+        names, defenders, pillaged, lostWalls);
+  }
 
-    _ref.removeFollowUp(this);
-    return toRet;
+  // Adds the event die to every response: its fields go into the data, which
+  // becomes a JsonObject, and the description is appended to the message.
+  private static void addEventDie(Map<Integer, ActionResponse> responses,
+      JsonObject die, int redDie, int whiteDie, String description) {
+    for (Map.Entry<Integer, ActionResponse> entry : responses.entrySet()) {
+      ActionResponse orig = entry.getValue();
+      Object existingData = orig.getData();
+      JsonObject data = new JsonObject();
+      if (existingData instanceof Map) {
+        for (Map.Entry<?, ?> e : ((Map<?, ?>) existingData).entrySet()) {
+          data.addProperty(e.getKey().toString(), e.getValue().toString());
+        }
+      } else if (existingData instanceof JsonObject) {
+        for (Map.Entry<String, JsonElement> e : ((JsonObject) existingData)
+            .entrySet()) {
+          data.add(e.getKey(), e.getValue());
+        }
+      }
+      for (Map.Entry<String, JsonElement> e : die.entrySet()) {
+        data.add(e.getKey(), e.getValue());
+      }
+      data.addProperty("redDie", redDie);
+      data.addProperty("whiteDie", whiteDie);
+      entry.setValue(ActionResponse.lazy(orig.getSuccess(),
+          () -> orig.getMessage() + description, data));
+    }
   }
 
   @Override
@@ -17,6 +17,8 @@ import edu.brown.cs.catan.Referee;
  */
 public class StealProgressCard implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
     private Referee _ref;
     private int _playerID;
     private int _targetPlayerID;
@@ -48,7 +50,7 @@ public class StealProgressCard implements FollowUpAction {
         }
 
         // Pick a random card
-        Random rand = new Random();
+        Random rand = _ref.getRandom();
         ProgressCard stolen = targetCards.get(rand.nextInt(targetCards.size()));
         target.removeProgressCard(stolen);
         thief.addProgressCard(stolen);
@@ -24,6 +24,8 @@ import edu.brown.cs.catan.Resource;
  */
 public class TakeCardAction implements Action, FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
   public final static String ID = "takeCard";
   private final static String VERB = "take a card";
   private final int _playerID;
@@ -75,7 +77,7 @@ public class TakeCardAction implements Action, FollowUpAction {
                   null));
     }
     // Action:
-    Collections.shuffle(takeableCards);
+    Collections.shuffle(takeableCards, _ref.getRandom());
     Resource resToTake = takeableCards.get(0);
     player.addResource(resToTake, 1, _ref.getBank());
     playerToTakeFrom.removeResource(resToTake, 1, _ref.getBank());
@@ -3,10 +3,10 @@ package edu.brown.cs.actions;
 import java.util.HashMap;
 import java.util.Map;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
+import edu.brown.cs.api.Serialization;
 import edu.brown.cs.catan.Player;
 import edu.brown.cs.catan.Referee;
 import edu.brown.cs.catan.Resource;
@@ -20,6 +20,8 @@ import edu.brown.cs.catan.Trade;
  */
 public class TradeResponse implements FollowUpAction {
 
+  private static final long serialVersionUID = 1L;
+
   private Player _player;
   private Player _tradee;
   private final int _playerID;
@@ -29,7 +31,6 @@ public class TradeResponse implements FollowUpAction {
   private boolean _isSetUp = false;
   private Map<Resource, Double> _resources;
   private boolean _acceptedTrade = false;
-  private final Gson gson = new Gson();
   private final Trade _trade;
 
   public TradeResponse(int playerID, Map<Resource, Double> resources,
@@ -134,7 +135,7 @@ public class TradeResponse implements FollowUpAction {
     String message = "Please finalize the trade";
     JsonObject toRet = new JsonObject();
     toRet.addProperty("message", message);
-    JsonElement trade = gson.toJsonTree(_trade);
+    JsonElement trade = Serialization.GSON.toJsonTree(_trade);
     toRet.add("trade", trade);
     return toRet;
   }
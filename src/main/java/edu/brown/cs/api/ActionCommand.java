@@ -0,0 +1,171 @@
+package edu.brown.cs.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.board.HexCoordinate;
+import edu.brown.cs.board.IntersectionCoordinate;
+
+/**
+ * An action request, read once from the JSON it arrived as. The player, the
+ * action name and any board location are pulled out here, so that the
+ * ActionFactory and the actions do not walk the JSON again.
+ *
+ * Locations may be sent either as coordinates or as board ids: the index of
+ * the intersection or tile in the board descriptor. Ids are resolved here and
+ * written back into the JSON as coordinates, for the actions that still read
+ * their parameters from it.
+ *
+ */
+public final class ActionCommand {
+
+  private static final String[] INTERSECTION_FIELDS = {"coordinate", "start",
+      "end"};
+  private static final String[] HEX_FIELDS = {"newLocation", "hex"};
+
+  private final int _playerID;
+  private final String _action;
+  private final JsonObject _json;
+  private final IntersectionCoordinate _coordinate;
+  private final IntersectionCoordinate _start;
+  private final IntersectionCoordinate _end;
+
+  private ActionCommand(JsonObject json, BoardDescriptor board) {
+    try {
+      _playerID = json.get("player").getAsInt();
+      _action = json.get("action").getAsString();
+    } catch (IllegalStateException | UnsupportedOperationException
+        | NumberFormatException | NullPointerException e) {
+      throw new IllegalArgumentException(
+          "Missing PlayerID which is required for all actions.");
+    }
+    _json = json;
+    IntersectionCoordinate[] resolved =
+        new IntersectionCoordinate[INTERSECTION_FIELDS.length];
+    for (int i = 0; i < INTERSECTION_FIELDS.length; i++) {
+      resolved[i] = intersection(json, INTERSECTION_FIELDS[i], board);
+    }
+    _coordinate = resolved[0];
+    _start = resolved[1];
+    _end = resolved[2];
+    for (String field : HEX_FIELDS) {
+      resolveHex(json, field, board);
+    }
+  }
+
+  /**
+   * Reads an action request whose locations are all coordinates.
+   *
+   * @param json
+   *          The request. Must hold "player" and "action".
+   * @return The command.
+   * @throws IllegalArgumentException
+   *           If the player or action is missing, or a location is malformed.
+   */
+  public static ActionCommand fromJson(JsonObject json) {
+    return new ActionCommand(json, null);
+  }
+
+  // As above, resolving board ids against the given descriptor.
+  static ActionCommand fromJson(JsonObject json, BoardDescriptor board) {
+    return new ActionCommand(json, board);
+  }
+
+  public int playerID() {
+    return _playerID;
+  }
+
+  public String action() {
+    return _action;
+  }
+
+  /**
+   * @return The full request, with board ids replaced by coordinates.
+   */
+  public JsonObject json() {
+    return _json;
+  }
+
+  public IntersectionCoordinate coordinate() {
+    return required(_coordinate, "coordinate");
+  }
+
+  public IntersectionCoordinate start() {
+    return required(_start, "start");
+  }
+
+  public IntersectionCoordinate end() {
+    return required(_end, "end");
+  }
+
+  private static IntersectionCoordinate required(IntersectionCoordinate c,
+      String field) {
+    if (c == null) {
+      throw new IllegalArgumentException("The JSON is missing a required "
+          + "parameter: " + field + ".");
+    }
+    return c;
+  }
+
+  private static IntersectionCoordinate intersection(JsonObject json,
+      String field, BoardDescriptor board) {
+    JsonElement e = json.get(field);
+    if (e == null || e.isJsonNull()) {
+      return null;
+    }
+    try {
+      if (e.isJsonObject()) {
+        JsonObject o = e.getAsJsonObject();
+        return new IntersectionCoordinate(hex(o.getAsJsonObject("coord1")),
+            hex(o.getAsJsonObject("coord2")), hex(o.getAsJsonObject("coord3")));
+      }
+      int id = e.getAsInt();
+      if (board == null || id < 0 || id >= board.intersections().size()) {
+        throw new IllegalArgumentException("No intersection with id " + id);
+      }
+      IntersectionCoordinate coord = board.intersections().get(id)
+          .getPosition();
+      json.add(field, toJson(coord));
+      return coord;
+    } catch (IllegalStateException | UnsupportedOperationException
+        | NumberFormatException | NullPointerException ex) {
+      throw new IllegalArgumentException("Malformed " + field + ".");
+    }
+  }
+
+  private static void resolveHex(JsonObject json, String field,
+      BoardDescriptor board) {
+    JsonElement e = json.get(field);
+    if (e == null || !e.isJsonPrimitive() || !e.getAsJsonPrimitive()
+        .isNumber()) {
+      return;
+    }
+    int id = e.getAsInt();
+    if (board == null || id < 0 || id >= board.tiles().size()) {
+      throw new IllegalArgumentException("No tile with id " + id);
+    }
+    json.add(field, toJson(board.tiles().get(id).getCoordinate()));
+  }
+
+  private static JsonObject toJson(IntersectionCoordinate c) {
+    JsonObject o = new JsonObject();
+    o.add("coord1", toJson(c.getCoord1()));
+    o.add("coord2", toJson(c.getCoord2()));
+    o.add("coord3", toJson(c.getCoord3()));
+    return o;
+  }
+
+  private static JsonObject toJson(HexCoordinate h) {
+    JsonObject o = new JsonObject();
+    o.addProperty("x", h.getX());
+    o.addProperty("y", h.getY());
+    o.addProperty("z", h.getZ());
+    return o;
+  }
+
+  private static HexCoordinate hex(JsonObject o) {
+    return new HexCoordinate(o.get("x").getAsInt(), o.get("y").getAsInt(), o
+        .get("z").getAsInt());
+  }
+
+}
@@ -1,6 +1,5 @@
 package edu.brown.cs.api;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonSyntaxException;
 
@@ -26,8 +25,6 @@ import edu.brown.cs.actions.ProposeTrade;
 import edu.brown.cs.actions.StartGame;
 import edu.brown.cs.actions.TradeWithBank;
 import edu.brown.cs.actions.UpdateResource;
-import edu.brown.cs.board.HexCoordinate;
-import edu.brown.cs.board.IntersectionCoordinate;
 import edu.brown.cs.catan.MasterReferee;
 import edu.brown.cs.catan.Player;
 import edu.brown.cs.catan.Referee;
@@ -35,7 +32,6 @@ import edu.brown.cs.catan.Referee;
 public class ActionFactory {
 
   private Referee _referee;
-  private final Gson GSON = new Gson();
 
   public ActionFactory(Referee referee) {
     assert referee != null;
@@ -44,7 +40,7 @@ public class ActionFactory {
   }
 
   private JsonObject convertFromStringToJson(String string) {
-    return GSON.fromJson(string, JsonObject.class);
+    return Serialization.GSON.fromJson(string, JsonObject.class);
   }
 
   public Action createAction(String json) throws WaitingOnActionException {
@@ -59,15 +55,14 @@ public class ActionFactory {
 
   public Action createAction(JsonObject actionJSON)
     throws WaitingOnActionException {
-    int playerID;
-    String action;
-    try {
-      playerID = actionJSON.get("player").getAsInt();
-      action = actionJSON.get("action").getAsString();
-    } catch (JsonSyntaxException | NullPointerException e) {
-      throw new IllegalArgumentException(
-          "Missing PlayerID which is required for all actions.");
-    }
+    return createAction(ActionCommand.fromJson(actionJSON));
+  }
+
+  public Action createAction(ActionCommand command)
+    throws WaitingOnActionException {
+    int playerID = command.playerID();
+    String action = command.action();
+    JsonObject actionJSON = command.json();
     if (_referee.getTurn().waitingForFollowUp()) {
       FollowUpAction nextAction = _referee.getNextFollowUp(playerID);
       if (nextAction != null && action.equals(nextAction.getID())) {
@@ -94,18 +89,13 @@ public class ActionFactory {
           return new StartGame(_referee);
         case BuildCity.ID:
           return new BuildCity(_referee, playerID,
-              toIntersectionCoordinate(actionJSON.get("coordinate")
-                  .getAsJsonObject()));
+              command.coordinate());
         case BuildSettlement.ID:
           return new BuildSettlement(_referee, playerID,
-              toIntersectionCoordinate(actionJSON.get("coordinate")
-                  .getAsJsonObject()), true);
+              command.coordinate(), true);
         case BuildRoad.ID:
-          IntersectionCoordinate start = toIntersectionCoordinate(actionJSON
-              .get("start").getAsJsonObject());
-          IntersectionCoordinate end = toIntersectionCoordinate(actionJSON.get(
-              "end").getAsJsonObject());
-          return new BuildRoad(_referee, playerID, start, end, true);
+          return new BuildRoad(_referee, playerID, command.start(),
+              command.end(), true);
         case BuyDevelopmentCard.ID:
           return new BuyDevelopmentCard(_referee, playerID);
         case PlayMonopoly.ID:
@@ -128,20 +118,16 @@ public class ActionFactory {
         // --- Cities & Knights actions ---
         case PlaceKnight.ID:
           return new PlaceKnight(_referee, playerID,
-              toIntersectionCoordinate(actionJSON.get("coordinate")
-                  .getAsJsonObject()));
+              command.coordinate());
         case ActivateKnight.ID:
           return new ActivateKnight(_referee, playerID,
-              toIntersectionCoordinate(actionJSON.get("coordinate")
-                  .getAsJsonObject()));
+              command.coordinate());
         case PromoteKnight.ID:
           return new PromoteKnight(_referee, playerID,
-              toIntersectionCoordinate(actionJSON.get("coordinate")
-                  .getAsJsonObject()));
+              command.coordinate());
         case BuildCityWall.ID:
           return new BuildCityWall(_referee, playerID,
-              toIntersectionCoordinate(actionJSON.get("coordinate")
-                  .getAsJsonObject()));
+              command.coordinate());
         case ImproveCityTrack.ID:
           return new ImproveCityTrack(_referee, playerID,
               actionJSON.get("track").getAsString());
@@ -160,17 +146,4 @@ public class ActionFactory {
     }
   }
 
-  private IntersectionCoordinate toIntersectionCoordinate(JsonObject object) {
-    JsonObject coord1 = object.get("coord1").getAsJsonObject();
-    JsonObject coord2 = object.get("coord2").getAsJsonObject();
-    JsonObject coord3 = object.get("coord3").getAsJsonObject();
-    HexCoordinate h1 = new HexCoordinate(coord1.get("x").getAsInt(), coord1
-        .get("y").getAsInt(), coord1.get("z").getAsInt());
-    HexCoordinate h2 = new HexCoordinate(coord2.get("x").getAsInt(), coord2
-        .get("y").getAsInt(), coord2.get("z").getAsInt());
-    HexCoordinate h3 = new HexCoordinate(coord3.get("x").getAsInt(), coord3
-        .get("y").getAsInt(), coord3.get("z").getAsInt());
-    return new IntersectionCoordinate(h1, h2, h3);
-  }
-
 }
@@ -2,12 +2,10 @@ package edu.brown.cs.api;
 
 import java.util.Map;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 
 import edu.brown.cs.networking.API;
 import edu.brown.cs.networking.Group;
-import edu.brown.cs.networking.Networking;
 import edu.brown.cs.networking.RequestProcessor;
 import edu.brown.cs.networking.User;
 
@@ -15,25 +13,22 @@ public class ActionProcessor implements RequestProcessor {
 
   private static final String IDENTIFIER  = "action";
   private static final String REQUEST_KEY = "requestType";
-  private static final Gson   GSON        = new Gson();
 
 
   @Override
   public boolean run(User user, Group g, JsonObject json,
       API api) {
-    json.add("player", GSON.toJsonTree(String.valueOf(user.userID())));
-    System.out.println(json);
+    json.addProperty("player", user.userID());
 
-    Map<Integer, JsonObject> resp = api.performAction(json.toString());
+    // hand the parsed request straight over; it is not re-serialized.
+    Map<Integer, JsonObject> resp = api.performAction(json);
     for(User u : g.connectedUsers()) {
       if(resp.containsKey(u.userID())) {
         json.add("content", resp.get(u.userID()));
-        json.add("player", Networking.GSON.toJsonTree(u.userID()));
-        u.message(json);
+        json.addProperty("player", u.userID());
+        g.send(u, json);
         // and get game state
-        JsonObject gs = api.getGameState(u.userID());
-        gs.addProperty(REQUEST_KEY, "getGameState");
-        u.message(gs);
+        g.sendState(u, api.getGameStateUpdate(u.userID(), false));
       }
     }
     return true;
@@ -0,0 +1,91 @@
+package edu.brown.cs.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.networking.API;
+import edu.brown.cs.networking.Group;
+import edu.brown.cs.networking.RequestProcessor;
+import edu.brown.cs.networking.User;
+
+public class BatchProcessor implements RequestProcessor {
+
+  private static final String IDENTIFIER  = "batch";
+  private static final String REQUEST_KEY = "requestType";
+  private static final String ACTIONS     = "actions";
+  // each batch copies the game once, and holds it for all of its actions, so
+  // a batch is limited to about one turn's worth.
+  static final int MAX_ACTIONS = 16;
+
+
+  @Override
+  public boolean run(User user, Group g, JsonObject json,
+      API api) {
+    JsonArray sent = json.getAsJsonArray(ACTIONS);
+    if (sent.size() > MAX_ACTIONS) {
+      g.send(user, requestError("A batch can have at most " + MAX_ACTIONS
+          + " actions."));
+      return true;
+    }
+    List<JsonObject> actions = new ArrayList<>();
+    for (int i = 0; i < sent.size(); i++) {
+      JsonElement e = sent.get(i);
+      if (!e.isJsonObject()) {
+        // nothing has been done yet; say which one is wrong, as the API does.
+        JsonObject error = requestError("Each action in a batch must be an "
+            + "object.");
+        error.addProperty("failedAction", i);
+        g.send(user, error);
+        return true;
+      }
+      JsonObject action = e.getAsJsonObject();
+      action.addProperty("player", user.userID());
+      actions.add(action);
+    }
+
+    Map<Integer, JsonObject> resp = api.performBatch(actions);
+    if (resp.containsKey(-1)) {
+      // a malformed batch; only the sender needs to know.
+      JsonObject error = resp.get(-1);
+      error.addProperty(REQUEST_KEY, IDENTIFIER);
+      g.send(user, error);
+      return true;
+    }
+    // one combined response and one state update per player, however many
+    // actions were in the batch.
+    for (User u : g.connectedUsers()) {
+      if (resp.containsKey(u.userID())) {
+        JsonObject content = resp.get(u.userID());
+        content.addProperty(REQUEST_KEY, IDENTIFIER);
+        content.addProperty("player", u.userID());
+        g.send(u, content);
+        g.sendState(u, api.getGameStateUpdate(u.userID(), false));
+      }
+    }
+    return true;
+  }
+
+
+  private static JsonObject requestError(String message) {
+    JsonObject error = new JsonObject();
+    error.addProperty("requestError", "REQUEST ERROR: " + message);
+    error.addProperty(REQUEST_KEY, IDENTIFIER);
+    return error;
+  }
+
+
+  @Override
+  public boolean match(JsonObject j) {
+    if (j.has(REQUEST_KEY) && !j.get(REQUEST_KEY).isJsonNull()
+        && j.get(REQUEST_KEY).getAsString().equals(IDENTIFIER)) {
+      return j.has(ACTIONS) && j.get(ACTIONS).isJsonArray();
+    }
+    return false;
+  }
+
+}
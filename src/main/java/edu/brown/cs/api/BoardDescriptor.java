@@ -0,0 +1,102 @@
+package edu.brown.cs.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.common.hash.Hashing;
+
+import edu.brown.cs.board.Board;
+import edu.brown.cs.board.Intersection;
+import edu.brown.cs.board.Path;
+import edu.brown.cs.board.Tile;
+
+/**
+ * The parts of a board that never change once it is built: tile types and
+ * coordinates, ports, and where intersections and paths are. It is sent to a
+ * client once and identified by a hash of its content, so the client can keep
+ * it across reconnects. Game states then list tiles, intersections and paths
+ * in descriptor order with only their changing fields, and paths name their
+ * ends by intersection index.
+ *
+ */
+final class BoardDescriptor {
+
+  private static final int HASH_LENGTH = 16;
+
+  private final Board _board;
+  private final List<Tile> _tiles;
+  private final List<Intersection> _intersections;
+  private final List<Path> _paths;
+  private final String _hash;
+  private final String _json;
+
+  BoardDescriptor(Board board, GameStateWriter writer) {
+    _board = board;
+    _tiles = Collections.unmodifiableList(new ArrayList<>(board.getTiles()));
+    _intersections = Collections.unmodifiableList(new ArrayList<>(board
+        .getIntersections().values()));
+    _paths = Collections.unmodifiableList(new ArrayList<>(board.getPaths()
+        .values()));
+
+    Map<Intersection, Integer> index = new IdentityHashMap<>();
+    for (int i = 0; i < _intersections.size(); i++) {
+      index.put(_intersections.get(i), i);
+    }
+    StringBuilder layout = new StringBuilder("\"tiles\":[");
+    for (int i = 0; i < _tiles.size(); i++) {
+      layout.append(i > 0 ? "," : "").append(writer.tileLayout(_tiles.get(i)));
+    }
+    layout.append("],\"intersections\":[");
+    for (int i = 0; i < _intersections.size(); i++) {
+      layout.append(i > 0 ? "," : "").append(
+          writer.intersectionLayout(_intersections.get(i)));
+    }
+    layout.append("],\"paths\":[");
+    for (int i = 0; i < _paths.size(); i++) {
+      Path path = _paths.get(i);
+      layout.append(i > 0 ? "," : "").append(
+          writer.pathLayout(index.get(path.getStart()),
+              index.get(path.getEnd())));
+    }
+    layout.append(']');
+
+    _hash = Hashing.sha256()
+        .hashString(layout, StandardCharsets.UTF_8).toString()
+        .substring(0, HASH_LENGTH);
+    _json = "{\"hash\":\"" + _hash + "\"," + layout + "}";
+  }
+
+  /**
+   * @param board
+   *          A board.
+   * @return Whether this descriptor was built from that very board.
+   */
+  boolean describes(Board board) {
+    return _board == board;
+  }
+
+  String hash() {
+    return _hash;
+  }
+
+  String json() {
+    return _json;
+  }
+
+  List<Tile> tiles() {
+    return _tiles;
+  }
+
+  List<Intersection> intersections() {
+    return _intersections;
+  }
+
+  List<Path> paths() {
+    return _paths;
+  }
+
+}
@@ -1,8 +1,14 @@
 package edu.brown.cs.api;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSyntaxException;
@@ -10,22 +16,29 @@ import com.google.gson.JsonSyntaxException;
 import edu.brown.cs.actions.ActionResponse;
 import edu.brown.cs.catan.GameSettings;
 import edu.brown.cs.catan.MasterReferee;
-import edu.brown.cs.catan.Referee;
+import edu.brown.cs.catan.MasterReferee.Snapshot;
+import edu.brown.cs.catan.Player;
 import edu.brown.cs.catan.Referee.GameStatus;
+import edu.brown.cs.events.ResourcesProduced;
+import edu.brown.cs.gamestats.CatanStats;
+import edu.brown.cs.gamestats.GameStats;
 import edu.brown.cs.networking.API;
 
 public class CatanAPI implements API {
 
-  public Referee _referee;
+  public MasterReferee _referee;
   private CatanConverter _converter;
   private ActionFactory _actionFactory;
+  private GameSettings _settings;
 
   // don't add constructor variables to the API without talking to Nick! I use
   // CatanAPI.class.newInstance() which breaks with constructor params.
   public CatanAPI() {
-    _referee = new MasterReferee();
+    _settings = new GameSettings();
+    _referee = new MasterReferee(_settings);
     _converter = new CatanConverter();
     _actionFactory = new ActionFactory(_referee);
+    countRolls();
   }
 
   @Override
@@ -35,6 +48,34 @@ public class CatanAPI implements API {
     }
   }
 
+  @Override
+  public String getGameStateUpdate(int playerID, boolean forceFull) {
+    synchronized (this) {
+      return _converter.getGameStateUpdate(_referee, playerID, forceFull);
+    }
+  }
+
+  @Override
+  public String getSpectatorState(boolean withBoard) {
+    synchronized (this) {
+      return _converter.getSpectatorState(_referee, withBoard);
+    }
+  }
+
+  @Override
+  public void acknowledgeState(int playerID, int version) {
+    synchronized (this) {
+      _converter.acknowledgeState(playerID, version);
+    }
+  }
+
+  @Override
+  public void acknowledgeBoard(int playerID, String hash) {
+    synchronized (this) {
+      _converter.acknowledgeBoard(playerID, hash);
+    }
+  }
+
   /**
    * Adds a player to a game of Catan. This should, and can, only be called
    * before a game has started.
@@ -53,8 +94,10 @@ public class CatanAPI implements API {
   public int addPlayer(JsonObject playerAttributes) {
     synchronized (this) {
       try {
-        return _referee.addPlayer(playerAttributes.get("userName")
-            .getAsString());
+        String name = playerAttributes.get("userName").getAsString();
+        int id = _referee.addPlayer(name);
+        _converter.stateChanged();
+        return id;
       } catch (JsonSyntaxException | NullPointerException e) {
         throw new IllegalArgumentException(
             "To add a player, you must have userName as a field.");
@@ -68,6 +111,7 @@ public class CatanAPI implements API {
       throw new UnsupportedOperationException(
           "You cannot remove a player during a game.");
     }
+    _converter.stateChanged();
     return _referee.removePlayer(id);
   }
 
@@ -90,49 +134,205 @@ public class CatanAPI implements API {
       if (action == null) {
         throw new IllegalArgumentException("Input cannot be null.");
       }
+      _converter.stateChanged();
       try {
         Map<Integer, ActionResponse> responses = _actionFactory.createAction(
             action).execute();
-        return _converter.responseToJSON(responses);
+        recordIfOver();
+        return _converter.responseToJSON(responses, this);
       } catch (IllegalArgumentException e) {
-        System.out
-            .println("ERROR: Perform Action - " + e.getLocalizedMessage());
-        JsonObject json = new JsonObject();
-        json.add("requestError",
-            new JsonPrimitive("REQUEST ERROR: " + e.getLocalizedMessage()));
-        return ImmutableMap.of(-1, json);
+        return requestError(e);
       } catch (WaitingOnActionException e) {
-        return _converter.responseToJSON(e.getResponses());
+        return _converter.responseToJSON(e.getResponses(), this);
       }
     }
   }
 
+  /**
+   * Performs a Catan Action that has already been parsed, without converting
+   * it back to text. Locations may also be given as board ids; see the README.
+   *
+   * @param action
+   *          The action parameters. Must contain "player" and "action".
+   * @return See {@link #performAction(String)}. Each response is only
+   *         converted when it is read from the map.
+   */
+  @Override
   public Map<Integer, JsonObject> performAction(JsonObject action) {
+    synchronized (this) {
+      try {
+        Map<Integer, ActionResponse> responses = perform(action);
+        recordIfOver();
+        return _converter.responseToJSON(responses, this);
+      } catch (IllegalArgumentException e) {
+        return requestError(e);
+      }
+    }
+  }
+
+  // performAction, but without converting the responses, or recording a win
+  // that a batch may roll back.
+  private Map<Integer, ActionResponse> perform(JsonObject action) {
     if (action == null) {
       throw new IllegalArgumentException("Input cannot be null.");
     }
     synchronized (this) {
+      _converter.stateChanged();
       try {
-        Map<Integer, ActionResponse> responses = _actionFactory.createAction(
-            action).execute();
-        return _converter.responseToJSON(responses);
-      } catch (IllegalArgumentException e) {
-        System.out
-            .println("ERROR: Perform Action - " + e.getLocalizedMessage());
-        JsonObject json = new JsonObject();
-        json.add("requestError",
-            new JsonPrimitive("REQUEST ERROR: " + e.getLocalizedMessage()));
-        return ImmutableMap.of(-1, json);
+        ActionCommand command = ActionCommand.fromJson(action, _converter
+            .descriptor(_referee.getBoard()));
+        return _actionFactory.createAction(command).execute();
       } catch (WaitingOnActionException e) {
-        return _converter.responseToJSON(e.getResponses());
+        return e.getResponses();
+      }
+    }
+  }
+
+  private static Map<Integer, JsonObject> requestError(
+      IllegalArgumentException e) {
+    System.out.println("ERROR: Perform Action - " + e.getLocalizedMessage());
+    JsonObject json = new JsonObject();
+    json.add("requestError",
+        new JsonPrimitive("REQUEST ERROR: " + e.getLocalizedMessage()));
+    return ImmutableMap.of(-1, json);
+  }
+
+  /**
+   * Performs a list of Catan Actions, in order, as one: if any of them fails
+   * the game is rolled back to a snapshot taken before the first, and none of
+   * their responses are returned. The snapshot costs one copy of the game,
+   * however long it has run. An action fails if the request is malformed
+   * or if the response to the player who made it is unsuccessful.
+   *
+   * @param actions
+   *          The parsed actions, each as for {@link #performAction(JsonObject)}.
+   * @return A Map from Player IDs to a JSON object with "success": true and
+   *         "results", the {"action", "content"} pairs that player received, in
+   *         order. If an action fails, only the player who made it gets a
+   *         response, with "success": false, "failedAction", the index of that
+   *         action, and "message", why it failed. The results of the actions
+   *         before it are not sent: they were undone, and could show what a
+   *         roll or a draw would have been. A malformed action
+   *         maps -1 to its request error, with "failedAction" added. As for
+   *         {@link #performAction(JsonObject)}, a player's results are only
+   *         converted when they are read from the map.
+   */
+  @Override
+  public Map<Integer, JsonObject> performBatch(List<JsonObject> actions) {
+    if (actions == null) {
+      throw new IllegalArgumentException("Input cannot be null.");
+    }
+    synchronized (this) {
+      Snapshot mark = _referee.snapshot();
+      Map<Integer, List<Result>> results = new HashMap<>();
+      for (int i = 0; i < actions.size(); i++) {
+        JsonObject action = actions.get(i);
+        JsonElement name = action.get("action");
+        Map<Integer, ActionResponse> responses;
+        try {
+          responses = perform(action);
+        } catch (IllegalArgumentException e) {
+          rollBack(mark);
+          JsonObject error = requestError(e).get(-1);
+          error.addProperty("failedAction", i);
+          return ImmutableMap.of(-1, error);
+        }
+        for (Map.Entry<Integer, ActionResponse> entry : responses.entrySet()) {
+          List<Result> forPlayer = results.get(entry.getKey());
+          if (forPlayer == null) {
+            forPlayer = new ArrayList<>();
+            results.put(entry.getKey(), forPlayer);
+          }
+          forPlayer.add(new Result(name, entry.getValue()));
+        }
+        int actor = action.get("player").getAsInt();
+        ActionResponse own = responses.get(actor);
+        if (own == null || !own.getSuccess()) {
+          rollBack(mark);
+          JsonObject failed = new JsonObject();
+          failed.addProperty("success", false);
+          failed.addProperty("failedAction", i);
+          failed.addProperty("message", own == null
+              ? "You could not do that now." : own.getMessage());
+          return ImmutableMap.of(actor, failed);
+        }
+      }
+      recordIfOver();
+      return Maps.transformValues(results, forPlayer -> {
+        synchronized (this) {
+          return resultsToJSON(forPlayer);
+        }
+      });
+    }
+  }
+
+  private JsonObject resultsToJSON(List<Result> results) {
+    JsonObject toRet = new JsonObject();
+    toRet.addProperty("success", true);
+    JsonArray array = new JsonArray();
+    if (results != null) {
+      for (Result result : results) {
+        JsonObject json = new JsonObject();
+        json.add("action", result._action);
+        json.add("content", _converter.responseToJSON(result._response));
+        array.add(json);
       }
     }
+    toRet.add("results", array);
+    return toRet;
+  }
+
+  // Hands the stats of a game that has just been won to CatanStats, once. They
+  // are written to disk on another thread, if at all.
+  private void recordIfOver() {
+    Player winner = _referee.getWinner();
+    GameStats stats = _referee.getGameStats();
+    if (winner == null || stats.isFinished()) {
+      return;
+    }
+    for (Player p : _referee.getPlayers()) {
+      stats.addOutcome(p.getID(), p.getName(), p.getColor(),
+          _referee.getNumTotalPoints(p.getID()));
+    }
+    stats.finish(_referee.getTurn().getTurnNum(),
+        _settings.winningPointCount, _settings.isCitiesAndKnights,
+        winner.getID());
+    CatanStats.processGameStats(stats);
+  }
+
+  // Puts the game back as it was at mark. The restored referee keeps the
+  // game's EventBus, so its subscribers are unchanged.
+  private void rollBack(Snapshot mark) {
+    _referee = _referee.restore(mark);
+    _actionFactory = new ActionFactory(_referee);
+    _converter.stateChanged();
   }
 
   @Override
   public void setSettings(JsonObject settings) {
-    _referee = new MasterReferee(new GameSettings(settings));
+    _settings = new GameSettings(settings);
+    _referee = new MasterReferee(_settings);
     _actionFactory = new ActionFactory(_referee);
+    _converter.stateChanged();
+    countRolls();
+  }
+
+  // Counts every roll in the game's stats. Subscribed once per new referee:
+  // one restored by rollBack keeps the bus, and the stats it was restored with.
+  private void countRolls() {
+    _referee.getEventBus().subscribe(ResourcesProduced.class,
+        produced -> _referee.getGameStats().addRoll(produced.roll()));
+  }
+
+  // One player's response to one action of a batch.
+  private static final class Result {
+    private final JsonElement _action;
+    private final ActionResponse _response;
+
+    Result(JsonElement action, ActionResponse response) {
+      _action = action;
+      _response = response;
+    }
   }
 
 }
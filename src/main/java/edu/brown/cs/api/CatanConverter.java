@@ -6,7 +6,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import com.google.gson.Gson;
+import com.google.common.collect.Maps;
 import com.google.gson.JsonObject;
 
 import edu.brown.cs.catan.BarbarianTrack;
@@ -39,33 +39,324 @@ import edu.brown.cs.catan.Resource;
 
 public class CatanConverter {
 
-  private Gson _gson;
+  static final String SPECTATOR_STATE = "spectatorState";
+
+  private final StateTracker _states = new StateTracker();
+  private final GameStateWriter _writer = new GameStateWriter();
+  private int _stateVersion;
+  private PublicView _publicView;
+  private BoardDescriptor _descriptor;
 
   public CatanSettings getSettings(String settings) {
     try {
-      return _gson.fromJson(settings, CatanSettings.class);
+      return Serialization.GSON.fromJson(settings, CatanSettings.class);
     } catch (Exception e) { // TODO: change to something better?
       throw new IllegalArgumentException("Could not parse settings JSON.");
     }
 
   }
 
-  public CatanConverter() {
-    _gson = new Gson();
+  public JsonObject getGameState(Referee ref, int playerID) {
+    return Serialization.GSON.toJsonTree(new GameState(ref, playerID))
+        .getAsJsonObject();
   }
 
-  public JsonObject getGameState(Referee ref, int playerID) {
-    return _gson.toJsonTree(new GameState(ref, playerID)).getAsJsonObject();
+  /**
+   * Marks the game state as changed, so that the public view shared by all
+   * players is rebuilt on the next update. Must be called after every action
+   * or change of players.
+   */
+  public void stateChanged() {
+    _stateVersion++;
   }
 
-  public Map<Integer, JsonObject> responseToJSON(
-      Map<Integer, ActionResponse> response) {
-    Map<Integer, JsonObject> toReturn = new HashMap<>();
-    for (Map.Entry<Integer, ActionResponse> entry : response.entrySet()) {
-      toReturn.put(entry.getKey(), _gson.toJsonTree(entry.getValue())
-          .getAsJsonObject());
+  /**
+   * Encodes the game state for a player as a message ready to be sent. The
+   * message is either a full state or, once the player has acknowledged an
+   * earlier version, only the fields that changed since that version. The
+   * board in it refers to a BoardDescriptor, which is included until the
+   * player is known to hold it.
+   *
+   * @param ref
+   *          Referee of the game.
+   * @param playerID
+   *          Player the state is for.
+   * @param forceFull
+   *          Whether to send a full state regardless of what was acknowledged.
+   * @return The message text.
+   */
+  public String getGameStateUpdate(Referee ref, int playerID,
+      boolean forceFull) {
+    PublicView view = publicView(ref);
+    return _states.update(playerID, view.stateFor(ref, playerID),
+        view.descriptor, forceFull);
+  }
+
+  /**
+   * Encodes the game state as a spectator sees it: what every player can see,
+   * with no hand, follow up or build options. It is a full state tagged with
+   * the state version, the same for every spectator, and is encoded once per
+   * version.
+   *
+   * @param ref
+   *          Referee of the game.
+   * @param withBoard
+   *          Whether to include the board descriptor, for a spectator that
+   *          has just joined.
+   * @return The message text.
+   */
+  public String getSpectatorState(Referee ref, boolean withBoard) {
+    PublicView view = publicView(ref);
+    if (withBoard) {
+      return view.spectatorText(true);
+    }
+    if (view.spectatorText == null) {
+      view.spectatorText = view.spectatorText(false);
+    }
+    return view.spectatorText;
+  }
+
+  private PublicView publicView(Referee ref) {
+    BoardDescriptor descriptor = descriptor(ref.getBoard());
+    if (_publicView == null || _publicView.version != _stateVersion
+        || _publicView.descriptor != descriptor) {
+      _publicView = new PublicView(ref, _stateVersion);
     }
-    return toReturn;
+    return _publicView;
+  }
+
+  /**
+   * @param board
+   *          The board of the game.
+   * @return The descriptor of that board, built the first time it is needed.
+   */
+  BoardDescriptor descriptor(Board board) {
+    if (_descriptor == null || !_descriptor.describes(board)) {
+      _descriptor = new BoardDescriptor(board, _writer);
+    }
+    return _descriptor;
+  }
+
+  /**
+   * Records which board descriptor a player already holds, as declared by the
+   * client when it asks for a full state.
+   *
+   * @param playerID
+   *          Player declaring.
+   * @param hash
+   *          Hash of the descriptor the client has cached, or null if none.
+   */
+  public void acknowledgeBoard(int playerID, String hash) {
+    _states.acknowledgeBoard(playerID, hash);
+  }
+
+  /**
+   * Records that a player has received a given state version.
+   *
+   * @param playerID
+   *          Player acknowledging.
+   * @param version
+   *          Version the player now holds.
+   */
+  public void acknowledgeState(int playerID, int version) {
+    _states.acknowledge(playerID, version);
+  }
+
+  private static EncodedState.Leaf leaf(String json) {
+    return new EncodedState.Leaf(json);
+  }
+
+  // The part of the game state that is the same for every player, encoded once
+  // per state version. Each player's state is spliced together from these
+  // leaves plus its own hand and follow up. Intersections and paths carry a
+  // per-player "can build" flag, so each is encoded once per flag value. The
+  // static board layout lives in _descriptor, in the same order. Spectators
+  // get the leaves alone, with every flag unset.
+  private class PublicView {
+    private final int version;
+    private String spectatorText;
+    private final EncodedState.Leaf turnOrder;
+    private final EncodedState.Leaf winner;
+    private final EncodedState.Leaf currentTurn;
+    private final EncodedState.Arr players;
+    private final EncodedState.Leaf settings;
+    private final EncodedState.Leaf stats;
+    private final EncodedState.Leaf barbarianTrack;
+    private final EncodedState.Leaf merchantOwner;
+    private final EncodedState.Leaf merchantHex;
+    private final BoardDescriptor descriptor;
+    private final EncodedState.Leaf descriptorHash;
+    private final EncodedState.Arr tiles;
+    private final List<Intersection> intersections;
+    private final List<String> metropolises;
+    private final List<Path> paths;
+    private final EncodedState.Leaf[][] intersectionLeaves;
+    private final EncodedState.Leaf[][] pathLeaves;
+
+    PublicView(Referee ref, int version) {
+      this.version = version;
+      Board board = ref.getBoard();
+      turnOrder = ref.getGameStatus() != GameStatus.WAITING ? leaf(_writer
+          .integers(ref.getTurnOrder())) : null;
+      winner = ref.getWinner() != null ? leaf(_writer.number(ref.getWinner()
+          .getID())) : null;
+      currentTurn = leaf(_writer.number(ref.currentPlayer() != null ? ref
+          .currentPlayer().getID() : -1));
+      players = new EncodedState.Arr();
+      Referee readOnly = ref.getReadOnlyReferee();
+      for (Player p : ref.getPlayers()) {
+        players.add(leaf(_writer.player(p, readOnly)));
+      }
+      settings = leaf(_writer.settings(ref.getGameSettings()));
+      stats = leaf(_writer.stats(ref));
+      if (ref.getGameSettings().isCitiesAndKnights
+          && ref instanceof MasterReferee) {
+        MasterReferee mr = (MasterReferee) ref;
+        barbarianTrack = leaf(_writer.barbarianTrack(mr.getBarbarianTrack()));
+        boolean hasMerchant = mr.getMerchantOwner() >= 0;
+        merchantOwner = hasMerchant ? leaf(_writer.number(mr
+            .getMerchantOwner())) : null;
+        merchantHex = hasMerchant && mr.getMerchantHex() != null ? leaf(_writer
+            .hexCoordinate(mr.getMerchantHex())) : null;
+      } else {
+        barbarianTrack = null;
+        merchantOwner = null;
+        merchantHex = null;
+      }
+
+      descriptor = _descriptor;
+      descriptorHash = leaf("\"" + descriptor.hash() + "\"");
+      tiles = new EncodedState.Arr();
+      for (Tile tile : _descriptor.tiles()) {
+        tiles.add(leaf(_writer.tile(tile)));
+      }
+      Map<IntersectionCoordinate, String> metropolisMap = metropolises(ref,
+          board);
+      intersections = _descriptor.intersections();
+      metropolises = new ArrayList<>();
+      for (Intersection i : intersections) {
+        metropolises.add(metropolisMap.get(i.getPosition()));
+      }
+      paths = _descriptor.paths();
+      intersectionLeaves = new EncodedState.Leaf[intersections.size()][2];
+      pathLeaves = new EncodedState.Leaf[paths.size()][2];
+    }
+
+    String spectatorText(boolean withBoard) {
+      EncodedState.Arr intersectionArr = new EncodedState.Arr();
+      for (int i = 0; i < intersections.size(); i++) {
+        if (intersectionLeaves[i][0] == null) {
+          intersectionLeaves[i][0] = leaf(_writer.intersection(
+              intersections.get(i), metropolises.get(i), false));
+        }
+        intersectionArr.add(intersectionLeaves[i][0]);
+      }
+      EncodedState.Arr pathArr = new EncodedState.Arr();
+      for (int i = 0; i < paths.size(); i++) {
+        if (pathLeaves[i][0] == null) {
+          pathLeaves[i][0] = leaf(_writer.path(paths.get(i), false));
+        }
+        pathArr.add(pathLeaves[i][0]);
+      }
+      EncodedState.Obj state = new EncodedState.Obj()
+          .put("turnOrder", turnOrder)
+          .put("winner", winner)
+          .put("board", board(intersectionArr, pathArr))
+          .put("currentTurn", currentTurn)
+          .put("players", players)
+          .put("settings", settings)
+          .put("stats", stats)
+          .put("barbarianTrack", barbarianTrack)
+          .put("merchantOwner", merchantOwner)
+          .put("merchantHex", merchantHex);
+
+      StringBuilder out = new StringBuilder();
+      out.append("{\"requestType\":\"").append(SPECTATOR_STATE)
+          .append("\",\"version\":").append(version);
+      if (withBoard) {
+        out.append(",\"boardDescriptor\":").append(descriptor.json());
+      }
+      state.writeFieldsTo(out, true);
+      return out.append('}').toString();
+    }
+
+    private EncodedState.Obj board(EncodedState.Arr intersectionArr,
+        EncodedState.Arr pathArr) {
+      return new EncodedState.Obj()
+          .put("descriptor", descriptorHash)
+          .put("tiles", tiles)
+          .put("intersections", intersectionArr)
+          .put("paths", pathArr);
+    }
+
+    EncodedState.Obj stateFor(Referee ref, int playerID) {
+      EncodedState.Arr intersectionArr = new EncodedState.Arr();
+      for (int i = 0; i < intersections.size(); i++) {
+        Intersection intersection = intersections.get(i);
+        boolean canBuild = intersection.canPlaceSettlement(ref, playerID);
+        int variant = canBuild ? 1 : 0;
+        if (intersectionLeaves[i][variant] == null) {
+          intersectionLeaves[i][variant] = leaf(_writer.intersection(
+              intersection, metropolises.get(i), canBuild));
+        }
+        intersectionArr.add(intersectionLeaves[i][variant]);
+      }
+      EncodedState.Arr pathArr = new EncodedState.Arr();
+      Referee readOnly = ref.getReadOnlyReferee();
+      for (int i = 0; i < paths.size(); i++) {
+        boolean canBuild = canBuildRoad(readOnly, paths.get(i), playerID);
+        int variant = canBuild ? 1 : 0;
+        if (pathLeaves[i][variant] == null) {
+          pathLeaves[i][variant] = leaf(_writer.path(paths.get(i), canBuild));
+        }
+        pathArr.add(pathLeaves[i][variant]);
+      }
+      EncodedState.Obj board = board(intersectionArr, pathArr);
+
+      FollowUpAction followUp = ref.getNextFollowUp(playerID);
+      return new EncodedState.Obj()
+          .put("playerID", leaf(_writer.number(playerID)))
+          .put("turnOrder", turnOrder)
+          .put("winner", winner)
+          .put("hand", leaf(_writer.hand(ref.getPlayerByID(playerID),
+              ref.getGameSettings().isCitiesAndKnights)))
+          .put("board", board)
+          .put("currentTurn", currentTurn)
+          .put("followUp", followUp != null ? leaf(_writer.followUp(followUp))
+              : null)
+          .put("players", players)
+          .put("settings", settings)
+          .put("stats", stats)
+          .put("barbarianTrack", barbarianTrack)
+          .put("merchantOwner", merchantOwner)
+          .put("merchantHex", merchantHex);
+    }
+  }
+
+  /**
+   * Converts the responses to an action for sending. The map is a view: a
+   * response is only converted, and its message rendered, when it is read, so
+   * a response to a player who is sent nothing costs nothing. It is converted
+   * again each time it is read, holding {@code lock}, and should be read
+   * before the game moves on.
+   *
+   * @param response
+   *          The responses, by player ID.
+   * @param lock
+   *          The lock of the game the responses came from.
+   * @return The responses as JSON, by player ID.
+   */
+  public Map<Integer, JsonObject> responseToJSON(
+      Map<Integer, ActionResponse> response, Object lock) {
+    return Maps.transformValues(response, r -> {
+      synchronized (lock) {
+        return responseToJSON(r);
+      }
+    });
+  }
+
+  public JsonObject responseToJSON(ActionResponse response) {
+    return Serialization.GSON.toJsonTree(response).getAsJsonObject();
   }
 
   private static class GameState {
@@ -169,48 +460,13 @@ public class CatanConverter {
 
     public BoardRaw(Referee ref, Board board, int playerID) {
       intersections = new ArrayList<>();
-      Map<IntersectionCoordinate, String> metropolisMap = new HashMap<>();
-
-      // Calculate metropolises if C&K
-      if (ref.getGameSettings().isCitiesAndKnights && ref instanceof MasterReferee) {
-        MasterReferee mr = (MasterReferee) ref;
-        // Group cities by player
-        Map<Integer, List<Intersection>> playerCities = new HashMap<>();
-        for (Intersection i : board.getIntersections().values()) {
-          if (i.getBuilding() != null && i.getBuilding() instanceof City) {
-            int owner = i.getBuilding().getPlayer().getID();
-            if (!playerCities.containsKey(owner)) {
-              playerCities.put(owner, new ArrayList<>());
-            }
-            playerCities.get(owner).add(i);
-          }
-        }
-
-        // Assign metropolises
-        for (Map.Entry<Integer, List<Intersection>> entry : playerCities.entrySet()) {
-          int pid = entry.getKey();
-          List<Intersection> cities = entry.getValue();
-          // Sort consistently
-          cities.sort((a, b) -> a.getPosition().toString().compareTo(b.getPosition().toString()));
-
-          // Check owned metropolises
-          List<String> ownedMetros = new ArrayList<>();
-          if (Integer.valueOf(pid).equals(mr.getMetropolisOwner(CityImprovement.Track.TRADE)))
-            ownedMetros.add("trade");
-          if (Integer.valueOf(pid).equals(mr.getMetropolisOwner(CityImprovement.Track.POLITICS)))
-            ownedMetros.add("politics");
-          if (Integer.valueOf(pid).equals(mr.getMetropolisOwner(CityImprovement.Track.SCIENCE)))
-            ownedMetros.add("science");
-
-          for (int j = 0; j < Math.min(cities.size(), ownedMetros.size()); j++) {
-            metropolisMap.put(cities.get(j).getPosition(), ownedMetros.get(j));
-          }
-        }
-      }
+      Map<IntersectionCoordinate, String> metropolisMap = metropolises(ref,
+          board);
 
       for (Intersection intersection : board.getIntersections().values()) {
         String metro = metropolisMap.get(intersection.getPosition());
-        intersections.add(new IntersectionRaw(intersection, ref, playerID, metro));
+        intersections.add(new IntersectionRaw(intersection, metro,
+            intersection.canPlaceSettlement(ref, playerID)));
       }
       paths = new ArrayList<>();
       for (Path path : board.getPaths().values()) {
@@ -224,6 +480,54 @@ public class CatanConverter {
     }
   }
 
+  // Which cities are drawn as metropolises, by position. Empty outside of C&K.
+  private static Map<IntersectionCoordinate, String> metropolises(Referee ref,
+      Board board) {
+    Map<IntersectionCoordinate, String> metropolisMap = new HashMap<>();
+    if (ref.getGameSettings().isCitiesAndKnights && ref instanceof MasterReferee) {
+      MasterReferee mr = (MasterReferee) ref;
+      // Group cities by player
+      Map<Integer, List<Intersection>> playerCities = new HashMap<>();
+      for (Intersection i : board.getIntersections().values()) {
+        if (i.getBuilding() != null && i.getBuilding() instanceof City) {
+          int owner = i.getBuilding().getPlayer().getID();
+          if (!playerCities.containsKey(owner)) {
+            playerCities.put(owner, new ArrayList<>());
+          }
+          playerCities.get(owner).add(i);
+        }
+      }
+
+      // Assign metropolises
+      for (Map.Entry<Integer, List<Intersection>> entry : playerCities.entrySet()) {
+        int pid = entry.getKey();
+        List<Intersection> cities = entry.getValue();
+        // Sort consistently
+        cities.sort((a, b) -> a.getPosition().toString().compareTo(b.getPosition().toString()));
+
+        // Check owned metropolises
+        List<String> ownedMetros = new ArrayList<>();
+        if (Integer.valueOf(pid).equals(mr.getMetropolisOwner(CityImprovement.Track.TRADE)))
+          ownedMetros.add("trade");
+        if (Integer.valueOf(pid).equals(mr.getMetropolisOwner(CityImprovement.Track.POLITICS)))
+          ownedMetros.add("politics");
+        if (Integer.valueOf(pid).equals(mr.getMetropolisOwner(CityImprovement.Track.SCIENCE)))
+          ownedMetros.add("science");
+
+        for (int j = 0; j < Math.min(cities.size(), ownedMetros.size()); j++) {
+          metropolisMap.put(cities.get(j).getPosition(), ownedMetros.get(j));
+        }
+      }
+    }
+    return metropolisMap;
+  }
+
+  private static boolean canBuildRoad(Referee ref, Path path, int playerID) {
+    return ref.getGameStatus() == GameStatus.SETUP ? path
+        .canPlaceSetupRoad(ref.getSetup())
+        : path.canPlaceRoad(ref.getPlayerByID(playerID));
+  }
+
   public static class PathRaw {
     private IntersectionCoordinate start;
     private IntersectionCoordinate end;
@@ -231,13 +535,14 @@ public class CatanConverter {
     private boolean canBuildRoad;
 
     public PathRaw(Referee ref, Path path, int playerID) {
+      this(path, canBuildRoad(ref, path, playerID));
+    }
+
+    PathRaw(Path path, boolean canBuildRoad) {
       start = path.getStart().getPosition();
       end = path.getEnd().getPosition();
       road = path.getRoad() != null ? new RoadRaw(path.getRoad()) : null;
-      canBuildRoad = ref.getGameStatus() == GameStatus.SETUP ? path
-          .canPlaceSetupRoad(ref.getSetup())
-          : path.canPlaceRoad(ref
-              .getPlayerByID(playerID));
+      this.canBuildRoad = canBuildRoad;
     }
 
   }
@@ -286,12 +591,13 @@ public class CatanConverter {
     private final IntersectionCoordinate coordinate;
     private final boolean canBuildSettlement;
 
-    IntersectionRaw(Intersection i, Referee ref, int playerID, String metropolis) {
+    IntersectionRaw(Intersection i, String metropolis,
+        boolean canBuildSettlement) {
       building = i.getBuilding() != null ? new BuildingRaw(i.getBuilding(), metropolis)
           : null;
       port = i.getPort();
       coordinate = i.getPosition();
-      canBuildSettlement = i.canPlaceSettlement(ref, playerID);
+      this.canBuildSettlement = canBuildSettlement;
     }
 
   }
@@ -402,4 +708,5 @@ public class CatanConverter {
       this.attackCount = track.getAttackCount();
     }
   }
+
 }
@@ -3,7 +3,6 @@ package edu.brown.cs.api;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Optional;
 
 import com.google.gson.JsonObject;
 
@@ -31,13 +30,19 @@ public class CatanGroupSelector implements GroupSelector {
   private static final String                GAME_REQUEST_ID      =
       "desiredGroupId";
   private static final String                GAME_NAME_IDENTIFIER = "groupName";
+  private static final String                QUICK_MATCH          =
+      "quickMatch";
   private final Collection<RequestProcessor> catanProcessors;
+  private final MatchmakingIndex             index                =
+      new MatchmakingIndex();
 
 
   public CatanGroupSelector() {
     catanProcessors = new ArrayList<>();
     catanProcessors.add(new GetGameStateProcessor());
+    catanProcessors.add(new AckStateProcessor());
     catanProcessors.add(new ActionProcessor());
+    catanProcessors.add(new BatchProcessor());
     catanProcessors.add(new ChatProcessor());
     catanProcessors.add(new GameOverProcessor());
   }
@@ -45,24 +50,15 @@ public class CatanGroupSelector implements GroupSelector {
 
   @Override
   public Group selectFor(User u, Collection<Group> coll) {
-    Optional<Group> usersExistingGroup =
-        coll.stream().filter(g -> g.hasUser(u)).findFirst();
-    if (usersExistingGroup.isPresent()) {
-      return usersExistingGroup.get();
-    }
-    System.out.println("No game has " + u);
+    // users already in a group are sent back to it by the GCT, from its index,
+    // so u is in none of these.
     if (u.getFieldsAsJson().has(GAME_REQUEST_ID)) {
-      Optional<Group> requested = coll.stream()
-          .filter(ug -> !ug.isFull()
-              && ug.identifier().equals(u.getField(GAME_REQUEST_ID)))
-          .findFirst();
-      if (requested.isPresent()) {
-        return requested.get();
+      Group requested = index.byId(u.getField(GAME_REQUEST_ID));
+      if (requested == null) {
+        System.out.println("Requested game is not open.");
       }
-      System.out.println("returning null");
-      return null;
+      return requested;
     }
-    System.out.println("No game requested.");
 
     int desiredSize = -1;
     try {
@@ -81,10 +77,6 @@ public class CatanGroupSelector implements GroupSelector {
     boolean isStandard = Boolean.parseBoolean(u.getField(IS_STANDARD));
     boolean isCitiesAndKnights = Boolean.parseBoolean(u.getField(IS_CITIES_AND_KNIGHTS));
 
-    // name the game
-    String name = u.hasField(GAME_NAME_IDENTIFIER)
-        ? u.getField(GAME_NAME_IDENTIFIER) : "Unnamed game";
-
     // MAKE SETTINGS :
     JsonObject settings = new JsonObject();
     settings.addProperty("numPlayers", desiredSize);
@@ -93,15 +85,38 @@ public class CatanGroupSelector implements GroupSelector {
     settings.addProperty("isDynamic", isDynamic);
     settings.addProperty("isStandard", isStandard);
     settings.addProperty("isCitiesAndKnights", isCitiesAndKnights);
+    String signature = settings.toString();
+
+    boolean quickMatch = u.hasField(QUICK_MATCH)
+        && Boolean.parseBoolean(u.getField(QUICK_MATCH));
+    if (quickMatch) {
+      Group compatible = index.fullestOpen(signature);
+      if (compatible != null) {
+        return compatible;
+      }
+    }
+
+    // name the game
+    String name = u.hasField(GAME_NAME_IDENTIFIER)
+        && !u.getField(GAME_NAME_IDENTIFIER).isEmpty()
+            ? u.getField(GAME_NAME_IDENTIFIER) : "Unnamed game";
 
     System.out.println("MAKING NEW GAME!");
-    return new UserGroupBuilder(CatanAPI.class)
+    Group made = new UserGroupBuilder(CatanAPI.class)
         .withSize(desiredSize)
         .withRequestProcessors(
             Collections.unmodifiableCollection(catanProcessors))
         .withName(name)
         .withApiSettings(settings)
         .withUniqueIdentifier(DistinctRandom.getString()).build();
+    index.track(made, signature);
+    return made;
+  }
+
+
+  @Override
+  public void groupChanged(Group g) {
+    index.update(g);
   }
 
 }
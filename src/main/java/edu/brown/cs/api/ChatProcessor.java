@@ -3,6 +3,7 @@ package edu.brown.cs.api;
 import com.google.gson.JsonObject;
 
 import edu.brown.cs.networking.API;
+import edu.brown.cs.networking.Frame;
 import edu.brown.cs.networking.Group;
 import edu.brown.cs.networking.Message;
 import edu.brown.cs.networking.Networking;
@@ -27,7 +28,7 @@ public class ChatProcessor implements RequestProcessor {
       JsonObject toSend = new JsonObject();
       toSend.addProperty(Networking.REQUEST_IDENTIFIER, "chat");
       toSend.add("logs", Networking.GSON.toJsonTree(g.getMessageLog()));
-      user.message(toSend);
+      g.send(user, toSend);
       return true;
     }
 
@@ -35,11 +36,7 @@ public class ChatProcessor implements RequestProcessor {
         System.currentTimeMillis());
     g.logMessage(m);
 
-    boolean success = true;
-    for (User other : g.connectedUsers()) {
-      success &= other.message(m.asJson());
-    }
-    return success;
+    return g.broadcast(Frame.of(m.asJson()));
   }
 
 
@@ -0,0 +1,178 @@
+package edu.brown.cs.api;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A game state serialized as a shallow tree of pre-encoded JSON fragments.
+ * Leaves hold the JSON text of one logical piece of state (a tile, a player,
+ * the hand...), so two states can be compared leaf by leaf without building or
+ * walking a full JsonObject tree.
+ *
+ */
+abstract class EncodedState {
+
+  static final String PATH_SEPARATOR = "/";
+
+  /**
+   * Appends the JSON text of this node to {@code out}.
+   *
+   * @param out
+   *          Buffer to write into.
+   */
+  abstract void writeTo(StringBuilder out);
+
+  /**
+   * Collects the differences between {@code base} and {@code next}. Leaves and
+   * arrays whose length changed are replaced whole; objects are compared key
+   * by key.
+   *
+   * @param path
+   *          Path of the nodes being compared, empty for the root.
+   * @param base
+   *          The state the receiver already has.
+   * @param next
+   *          The state the receiver should end up with.
+   * @param set
+   *          Paths whose value must be replaced, mapped to the new value.
+   * @param unset
+   *          Paths that must be removed.
+   */
+  static void diff(String path, EncodedState base, EncodedState next,
+      Map<String, EncodedState> set, Collection<String> unset) {
+    if (base == next) {
+      return;
+    }
+    if (base instanceof Obj && next instanceof Obj) {
+      Map<String, EncodedState> oldFields = ((Obj) base).fields;
+      Map<String, EncodedState> newFields = ((Obj) next).fields;
+      for (Map.Entry<String, EncodedState> entry : newFields.entrySet()) {
+        String child = child(path, entry.getKey());
+        EncodedState old = oldFields.get(entry.getKey());
+        if (old == null) {
+          set.put(child, entry.getValue());
+        } else {
+          diff(child, old, entry.getValue(), set, unset);
+        }
+      }
+      for (String key : oldFields.keySet()) {
+        if (!newFields.containsKey(key)) {
+          unset.add(child(path, key));
+        }
+      }
+    } else if (base instanceof Arr && next instanceof Arr
+        && ((Arr) base).elements.size() == ((Arr) next).elements.size()) {
+      List<EncodedState> oldElems = ((Arr) base).elements;
+      List<EncodedState> newElems = ((Arr) next).elements;
+      for (int i = 0; i < newElems.size(); i++) {
+        diff(child(path, String.valueOf(i)), oldElems.get(i), newElems.get(i),
+            set, unset);
+      }
+    } else if (base instanceof Leaf && next instanceof Leaf) {
+      if (!((Leaf) base).json.equals(((Leaf) next).json)) {
+        set.put(path, next);
+      }
+    } else {
+      set.put(path, next);
+    }
+  }
+
+  private static String child(String path, String key) {
+    return path.isEmpty() ? key : path + PATH_SEPARATOR + key;
+  }
+
+  /**
+   * A single pre-encoded JSON value.
+   */
+  static final class Leaf extends EncodedState {
+    private final String json;
+
+    Leaf(String json) {
+      this.json = json;
+    }
+
+    @Override
+    void writeTo(StringBuilder out) {
+      out.append(json);
+    }
+  }
+
+  /**
+   * A JSON object whose fields are written in insertion order.
+   */
+  static final class Obj extends EncodedState {
+    private final Map<String, EncodedState> fields = new LinkedHashMap<>();
+
+    /**
+     * Adds a field, skipping null values the way Gson does.
+     *
+     * @param key
+     *          Field name. Must not need escaping.
+     * @param value
+     *          Field value, or null to omit the field.
+     * @return this object.
+     */
+    Obj put(String key, EncodedState value) {
+      if (value != null) {
+        fields.put(key, value);
+      }
+      return this;
+    }
+
+    /**
+     * Writes the fields of this object without the surrounding braces, so they
+     * can be spliced into an enclosing message.
+     *
+     * @param out
+     *          Buffer to write into.
+     * @param leadingComma
+     *          Whether fields are already written before these ones.
+     */
+    void writeFieldsTo(StringBuilder out, boolean leadingComma) {
+      boolean first = !leadingComma;
+      for (Map.Entry<String, EncodedState> entry : fields.entrySet()) {
+        if (!first) {
+          out.append(',');
+        }
+        first = false;
+        out.append('"').append(entry.getKey()).append("\":");
+        entry.getValue().writeTo(out);
+      }
+    }
+
+    @Override
+    void writeTo(StringBuilder out) {
+      out.append('{');
+      writeFieldsTo(out, false);
+      out.append('}');
+    }
+  }
+
+  /**
+   * A JSON array.
+   */
+  static final class Arr extends EncodedState {
+    private final List<EncodedState> elements = new ArrayList<>();
+
+    Arr add(EncodedState value) {
+      elements.add(value);
+      return this;
+    }
+
+    @Override
+    void writeTo(StringBuilder out) {
+      out.append('[');
+      for (int i = 0; i < elements.size(); i++) {
+        if (i > 0) {
+          out.append(',');
+        }
+        elements.get(i).writeTo(out);
+      }
+      out.append(']');
+    }
+  }
+
+}
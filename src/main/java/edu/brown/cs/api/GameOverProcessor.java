@@ -3,6 +3,7 @@ package edu.brown.cs.api;
 import com.google.gson.JsonObject;
 
 import edu.brown.cs.networking.API;
+import edu.brown.cs.networking.Frame;
 import edu.brown.cs.networking.Group;
 import edu.brown.cs.networking.Networking;
 import edu.brown.cs.networking.RequestProcessor;
@@ -15,9 +16,8 @@ public class GameOverProcessor implements RequestProcessor {
   public boolean run(User user, Group g, JsonObject json,
       API api) {
     json.add("departedUser", Networking.GSON.toJsonTree(user));
-    for (User u : g.connectedUsers()) {
-      u.message(json);
-    }
+    // the same message for everyone, encoded once.
+    g.broadcast(Frame.of(json));
     System.out.println("GAMEOVERPROCESSED : " + json);
     g.clear();
     return true;
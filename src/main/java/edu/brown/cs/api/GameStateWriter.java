@@ -0,0 +1,261 @@
+package edu.brown.cs.api;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import com.google.gson.stream.JsonWriter;
+
+import edu.brown.cs.actions.FollowUpAction;
+import edu.brown.cs.board.BoardTile;
+import edu.brown.cs.board.Building;
+import edu.brown.cs.board.HexCoordinate;
+import edu.brown.cs.board.Intersection;
+import edu.brown.cs.board.IntersectionCoordinate;
+import edu.brown.cs.board.Path;
+import edu.brown.cs.catan.BarbarianTrack;
+import edu.brown.cs.catan.CityImprovement;
+import edu.brown.cs.catan.GameSettings;
+import edu.brown.cs.catan.Player;
+import edu.brown.cs.catan.ProgressCard;
+import edu.brown.cs.catan.Referee;
+import edu.brown.cs.catan.Settings;
+
+/**
+ * Writes the pieces of a game state straight from the game objects with a
+ * streaming JsonWriter, into one buffer reused for every piece. The output is
+ * the same JSON that Gson produces for the Raw classes in CatanConverter, but
+ * without reflection, intermediate Raw objects or a JsonObject tree. Tiles,
+ * intersections and paths are split into their static layout, which goes in
+ * the BoardDescriptor, and the fields that change during a game.
+ *
+ * Not thread safe: each CatanConverter owns one, and is only used under the
+ * CatanAPI lock.
+ *
+ */
+class GameStateWriter {
+
+  private final StringWriter _buffer = new StringWriter(512);
+
+  private interface Body {
+    void write(JsonWriter out) throws IOException;
+  }
+
+  private String encode(Body body) {
+    _buffer.getBuffer().setLength(0);
+    JsonWriter out = new JsonWriter(_buffer);
+    // Match Gson's defaults.
+    out.setHtmlSafe(true);
+    out.setSerializeNulls(false);
+    try {
+      body.write(out);
+      out.flush();
+    } catch (IOException e) {
+      // StringWriter does not throw.
+      throw new IllegalStateException(e);
+    }
+    return _buffer.toString();
+  }
+
+  String number(int value) {
+    return Integer.toString(value);
+  }
+
+  String integers(List<Integer> values) {
+    return encode(out -> {
+      out.beginArray();
+      for (Integer v : values) {
+        out.value(v);
+      }
+      out.endArray();
+    });
+  }
+
+  String hexCoordinate(HexCoordinate coord) {
+    return encode(out -> Serialization.writeHex(out, coord));
+  }
+
+  // The static layout of a board, sent once per board in its descriptor.
+
+  String tileLayout(BoardTile tile) {
+    return encode(out -> {
+      out.beginObject();
+      out.name("hexCoordinate");
+      Serialization.writeHex(out, tile.getCoordinate());
+      out.name("type").value(tile.getType().name());
+      List<IntersectionCoordinate> ports = tile.getPortLocations();
+      if (ports != null) {
+        out.name("portLocations").beginArray();
+        for (IntersectionCoordinate ic : ports) {
+          Serialization.writeIntersectionCoordinate(out, ic);
+        }
+        out.endArray();
+      }
+      if (tile.getPortType() != null) {
+        out.name("portType").value(tile.getPortType().name());
+      }
+      out.endObject();
+    });
+  }
+
+  String intersectionLayout(Intersection i) {
+    return encode(out -> {
+      out.beginObject();
+      if (i.getPort() != null) {
+        out.name("port");
+        Serialization.writePort(out, i.getPort());
+      }
+      out.name("coordinate");
+      Serialization.writeIntersectionCoordinate(out, i.getPosition());
+      out.endObject();
+    });
+  }
+
+  String pathLayout(int startIndex, int endIndex) {
+    return "{\"start\":" + startIndex + ",\"end\":" + endIndex + "}";
+  }
+
+  // The parts of the board that change during a game, by descriptor index.
+
+  String tile(BoardTile tile) {
+    return encode(out -> {
+      out.beginObject();
+      out.name("hasRobber").value(tile.hasRobber());
+      out.name("number").value(tile.getRollNumber());
+      out.endObject();
+    });
+  }
+
+  String intersection(Intersection i, String metropolis,
+      boolean canBuildSettlement) {
+    return encode(out -> {
+      out.beginObject();
+      Building building = i.getBuilding();
+      if (building != null) {
+        out.name("building").beginObject();
+        out.name("player").value(
+            building.getPlayer() != null ? building.getPlayer().getID() : 0);
+        out.name("type").value(
+            building.getClass().getSimpleName().toLowerCase());
+        out.name("metropolis").value(metropolis);
+        out.endObject();
+      }
+      out.name("canBuildSettlement").value(canBuildSettlement);
+      out.endObject();
+    });
+  }
+
+  String path(Path path, boolean canBuildRoad) {
+    return encode(out -> {
+      out.beginObject();
+      if (path.getRoad() != null) {
+        out.name("road").beginObject();
+        out.name("player").value(path.getRoad().getPlayer().getID());
+        out.endObject();
+      }
+      out.name("canBuildRoad").value(canBuildRoad);
+      out.endObject();
+    });
+  }
+
+  String player(Player p, Referee r) {
+    return encode(out -> {
+      out.beginObject();
+      out.name("name").value(p.getName());
+      out.name("id").value(p.getID());
+      out.name("color").value(p.getColor());
+      out.name("numSettlements").value(p.numSettlements());
+      out.name("numCities").value(p.numCities());
+      out.name("numPlayedKnights").value(p.numPlayedKnights());
+      out.name("numRoads").value(p.numRoads());
+      out.name("longestRoad").value(r.hasLongestRoad(p.getID()));
+      out.name("largestArmy").value(r.hasLargestArmy(p.getID()));
+      out.name("victoryPoints").value(r.getNumPublicPoints(p.getID()));
+      out.name("numResourceCards").value(p.getNumResourceCards());
+      out.name("numDevelopmentCards").value(p.getNumDevelopmentCards());
+      out.name("rates");
+      Serialization.writeMap(out, r.getBankRates(p.getID()));
+      if (r.getGameSettings().isCitiesAndKnights) {
+        CityImprovement ci = p.getCityImprovement();
+        out.name("numKnights").value(p.getKnights().size());
+        out.name("activeKnightStrength").value(p.getActiveKnightStrength());
+        out.name("defenderPoints").value(p.getDefenderPoints());
+        out.name("cityWalls").value(p.getCityWallCount());
+        // Same order Gson uses for the HashMap in PublicPlayerRaw.
+        out.name("cityImprovements").beginObject();
+        out.name("politics").value(
+            ci.getLevel(CityImprovement.Track.POLITICS));
+        out.name("trade").value(ci.getLevel(CityImprovement.Track.TRADE));
+        out.name("science").value(ci.getLevel(CityImprovement.Track.SCIENCE));
+        out.endObject();
+        out.name("numProgressCards").value(p.getProgressCards().size());
+      }
+      out.endObject();
+    });
+  }
+
+  String hand(Player player, boolean isCK) {
+    return encode(out -> {
+      out.beginObject();
+      out.name("resources");
+      Serialization.writeMap(out, player.getResources());
+      out.name("devCards");
+      Serialization.writeMap(out, player.getDevCards());
+      out.name("canBuildRoad").value(player.canBuildRoad());
+      out.name("canBuildSettlement").value(player.canBuildSettlement());
+      out.name("canBuildCity").value(player.canBuildCity());
+      out.name("canBuyDevCard").value(player.canBuyDevelopmentCard());
+      if (isCK) {
+        out.name("commodities");
+        Serialization.writeMap(out, player.getCommodities());
+        out.name("progressCards").beginArray();
+        for (ProgressCard pc : player.getProgressCards()) {
+          out.value(pc.toString());
+        }
+        out.endArray();
+      }
+      out.endObject();
+    });
+  }
+
+  String settings(GameSettings settings) {
+    return encode(out -> Serialization.writeSettings(out, settings));
+  }
+
+  String stats(Referee ref) {
+    return encode(out -> {
+      out.beginObject();
+      out.name("rolls").beginArray();
+      for (int roll : ref.getGameStats().getRollsArray()) {
+        out.value(roll);
+      }
+      out.endArray();
+      out.name("turn").value(ref.getTurn().getTurnNum());
+      out.endObject();
+    });
+  }
+
+  String followUp(FollowUpAction followUp) {
+    return encode(out -> {
+      out.beginObject();
+      out.name("actionName").value(followUp.getID());
+      Object data = followUp.getData();
+      if (data != null) {
+        out.name("actionData");
+        Serialization.writeRuntimeType(Serialization.GSON, out, data);
+      }
+      out.endObject();
+    });
+  }
+
+  String barbarianTrack(BarbarianTrack track) {
+    return encode(out -> {
+      out.beginObject();
+      out.name("position").value(track.getPosition());
+      out.name("trackLength").value(Settings.BARBARIAN_TRACK_LENGTH);
+      out.name("attackCount").value(track.getAttackCount());
+      out.endObject();
+    });
+  }
+
+}
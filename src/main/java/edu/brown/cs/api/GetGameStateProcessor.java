@@ -12,14 +12,19 @@ public class GetGameStateProcessor implements RequestProcessor {
 
   private static final String IDENTIFIER = "getGameState";
   private static final String REQUEST_KEY = "requestType";
+  private static final String DESCRIPTOR_KEY = "descriptor";
 
 
   @Override
   public boolean run(User user, Group g, JsonObject json,
       API api) {
-    JsonObject resp = api.getGameState(user.userID());
-    resp.addProperty("requestType", "getGameState");
-    return user.message(resp);
+    // the client says which board descriptor it has cached, if any.
+    String cached = json.has(DESCRIPTOR_KEY)
+        && !json.get(DESCRIPTOR_KEY).isJsonNull() ? json.get(DESCRIPTOR_KEY)
+        .getAsString() : null;
+    api.acknowledgeBoard(user.userID(), cached);
+    // an explicit request means the client has no state to apply changes to.
+    return g.sendState(user, api.getGameStateUpdate(user.userID(), true));
   }
 
 
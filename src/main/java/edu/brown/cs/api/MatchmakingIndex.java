@@ -0,0 +1,161 @@
+package edu.brown.cs.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.brown.cs.networking.Group;
+
+/**
+ * The open games a CatanGroupSelector has made, by id and by settings
+ * signature. Games with the same signature are compatible, and are kept in
+ * buckets by the number of seats still open, so the fullest compatible game is
+ * found without looking at the others. Every operation is O(1) in the number
+ * of open games.
+ *
+ * Games are re-filed when the GCT reports a change to them. One that has
+ * filled or emptied since is dropped when a lookup comes across it.
+ */
+final class MatchmakingIndex {
+
+  private final Map<String, Entry>            byId        = new HashMap<>();
+  private final Map<String, List<Set<Entry>>> bySignature = new HashMap<>();
+
+
+  /**
+   * Start tracking a new game. It is filed once it has a user, when the GCT
+   * reports the change.
+   *
+   * @param g
+   *          the game, with an identifier.
+   * @param signature
+   *          the settings that a compatible game shares.
+   */
+  synchronized void track(Group g, String signature) {
+    Entry e = new Entry(g, signature);
+    byId.put(g.identifier(), e);
+    if (isOpen(g)) {
+      file(e);
+    }
+  }
+
+
+  /**
+   * Re-file {@code g} after a change in its membership, dropping it once it is
+   * full or empty. Games that are not tracked are ignored.
+   */
+  synchronized void update(Group g) {
+    Entry e = byId.get(g.identifier());
+    if (e == null || e.group != g) {
+      return;
+    }
+    unfile(e);
+    if (isOpen(g)) {
+      file(e);
+    } else {
+      byId.remove(g.identifier());
+    }
+  }
+
+
+  /**
+   * @return the open game with the given id, else null.
+   */
+  synchronized Group byId(String id) {
+    Entry e = byId.get(id);
+    if (e == null) {
+      return null;
+    }
+    if (!isOpen(e.group)) {
+      unfile(e);
+      byId.remove(id);
+      return null;
+    }
+    return e.group;
+  }
+
+
+  /**
+   * @return the open game with {@code signature} that has the fewest seats
+   *         left, else null.
+   */
+  synchronized Group fullestOpen(String signature) {
+    List<Set<Entry>> buckets = bySignature.get(signature);
+    if (buckets == null) {
+      return null;
+    }
+    for (Set<Entry> bucket : buckets) {
+      Iterator<Entry> it = bucket.iterator();
+      while (it.hasNext()) {
+        Entry e = it.next();
+        if (isOpen(e.group) && e.seats == seatsLeft(e.group)) {
+          return e.group;
+        }
+        // changed without being reported; file it again, or drop it.
+        it.remove();
+        e.seats = -1;
+        if (isOpen(e.group)) {
+          file(e);
+          return fullestOpen(signature);
+        }
+        byId.remove(e.group.identifier());
+      }
+    }
+    return null;
+  }
+
+
+  synchronized int size() {
+    return byId.size();
+  }
+
+
+  private void file(Entry e) {
+    e.seats = seatsLeft(e.group);
+    List<Set<Entry>> buckets = bySignature.computeIfAbsent(e.signature,
+        s -> new ArrayList<>());
+    while (buckets.size() <= e.seats) {
+      buckets.add(new LinkedHashSet<>());
+    }
+    buckets.get(e.seats).add(e);
+  }
+
+
+  private void unfile(Entry e) {
+    if (e.seats < 0) {
+      return;
+    }
+    List<Set<Entry>> buckets = bySignature.get(e.signature);
+    buckets.get(e.seats).remove(e);
+    e.seats = -1;
+  }
+
+
+  private static int seatsLeft(Group g) {
+    return g.maxSize() - g.currentSize();
+  }
+
+
+  private static boolean isOpen(Group g) {
+    return !g.isFull() && !g.isEmpty();
+  }
+
+
+  private static final class Entry {
+
+    private final Group  group;
+    private final String signature;
+    private int          seats = -1;
+
+
+    private Entry(Group group, String signature) {
+      this.group = group;
+      this.signature = signature;
+    }
+  }
+
+}
@@ -0,0 +1,270 @@
+package edu.brown.cs.api;
+
+import java.io.IOException;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import edu.brown.cs.actions.ActionResponse;
+import edu.brown.cs.board.HexCoordinate;
+import edu.brown.cs.board.IntersectionCoordinate;
+import edu.brown.cs.board.Port;
+import edu.brown.cs.catan.GameSettings;
+import edu.brown.cs.catan.Trade;
+import edu.brown.cs.networking.Networking;
+
+/**
+ * The one Gson used to send and read game JSON. It has hand-written adapters
+ * for the small types that go over the wire: coordinates, ports, settings,
+ * trades, action responses and the networking types from
+ * Networking.gsonBuilder(). Game states are written by GameStateWriter; the
+ * Raw classes of CatanConverter still go through Gson's reflective adapter,
+ * and are what GameStateWriter is checked against. Each adapter writes the
+ * same fields, in the same order, as Gson's reflective adapter did, so the
+ * JSON is byte for byte what it was; SerializationTest holds them to that.
+ *
+ * Data whose type varies from action to action (ActionResponse data, follow
+ * up action data) is written with the adapter for its runtime type, which is
+ * still reflective for the small response classes inside the actions.
+ *
+ */
+public final class Serialization {
+
+  public static final Gson GSON = builder().create();
+
+  private Serialization() {
+  }
+
+  static GsonBuilder builder() {
+    GsonBuilder builder = Networking.gsonBuilder()
+        .registerTypeAdapter(HexCoordinate.class, new HexAdapter().nullSafe())
+        .registerTypeAdapter(IntersectionCoordinate.class,
+            new IntersectionCoordinateAdapter().nullSafe())
+        .registerTypeAdapter(Port.class, new PortAdapter().nullSafe())
+        .registerTypeAdapter(GameSettings.class,
+            new GameSettingsAdapter().nullSafe())
+        .registerTypeAdapter(Trade.class, new TradeAdapter().nullSafe())
+        .registerTypeAdapterFactory(new ActionResponseAdapterFactory());
+    return builder;
+  }
+
+  // Writers shared with GameStateWriter and the adapters below.
+
+  static void writeHex(JsonWriter out, HexCoordinate coord)
+      throws IOException {
+    out.beginObject();
+    out.name("x").value(coord.getX());
+    out.name("y").value(coord.getY());
+    out.name("z").value(coord.getZ());
+    out.endObject();
+  }
+
+  static void writeIntersectionCoordinate(JsonWriter out,
+      IntersectionCoordinate coord) throws IOException {
+    out.beginObject();
+    out.name("coord1");
+    writeHex(out, coord.getCoord1());
+    out.name("coord2");
+    writeHex(out, coord.getCoord2());
+    out.name("coord3");
+    writeHex(out, coord.getCoord3());
+    out.endObject();
+  }
+
+  // Gson writes map keys with String.valueOf, so enum keys use toString().
+  static void writeMap(JsonWriter out, Map<?, ? extends Number> map)
+      throws IOException {
+    out.beginObject();
+    for (Map.Entry<?, ? extends Number> entry : map.entrySet()) {
+      out.name(String.valueOf(entry.getKey())).value(entry.getValue());
+    }
+    out.endObject();
+  }
+
+  static void writePort(JsonWriter out, Port port) throws IOException {
+    out.beginObject();
+    out.name("_resource").value(port.getResource() != null ? port
+        .getResource().name() : null);
+    out.endObject();
+  }
+
+  static void writeSettings(JsonWriter out, GameSettings settings)
+      throws IOException {
+    out.beginObject();
+    out.name("numPlayers").value(settings.numPlayers);
+    out.name("winningPointCount").value(settings.winningPointCount);
+    out.name("COLORS").beginArray();
+    for (String color : settings.COLORS) {
+      out.value(color);
+    }
+    out.endArray();
+    out.name("isDecimal").value(settings.isDecimal);
+    out.name("isDynamic").value(settings.isDynamic);
+    out.name("isStandard").value(settings.isStandard);
+    out.name("isCitiesAndKnights").value(settings.isCitiesAndKnights);
+    out.endObject();
+  }
+
+  // Writes a value whose declared type is Object, the way Gson would.
+  static void writeRuntimeType(Gson gson, JsonWriter out, Object value)
+      throws IOException {
+    if (value == null) {
+      out.nullValue();
+    } else {
+      gson.toJson(value, value.getClass(), out);
+    }
+  }
+
+  // Only the coordinates are ever read back, from action requests.
+
+  private static HexCoordinate readHex(JsonReader in) throws IOException {
+    int x = 0;
+    int y = 0;
+    int z = 0;
+    in.beginObject();
+    while (in.hasNext()) {
+      switch (in.nextName()) {
+        case "x":
+          x = in.nextInt();
+          break;
+        case "y":
+          y = in.nextInt();
+          break;
+        case "z":
+          z = in.nextInt();
+          break;
+        default:
+          in.skipValue();
+      }
+    }
+    in.endObject();
+    return new HexCoordinate(x, y, z);
+  }
+
+  private static class HexAdapter extends TypeAdapter<HexCoordinate> {
+
+    @Override
+    public void write(JsonWriter out, HexCoordinate value) throws IOException {
+      writeHex(out, value);
+    }
+
+    @Override
+    public HexCoordinate read(JsonReader in) throws IOException {
+      return readHex(in);
+    }
+  }
+
+  private static class IntersectionCoordinateAdapter extends
+      TypeAdapter<IntersectionCoordinate> {
+
+    @Override
+    public void write(JsonWriter out, IntersectionCoordinate value)
+        throws IOException {
+      writeIntersectionCoordinate(out, value);
+    }
+
+    @Override
+    public IntersectionCoordinate read(JsonReader in) throws IOException {
+      HexCoordinate[] coords = new HexCoordinate[3];
+      in.beginObject();
+      while (in.hasNext()) {
+        switch (in.nextName()) {
+          case "coord1":
+            coords[0] = readHex(in);
+            break;
+          case "coord2":
+            coords[1] = readHex(in);
+            break;
+          case "coord3":
+            coords[2] = readHex(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return new IntersectionCoordinate(coords[0], coords[1], coords[2]);
+    }
+  }
+
+  // Base for the types that are only ever sent.
+  private abstract static class WriteOnlyAdapter<T> extends TypeAdapter<T> {
+
+    @Override
+    public T read(JsonReader in) {
+      throw new UnsupportedOperationException(
+          "This type is only ever written.");
+    }
+  }
+
+  private static class PortAdapter extends WriteOnlyAdapter<Port> {
+
+    @Override
+    public void write(JsonWriter out, Port value) throws IOException {
+      writePort(out, value);
+    }
+  }
+
+  private static class GameSettingsAdapter extends
+      WriteOnlyAdapter<GameSettings> {
+
+    @Override
+    public void write(JsonWriter out, GameSettings value) throws IOException {
+      writeSettings(out, value);
+    }
+  }
+
+  private static class TradeAdapter extends WriteOnlyAdapter<Trade> {
+
+    @Override
+    public void write(JsonWriter out, Trade value) throws IOException {
+      out.beginObject();
+      out.name("_trader").value(value.getTrader());
+      out.name("_acceptedTrade").beginArray();
+      for (Integer id : value.getAcceptedTrade()) {
+        out.value(id);
+      }
+      out.endArray();
+      out.name("_declinedTrade").beginArray();
+      for (Integer id : value.getDeclinedTrade()) {
+        out.value(id);
+      }
+      out.endArray();
+      out.name("_resources");
+      writeMap(out, value.getResources());
+      out.endObject();
+    }
+  }
+
+  // A factory, as the data needs the Gson the adapter was created for.
+  private static class ActionResponseAdapterFactory implements
+      TypeAdapterFactory {
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+      if (type.getRawType() != ActionResponse.class) {
+        return null;
+      }
+      return (TypeAdapter<T>) new WriteOnlyAdapter<ActionResponse>() {
+        @Override
+        public void write(JsonWriter out, ActionResponse value)
+            throws IOException {
+          out.beginObject();
+          out.name("success").value(value.getSuccess());
+          out.name("message").value(value.getMessage());
+          out.name("data");
+          writeRuntimeType(gson, out, value.getData());
+          out.endObject();
+        }
+      }.nullSafe();
+    }
+  }
+
+}
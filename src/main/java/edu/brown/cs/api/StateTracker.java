@@ -0,0 +1,171 @@
+package edu.brown.cs.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps track of the game states sent to each player and the latest one each
+ * player has acknowledged, so that state pushes can carry only what changed
+ * since then. A full state (keyframe) is sent when the player has not
+ * acknowledged anything yet, when it is explicitly requested, and every
+ * KEYFRAME_INTERVAL pushes. The board descriptor travels in the same messages,
+ * until the player acknowledges one that carried it.
+ *
+ */
+class StateTracker {
+
+  static final String FULL_STATE = "getGameState";
+  static final String DELTA_STATE = "gameStateDelta";
+
+  private static final int KEYFRAME_INTERVAL = 25;
+  private static final int MAX_UNACKED = 16;
+
+  private final Map<Integer, PlayerStates> _players = new HashMap<>();
+
+  /**
+   * Records {@code state} as the next version for {@code playerID} and encodes
+   * the message that brings the player to it.
+   *
+   * @param playerID
+   *          Player the state is for.
+   * @param state
+   *          The player's view of the game.
+   * @param board
+   *          Descriptor of the board the state refers to.
+   * @param forceFull
+   *          Whether the player has lost its local state and needs a keyframe.
+   * @return The message text to send.
+   */
+  String update(int playerID, EncodedState.Obj state, BoardDescriptor board,
+      boolean forceFull) {
+    PlayerStates ps = players(playerID);
+    if (forceFull) {
+      ps.acked = null;
+      ps.unacked.clear();
+    }
+    int version = ps.nextVersion++;
+    ps.unacked.put(version, state);
+    if (ps.unacked.size() > MAX_UNACKED) {
+      Iterator<Integer> eldest = ps.unacked.keySet().iterator();
+      eldest.next();
+      eldest.remove();
+    }
+
+    boolean sendBoard = !board.hash().equals(ps.knownBoard);
+    if (sendBoard && !board.hash().equals(ps.pendingBoard)) {
+      ps.pendingBoard = board.hash();
+      ps.pendingBoardVersion = version;
+    }
+
+    StringBuilder out = new StringBuilder();
+    if (ps.acked == null || ps.sinceKeyframe >= KEYFRAME_INTERVAL) {
+      ps.sinceKeyframe = 0;
+      out.append("{\"requestType\":\"").append(FULL_STATE)
+          .append("\",\"version\":").append(version);
+      if (sendBoard) {
+        out.append(",\"boardDescriptor\":").append(board.json());
+      }
+      state.writeFieldsTo(out, true);
+      out.append('}');
+      return out.toString();
+    }
+
+    ps.sinceKeyframe++;
+    Map<String, EncodedState> set = new LinkedHashMap<>();
+    List<String> unset = new ArrayList<>();
+    EncodedState.diff("", ps.acked, state, set, unset);
+    out.append("{\"requestType\":\"").append(DELTA_STATE)
+        .append("\",\"version\":").append(version)
+        .append(",\"base\":").append(ps.ackedVersion);
+    if (sendBoard) {
+      out.append(",\"boardDescriptor\":").append(board.json());
+    }
+    out.append(",\"set\":{");
+    boolean first = true;
+    for (Map.Entry<String, EncodedState> entry : set.entrySet()) {
+      if (!first) {
+        out.append(',');
+      }
+      first = false;
+      out.append('"').append(entry.getKey()).append("\":");
+      entry.getValue().writeTo(out);
+    }
+    out.append("},\"unset\":[");
+    for (int i = 0; i < unset.size(); i++) {
+      if (i > 0) {
+        out.append(',');
+      }
+      out.append('"').append(unset.get(i)).append('"');
+    }
+    out.append("]}");
+    return out.toString();
+  }
+
+  /**
+   * Marks {@code version} as received by {@code playerID}. Later pushes are
+   * encoded against it. Unknown or stale versions are ignored.
+   *
+   * @param playerID
+   *          Player acknowledging.
+   * @param version
+   *          Version the player now holds.
+   */
+  void acknowledge(int playerID, int version) {
+    PlayerStates ps = _players.get(playerID);
+    if (ps == null || !ps.unacked.containsKey(version)) {
+      return;
+    }
+    ps.acked = ps.unacked.get(version);
+    ps.ackedVersion = version;
+    if (ps.pendingBoard != null && version >= ps.pendingBoardVersion) {
+      ps.knownBoard = ps.pendingBoard;
+      ps.pendingBoard = null;
+    }
+    Iterator<Integer> it = ps.unacked.keySet().iterator();
+    while (it.hasNext()) {
+      if (it.next() <= version) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Records which board descriptor {@code playerID} holds, replacing what was
+   * inferred from acknowledgements.
+   *
+   * @param playerID
+   *          Player declaring.
+   * @param hash
+   *          Hash of the descriptor the player holds, or null if none.
+   */
+  void acknowledgeBoard(int playerID, String hash) {
+    PlayerStates ps = players(playerID);
+    ps.knownBoard = hash;
+    ps.pendingBoard = null;
+  }
+
+  private PlayerStates players(int playerID) {
+    PlayerStates ps = _players.get(playerID);
+    if (ps == null) {
+      ps = new PlayerStates();
+      _players.put(playerID, ps);
+    }
+    return ps;
+  }
+
+  private static class PlayerStates {
+    private int nextVersion = 1;
+    private int sinceKeyframe;
+    private int ackedVersion = -1;
+    private EncodedState.Obj acked;
+    private String knownBoard;
+    private String pendingBoard;
+    private int pendingBoardVersion;
+    private final Map<Integer, EncodedState.Obj> unacked = new LinkedHashMap<>();
+  }
+
+}
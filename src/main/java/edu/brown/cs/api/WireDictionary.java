@@ -0,0 +1,83 @@
+package edu.brown.cs.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import edu.brown.cs.board.TileType;
+import edu.brown.cs.catan.Commodity;
+import edu.brown.cs.catan.DevelopmentCard;
+import edu.brown.cs.catan.ProgressCard;
+import edu.brown.cs.catan.Resource;
+
+/**
+ * The strings that Catan messages repeat the most, for the binary wire format
+ * to send as an index instead of text: field names of the game state, request
+ * types and action names, and both the names and the display strings of the
+ * game enums (hands are keyed by toString(), tiles by name()).
+ *
+ */
+public final class WireDictionary {
+
+  private static final List<String> FIELDS = Arrays.asList(
+      // message envelope
+      "requestType", "version", "base", "set", "unset", "action", "actionData",
+      "actionName", "message", "description", "reason", "chat", "logs",
+      "getGameState", "gameStateDelta", "ackState", "heartbeat", "setCookie",
+      "disconnectedUsers", "gameOver", "ERROR", "users", "expiresAt",
+      "cookies", "content", "sender", "userId", "timeStamp", "seq",
+      // game state
+      "playerID", "turnOrder", "winner", "hand", "board", "tiles",
+      "intersections", "paths", "currentTurn", "followUp", "players",
+      "settings", "stats", "barbarianTrack", "merchantOwner", "merchantHex",
+      "hexCoordinate", "type", "hasRobber", "number", "portLocations",
+      "portType", "building", "player", "metropolis", "port", "_resource",
+      "coordinate", "canBuildSettlement", "start", "end", "road",
+      "canBuildRoad", "settlement", "city", "name", "id", "color",
+      "numSettlements", "numCities", "numPlayedKnights", "numRoads",
+      "longestRoad", "largestArmy", "victoryPoints", "numResourceCards",
+      "numDevelopmentCards", "rates", "numKnights", "activeKnightStrength",
+      "defenderPoints", "cityWalls", "cityImprovements", "politics", "trade",
+      "science", "numProgressCards", "resources", "devCards", "canBuildCity",
+      "canBuyDevCard", "commodities", "progressCards", "numPlayers",
+      "winningPointCount", "COLORS", "isDecimal", "isDynamic", "isStandard",
+      "isCitiesAndKnights", "rolls", "turn", "position", "trackLength",
+      "attackCount",
+      // actions
+      "startGame", "rollDice", "buildSettlement", "placeSettlement",
+      "buildCity", "buildRoad", "placeRoad", "buyDevCard", "playKnight",
+      "playMonopoly", "playYearOfPlenty", "playRoadBuilding", "dropCards",
+      "moveRobber", "takeCard", "endTurn", "proposeTrade", "reviewTrade",
+      "tradeResponse", "tradeWithBank", "updateResource", "knightOrDice",
+      "improveCityTrack", "buildCityWall", "placeKnight", "activateKnight",
+      "promoteKnight", "playProgressCard", "placeMerchant", "displaceKnight",
+      "chooseCommodity", "chooseResource", "chooseDice", "removeRoad",
+      "swapHexNumbers", "deserterTarget", "stealProgressCard",
+      "chooseOpponentCards", "targetPlayer", "resource", "tradeAccepted",
+      "newLocation", "toGive", "toGet", "toDrop", "takeFrom", "hex", "card",
+      "amount");
+
+  private WireDictionary() {
+    // not instantiable
+  }
+
+  /**
+   * @return the dictionary, in a fixed order.
+   */
+  public static List<String> words() {
+    List<String> words = new ArrayList<>(FIELDS);
+    List<Enum<?>> constants = new ArrayList<>();
+    constants.addAll(Arrays.asList(Resource.values()));
+    constants.addAll(Arrays.asList(TileType.values()));
+    constants.addAll(Arrays.asList(Commodity.values()));
+    constants.addAll(Arrays.asList(DevelopmentCard.values()));
+    constants.addAll(Arrays.asList(ProgressCard.values()));
+    for (Enum<?> e : constants) {
+      words.add(e.name());
+      words.add(e.toString());
+    }
+    return Collections.unmodifiableList(words);
+  }
+
+}
@@ -15,12 +15,14 @@ import static edu.brown.cs.catan.Settings.NUM_WHEAT_TILE;
 import static edu.brown.cs.catan.Settings.NUM_WOOD_TILE;
 import static edu.brown.cs.catan.Settings.ROLL_NUMS;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import edu.brown.cs.catan.GameSettings;
@@ -33,7 +35,9 @@ import edu.brown.cs.catan.Settings;
  * @author anselvahle
  *
  */
-public class Board {
+public class Board implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private Collection<Tile> _tiles;
   private Map<IntersectionCoordinate, Intersection> _intersections;
   private Map<PathCoordinate, Path> _paths;
@@ -207,6 +211,19 @@ public class Board {
    *                 Settings for how the board should be made.
    */
   public Board(GameSettings settings) {
+    this(settings, new Random());
+  }
+
+  /**
+   * Constructor for the Board, shuffling the tiles with the given source of
+   * randomness so that the same seed always lays out the same board.
+   *
+   * @param settings
+   *                 Settings for how the board should be made.
+   * @param random
+   *                 Used to shuffle the tiles of a random board.
+   */
+  public Board(GameSettings settings, Random random) {
     List<TileType> availTiles = new ArrayList<TileType>();
     int[] rollNums = ROLL_NUMS;
     // Determines whether the board should be random or not;
@@ -221,7 +238,7 @@ public class Board {
       addTiles(availTiles, ORE, NUM_ORE_TILE);
       addTiles(availTiles, DESERT, NUM_DESERT_TILE);
       do {
-        Collections.shuffle(availTiles);
+        Collections.shuffle(availTiles, random);
       } while ((availTiles.get(0) == DESERT));
     }
     // Sets the port locations
@@ -1,5 +1,7 @@
 package edu.brown.cs.board;
 
+import java.io.Serializable;
+
 import static java.lang.Math.sqrt;
 
 /**
@@ -8,7 +10,9 @@ import static java.lang.Math.sqrt;
  * @author anselvahle
  *
  */
-public class HexCoordinate {
+public class HexCoordinate implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private static final double TOLERANCE = .001;
   private final int x;
   private final int y;
@@ -98,9 +102,10 @@ public class HexCoordinate {
 
   @Override
   public int hashCode() {
-    // double[] coords = { this.cartesianX(), this.cartesianY() };
-    // return Arrays.hashCode(coords);
-    return 1;
+    // Twice cartesianX and cartesianY / (sqrt(3) / 2): whole numbers that are
+    // the same for every coordinate equals() accepts. A constant hash put every
+    // coordinate in one bucket, which iterated in a different order each run.
+    return 31 * (2 * y - x - z) + (z - x);
   }
 
   @Override
@@ -1,5 +1,6 @@
 package edu.brown.cs.board;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -10,7 +11,9 @@ import edu.brown.cs.catan.Referee;
 import edu.brown.cs.catan.Referee.GameStatus;
 import edu.brown.cs.catan.Resource;
 
-public class Intersection {
+public class Intersection implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private List<Path> _paths;
   private Building _building;
   private Port _port;
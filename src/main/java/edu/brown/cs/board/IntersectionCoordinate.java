@@ -1,12 +1,16 @@
 package edu.brown.cs.board;
 
+import java.io.Serializable;
+
 /**
  * System for specifiying the location of the intersections on the board.
  *
  * @author anselvahle
  *
  */
-public class IntersectionCoordinate {
+public class IntersectionCoordinate implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private final HexCoordinate coord1;
   private final HexCoordinate coord2;
   private final HexCoordinate coord3;
@@ -1,5 +1,6 @@
 package edu.brown.cs.board;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -15,7 +16,9 @@ import edu.brown.cs.catan.Setup;
  * @author anselvahle
  *
  */
-public class Path {
+public class Path implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private Intersection _start;
   private Intersection _end;
   private Road _road;
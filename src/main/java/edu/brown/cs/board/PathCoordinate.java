@@ -1,12 +1,16 @@
 package edu.brown.cs.board;
 
+import java.io.Serializable;
+
 /**
  * System for maintaing and describing location of paths on the board.
  *
  * @author anselvahle
  *
  */
-public class PathCoordinate {
+public class PathCoordinate implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private final IntersectionCoordinate _startCoord;
   private final IntersectionCoordinate _endCoord;
 
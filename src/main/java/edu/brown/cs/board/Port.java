@@ -1,5 +1,7 @@
 package edu.brown.cs.board;
 
+import java.io.Serializable;
+
 import edu.brown.cs.catan.Resource;
 
 /**
@@ -8,7 +10,9 @@ import edu.brown.cs.catan.Resource;
  * @author anselvahle
  *
  */
-public class Port {
+public class Port implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private Resource _resource;
 
   /**
@@ -1,5 +1,7 @@
 package edu.brown.cs.board;
 
+import java.io.Serializable;
+
 import edu.brown.cs.catan.Player;
 
 /**
@@ -8,7 +10,9 @@ import edu.brown.cs.catan.Player;
  * @author anselvahle
  *
  */
-public class Road {
+public class Road implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private Player _player;
 
   /**
@@ -1,5 +1,6 @@
 package edu.brown.cs.board;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,7 +13,9 @@ import edu.brown.cs.catan.Resource;
  * @author anselvahle
  *
  */
-public class Settlement implements Building {
+public class Settlement implements Building, Serializable {
+  private static final long serialVersionUID = 1L;
+
   private Player _player;
 
   /**
@@ -1,5 +1,6 @@
 package edu.brown.cs.board;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
@@ -20,7 +21,9 @@ import edu.brown.cs.catan.Resource;
  * @author anselvahle
  *
  */
-public class Tile implements BoardTile {
+public class Tile implements BoardTile, Serializable {
+  private static final long serialVersionUID = 1L;
+
   private final Collection<Intersection> _intersections;
   private int _rollNum;
   private final TileType _type;
@@ -1,12 +1,16 @@
 package edu.brown.cs.catan;
 
+import java.io.Serializable;
+
 /**
  * Tracks the barbarian ship's progress toward Catan in the Cities & Knights
  * expansion. Each time the event die shows a ship icon, the barbarian advances.
  * When the ship reaches the end of the track, an attack is triggered and the
  * track resets.
  */
-public class BarbarianTrack {
+public class BarbarianTrack implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   public static final int TRACK_LENGTH = 7;
 
@@ -1,12 +1,16 @@
 package edu.brown.cs.catan;
 
+import java.io.Serializable;
+
 /**
  * Tracks a player's city improvement levels across the three development
  * tracks in the Cities & Knights expansion: Trade (Paper), Politics (Coin),
  * and Science (Cloth). Each track has levels 0–5, and reaching level 4 on a
  * track allows the player to claim the corresponding Metropolis (worth 2 VP).
  */
-public class CityImprovement {
+public class CityImprovement implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   /**
    * The three development tracks in Cities & Knights.
@@ -1,5 +1,6 @@
 package edu.brown.cs.catan;
 
+import java.io.Serializable;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -12,7 +13,9 @@ import java.util.Map;
  *
  *
  */
-public class DynamicBank implements Bank {
+public class DynamicBank implements Bank, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private Map<Resource, Double> _supply;
   private static final double MIN_RATE = 2.0;
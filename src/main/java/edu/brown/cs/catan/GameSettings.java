@@ -1,12 +1,16 @@
 package edu.brown.cs.catan;
 
+import java.io.Serializable;
+
 import com.google.gson.JsonObject;
 
 /**
  * Represents one game of Catan's settings.
  *
  */
-public class GameSettings {
+public class GameSettings implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   public final int numPlayers;
   public final int winningPointCount;
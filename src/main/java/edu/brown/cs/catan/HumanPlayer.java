@@ -1,5 +1,6 @@
 package edu.brown.cs.catan;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -14,7 +15,9 @@ import edu.brown.cs.actions.CatanFormats;
  * players color, name and id.
  *
  */
-public class HumanPlayer implements Player {
+public class HumanPlayer implements Player, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   // Identifiers:
   private final String name;
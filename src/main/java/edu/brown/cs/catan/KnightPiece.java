@@ -1,5 +1,7 @@
 package edu.brown.cs.catan;
 
+import java.io.Serializable;
+
 import edu.brown.cs.board.IntersectionCoordinate;
 
 /**
@@ -7,7 +9,9 @@ import edu.brown.cs.board.IntersectionCoordinate;
  * placed at intersections, activated, promoted (Basic → Strong → Mighty), and
  * moved along roads. Active knights contribute to barbarian defense.
  */
-public class KnightPiece {
+public class KnightPiece implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   /**
    * Possible knight levels with their corresponding strength values.
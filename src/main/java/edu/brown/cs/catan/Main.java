@@ -2,14 +2,21 @@ package edu.brown.cs.catan;
 
 import java.io.File;
 import java.io.IOException;
+import java.sql.SQLException;
+import java.util.Arrays;
 import java.util.Map;
 
 import com.google.common.collect.ImmutableMap;
 
 import edu.brown.cs.api.CatanGroupSelector;
+import edu.brown.cs.api.WireDictionary;
+import edu.brown.cs.gamestats.CatanStats;
+import edu.brown.cs.gamestats.SQLStatsHandler;
+import edu.brown.cs.networking.ClusterRouter;
 import edu.brown.cs.networking.GCT;
 import edu.brown.cs.networking.GCT.GCTBuilder;
 import edu.brown.cs.networking.Networking;
+import edu.brown.cs.networking.TimerWheel;
 import freemarker.template.Configuration;
 import spark.ModelAndView;
 import spark.Request;
@@ -28,7 +35,17 @@ public class Main {
       System.getenv("HEROKU") != null ? "target/classes/static"
           : "src/main/resources/static";
 
+  // set in each node of a cluster, to the router's base url.
+  private static final String ROUTER           = System.getenv("CATAN_ROUTER");
+  // set in the router of a cluster, to the nodes' base urls, in order.
+  private static final String NODES            = System.getenv("CATAN_NODES");
+  // set to a number of event loops to run the games on, e.g. the number of
+  // cores; unset, games run on the websocket's thread pool.
+  private static final String GAME_LOOPS       =
+      System.getenv("CATAN_GAME_LOOPS");
+
   private GCT                 gct;
+  private ClusterRouter       router;
 
 
   public static void main(String[] args) {
@@ -41,10 +58,24 @@ public class Main {
     Spark.port(getHerokuAssignedPort());
     Spark.threadPool(NUM_THREADS, MIN_THREADS, TIMEOUT);
     // secure("", "", "", ""); // use this for https!
-    gct = new GCTBuilder("/action")
-        .withGroupSelector(new CatanGroupSelector())
-        .withGroupViewRoute("/groups")
-        .build();
+    if (NODES != null) {
+      router = new ClusterRouter(Arrays.asList(NODES.split(","))).start();
+      router.serveLobby("/groups");
+    } else {
+      gct = new GCTBuilder("/action")
+          .withGroupSelector(new CatanGroupSelector())
+          .withGroupViewRoute("/groups")
+          .withSpectatorRoute("/watch")
+          .withWireDictionary(WireDictionary.words())
+          .withGameLoops(GAME_LOOPS == null ? 0 : Integer.parseInt(GAME_LOOPS))
+          .build();
+      Spark.get(ClusterRouter.STATUS_ROUTE,
+          (req, res) -> gct.clusterStatus().toString());
+      Spark.get(ClusterRouter.USER_ROUTE,
+          (req, res) -> String.valueOf(gct.userIDIsValid(req.queryParams(
+              "id"))));
+      storeGameStats();
+    }
 
     Configuration config = new Configuration();
     File templates = new File(
@@ -58,6 +89,19 @@ public class Main {
     FreeMarkerEngine freeMarker = new FreeMarkerEngine(config);
 
     // Set up board
+    if (router != null) {
+      Spark.before("/board", (req, res) -> {
+        String node = router.nodeFor(req.cookies());
+        res.redirect(node == null ? "/home" : node + "/board");
+        Spark.halt(302);
+      });
+    } else if (ROUTER != null) {
+      // a node of a cluster; its lobby is the router's.
+      Spark.before("/home", (req, res) -> {
+        res.redirect(ROUTER + "/home");
+        Spark.halt(302);
+      });
+    }
     Spark.get("/board", new BoardHandler(), freeMarker);
     Spark.get("/home", new HomeHandler(), freeMarker);
     Spark.get("/stats", new StatsHandler(), freeMarker);
@@ -76,6 +120,19 @@ public class Main {
   private void run() {}
 
 
+  // Finished games are written to data/ behind the games; without it they are
+  // only counted.
+  private static void storeGameStats() {
+    try {
+      SQLStatsHandler handler = new SQLStatsHandler();
+      CatanStats.setHandler(handler);
+      Runtime.getRuntime().addShutdownHook(new Thread(handler::close));
+    } catch (ClassNotFoundException | SQLException e) {
+      System.out.println("Game stats will not be stored: " + e);
+    }
+  }
+
+
   // used for heroku hosting - environment variables are set by heroku.
   private static int getHerokuAssignedPort() {
     ProcessBuilder processBuilder = new ProcessBuilder();
@@ -94,9 +151,19 @@ public class Main {
       Map<String, Object> variables =
           new ImmutableMap.Builder<String, Object>()
               .put("title", "Catan Stats")
-              .put("openGroups", gct.openGroups().toString())
-              .put("closedGroups", gct.closedGroups().toString())
-              .put("limit", gct.groupLimit())
+              .put("openGroups", router != null ? router.openGroups().toString()
+                  : gct.openGroups().toString())
+              .put("closedGroups",
+                  router != null ? router.closedGroups().toString()
+                      : gct.closedGroups().toString())
+              .put("limit",
+                  router != null ? router.groupLimit() : gct.groupLimit())
+              .put("timers", TimerWheel.shared().stats().toString())
+              .put("games", router != null ? router.stats().toString()
+                  : gct.lifecycle().stats().toString())
+              .put("limits", router != null ? router.limits().toString()
+                  : gct.limiter().stats().toString())
+              .put("gameStats", CatanStats.stats().toString())
               .build();
       return new ModelAndView(variables, "stats.ftl");
     }
@@ -123,8 +190,10 @@ public class Main {
       Map<String, String> cookies = req.cookies();
       if (cookies.containsKey(Networking.USER_IDENTIFIER)) {
         System.out.println("1");
-        if (Main.this.gct
-            .userIDIsValid(cookies.get(Networking.USER_IDENTIFIER))) {
+        // in a cluster, the node that owns the id says whether it is live.
+        String userID = cookies.get(Networking.USER_IDENTIFIER);
+        if (router != null ? router.userIDIsValid(userID)
+            : Main.this.gct.userIDIsValid(userID)) {
           System.out.println("2");
           res.redirect("/board");
           return new BoardHandler().handle(req, res);
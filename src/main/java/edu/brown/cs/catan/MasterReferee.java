@@ -7,17 +7,25 @@ import static edu.brown.cs.catan.Settings.LARGEST_ARMY_POINT_VAL;
 import static edu.brown.cs.catan.Settings.LONGEST_ROAD_POINT_VAL;
 import static edu.brown.cs.catan.Settings.SETTLEMENT_POINT_VAL;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import edu.brown.cs.actions.FollowUpAction;
 import edu.brown.cs.board.Board;
 import edu.brown.cs.board.HexCoordinate;
 import edu.brown.cs.board.Intersection;
+import edu.brown.cs.events.EventBus;
 import edu.brown.cs.gamestats.CatanStats;
 import edu.brown.cs.gamestats.GameStats;
 
@@ -28,7 +36,9 @@ import java.util.AbstractMap;
  * one MasterReferee per game. Contains all Catan game data.
  *
  */
-public class MasterReferee implements Referee {
+public class MasterReferee implements Referee, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private final Board _board;
   private final Map<Integer, Player> _players;
@@ -42,6 +52,11 @@ public class MasterReferee implements Referee {
   private GameStatus _gameStatus;
   private final Setup _setup;
   private GameStats _gameStats;
+  // Not part of the game: a restored referee publishes to the bus it replaced.
+  private transient EventBus _events = new EventBus();
+  // Not part of the game either: a restored referee goes on drawing from the
+  // live Random, so undoing a roll or a draw cannot replay it.
+  private transient Random _random;
 
   // Cities & Knights state
   private BarbarianTrack _barbarianTrack;
@@ -69,8 +84,23 @@ public class MasterReferee implements Referee {
    *                     A GameSettings object to use as the gameSettings.
    */
   public MasterReferee(GameSettings gameSettings) {
+    this(gameSettings, new Random().nextLong());
+  }
+
+  /**
+   * Creates a MasterReferee whose board, decks, turn order and dice all come
+   * from {@code seed}. Two referees with the same settings and seed that are
+   * given the same players and actions end up in the same state.
+   *
+   * @param gameSettings
+   *                     A GameSettings object to use as the gameSettings.
+   * @param seed
+   *                     Seed for every random choice made in the game.
+   */
+  public MasterReferee(GameSettings gameSettings, long seed) {
     _gameSettings = gameSettings;
-    _board = new Board(_gameSettings);
+    _random = new Random(seed);
+    _board = new Board(_gameSettings, _random);
     _players = new HashMap<Integer, Player>();
     _turnOrder = initializeTurnOrder(_gameSettings.numPlayers);
     _bank = initializeBank(_gameSettings.isDynamic);
@@ -85,9 +115,9 @@ public class MasterReferee implements Referee {
   private void initCitiesAndKnights() {
     if (_gameSettings.isCitiesAndKnights) {
       _barbarianTrack = new BarbarianTrack();
-      _tradeDeck = ProgressCard.createTradeDeck();
-      _politicsDeck = ProgressCard.createPoliticsDeck();
-      _scienceDeck = ProgressCard.createScienceDeck();
+      _tradeDeck = ProgressCard.createTradeDeck(_random);
+      _politicsDeck = ProgressCard.createPoliticsDeck(_random);
+      _scienceDeck = ProgressCard.createScienceDeck(_random);
       _metropolisOwners = new HashMap<>();
     }
   }
@@ -171,7 +201,7 @@ public class MasterReferee implements Referee {
     for (int i = 0; i < _gameSettings.numPlayers; i++) {
       toReturn.add(i);
     }
-    Collections.shuffle(toReturn);
+    Collections.shuffle(toReturn, _random);
     return toReturn;
   }
 
@@ -241,7 +271,7 @@ public class MasterReferee implements Referee {
     for (int i = 0; i < Settings.NUM_MONOPOLY; i++) {
       toReturn.add(DevelopmentCard.MONOPOLY);
     }
-    Collections.shuffle(toReturn);
+    Collections.shuffle(toReturn, _random);
     return toReturn;
   }
 
@@ -490,7 +520,76 @@ public class MasterReferee implements Referee {
     return _players.remove(id) != null;
   }
 
-  private class ReadOnlyReferee implements Referee {
+  @Override
+  public EventBus getEventBus() {
+    return _events;
+  }
+
+  @Override
+  public Random getRandom() {
+    return _random;
+  }
+
+  /**
+   * Copies the whole game, so that it can be put back with restore. Costs
+   * about as much as the game is big, however long it has been played.
+   *
+   * @return The copy.
+   */
+  public Snapshot snapshot() {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(this);
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not copy the game.", e);
+    }
+    return new Snapshot(bytes.toByteArray());
+  }
+
+  /**
+   * Builds a referee for the game as it was when snapshot was called. It
+   * publishes to this referee's EventBus, so subscribers carry on unchanged,
+   * and they are not told about anything that is undone. It draws from this
+   * referee's Random, which is not rewound.
+   *
+   * @param snapshot
+   *          A snapshot of this referee.
+   * @return A new referee, which should be used instead of this one.
+   */
+  public MasterReferee restore(Snapshot snapshot) {
+    try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(
+        snapshot._state))) {
+      MasterReferee restored = (MasterReferee) in.readObject();
+      restored._events = _events;
+      restored._random = _random;
+      return restored;
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Could not restore the game.", e);
+    }
+  }
+
+  /**
+   * A copy of a whole game, taken with MasterReferee.snapshot.
+   */
+  public static final class Snapshot {
+
+    private final byte[] _state;
+
+    private Snapshot(byte[] state) {
+      _state = state;
+    }
+
+    /**
+     * @return The size of the copy in bytes.
+     */
+    public int size() {
+      return _state.length;
+    }
+  }
+
+  private class ReadOnlyReferee implements Referee, Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private final Referee _referee;
 
@@ -660,6 +759,17 @@ public class MasterReferee implements Referee {
       return _referee.removePlayer(id);
     }
 
+    @Override
+    public EventBus getEventBus() {
+      return _referee.getEventBus();
+    }
+
+    @Override
+    public Random getRandom() {
+      throw new UnsupportedOperationException(
+          "A ReadOnlyReferee cannot make random choices.");
+    }
+
     @Override
     public void setMerchant(int playerID, HexCoordinate hex) {
       throw new UnsupportedOperationException(
@@ -3,6 +3,7 @@ package edu.brown.cs.catan;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 /**
  * Represents a Progress Card in the Cities & Knights expansion. Progress cards
@@ -141,6 +142,13 @@ public enum ProgressCard {
    * Creates a shuffled deck of trade progress cards.
    */
   public static List<ProgressCard> createTradeDeck() {
+    return createTradeDeck(new Random());
+  }
+
+  /**
+   * Creates a deck of trade progress cards shuffled with {@code random}.
+   */
+  public static List<ProgressCard> createTradeDeck(Random random) {
     List<ProgressCard> deck = new ArrayList<>();
     addCards(deck, COMMERCIAL_HARBOR, 2);
     addCards(deck, MASTER_MERCHANT, 2);
@@ -148,7 +156,7 @@ public enum ProgressCard {
     addCards(deck, MERCHANT_FLEET, 2);
     addCards(deck, RESOURCE_MONOPOLY, 4);
     addCards(deck, TRADE_MONOPOLY, 2);
-    Collections.shuffle(deck);
+    Collections.shuffle(deck, random);
     return deck;
   }
 
@@ -156,6 +164,13 @@ public enum ProgressCard {
    * Creates a shuffled deck of politics progress cards.
    */
   public static List<ProgressCard> createPoliticsDeck() {
+    return createPoliticsDeck(new Random());
+  }
+
+  /**
+   * Creates a deck of politics progress cards shuffled with {@code random}.
+   */
+  public static List<ProgressCard> createPoliticsDeck(Random random) {
     List<ProgressCard> deck = new ArrayList<>();
     addCards(deck, BISHOP, 2);
     addCards(deck, CONSTITUTION, 1);
@@ -166,7 +181,7 @@ public enum ProgressCard {
     addCards(deck, SPY, 3);
     addCards(deck, WARLORD, 2);
     addCards(deck, WEDDING, 2);
-    Collections.shuffle(deck);
+    Collections.shuffle(deck, random);
     return deck;
   }
 
@@ -174,6 +189,13 @@ public enum ProgressCard {
    * Creates a shuffled deck of science progress cards.
    */
   public static List<ProgressCard> createScienceDeck() {
+    return createScienceDeck(new Random());
+  }
+
+  /**
+   * Creates a deck of science progress cards shuffled with {@code random}.
+   */
+  public static List<ProgressCard> createScienceDeck(Random random) {
     List<ProgressCard> deck = new ArrayList<>();
     addCards(deck, ALCHEMIST, 2);
     addCards(deck, CRANE, 2);
@@ -185,7 +207,7 @@ public enum ProgressCard {
     addCards(deck, PRINTER, 1);
     addCards(deck, ROAD_BUILDING, 2);
     addCards(deck, SMITH, 2);
-    Collections.shuffle(deck);
+    Collections.shuffle(deck, random);
     return deck;
   }
 
@@ -3,10 +3,12 @@ package edu.brown.cs.catan;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 
 import edu.brown.cs.actions.FollowUpAction;
 import edu.brown.cs.board.Board;
 import edu.brown.cs.board.HexCoordinate;
+import edu.brown.cs.events.EventBus;
 import edu.brown.cs.gamestats.GameStats;
 
 public interface Referee {
@@ -69,6 +71,11 @@ public interface Referee {
 
   boolean removePlayer(int id);
 
+  EventBus getEventBus();
+
+  // Every random choice in a game is made with this, so a game can be replayed.
+  Random getRandom();
+
   // --- Cities & Knights: Merchant ---
   void setMerchant(int playerID, HexCoordinate hex);
 
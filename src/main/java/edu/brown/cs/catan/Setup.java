@@ -1,5 +1,6 @@
 package edu.brown.cs.catan;
 
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.List;
 
@@ -10,7 +11,9 @@ import edu.brown.cs.board.Intersection;
  * current turn. Also keeps track of the last built settlement.
  *
  */
-public class Setup {
+public class Setup implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private Intersection _lastBuiltSettlement;
   private int _currentTurn;
@@ -1,5 +1,6 @@
 package edu.brown.cs.catan;
 
+import java.io.Serializable;
 import java.util.Map;
 
 /**
@@ -7,7 +8,9 @@ import java.util.Map;
  * are simply determined by a constant.
  *
  */
-public class SimpleBank implements Bank {
+public class SimpleBank implements Bank, Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   Map<Resource, Double> _supply;
 
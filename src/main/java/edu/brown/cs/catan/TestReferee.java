@@ -12,6 +12,8 @@ import edu.brown.cs.board.IntersectionCoordinate;
  */
 public class TestReferee extends MasterReferee {
 
+  private static final long serialVersionUID = 1L;
+
   public TestReferee() {
     super();
     Player sean = this.getPlayerByID(this.addPlayer("Sean"));
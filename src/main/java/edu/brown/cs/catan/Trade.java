@@ -1,10 +1,10 @@
 package edu.brown.cs.catan;
 
+import java.io.Serializable;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
-
-import org.eclipse.jetty.util.ConcurrentHashSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Represents an interplayer trade. Keeps track of the proposed trade, players
@@ -12,17 +12,19 @@ import org.eclipse.jetty.util.ConcurrentHashSet;
  * who proposed the trade.
  *
  */
-public class Trade {
+public class Trade implements Serializable {
+  private static final long serialVersionUID = 1L;
+
   private final int _trader;
-  private final ConcurrentHashSet<Integer> _acceptedTrade;
-  private final ConcurrentHashSet<Integer> _declinedTrade;
+  private final Set<Integer> _acceptedTrade;
+  private final Set<Integer> _declinedTrade;
   private final Map<Resource, Double> _resources;
 
   public Trade(int trader, Map<Resource, Double> resources) {
     _trader = trader;
     _resources = resources;
-    _acceptedTrade = new ConcurrentHashSet<>();
-    _declinedTrade = new ConcurrentHashSet<>();
+    _acceptedTrade = ConcurrentHashMap.newKeySet();
+    _declinedTrade = ConcurrentHashMap.newKeySet();
   }
 
   public void acceptedTrade(int playerID) {
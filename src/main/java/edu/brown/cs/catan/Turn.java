@@ -1,5 +1,6 @@
 package edu.brown.cs.catan;
 
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -15,7 +16,9 @@ import edu.brown.cs.actions.FollowUpAction;
  * used a development card during the turn.
  *
  */
-public class Turn {
+public class Turn implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private final long _timeStarted;
   private boolean _devHasBeenPlayed;
@@ -0,0 +1,98 @@
+package edu.brown.cs.events;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The barbarian ship reached Catan and the attack was resolved: either the
+ * knights held and the strongest players became Defenders of Catan, or the
+ * weakest players each lost a city, and a city wall if they had one.
+ *
+ */
+public final class BarbarianAttackResolved implements GameEvent {
+
+  private final int _knightStrength;
+  private final int _cityCount;
+  private final Map<Integer, String> _names;
+  private final List<Integer> _defenders;
+  private final List<Integer> _pillaged;
+  private final Set<Integer> _lostWalls;
+
+  /**
+   * @param knightStrength
+   *          Strength of all active knights.
+   * @param cityCount
+   *          Number of cities built, the barbarians' strength.
+   * @param names
+   *          Names of the players, by ID.
+   * @param defenders
+   *          IDs of the players who became Defender of Catan.
+   * @param pillaged
+   *          IDs of the players who lost a city.
+   * @param lostWalls
+   *          IDs of the pillaged players who also lost a city wall.
+   */
+  public BarbarianAttackResolved(int knightStrength, int cityCount,
+      Map<Integer, String> names, List<Integer> defenders,
+      List<Integer> pillaged, Set<Integer> lostWalls) {
+    _knightStrength = knightStrength;
+    _cityCount = cityCount;
+    _names = Collections.unmodifiableMap(new HashMap<>(names));
+    _defenders = Collections.unmodifiableList(new ArrayList<>(defenders));
+    _pillaged = Collections.unmodifiableList(new ArrayList<>(pillaged));
+    _lostWalls = Collections.unmodifiableSet(new HashSet<>(lostWalls));
+  }
+
+  public boolean defended() {
+    return _knightStrength >= _cityCount;
+  }
+
+  public int knightStrength() {
+    return _knightStrength;
+  }
+
+  public int cityCount() {
+    return _cityCount;
+  }
+
+  public List<Integer> defenders() {
+    return _defenders;
+  }
+
+  public List<Integer> pillaged() {
+    return _pillaged;
+  }
+
+  public Set<Integer> lostWalls() {
+    return _lostWalls;
+  }
+
+  // The same for every player; appended to the roll message.
+  @Override
+  public String describe(int playerID) {
+    StringBuilder msg = new StringBuilder();
+    if (defended()) {
+      msg.append(" Knights defended Catan!");
+      for (int id : _defenders) {
+        msg.append(' ').append(_names.get(id)).append(
+            " earns Defender of Catan!");
+      }
+    } else {
+      msg.append(" Barbarians pillage!");
+      for (int id : _pillaged) {
+        String name = _names.get(id);
+        msg.append(' ').append(name).append("'s city was pillaged!");
+        if (_lostWalls.contains(id)) {
+          msg.append(' ').append(name).append(" lost a city wall.");
+        }
+      }
+    }
+    return msg.toString();
+  }
+
+}
@@ -0,0 +1,79 @@
+package edu.brown.cs.events;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Delivers the events of one game to its subscribers. Subscribers register for
+ * one event class, or for GameEvent to receive everything, and are called in
+ * the order they subscribed, on the thread that published.
+ *
+ * Not thread safe: each MasterReferee owns one, and events are published
+ * while the game is locked for an action.
+ *
+ */
+public class EventBus {
+
+  private final Map<Class<?>, List<Consumer<? super GameEvent>>> _listeners =
+      new IdentityHashMap<>();
+
+  /**
+   * Adds a subscriber.
+   *
+   * @param type
+   *          Class of the events to receive.
+   * @param listener
+   *          Called with each published event of that class.
+   */
+  @SuppressWarnings("unchecked")
+  public <E extends GameEvent> void subscribe(Class<E> type,
+      Consumer<? super E> listener) {
+    List<Consumer<? super GameEvent>> list = _listeners.get(type);
+    if (list == null) {
+      list = new ArrayList<>();
+      _listeners.put(type, list);
+    }
+    list.add((Consumer<? super GameEvent>) listener);
+  }
+
+  /**
+   * Removes a subscriber added with subscribe.
+   *
+   * @param type
+   *          Class it was subscribed to.
+   * @param listener
+   *          The subscriber.
+   * @return Whether it was subscribed.
+   */
+  public boolean unsubscribe(Class<? extends GameEvent> type,
+      Consumer<?> listener) {
+    List<Consumer<? super GameEvent>> list = _listeners.get(type);
+    return list != null && list.remove(listener);
+  }
+
+  /**
+   * Sends an event to the subscribers of its class, then to those of
+   * GameEvent. Costs one map lookup per class when nobody is subscribed.
+   *
+   * @param event
+   *          The event.
+   */
+  public void publish(GameEvent event) {
+    deliver(_listeners.get(event.getClass()), event);
+    deliver(_listeners.get(GameEvent.class), event);
+  }
+
+  private static void deliver(List<Consumer<? super GameEvent>> listeners,
+      GameEvent event) {
+    if (listeners == null) {
+      return;
+    }
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).accept(event);
+    }
+  }
+
+}
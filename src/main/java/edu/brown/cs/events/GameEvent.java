@@ -0,0 +1,21 @@
+package edu.brown.cs.events;
+
+/**
+ * Something that happened in a game, published on the game's EventBus by the
+ * action that caused it. Events are immutable and carry what happened rather
+ * than how to say it; the message a player sees is only rendered when that
+ * player's response is sent.
+ *
+ */
+public interface GameEvent {
+
+  /**
+   * Renders the message a player is shown for this event.
+   *
+   * @param playerID
+   *          Player the message is for.
+   * @return The message.
+   */
+  String describe(int playerID);
+
+}
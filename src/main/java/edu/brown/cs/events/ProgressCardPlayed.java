@@ -0,0 +1,36 @@
+package edu.brown.cs.events;
+
+import edu.brown.cs.catan.ProgressCard;
+
+/**
+ * A player played a progress card. Published once the card has left the
+ * player's hand; the effects of the card follow it.
+ *
+ */
+public final class ProgressCardPlayed implements GameEvent {
+
+  private final int _playerID;
+  private final String _playerName;
+  private final ProgressCard _card;
+
+  public ProgressCardPlayed(int playerID, String playerName,
+      ProgressCard card) {
+    _playerID = playerID;
+    _playerName = playerName;
+    _card = card;
+  }
+
+  public int playerID() {
+    return _playerID;
+  }
+
+  public ProgressCard card() {
+    return _card;
+  }
+
+  @Override
+  public String describe(int playerID) {
+    return String.format("%s played %s.", _playerName, _card.getName());
+  }
+
+}
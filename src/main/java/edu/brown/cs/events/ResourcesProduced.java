@@ -0,0 +1,83 @@
+package edu.brown.cs.events;
+
+import java.util.Collections;
+import java.util.Map;
+
+import edu.brown.cs.catan.Resource;
+
+/**
+ * The dice were rolled and, unless a 7 came up, the tiles with that number
+ * paid out to the buildings around them.
+ *
+ */
+public final class ResourcesProduced implements GameEvent {
+
+  private final int _roll;
+  private final int _redDie;
+  private final int _whiteDie;
+  private final Map<Integer, Map<Resource, Integer>> _produced;
+
+  /**
+   * @param redDie
+   *          Value of the red die.
+   * @param whiteDie
+   *          Value of the white die.
+   * @param produced
+   *          What each player collected, by player ID. Players who collected
+   *          nothing are left out.
+   */
+  public ResourcesProduced(int redDie, int whiteDie,
+      Map<Integer, Map<Resource, Integer>> produced) {
+    _roll = redDie + whiteDie;
+    _redDie = redDie;
+    _whiteDie = whiteDie;
+    _produced = Collections.unmodifiableMap(produced);
+  }
+
+  public int roll() {
+    return _roll;
+  }
+
+  public int redDie() {
+    return _redDie;
+  }
+
+  public int whiteDie() {
+    return _whiteDie;
+  }
+
+  /**
+   * @param playerID
+   *          A player.
+   * @return What that player collected, empty if nothing.
+   */
+  public Map<Resource, Integer> producedFor(int playerID) {
+    Map<Resource, Integer> counts = _produced.get(playerID);
+    return counts != null ? Collections.unmodifiableMap(counts) : Collections
+        .emptyMap();
+  }
+
+  public Map<Integer, Map<Resource, Integer>> produced() {
+    return _produced;
+  }
+
+  @Override
+  public String describe(int playerID) {
+    Map<Resource, Integer> counts = _produced.get(playerID);
+    if (counts == null) {
+      return _roll + " was rolled.";
+    }
+    StringBuilder message = new StringBuilder();
+    message.append(_roll).append(" was rolled");
+    for (Map.Entry<Resource, Integer> e : counts.entrySet()) {
+      if (e.getKey() == Resource.WILDCARD) {
+        message.append('.');
+      } else {
+        message.append(", you received ").append(e.getValue()).append(' ')
+            .append(e.getKey());
+      }
+    }
+    return message.append('.').toString();
+  }
+
+}
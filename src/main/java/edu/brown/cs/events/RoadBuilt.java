@@ -0,0 +1,43 @@
+package edu.brown.cs.events;
+
+import edu.brown.cs.board.IntersectionCoordinate;
+
+/**
+ * A player built a road: bought, placed in setup, or free from Road Building.
+ * Every road put on the board is published once, by BuildRoad.
+ *
+ */
+public final class RoadBuilt implements GameEvent {
+
+  private final int _playerID;
+  private final String _playerName;
+  private final IntersectionCoordinate _start;
+  private final IntersectionCoordinate _end;
+
+  public RoadBuilt(int playerID, String playerName,
+      IntersectionCoordinate start, IntersectionCoordinate end) {
+    _playerID = playerID;
+    _playerName = playerName;
+    _start = start;
+    _end = end;
+  }
+
+  public int playerID() {
+    return _playerID;
+  }
+
+  public IntersectionCoordinate start() {
+    return _start;
+  }
+
+  public IntersectionCoordinate end() {
+    return _end;
+  }
+
+  @Override
+  public String describe(int playerID) {
+    return playerID == _playerID ? "You built a Road" : String.format(
+        "%s built a Road", _playerName);
+  }
+
+}
@@ -0,0 +1,53 @@
+package edu.brown.cs.events;
+
+import edu.brown.cs.board.HexCoordinate;
+
+/**
+ * A player moved the robber.
+ *
+ */
+public final class RobberMoved implements GameEvent {
+
+  private final int _playerID;
+  private final String _playerName;
+  private final HexCoordinate _location;
+  private final boolean _othersOnTile;
+
+  /**
+   * @param playerID
+   *          Player who moved it.
+   * @param playerName
+   *          That player's name.
+   * @param location
+   *          Tile it was moved to.
+   * @param othersOnTile
+   *          Whether other players have buildings on that tile.
+   */
+  public RobberMoved(int playerID, String playerName, HexCoordinate location,
+      boolean othersOnTile) {
+    _playerID = playerID;
+    _playerName = playerName;
+    _location = location;
+    _othersOnTile = othersOnTile;
+  }
+
+  public int playerID() {
+    return _playerID;
+  }
+
+  public HexCoordinate location() {
+    return _location;
+  }
+
+  @Override
+  public String describe(int playerID) {
+    if (playerID != _playerID) {
+      return String.format("%s moved the Robber", _playerName);
+    }
+    return _othersOnTile
+        ? "You moved the Robber. No player has enough cards for you to steal."
+        : "You moved the Robber. There was no one to steal from where you "
+            + "placed the Robber.";
+  }
+
+}
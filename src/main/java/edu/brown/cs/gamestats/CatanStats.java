@@ -1,21 +1,62 @@
 package edu.brown.cs.gamestats;
 
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
 //Higher level class for storing GameStats in database
 public class CatanStats {
 
-  private static int startedGames = 0;
-  private static int finishedGames = 0;
+  private static final AtomicInteger startedGames = new AtomicInteger();
+  private static final AtomicInteger finishedGames = new AtomicInteger();
+  private static volatile StatsHandler handler;
 
-  public synchronized static GameStats getGameStatsObject(){
-    startedGames++;
+  public static GameStats getGameStatsObject() {
+    startedGames.incrementAndGet();
     return new GameStats();
   }
 
-  public synchronized static void processGameStats(GameStats stats){
-    finishedGames++;
-    //TODO: process game stats, store to database...etc
+  /**
+   * Hands the stats of a finished game to the handler, if one is set. Does
+   * not wait for them to be stored.
+   *
+   * @param stats
+   *          The stats, after GameStats.finish.
+   */
+  public static void processGameStats(GameStats stats) {
+    finishedGames.incrementAndGet();
+    StatsHandler h = handler;
+    if (h != null) {
+      h.storeGameStats(stats);
+    }
   }
 
+  /**
+   * @param statsHandler
+   *          Where to store the stats of finished games from now on, or null
+   *          to only count them.
+   */
+  public static void setHandler(StatsHandler statsHandler) {
+    handler = statsHandler;
+  }
 
+  /**
+   * @return the number of games started and finished, and the handler's own
+   *         counts, for monitoring.
+   */
+  public static JsonObject stats() {
+    JsonObject toRet = new JsonObject();
+    toRet.addProperty("started", startedGames.get());
+    toRet.addProperty("finished", finishedGames.get());
+    StatsHandler h = handler;
+    if (h != null) {
+      for (Map.Entry<String, JsonElement> e : h.stats().entrySet()) {
+        toRet.add(e.getKey(), e.getValue());
+      }
+    }
+    return toRet;
+  }
 
 }
@@ -1,6 +1,10 @@
 package edu.brown.cs.gamestats;
 
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -8,17 +12,32 @@ import java.util.Map;
  * outside of the package. Users should use the CatanStats getGameStatsObject
  * method in order to get an instance of this object.
  *
+ * Once the game is over it is finished with the players' outcomes, and from
+ * then on it no longer changes, so it may be read from another thread.
  */
-public class GameStats {
+public class GameStats implements Serializable {
+
+  private static final long serialVersionUID = 1L;
 
   private Map<Integer, Integer> _rolls;
   private boolean _cheatingUsed = false;
+  private final long _started;
+  private long _finished;
+  private int _turns;
+  private int _victoryPoints;
+  private boolean _citiesAndKnights;
+  private Integer _winner;
+  private final List<Outcome> _outcomes = new ArrayList<>();
 
   GameStats() {
     _rolls = new HashMap<>();
+    _started = System.currentTimeMillis();
   }
 
   public void addRoll(int roll) {
+    if (isFinished()) {
+      return;
+    }
     if (_rolls.containsKey(roll)) {
       _rolls.replace(roll, _rolls.get(roll) + 1);
     } else {
@@ -46,4 +65,119 @@ public class GameStats {
     _cheatingUsed = true;
   }
 
+  /**
+   * Records how a player ended the game. Called for each player, before
+   * {@link #finish}.
+   *
+   * @param id
+   *          The player's ID.
+   * @param name
+   *          The player's name.
+   * @param color
+   *          The player's color.
+   * @param points
+   *          The player's victory points at the end, hidden ones included.
+   */
+  public void addOutcome(int id, String name, String color, int points) {
+    if (!isFinished()) {
+      _outcomes.add(new Outcome(id, name, color, points));
+    }
+  }
+
+  /**
+   * Marks the game as over. Nothing about it changes after this.
+   *
+   * @param turns
+   *          The number of the last turn.
+   * @param victoryPoints
+   *          The points needed to win.
+   * @param citiesAndKnights
+   *          Whether the game was Cities and Knights.
+   * @param winner
+   *          The ID of the winner, or null if nobody won.
+   */
+  public void finish(int turns, int victoryPoints, boolean citiesAndKnights,
+      Integer winner) {
+    if (isFinished()) {
+      return;
+    }
+    _turns = turns;
+    _victoryPoints = victoryPoints;
+    _citiesAndKnights = citiesAndKnights;
+    _winner = winner;
+    _finished = System.currentTimeMillis();
+  }
+
+  public boolean isFinished() {
+    return _finished != 0;
+  }
+
+  public boolean isCheatingUsed() {
+    return _cheatingUsed;
+  }
+
+  public long getStarted() {
+    return _started;
+  }
+
+  public long getFinished() {
+    return _finished;
+  }
+
+  public int getTurns() {
+    return _turns;
+  }
+
+  public int getVictoryPoints() {
+    return _victoryPoints;
+  }
+
+  public boolean isCitiesAndKnights() {
+    return _citiesAndKnights;
+  }
+
+  public Integer getWinner() {
+    return _winner;
+  }
+
+  public List<Outcome> getOutcomes() {
+    return Collections.unmodifiableList(_outcomes);
+  }
+
+  /**
+   * How one player ended a game.
+   */
+  public static final class Outcome implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int _id;
+    private final String _name;
+    private final String _color;
+    private final int _points;
+
+    Outcome(int id, String name, String color, int points) {
+      _id = id;
+      _name = name;
+      _color = color;
+      _points = points;
+    }
+
+    public int getID() {
+      return _id;
+    }
+
+    public String getName() {
+      return _name;
+    }
+
+    public String getColor() {
+      return _color;
+    }
+
+    public int getPoints() {
+      return _points;
+    }
+  }
+
 }
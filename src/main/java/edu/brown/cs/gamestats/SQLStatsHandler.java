@@ -1,29 +1,290 @@
 package edu.brown.cs.gamestats;
 
+import java.io.File;
 import java.sql.Connection;
 import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.gamestats.GameStats.Outcome;
+
+/**
+ * Stores the stats of finished games in a SQLite database, behind the game
+ * threads. storeGameStats only puts the stats on a bounded queue; a writer
+ * thread of its own drains the queue, up to MAX_BATCH games at a time, and
+ * writes each batch in one transaction of prepared, batched inserts. If the
+ * queue is full, because the disk cannot keep up, the stats are dropped and
+ * counted rather than holding up the game. If a batch cannot be written, its
+ * games are written again one transaction each, so only a game that cannot be
+ * stored at all is counted as failed.
+ *
+ * The database is in WAL mode, so the stats page and other nodes of a cluster
+ * can read it while it is written, and a commit costs one append to the log.
+ */
 public class SQLStatsHandler implements StatsHandler {
 
-  private Connection _conn;
-  private static final String FOREIGN_KEYS_ON = "PRAGMA foreign_keys = ON;";
+  static final int QUEUE_CAPACITY = 1024;
+  static final int MAX_BATCH = 64;
+
   private static final String DB = "data/catan.sqlite3";
+  private static final String[] PRAGMAS = {
+      "PRAGMA foreign_keys = ON;",
+      "PRAGMA journal_mode = WAL;",
+      // with WAL, a crash can lose the last commits but not corrupt the file.
+      "PRAGMA synchronous = NORMAL;",
+      // other nodes of a cluster write to the same file.
+      "PRAGMA busy_timeout = 5000;"};
+  private static final String[] SCHEMA = {
+      "CREATE TABLE IF NOT EXISTS games ("
+          + "id INTEGER PRIMARY KEY AUTOINCREMENT, "
+          + "started INTEGER NOT NULL, "
+          + "finished INTEGER NOT NULL, "
+          + "turns INTEGER NOT NULL, "
+          + "victory_points INTEGER NOT NULL, "
+          + "cities_and_knights INTEGER NOT NULL, "
+          + "cheating_used INTEGER NOT NULL, "
+          + "winner INTEGER);",
+      "CREATE TABLE IF NOT EXISTS players ("
+          + "game_id INTEGER NOT NULL REFERENCES games(id) ON DELETE CASCADE, "
+          + "player_id INTEGER NOT NULL, "
+          + "name TEXT NOT NULL, "
+          + "color TEXT, "
+          + "PRIMARY KEY (game_id, player_id));",
+      "CREATE TABLE IF NOT EXISTS rolls ("
+          + "game_id INTEGER NOT NULL REFERENCES games(id) ON DELETE CASCADE, "
+          + "roll INTEGER NOT NULL CHECK (roll BETWEEN 2 AND 12), "
+          + "count INTEGER NOT NULL, "
+          + "PRIMARY KEY (game_id, roll));",
+      "CREATE TABLE IF NOT EXISTS outcomes ("
+          + "game_id INTEGER NOT NULL, "
+          + "player_id INTEGER NOT NULL, "
+          + "points INTEGER NOT NULL, "
+          + "won INTEGER NOT NULL, "
+          + "PRIMARY KEY (game_id, player_id), "
+          + "FOREIGN KEY (game_id, player_id) "
+          + "REFERENCES players(game_id, player_id) ON DELETE CASCADE);"};
+
+  private final Connection _conn;
+  private final PreparedStatement _insertGame;
+  private final PreparedStatement _insertPlayer;
+  private final PreparedStatement _insertRoll;
+  private final PreparedStatement _insertOutcome;
+  private final BlockingQueue<GameStats> _queue;
+  private final Thread _writer;
+  // guarded by this, so nothing is queued after close has stopped the writer.
+  private volatile boolean _open = true;
+
+  private final AtomicLong _written = new AtomicLong();
+  private final AtomicLong _dropped = new AtomicLong();
+  private final AtomicLong _failed = new AtomicLong();
+  private final AtomicLong _batches = new AtomicLong();
 
   public SQLStatsHandler() throws ClassNotFoundException, SQLException {
-    String url = "jdbc:sqlite:" + DB;
+    this(DB, QUEUE_CAPACITY);
+  }
+
+  /**
+   * @param db
+   *          Path of the database file, created with its tables if missing.
+   * @param capacity
+   *          The most finished games to hold while they wait to be written.
+   */
+  public SQLStatsHandler(String db, int capacity)
+      throws ClassNotFoundException, SQLException {
+    File parent = new File(db).getAbsoluteFile().getParentFile();
+    if (parent != null) {
+      parent.mkdirs();
+    }
+    String url = "jdbc:sqlite:" + db;
     Class.forName("org.sqlite.JDBC");
     _conn = DriverManager.getConnection(url);
     try (Statement stat = _conn.createStatement()) {
-      stat.executeUpdate(FOREIGN_KEYS_ON);
+      for (String pragma : PRAGMAS) {
+        stat.execute(pragma);
+      }
+      for (String table : SCHEMA) {
+        stat.executeUpdate(table);
+      }
     }
-    // TODO: check if correct tables are available
+    _conn.setAutoCommit(false);
+    _insertGame = _conn.prepareStatement("INSERT INTO games (started, "
+        + "finished, turns, victory_points, cities_and_knights, "
+        + "cheating_used, winner) VALUES (?, ?, ?, ?, ?, ?, ?);");
+    _insertPlayer = _conn.prepareStatement(
+        "INSERT INTO players (game_id, player_id, name, color) "
+            + "VALUES (?, ?, ?, ?);");
+    _insertRoll = _conn.prepareStatement(
+        "INSERT INTO rolls (game_id, roll, count) VALUES (?, ?, ?);");
+    _insertOutcome = _conn.prepareStatement(
+        "INSERT INTO outcomes (game_id, player_id, points, won) "
+            + "VALUES (?, ?, ?, ?);");
+
+    _queue = new ArrayBlockingQueue<>(capacity);
+    _writer = new Thread(this::drain, "stats-writer");
+    _writer.setDaemon(true);
+    _writer.start();
   }
 
+  /**
+   * Queues the stats of a finished game to be written. Never waits: if the
+   * queue is full, or the handler is closed, the stats are dropped.
+   *
+   * @param stats
+   *          The stats, after GameStats.finish.
+   */
   @Override
   public void storeGameStats(GameStats stats) {
-    // TODO: store stats
+    boolean queued;
+    synchronized (this) {
+      queued = _open && _queue.offer(stats);
+    }
+    if (!queued) {
+      _dropped.incrementAndGet();
+    }
+  }
+
+  /**
+   * Stops taking stats, writes those still queued, and closes the database.
+   */
+  public void close() {
+    synchronized (this) {
+      _open = false;
+    }
+    _writer.interrupt();
+    try {
+      _writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @Override
+  public JsonObject stats() {
+    JsonObject toRet = new JsonObject();
+    toRet.addProperty("written", _written.get());
+    toRet.addProperty("queued", _queue.size());
+    toRet.addProperty("dropped", _dropped.get());
+    toRet.addProperty("failed", _failed.get());
+    toRet.addProperty("batches", _batches.get());
+    return toRet;
+  }
+
+  // The writer thread: waits for stats, then writes whatever has queued up
+  // since, until closed and drained.
+  private void drain() {
+    List<GameStats> batch = new ArrayList<>(MAX_BATCH);
+    while (true) {
+      GameStats first;
+      try {
+        first = _open ? _queue.take() : _queue.poll();
+      } catch (InterruptedException e) {
+        continue; // closing: write what is left, then stop.
+      }
+      if (first == null) {
+        break;
+      }
+      batch.add(first);
+      _queue.drainTo(batch, MAX_BATCH - 1);
+      if (!write(batch) && batch.size() > 1) {
+        // one bad game should not cost the rest of the batch.
+        for (GameStats stats : batch) {
+          write(Collections.singletonList(stats));
+        }
+      }
+      batch.clear();
+    }
+    try {
+      _conn.close();
+    } catch (SQLException e) {
+      e.printStackTrace();
+    }
+  }
+
+  // Writes batch in one transaction. If that fails, it is rolled back and
+  // nothing of it is stored.
+  private boolean write(List<GameStats> batch) {
+    try {
+      for (GameStats stats : batch) {
+        long id = insertGame(stats);
+        for (Outcome o : stats.getOutcomes()) {
+          _insertPlayer.setLong(1, id);
+          _insertPlayer.setInt(2, o.getID());
+          _insertPlayer.setString(3, o.getName());
+          _insertPlayer.setString(4, o.getColor());
+          _insertPlayer.addBatch();
+          _insertOutcome.setLong(1, id);
+          _insertOutcome.setInt(2, o.getID());
+          _insertOutcome.setInt(3, o.getPoints());
+          _insertOutcome.setBoolean(4, stats.getWinner() != null
+              && stats.getWinner() == o.getID());
+          _insertOutcome.addBatch();
+        }
+        int[] rolls = stats.getRollsArray();
+        for (int i = 0; i < rolls.length; i++) {
+          if (rolls[i] > 0) {
+            _insertRoll.setLong(1, id);
+            _insertRoll.setInt(2, i + 2);
+            _insertRoll.setInt(3, rolls[i]);
+            _insertRoll.addBatch();
+          }
+        }
+      }
+      // players first: outcomes refer to them.
+      _insertPlayer.executeBatch();
+      _insertOutcome.executeBatch();
+      _insertRoll.executeBatch();
+      _conn.commit();
+      _written.addAndGet(batch.size());
+      _batches.incrementAndGet();
+      return true;
+    } catch (SQLException e) {
+      try {
+        _insertPlayer.clearBatch();
+        _insertOutcome.clearBatch();
+        _insertRoll.clearBatch();
+        _conn.rollback();
+      } catch (SQLException e2) {
+        e2.printStackTrace();
+      }
+      if (batch.size() == 1) {
+        System.out.println("ERROR: Could not store game stats - "
+            + e.getLocalizedMessage());
+        _failed.incrementAndGet();
+      }
+      return false;
+    }
+  }
+
+  // Each game's id is needed for its rows, so games are inserted one by one,
+  // in the batch's transaction.
+  private long insertGame(GameStats stats) throws SQLException {
+    _insertGame.setLong(1, stats.getStarted());
+    _insertGame.setLong(2, stats.getFinished());
+    _insertGame.setInt(3, stats.getTurns());
+    _insertGame.setInt(4, stats.getVictoryPoints());
+    _insertGame.setBoolean(5, stats.isCitiesAndKnights());
+    _insertGame.setBoolean(6, stats.isCheatingUsed());
+    if (stats.getWinner() != null) {
+      _insertGame.setInt(7, stats.getWinner());
+    } else {
+      _insertGame.setNull(7, Types.INTEGER);
+    }
+    _insertGame.executeUpdate();
+    try (ResultSet keys = _insertGame.getGeneratedKeys()) {
+      keys.next();
+      return keys.getLong(1);
+    }
   }
 
 }
@@ -1,7 +1,22 @@
 package edu.brown.cs.gamestats;
 
+import com.google.gson.JsonObject;
+
+/**
+ * Somewhere to keep the stats of finished games. storeGameStats is called by
+ * the thread of the game that just ended, so it should return at once and do
+ * any slow work, like disk I/O, elsewhere.
+ */
 public interface StatsHandler {
 
   void storeGameStats(GameStats stats);
 
+  /**
+   * @return counts of what became of the stats given to this handler, for
+   *         monitoring.
+   */
+  default JsonObject stats() {
+    return new JsonObject();
+  }
+
 }
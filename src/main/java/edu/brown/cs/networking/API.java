@@ -1,7 +1,11 @@
 package edu.brown.cs.networking;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 /**
@@ -22,6 +26,66 @@ public interface API {
   JsonObject getGameState(int forPlayer);
 
 
+  /**
+   * Get the game state for {@code forPlayer} as a message ready to be sent. An
+   * API that remembers what each player has acknowledged may answer with only
+   * the changes since then; by default the full state is sent.
+   *
+   * @param forPlayer
+   *          the user identifier integer for this player
+   * @param forceFull
+   *          true if the player has no usable previous state, and must receive
+   *          the whole game state.
+   * @return the String-representation of the message to send.
+   */
+  default String getGameStateUpdate(int forPlayer, boolean forceFull) {
+    JsonObject gs = getGameState(forPlayer);
+    gs.addProperty(Networking.REQUEST_IDENTIFIER, "getGameState");
+    return gs.toString();
+  }
+
+
+  /**
+   * Record that {@code forPlayer} has received the state tagged with
+   * {@code version}. Does nothing by default.
+   *
+   * @param forPlayer
+   *          the user identifier integer for this player
+   * @param version
+   *          the version the player acknowledged.
+   */
+  default void acknowledgeState(int forPlayer, int version) {}
+
+
+  /**
+   * Record which static board description {@code forPlayer} has cached, so
+   * that it is not sent again. Does nothing by default.
+   *
+   * @param forPlayer
+   *          the user identifier integer for this player
+   * @param hash
+   *          the content hash of the cached description, or null if none.
+   */
+  default void acknowledgeBoard(int forPlayer, String hash) {}
+
+
+  /**
+   * Get the game state as a spectator sees it, as a message ready to be sent:
+   * only what every player can see, with no player's hand. It is the same for
+   * every spectator, and should be the same String until the state changes,
+   * so a group can tell when there is something new to fan out.
+   *
+   * @param withBoard
+   *          true for a spectator that has just joined, and needs whatever
+   *          static description of the game the state refers to.
+   * @return the String-representation of the message to send, or null, by
+   *         default, if this API cannot be watched.
+   */
+  default String getSpectatorState(boolean withBoard) {
+    return null;
+  }
+
+
   /**
    * Perform an action, and receive a mapping of user identifier to JsonObject.
    * The Map returned represents the responses, for each player, given by the
@@ -35,6 +99,61 @@ public interface API {
   Map<Integer, JsonObject> performAction(String action);
 
 
+  /**
+   * Perform an action that has already been parsed. By default it is turned
+   * back into text for {@link #performAction(String)}; APIs that can read the
+   * JsonObject directly should override this to avoid parsing it twice.
+   *
+   * @param action
+   *          the parsed action, sent by the front end user.
+   * @return a map of id's to response Json for each user.
+   */
+  default Map<Integer, JsonObject> performAction(JsonObject action) {
+    return performAction(action.toString());
+  }
+
+
+  /**
+   * Perform several actions, in order. By default this is not atomic: each
+   * action is performed with {@link #performAction(JsonObject)} as it comes,
+   * and if one is malformed the batch stops there, with the actions before it
+   * left done. APIs that can undo a batch should override this to make it all
+   * or nothing.
+   *
+   * @param actions
+   *          the parsed actions, in the order to perform them.
+   * @return a map of id's to response Json for each user: "success" and
+   *         "results", the {"action", "content"} pairs that user received, in
+   *         order. A malformed action maps -1 to its error instead, with
+   *         "failedAction", its index, added.
+   */
+  default Map<Integer, JsonObject> performBatch(List<JsonObject> actions) {
+    Map<Integer, JsonObject> combined = new HashMap<>();
+    for (int i = 0; i < actions.size(); i++) {
+      Map<Integer, JsonObject> responses = performAction(actions.get(i));
+      if (responses.containsKey(-1)) {
+        JsonObject error = responses.get(-1);
+        error.addProperty("failedAction", i);
+        return Collections.singletonMap(-1, error);
+      }
+      for (Map.Entry<Integer, JsonObject> entry : responses.entrySet()) {
+        JsonObject forUser = combined.get(entry.getKey());
+        if (forUser == null) {
+          forUser = new JsonObject();
+          forUser.addProperty("success", true);
+          forUser.add("results", new JsonArray());
+          combined.put(entry.getKey(), forUser);
+        }
+        JsonObject result = new JsonObject();
+        result.add("action", actions.get(i).get("action"));
+        result.add("content", entry.getValue());
+        forUser.getAsJsonArray("results").add(result);
+      }
+    }
+    return combined;
+  }
+
+
   /**
    * Add a player to this game, providing attributes in the form of JSON.
    *
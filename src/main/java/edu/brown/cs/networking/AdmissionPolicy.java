@@ -0,0 +1,118 @@
+package edu.brown.cs.networking;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides whether a GCT may start another group. A group is admitted while
+ * there are fewer than {@code maxGroups} live groups and the JVM has headroom:
+ * heap use below {@code maxHeapFraction} of the maximum, and system load per
+ * core below {@code maxLoadPerCore}. Headroom is measured at most once a
+ * second, so asking is cheap. Groups that already exist are never refused
+ * users because of it.
+ */
+public final class AdmissionPolicy {
+
+  /**
+   * Room for thousands of games, backing off before the heap or the CPUs are
+   * exhausted.
+   */
+  public static final AdmissionPolicy DEFAULT =
+      new AdmissionPolicy(10000, 0.85, 4.0);
+
+  private static final long    MEASURE_INTERVAL_MILLIS = 1000;
+
+  private final int            maxGroups;
+  private final double         maxHeapFraction;
+  private final double         maxLoadPerCore;
+  private final DoubleSupplier heapFraction;
+  private final DoubleSupplier loadPerCore;
+  private final LongSupplier   clock;
+
+  private volatile long        measuredAt;
+  private volatile boolean     headroom                = true;
+
+
+  /**
+   * @param maxGroups
+   *          the most groups that may be live at once.
+   * @param maxHeapFraction
+   *          the fraction of the maximum heap above which no group is started;
+   *          1 or more to ignore the heap.
+   * @param maxLoadPerCore
+   *          the system load average per core above which no group is
+   *          started; infinity to ignore load.
+   */
+  public AdmissionPolicy(int maxGroups, double maxHeapFraction,
+      double maxLoadPerCore) {
+    this(maxGroups, maxHeapFraction, maxLoadPerCore,
+        AdmissionPolicy::measureHeapFraction,
+        AdmissionPolicy::measureLoadPerCore, System::currentTimeMillis);
+  }
+
+
+  AdmissionPolicy(int maxGroups, double maxHeapFraction,
+      double maxLoadPerCore, DoubleSupplier heapFraction,
+      DoubleSupplier loadPerCore, LongSupplier clock) {
+    if (maxGroups < 1) {
+      throw new IllegalArgumentException("At least one group must fit.");
+    }
+    this.maxGroups = maxGroups;
+    this.maxHeapFraction = maxHeapFraction;
+    this.maxLoadPerCore = maxLoadPerCore;
+    this.heapFraction = heapFraction;
+    this.loadPerCore = loadPerCore;
+    this.clock = clock;
+    this.measuredAt = clock.getAsLong() - MEASURE_INTERVAL_MILLIS;
+  }
+
+
+  /**
+   * @return the most groups that may be live at once.
+   */
+  public int maxGroups() {
+    return maxGroups;
+  }
+
+
+  /**
+   * @param liveGroups
+   *          the number of groups live now.
+   * @return true if one more group may be started.
+   */
+  public boolean admits(int liveGroups) {
+    return liveGroups < maxGroups && hasHeadroom();
+  }
+
+
+  private boolean hasHeadroom() {
+    long now = clock.getAsLong();
+    if (now - measuredAt >= MEASURE_INTERVAL_MILLIS) {
+      // racing threads may both measure; either answer will do.
+      double load = loadPerCore.getAsDouble();
+      headroom = heapFraction.getAsDouble() < maxHeapFraction
+          && (load < 0 || load < maxLoadPerCore);
+      measuredAt = now;
+    }
+    return headroom;
+  }
+
+
+  private static double measureHeapFraction() {
+    MemoryUsage heap =
+        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    return heap.getMax() <= 0 ? 0 : (double) heap.getUsed() / heap.getMax();
+  }
+
+
+  // negative when the platform has no load average.
+  private static double measureLoadPerCore() {
+    double load =
+        ManagementFactory.getOperatingSystemMXBean().getSystemLoadAverage();
+    return load < 0 ? load
+        : load / Runtime.getRuntime().availableProcessors();
+  }
+
+}
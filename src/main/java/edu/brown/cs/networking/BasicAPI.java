@@ -12,7 +12,7 @@ class BasicAPI implements API {
   @Override
   public JsonObject getGameState(int forPlayer) {
     print("DEMO: Called getGameState for player " + forPlayer);
-    return null;
+    return new JsonObject();
   }
 
 
@@ -16,7 +16,8 @@ class BasicGroupSelector implements GroupSelector {
         return ug;
       }
     }
-    UserGroupBuilder b = new UserGroupBuilder(BasicAPI.class);
+    UserGroupBuilder b = new UserGroupBuilder(BasicAPI.class)
+        .withUniqueIdentifier(DistinctRandom.getString());
     return b.build();
   }
 
@@ -0,0 +1,462 @@
+package edu.brown.cs.networking;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * A compact binary encoding of the JSON messages sent over the websocket, for
+ * clients that opt in during the handshake (see {@link #QUERY_PARAMETER}).
+ *
+ * Every value starts with a one byte tag. Integers are zigzag varints, and
+ * strings found in the dictionary (field names, request types, enum names) are
+ * sent as their varint index, so an enum value costs its ordinal in the
+ * dictionary rather than its name. Objects shaped like a hex coordinate
+ * ({x,y,z}) or an intersection coordinate ({coord1,coord2,coord3}) are packed
+ * into their bare integers. Decoding yields the same JSON the text protocol
+ * would have carried, so the rest of the server and the client are unaware of
+ * the format.
+ *
+ * The dictionary is sent to the client as a text frame when it connects, so
+ * the two sides always agree on it.
+ *
+ * @author ndemarco
+ */
+public final class BinaryWire {
+
+  /**
+   * Query parameter of the websocket URL used to opt in, e.g.
+   * {@code /action/?wire=binary}.
+   */
+  public static final String QUERY_PARAMETER = "wire";
+  public static final String BINARY          = "binary";
+
+  static final byte          NULL            = 0;
+  static final byte          FALSE           = 1;
+  static final byte          TRUE            = 2;
+  static final byte          INTEGER         = 3;
+  static final byte          DOUBLE          = 4;
+  static final byte          STRING          = 5;
+  static final byte          WORD            = 6;
+  static final byte          ARRAY           = 7;
+  static final byte          OBJECT          = 8;
+  static final byte          HEX             = 9;
+  static final byte          INTERSECTION    = 10;
+
+  private static final String[] HEX_KEYS          = {"x", "y", "z"};
+  private static final String[] INTERSECTION_KEYS =
+      {"coord1", "coord2", "coord3"};
+
+  private final List<String>         words;
+  private final Map<String, Integer> wordIndex;
+  private final JsonParser           parser = new JsonParser();
+
+
+  /**
+   * Create a codec with the given dictionary of frequent strings.
+   *
+   * @param dictionary
+   *          field names and values worth sending as an index. Duplicates are
+   *          ignored.
+   */
+  public BinaryWire(Collection<String> dictionary) {
+    this.words = Collections
+        .unmodifiableList(new ArrayList<>(new LinkedHashSet<>(dictionary)));
+    this.wordIndex = new HashMap<>();
+    for (int i = 0; i < words.size(); i++) {
+      wordIndex.put(words.get(i), i);
+    }
+  }
+
+
+  /**
+   * @return the text frame that tells a client which dictionary to decode and
+   *         encode with.
+   */
+  public JsonObject handshakeMessage() {
+    return new JsonObjectBuilder()
+        .addProperty(Networking.REQUEST_IDENTIFIER, "wireFormat")
+        .addProperty("format", BINARY)
+        .add("dictionary", Networking.GSON.toJsonTree(words))
+        .build();
+  }
+
+
+  /**
+   * Encode a JSON message.
+   *
+   * @param json
+   *          the JSON text of the message
+   * @return the binary encoding of the message.
+   */
+  public byte[] encode(String json) {
+    return encode(parser.parse(json));
+  }
+
+
+  /**
+   * Encode a JSON message.
+   *
+   * @param json
+   *          the message
+   * @return the binary encoding of the message.
+   */
+  public byte[] encode(JsonElement json) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+    write(out, json);
+    return out.toByteArray();
+  }
+
+
+  /**
+   * Decode a binary message.
+   *
+   * @param buf
+   *          buffer holding the message
+   * @param offset
+   *          where the message starts in {@code buf}
+   * @param length
+   *          length of the message
+   * @return the message as JSON.
+   * @throws IllegalArgumentException
+   *           if the bytes are not a well formed message.
+   */
+  public JsonElement decode(byte[] buf, int offset, int length) {
+    Reader in = new Reader(buf, offset, offset + length);
+    JsonElement result = read(in);
+    if (in.pos != in.end) {
+      throw new IllegalArgumentException("Trailing bytes in binary message");
+    }
+    return result;
+  }
+
+
+  // Encoding
+
+
+  private void write(ByteArrayOutputStream out, JsonElement json) {
+    if (json == null || json.isJsonNull()) {
+      out.write(NULL);
+    } else if (json.isJsonPrimitive()) {
+      writePrimitive(out, json.getAsJsonPrimitive());
+    } else if (json.isJsonArray()) {
+      JsonArray arr = json.getAsJsonArray();
+      out.write(ARRAY);
+      writeVarint(out, arr.size());
+      for (JsonElement e : arr) {
+        write(out, e);
+      }
+    } else {
+      writeObject(out, json.getAsJsonObject());
+    }
+  }
+
+
+  private void writePrimitive(ByteArrayOutputStream out, JsonPrimitive p) {
+    if (p.isBoolean()) {
+      out.write(p.getAsBoolean() ? TRUE : FALSE);
+    } else if (p.isNumber()) {
+      Long integral = asLong(p);
+      if (integral != null) {
+        out.write(INTEGER);
+        writeSigned(out, integral);
+      } else {
+        out.write(DOUBLE);
+        long bits = Double.doubleToLongBits(p.getAsDouble());
+        for (int shift = 56; shift >= 0; shift -= 8) {
+          out.write((int) (bits >>> shift));
+        }
+      }
+    } else {
+      String s = p.getAsString();
+      Integer index = wordIndex.get(s);
+      if (index != null) {
+        out.write(WORD);
+        writeVarint(out, index);
+      } else {
+        out.write(STRING);
+        writeText(out, s);
+      }
+    }
+  }
+
+
+  private void writeObject(ByteArrayOutputStream out, JsonObject obj) {
+    long[] hex = hexValues(obj);
+    if (hex != null) {
+      out.write(HEX);
+      for (long v : hex) {
+        writeSigned(out, v);
+      }
+      return;
+    }
+    long[][] intersection = intersectionValues(obj);
+    if (intersection != null) {
+      out.write(INTERSECTION);
+      for (long[] coord : intersection) {
+        for (long v : coord) {
+          writeSigned(out, v);
+        }
+      }
+      return;
+    }
+    out.write(OBJECT);
+    writeVarint(out, obj.entrySet().size());
+    for (Map.Entry<String, JsonElement> entry : obj.entrySet()) {
+      // Keys share the dictionary, flagged by the low bit.
+      Integer index = wordIndex.get(entry.getKey());
+      if (index != null) {
+        writeVarint(out, ((long) index << 1) | 1);
+      } else {
+        byte[] bytes = entry.getKey().getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, (long) bytes.length << 1);
+        out.write(bytes, 0, bytes.length);
+      }
+      write(out, entry.getValue());
+    }
+  }
+
+
+  // The integers of an object with exactly the given keys, in order, all
+  // holding integers; null if it has any other shape.
+  private static long[] shapedValues(JsonObject obj, String[] keys) {
+    if (obj.entrySet().size() != keys.length) {
+      return null;
+    }
+    long[] values = new long[keys.length];
+    Iterator<Map.Entry<String, JsonElement>> it = obj.entrySet().iterator();
+    for (int i = 0; i < keys.length; i++) {
+      Map.Entry<String, JsonElement> entry = it.next();
+      if (!entry.getKey().equals(keys[i])
+          || !entry.getValue().isJsonPrimitive()) {
+        return null;
+      }
+      Long v = asLong(entry.getValue().getAsJsonPrimitive());
+      if (v == null) {
+        return null;
+      }
+      values[i] = v;
+    }
+    return values;
+  }
+
+
+  private static long[] hexValues(JsonObject obj) {
+    return shapedValues(obj, HEX_KEYS);
+  }
+
+
+  private static long[][] intersectionValues(JsonObject obj) {
+    if (obj.entrySet().size() != INTERSECTION_KEYS.length) {
+      return null;
+    }
+    long[][] values = new long[INTERSECTION_KEYS.length][];
+    Iterator<Map.Entry<String, JsonElement>> it = obj.entrySet().iterator();
+    for (int i = 0; i < INTERSECTION_KEYS.length; i++) {
+      Map.Entry<String, JsonElement> entry = it.next();
+      if (!entry.getKey().equals(INTERSECTION_KEYS[i])
+          || !entry.getValue().isJsonObject()) {
+        return null;
+      }
+      values[i] = hexValues(entry.getValue().getAsJsonObject());
+      if (values[i] == null) {
+        return null;
+      }
+    }
+    return values;
+  }
+
+
+  // The value of a number written without a fraction or exponent, if it fits
+  // in a long.
+  private static Long asLong(JsonPrimitive p) {
+    if (!p.isNumber()) {
+      return null;
+    }
+    String text = p.getAsNumber().toString();
+    for (int i = 0; i < text.length(); i++) {
+      char c = text.charAt(i);
+      if (!(c >= '0' && c <= '9') && !(i == 0 && c == '-')) {
+        return null;
+      }
+    }
+    try {
+      return Long.parseLong(text);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+
+  private static void writeText(ByteArrayOutputStream out, String s) {
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    writeVarint(out, bytes.length);
+    out.write(bytes, 0, bytes.length);
+  }
+
+
+  private static void writeSigned(ByteArrayOutputStream out, long v) {
+    writeVarint(out, (v << 1) ^ (v >> 63));
+  }
+
+
+  private static void writeVarint(ByteArrayOutputStream out, long v) {
+    while ((v & ~0x7FL) != 0) {
+      out.write((int) ((v & 0x7F) | 0x80));
+      v >>>= 7;
+    }
+    out.write((int) v);
+  }
+
+
+  // Decoding
+
+
+  private static final class Reader {
+    private final byte[] buf;
+    private final int    end;
+    private int          pos;
+
+
+    Reader(byte[] buf, int pos, int end) {
+      this.buf = buf;
+      this.pos = pos;
+      this.end = end;
+    }
+
+
+    byte next() {
+      if (pos >= end) {
+        throw new IllegalArgumentException("Truncated binary message");
+      }
+      return buf[pos++];
+    }
+
+
+    long varint() {
+      long result = 0;
+      for (int shift = 0; shift < 64; shift += 7) {
+        byte b = next();
+        result |= (long) (b & 0x7F) << shift;
+        if ((b & 0x80) == 0) {
+          return result;
+        }
+      }
+      throw new IllegalArgumentException("Malformed varint");
+    }
+
+
+    long signed() {
+      long v = varint();
+      return (v >>> 1) ^ -(v & 1);
+    }
+
+
+    int length() {
+      long n = varint();
+      if (n < 0 || n > end - pos) {
+        throw new IllegalArgumentException("Bad length " + n);
+      }
+      return (int) n;
+    }
+
+
+    String text(int length) {
+      String s = new String(buf, pos, length, StandardCharsets.UTF_8);
+      pos += length;
+      return s;
+    }
+  }
+
+
+  private JsonElement read(Reader in) {
+    byte tag = in.next();
+    switch (tag) {
+      case NULL:
+        return JsonNull.INSTANCE;
+      case FALSE:
+        return new JsonPrimitive(false);
+      case TRUE:
+        return new JsonPrimitive(true);
+      case INTEGER:
+        return new JsonPrimitive(in.signed());
+      case DOUBLE:
+        long bits = 0;
+        for (int i = 0; i < 8; i++) {
+          bits = (bits << 8) | (in.next() & 0xFF);
+        }
+        return new JsonPrimitive(Double.longBitsToDouble(bits));
+      case STRING:
+        return new JsonPrimitive(in.text(in.length()));
+      case WORD:
+        return new JsonPrimitive(word(in.varint()));
+      case ARRAY:
+        int size = in.length();
+        JsonArray arr = new JsonArray();
+        for (int i = 0; i < size; i++) {
+          arr.add(read(in));
+        }
+        return arr;
+      case OBJECT:
+        int fields = in.length();
+        JsonObject obj = new JsonObject();
+        for (int i = 0; i < fields; i++) {
+          long key = in.varint();
+          String name = (key & 1) == 1 ? word(key >>> 1)
+              : in.text(checkLength(in, key >>> 1));
+          obj.add(name, read(in));
+        }
+        return obj;
+      case HEX:
+        return readHex(in);
+      case INTERSECTION:
+        JsonObject coord = new JsonObject();
+        for (String k : INTERSECTION_KEYS) {
+          coord.add(k, readHex(in));
+        }
+        return coord;
+      default:
+        throw new IllegalArgumentException("Unknown tag " + tag);
+    }
+  }
+
+
+  private static JsonObject readHex(Reader in) {
+    JsonObject hex = new JsonObject();
+    for (String k : HEX_KEYS) {
+      hex.addProperty(k, in.signed());
+    }
+    return hex;
+  }
+
+
+  private static int checkLength(Reader in, long n) {
+    if (n > in.end - in.pos) {
+      throw new IllegalArgumentException("Bad length " + n);
+    }
+    return (int) n;
+  }
+
+
+  private String word(long index) {
+    if (index < 0 || index >= words.size()) {
+      throw new IllegalArgumentException("Unknown word " + index);
+    }
+    return words.get((int) index);
+  }
+
+}
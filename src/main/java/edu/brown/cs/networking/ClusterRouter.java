@@ -0,0 +1,376 @@
+package edu.brown.cs.networking;
+
+import static edu.brown.cs.networking.Util.format;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import spark.Spark;
+
+/**
+ * The front of a cluster of server processes on one host, each running its own
+ * GCT with CATAN_NODE set to its index in the list given here. A node stamps
+ * its id on every user and group id it makes (see
+ * {@link DistinctRandom#nodeOf(String)}), so the router knows, with no table
+ * of its own, which node owns any game or user it is asked about.
+ *
+ * The router polls each node's STATUS_ROUTE every POLL_MILLIS for its load and
+ * lobby. A user joining a named game, or coming back with their id, is sent to
+ * the node that owns it; a new game goes to the node with the fewest live
+ * games that is not at its limit, and a quick match to such a node that
+ * already has an open game of the size asked for. The lobbies of all nodes are
+ * merged into one, which the router publishes to its own viewers.
+ */
+public final class ClusterRouter {
+
+  /**
+   * The route on each node that reports its {@link GCT#clusterStatus()}.
+   */
+  public static final String                STATUS_ROUTE = "/cluster/status";
+
+  /**
+   * The route on each node that says whether the user id in its "id" query
+   * parameter is one of its live users, as {@link GCT#userIDIsValid(String)}.
+   */
+  public static final String                USER_ROUTE   = "/cluster/user";
+
+  static final long                         POLL_MILLIS  = 1000;
+  private static final int                  HTTP_TIMEOUT = 500;
+
+  private final List<String>                nodes;
+  private final Function<String, JsonObject> fetcher;
+  private final BiPredicate<String, String> userChecker;
+  private final JsonObject[]                statuses;
+  private final LobbyPublisher              lobby;
+
+
+  /**
+   * @param nodes
+   *          the base url of each node, such as "http://localhost:4568",
+   *          indexed by node id.
+   */
+  public ClusterRouter(List<String> nodes) {
+    this(nodes, ClusterRouter::fetch, ClusterRouter::checkUser,
+        TimerWheel.shared());
+  }
+
+
+  /**
+   * @param fetcher
+   *          gets the status of the node at a base url, or null if it cannot
+   *          be reached.
+   * @param userChecker
+   *          asks the node at a base url whether a user id is live there.
+   * @param timers
+   *          the wheel the merged lobby is published on.
+   */
+  ClusterRouter(List<String> nodes, Function<String, JsonObject> fetcher,
+      BiPredicate<String, String> userChecker, TimerWheel timers) {
+    if (nodes.isEmpty()) {
+      throw new IllegalArgumentException("A cluster needs at least one node.");
+    }
+    this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+    this.fetcher = fetcher;
+    this.userChecker = userChecker;
+    this.statuses = new JsonObject[nodes.size()];
+    this.lobby = new LobbyPublisher(this::openGroups, timers);
+  }
+
+
+  /**
+   * Poll the nodes every POLL_MILLIS, on a thread of the router's own, since a
+   * node that is down may take HTTP_TIMEOUT to say so.
+   *
+   * @return this.
+   */
+  public ClusterRouter start() {
+    ScheduledExecutorService poller = Executors
+        .newSingleThreadScheduledExecutor(r -> {
+          Thread t = new Thread(r, "cluster-poller");
+          t.setDaemon(true);
+          return t;
+        });
+    poller.scheduleWithFixedDelay(this::poll, 0, POLL_MILLIS,
+        TimeUnit.MILLISECONDS);
+    return this;
+  }
+
+
+  /**
+   * Serve the merged lobby to GroupView websockets on {@code route}, as
+   * GCTBuilder.withGroupViewRoute does for a single node.
+   */
+  public void serveLobby(String route) {
+    Spark.webSocket(route, GroupViewWebsocket.class);
+    GroupViewWebsocket.setLobby(lobby);
+  }
+
+
+  /**
+   * Refresh the status of every node, and publish any change to the lobby.
+   */
+  void poll() {
+    for (int i = 0; i < statuses.length; i++) {
+      JsonObject status;
+      try {
+        status = fetcher.apply(nodes.get(i));
+      } catch (RuntimeException e) {
+        status = null;
+      }
+      if (status == null && statuses[i] != null) {
+        format("Cluster node %d is down%n", i);
+      }
+      synchronized (this) {
+        statuses[i] = status;
+      }
+    }
+    lobby.changed();
+  }
+
+
+  /**
+   * @param cookies
+   *          the cookies of a user about to open a game websocket.
+   * @return the base url of the node that should take them, or null if no
+   *         node can.
+   */
+  public synchronized String nodeFor(Map<String, String> cookies) {
+    String owned = cookies.get("desiredGroupId");
+    if (owned == null) {
+      owned = cookies.get(Networking.USER_IDENTIFIER);
+    }
+    if (owned != null) {
+      int node = DistinctRandom.nodeOf(owned);
+      if (node >= 0 && node < statuses.length && statuses[node] != null) {
+        return nodes.get(node);
+      }
+      if (cookies.containsKey("desiredGroupId")) {
+        return null; // the game went with its node.
+      }
+    }
+
+    int size = -1;
+    if (Boolean.parseBoolean(cookies.get("quickMatch"))) {
+      try {
+        size = Integer.parseInt(cookies.get("numPlayersDesired"));
+      } catch (NumberFormatException e) {
+        size = -1;
+      }
+    }
+    int best = -1;
+    boolean bestHasMatch = false;
+    for (int i = 0; i < statuses.length; i++) {
+      JsonObject s = statuses[i];
+      if (s == null
+          || s.getAsJsonObject("open").get("atLimit").getAsBoolean()) {
+        continue;
+      }
+      boolean hasMatch = size > 0 && hasOpenGroupOfSize(s, size);
+      if (best < 0 || (hasMatch && !bestHasMatch)
+          || (hasMatch == bestHasMatch && live(s) < live(statuses[best]))) {
+        best = i;
+        bestHasMatch = hasMatch;
+      }
+    }
+    return best < 0 ? null : nodes.get(best);
+  }
+
+
+  /**
+   * Whether a user is still live on the node that owns them, so that one with
+   * a stale id cookie is not sent to a node that will turn them away. Asks
+   * that node, which takes up to HTTP_TIMEOUT if it is slow.
+   *
+   * @param userID
+   *          the user's id, from their cookie.
+   * @return true if the node that owns the id is up and has that user.
+   */
+  public boolean userIDIsValid(String userID) {
+    int node = DistinctRandom.nodeOf(userID);
+    String owner;
+    synchronized (this) {
+      if (node < 0 || node >= statuses.length || statuses[node] == null) {
+        return false;
+      }
+      owner = nodes.get(node);
+    }
+    try {
+      return userChecker.test(owner, userID);
+    } catch (RuntimeException e) {
+      return false;
+    }
+  }
+
+
+  /**
+   * @return the open groups of every node that is up, in the form of
+   *         {@link GCT#openGroups()}. The cluster is at its limit when every
+   *         node is.
+   */
+  public synchronized JsonObject openGroups() {
+    JsonArray groups = new JsonArray();
+    boolean atLimit = true;
+    for (JsonObject s : statuses) {
+      if (s != null) {
+        JsonObject open = s.getAsJsonObject("open");
+        open.getAsJsonArray("groups").forEach(groups::add);
+        atLimit &= open.get("atLimit").getAsBoolean();
+      }
+    }
+    JsonObject toRet = new JsonObject();
+    toRet.add("groups", groups);
+    toRet.addProperty("atLimit", atLimit);
+    return toRet;
+  }
+
+
+  /**
+   * @return the full groups of every node that is up, in the form of
+   *         {@link GCT#closedGroups()}.
+   */
+  public synchronized JsonObject closedGroups() {
+    JsonArray groups = new JsonArray();
+    for (JsonObject s : statuses) {
+      if (s != null) {
+        s.getAsJsonObject("closed").getAsJsonArray("closedGroups")
+            .forEach(groups::add);
+      }
+    }
+    JsonObject toRet = new JsonObject();
+    toRet.add("closedGroups", groups);
+    return toRet;
+  }
+
+
+  /**
+   * @return the sum of the group limits of the nodes that are up.
+   */
+  public synchronized int groupLimit() {
+    int limit = 0;
+    for (JsonObject s : statuses) {
+      if (s != null) {
+        limit += s.get("limit").getAsInt();
+      }
+    }
+    return limit;
+  }
+
+
+  /**
+   * @return the game lifecycle counts of the nodes that are up, summed, with
+   *         the largest heap per game of any, and the number of nodes up and
+   *         configured.
+   */
+  public synchronized JsonObject stats() {
+    JsonObject toRet = sum("games");
+    int up = 0;
+    for (JsonObject s : statuses) {
+      if (s != null) {
+        up++;
+      }
+    }
+    toRet.addProperty("nodesUp", up);
+    toRet.addProperty("nodes", nodes.size());
+    return toRet;
+  }
+
+
+  /**
+   * @return the rate limiter counts of the nodes that are up, summed.
+   */
+  public synchronized JsonObject limits() {
+    return sum("limits");
+  }
+
+
+  // the numbers in the {@code field} object of each status, summed, except
+  // for the heap per game, of which the largest is taken.
+  private JsonObject sum(String field) {
+    JsonObject toRet = new JsonObject();
+    for (JsonObject s : statuses) {
+      if (s == null || !s.has(field)) {
+        continue;
+      }
+      for (Entry<String, JsonElement> e : s.getAsJsonObject(field)
+          .entrySet()) {
+        long value = e.getValue().getAsLong();
+        long before = toRet.has(e.getKey())
+            ? toRet.get(e.getKey()).getAsLong() : 0;
+        toRet.addProperty(e.getKey(),
+            e.getKey().equals("heapBytesPerGame") ? Math.max(before, value)
+                : before + value);
+      }
+    }
+    return toRet;
+  }
+
+
+  private static boolean hasOpenGroupOfSize(JsonObject status, int size) {
+    for (JsonElement g : status.getAsJsonObject("open")
+        .getAsJsonArray("groups")) {
+      JsonObject group = g.getAsJsonObject().getAsJsonObject("group");
+      if (group.get("maxSize").getAsInt() == size) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+
+  private static int live(JsonObject status) {
+    return status.get("live").getAsInt();
+  }
+
+
+  private static boolean checkUser(String baseUrl, String userID) {
+    try {
+      HttpURLConnection c = (HttpURLConnection) new URL(baseUrl + USER_ROUTE
+          + "?id=" + URLEncoder.encode(userID, "UTF-8")).openConnection();
+      c.setConnectTimeout(HTTP_TIMEOUT);
+      c.setReadTimeout(HTTP_TIMEOUT);
+      try (Reader in = new InputStreamReader(c.getInputStream(),
+          StandardCharsets.UTF_8)) {
+        return new JsonParser().parse(in).getAsBoolean();
+      }
+    } catch (IOException | RuntimeException e) {
+      return false;
+    }
+  }
+
+
+  private static JsonObject fetch(String baseUrl) {
+    try {
+      HttpURLConnection c = (HttpURLConnection) new URL(baseUrl + STATUS_ROUTE)
+          .openConnection();
+      c.setConnectTimeout(HTTP_TIMEOUT);
+      c.setReadTimeout(HTTP_TIMEOUT);
+      try (Reader in = new InputStreamReader(c.getInputStream(),
+          StandardCharsets.UTF_8)) {
+        return new JsonParser().parse(in).getAsJsonObject();
+      }
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+}
@@ -21,6 +21,8 @@ class DisconnectUserTask implements Runnable {
   @Override
   public void run() {
     Group g = gct.groupForUser(u);
-    g.remove(u);
+    if (g != null) {
+      g.remove(u);
+    }
   }
 }
@@ -1,31 +1,100 @@
 package edu.brown.cs.networking;
 
-import java.util.HashSet;
-import java.util.Set;
-import java.util.UUID;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Provides a static method getString(), which provides a guaranteed-unique
  * alphanumeric string for user or group identifiers.
  *
+ * Ids are distinct by construction, so none need be remembered: each is this
+ * node's id, the time the node started, and a counter, followed by a random
+ * part. A user's id is the cookie that lets them back into their game, so the
+ * random part keeps it from being guessed from another. Each thread draws from
+ * its own generator, so no lock is shared.
+ *
  * @author ndemarco
  */
-public class DistinctRandom {
+public final class DistinctRandom {
+
+  private static final int                       NODE_ID_RANGE =
+      36 * 36 * 36 * 36;
+
+  private static final int                       NODE_ID       =
+      chooseNodeId();
+  private static final String                    PREFIX        =
+      Long.toString(NODE_ID, 36) + "-"
+          + Long.toString(System.currentTimeMillis(), 36) + "-";
+  private static final AtomicLong                COUNTER       =
+      new AtomicLong();
+  private static final ThreadLocal<SecureRandom> RANDOM        =
+      ThreadLocal.withInitial(DistinctRandom::newRandom);
 
-  private static Set<String> usedAlready = new HashSet<>();
+
+  private DistinctRandom() {}
 
 
   /**
-   * @return a random string, distinct from any other string so far returned by
-   *         this method.
+   * @return a string distinct from any other returned by this method, on this
+   *         node or any other with a different node id.
    */
   public static String getString() {
-    String newid = UUID.randomUUID().toString();
-    while (usedAlready.contains(newid)) {
-      newid = UUID.randomUUID().toString();
+    long secret = RANDOM.get().nextLong() >>> 1;
+    return PREFIX + Long.toString(COUNTER.incrementAndGet(), 36) + "-"
+        + Long.toString(secret, 36);
+  }
+
+
+  /**
+   * @return this node's id: the CATAN_NODE environment variable, as set for
+   *         each process of a cluster, else a random number chosen when it
+   *         starts.
+   */
+  public static int nodeId() {
+    return NODE_ID;
+  }
+
+
+  /**
+   * @param id
+   *          a string returned by getString(), on any node.
+   * @return the id of the node that made {@code id}, or -1 if it is not one.
+   */
+  public static int nodeOf(String id) {
+    int dash = id == null ? -1 : id.indexOf('-');
+    if (dash < 1) {
+      return -1;
+    }
+    try {
+      int node = Integer.parseInt(id.substring(0, dash), 36);
+      return node < NODE_ID_RANGE ? node : -1;
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+
+  private static int chooseNodeId() {
+    String configured = System.getenv("CATAN_NODE");
+    if (configured != null) {
+      int node = Integer.parseInt(configured);
+      if (node < 0 || node >= NODE_ID_RANGE) {
+        throw new IllegalArgumentException("CATAN_NODE out of range: " + node);
+      }
+      return node;
+    }
+    return new SecureRandom().nextInt(NODE_ID_RANGE);
+  }
+
+
+  // the platform's default may be backed by one device file behind a lock.
+  private static SecureRandom newRandom() {
+    try {
+      return SecureRandom.getInstance("SHA1PRNG");
+    } catch (NoSuchAlgorithmException e) {
+      return new SecureRandom();
     }
-    usedAlready.add(newid);
-    return newid;
   }
 
 }
@@ -0,0 +1,92 @@
+package edu.brown.cs.networking;
+
+import java.util.Map;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * A message encoded once, to be sent as is to any number of Users. The text
+ * is built when the Frame is made; the binary encoding, for Users on the
+ * binary wire format, is built the first time one of them is sent the Frame
+ * and then shared too. A Frame made from a JsonElement keeps it, so the binary
+ * encoding is written from it rather than from the text parsed again.
+ *
+ * Frames are immutable and may be sent from any thread.
+ */
+public final class Frame {
+
+  private final String      text;
+  private final JsonElement json;
+  private BinaryWire        encodedFor;
+  private byte[]            bytes;
+
+
+  private Frame(String text, JsonElement json) {
+    this.text = text;
+    this.json = json;
+  }
+
+
+  /**
+   * @param json
+   *          the message. It must not be changed once the Frame is made.
+   * @return a Frame holding the message.
+   */
+  public static Frame of(JsonElement json) {
+    return new Frame(json.toString(), json);
+  }
+
+
+  /**
+   * @param text
+   *          the JSON text of the message.
+   * @return a Frame holding the message.
+   */
+  public static Frame of(String text) {
+    return new Frame(text, null);
+  }
+
+
+  /**
+   * @return the JSON text of the message.
+   */
+  public String text() {
+    return text;
+  }
+
+
+  /**
+   * @param wire
+   *          the binary format to encode with.
+   * @return the message in that format. The array is shared, and must not be
+   *         changed.
+   */
+  synchronized byte[] bytes(BinaryWire wire) {
+    if (encodedFor != wire) {
+      bytes = json != null ? wire.encode(json) : wire.encode(text);
+      encodedFor = wire;
+    }
+    return bytes;
+  }
+
+
+  /**
+   * @param seq
+   *          the message's number in its game's ReplayLog.
+   * @return this message, a JSON object, with a seq field added first.
+   */
+  Frame numbered(long seq) {
+    if (json == null || !json.isJsonObject()) {
+      return of(ReplayLog.stamp(text, seq));
+    }
+    JsonObject stamped = new JsonObject();
+    stamped.addProperty("seq", seq);
+    for (Map.Entry<String, JsonElement> e : json.getAsJsonObject()
+        .entrySet()) {
+      stamped.add(e.getKey(), e.getValue());
+    }
+    return of(stamped);
+  }
+
+}
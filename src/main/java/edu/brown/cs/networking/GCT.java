@@ -2,14 +2,17 @@ package edu.brown.cs.networking;
 
 import static edu.brown.cs.networking.Util.format;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.lang.management.OperatingSystemMXBean;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
-
-import org.eclipse.jetty.util.ConcurrentHashSet;
+import java.util.concurrent.Future;
 
 import com.google.gson.JsonObject;
 
@@ -22,31 +25,58 @@ import spark.Spark;
  */
 public final class GCT {
 
-  private final Set<Group>       pending;
-  private final Set<Group>       full;
+  // how many groups a new user is offered before they are turned away.
+  static final int              PLACEMENT_ATTEMPTS = 3;
+
+  private final GroupRegistry   groups;
+  private final AdmissionPolicy admission;
+  private final RateLimiter     limiter;
   private final Map<User, Group> userToUserGroup;
+  private final Map<String, User> idToUser;
   private final GroupSelector    groupSelector;
-
-  private static final int       GAME_LIMIT = 20;
+  private final BinaryWire       wire;
+  private final LobbyPublisher   lobby;
+  private final GameLifecycle    lifecycle;
+  private final GameLoops        loops;
 
 
   private GCT(GCTBuilder builder) {
     // Not provided by builder:
-    this.pending = new ConcurrentHashSet<>();
-    this.full = new ConcurrentHashSet<>();
+    this.groups = new GroupRegistry();
     this.userToUserGroup = new ConcurrentHashMap<>();
+    this.idToUser = new ConcurrentHashMap<>();
 
     // provided by builder:
     this.groupSelector = builder.groupSelector;
-    Spark.webSocket(builder.webSocketRoute, ReceivingWebsocket.class);
-    ReceivingWebsocket.setGct(this);
+    this.admission = builder.admission;
+    this.limiter = builder.limiter;
+    this.wire = new BinaryWire(builder.wireDictionary);
+    this.lifecycle = new GameLifecycle(this::reap, builder.timers);
+    this.loops = builder.loopCount > 0 ? new GameLoops(builder.loopCount)
+        : null;
 
     // build group view websocket, if user wants it.
     if (builder.groupViewRoute != null) {
-      Spark.webSocket(builder.groupViewRoute, GroupViewWebsocket.class);
-      GroupViewWebsocket.setGCT(this);
+      this.lobby = new LobbyPublisher(this::openGroups, builder.timers);
+    } else {
+      this.lobby = null;
+    }
+
+    // without a route, as in tests, nothing is served.
+    if (builder.webSocketRoute != null) {
+      Spark.webSocket(builder.webSocketRoute, ReceivingWebsocket.class);
+      ReceivingWebsocket.setGct(this);
+      if (lobby != null) {
+        Spark.webSocket(builder.groupViewRoute, GroupViewWebsocket.class);
+        GroupViewWebsocket.setLobby(lobby);
+      }
+      if (builder.spectatorRoute != null) {
+        Spark.webSocket(builder.spectatorRoute, SpectatorWebsocket.class);
+        SpectatorWebsocket.setGct(this);
+      }
+      lifecycle.start();
+      Spark.init();
     }
-    Spark.init();
   }
 
 
@@ -54,7 +84,62 @@ public final class GCT {
    * @return the maximum number of concurrent groups that this GCT supports.
    */
   public int groupLimit() {
-    return GAME_LIMIT;
+    return admission.maxGroups();
+  }
+
+
+  /**
+   * @return the stages of this GCT's groups, for monitoring.
+   */
+  public GameLifecycle lifecycle() {
+    return lifecycle;
+  }
+
+
+  /**
+   * @return the limits on messages from this GCT's users, and the counts of
+   *         those dropped.
+   */
+  public RateLimiter limiter() {
+    return limiter;
+  }
+
+
+  /**
+   * @return the event loops that own this GCT's groups, or null if work is run
+   *         on whichever thread submits it.
+   */
+  public GameLoops loops() {
+    return loops;
+  }
+
+
+  /**
+   * Run {@code task}, which works on the group that {@code u} is in, on the
+   * loop that owns that group.
+   *
+   * @param u
+   *          the user whose group the task works on.
+   * @param task
+   *          the work.
+   * @return a future that is done once the task has run, or null if this GCT
+   *         has no loops or {@code u} is in no group, in which case the caller
+   *         should run the task itself.
+   */
+  public Future<?> dispatch(User u, Runnable task) {
+    if (loops == null) {
+      return null;
+    }
+    Group g = groupForUser(u);
+    return g == null ? null : loops.submit(g, task);
+  }
+
+
+  /**
+   * @return the codec for clients that opt in to the binary wire format.
+   */
+  public BinaryWire wire() {
+    return wire;
   }
 
 
@@ -67,7 +152,42 @@ public final class GCT {
    * @return the {@code Group} that {@code u} is in.
    */
   public Group groupForUser(User u) {
-    return userToUserGroup.get(u);
+    Group g = userToUserGroup.get(u);
+    if (g != null && !g.hasUser(u)) {
+      // the group dropped u on its own, e.g. when it expired.
+      forget(u, g);
+      groups.update(g);
+      groupSelector.groupChanged(g);
+      return null;
+    }
+    return g;
+  }
+
+
+  /**
+   * Get the live Group with the given identifier, e.g. for a spectator to
+   * watch. One lookup in the registry's index, however many games are live.
+   *
+   * @param id
+   *          the identifier of the group.
+   * @return the Group, or null if no live group has that identifier.
+   */
+  public Group groupForID(String id) {
+    return id == null ? null : groups.byID(id);
+  }
+
+
+  /**
+   * Get the User with the given {@code uuid}, if that user is presently in any
+   * game held by this GCT.
+   *
+   * @param uuid
+   *          the USER_IDENTIFIER of the user.
+   * @return the User, or null if no group holds it.
+   */
+  public User userForID(String uuid) {
+    User u = uuid == null ? null : idToUser.get(uuid);
+    return u != null && groupForUser(u) != null ? u : null;
   }
 
 
@@ -79,8 +199,14 @@ public final class GCT {
    * @return true if this user is presently in any group in this GCT.
    */
   public boolean userIDIsValid(String uuid) {
-    return pending.stream().anyMatch(grp -> grp.hasUser(uuid))
-        || full.stream().anyMatch(grp -> grp.hasUser(uuid));
+    return userForID(uuid) != null;
+  }
+
+
+  private void forget(User u, Group g) {
+    if (userToUserGroup.remove(u, g) && u.hasField(Networking.USER_IDENTIFIER)) {
+      idToUser.remove(u.getField(Networking.USER_IDENTIFIER), u);
+    }
   }
 
 
@@ -89,15 +215,16 @@ public final class GCT {
    *         and in need of more users.
    */
   public JsonObject openGroups() {
-    refreshGroups();
     Collection<Group> list = new ArrayList<>();
-    pending.stream().filter(g -> !g.isEmpty())
-        .forEach(g -> list.add(new GroupView(g)));
+    for (Group g : groups.pending()) {
+      if (groups.update(g) == GroupRegistry.Status.PENDING) {
+        list.add(new GroupView(g));
+      }
+    }
     Collection<Group> gr = Collections.unmodifiableCollection(list);
     JsonObject toRet = new JsonObject();
     toRet.add("groups", Networking.GSON.toJsonTree(gr));
-    boolean atLim = pending.size() + full.size() >= GAME_LIMIT;
-    toRet.addProperty("atLimit", atLim);
+    toRet.addProperty("atLimit", !admission.admits(groups.size()));
     return toRet;
   }
 
@@ -107,9 +234,12 @@ public final class GCT {
    *         not in need of more users.
    */
   public JsonObject closedGroups() {
-    refreshGroups();
     Collection<Group> list = new ArrayList<>();
-    full.stream().forEach(g -> list.add(new GroupView(g)));
+    for (Group g : groups.full()) {
+      if (groups.update(g) == GroupRegistry.Status.FULL) {
+        list.add(new GroupView(g));
+      }
+    }
     Collection<Group> gr = Collections.unmodifiableCollection(list);
     JsonObject toRet = new JsonObject();
     toRet.add("closedGroups", Networking.GSON.toJsonTree(gr));
@@ -118,23 +248,52 @@ public final class GCT {
   }
 
 
-  private void refreshGroups() {
-    for (Group g : full) {
-      if (g.isEmpty()) {
-        full.remove(g);
-      } else if (!g.isFull()) {
-        full.remove(g);
-        pending.add(g);
-      }
-    }
-    for (Group g : pending) {
-      if (g.isEmpty()) {
-        pending.remove(g);
-      } else if (g.isFull()) {
-        pending.remove(g);
-        full.add(g);
-      }
+  /**
+   * @return what a cluster router needs to know of this node: its id, its
+   *         load, and its lobby. The process section is for load tests.
+   */
+  public JsonObject clusterStatus() {
+    JsonObject toRet = new JsonObject();
+    toRet.addProperty("node", DistinctRandom.nodeId());
+    toRet.addProperty("live", groups.size());
+    toRet.addProperty("limit", groupLimit());
+    toRet.add("open", openGroups());
+    toRet.add("closed", closedGroups());
+    toRet.add("games", lifecycle.stats());
+    toRet.add("limits", limiter.stats());
+    toRet.add("process", processStats());
+    return toRet;
+  }
+
+
+  // Counters, not rates: a caller takes two and divides by the time between.
+  private static JsonObject processStats() {
+    JsonObject toRet = new JsonObject();
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    toRet.addProperty("cpuNanos",
+        os instanceof com.sun.management.OperatingSystemMXBean
+            ? ((com.sun.management.OperatingSystemMXBean) os)
+                .getProcessCpuTime()
+            : -1);
+    toRet.addProperty("uptimeMillis",
+        ManagementFactory.getRuntimeMXBean().getUptime());
+    toRet.addProperty("processors", os.getAvailableProcessors());
+    MemoryUsage heap =
+        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    toRet.addProperty("heapUsed", heap.getUsed());
+    toRet.addProperty("heapMax", heap.getMax());
+    long gcCount = 0;
+    long gcMillis = 0;
+    for (GarbageCollectorMXBean gc : ManagementFactory
+        .getGarbageCollectorMXBeans()) {
+      gcCount += Math.max(0, gc.getCollectionCount());
+      gcMillis += Math.max(0, gc.getCollectionTime());
     }
+    toRet.addProperty("gcCount", gcCount);
+    toRet.addProperty("gcMillis", gcMillis);
+    toRet.addProperty("threads",
+        ManagementFactory.getThreadMXBean().getThreadCount());
+    return toRet;
   }
 
 
@@ -144,22 +303,57 @@ public final class GCT {
    * already in a group, the add message is forwarded to that group, and the
    * group can handle it accordingly. For example, if a {@code User} was
    * previously marked as absent, the group can note that the user has returned.
+   * A group chosen by the GroupSelector can fill or finish before {@code u} is
+   * added; the selector is then asked again, up to PLACEMENT_ATTEMPTS times,
+   * and offers the next open group or a new one.
    *
    * @param u
    *          the {@code User} to add.
    * @return true if the addition succeeded.
    */
   public boolean add(User u) {
-    Group bestFit =
-        groupSelector.selectFor(u, Collections.unmodifiableCollection(pending));
-    if (bestFit == null) {
-      return false;
+    Group home = groupForUser(u);
+    for (int attempt = 0; attempt < PLACEMENT_ATTEMPTS; attempt++) {
+      // selectors that keep their own index never pay for the snapshot.
+      Group bestFit = home != null ? home
+          : groupSelector.selectFor(u, groups.pendingView());
+      if (bestFit == null) {
+        return false;
+      }
+      if (!groups.contains(bestFit) && !admission.admits(groups.size())) {
+        format("No room for another group; turned away %s%n", u);
+        groupSelector.groupChanged(bestFit);
+        return false;
+      }
+      if (addTo(u, bestFit)) {
+        return true;
+      }
+      if (home != null) {
+        return false; // the game u was in is over.
+      }
     }
+    return false;
+  }
+
 
+  private boolean addTo(User u, Group bestFit) {
+    if (loops != null && !groups.contains(bestFit)) {
+      // a new group: its timers are run on its loop too.
+      bestFit.runOn(task -> loops.submit(bestFit, task));
+    }
     userToUserGroup.put(u, bestFit);
-    bestFit.add(u);
+    if (u.hasField(Networking.USER_IDENTIFIER)) {
+      idToUser.put(u.getField(Networking.USER_IDENTIFIER), u);
+    }
+    if (!bestFit.add(u)) {
+      // full, or finished since it was chosen; filed again, or dropped.
+      forget(u, bestFit);
+      filterGroup(bestFit);
+      return false;
+    }
 
     format("User %s added to %s%n", u, bestFit);
+    lifecycle.joined(bestFit, u);
     filterGroup(bestFit);
     return true;
   }
@@ -181,7 +375,7 @@ public final class GCT {
       return false;
     }
     group.remove(u);
-    userToUserGroup.remove(u);
+    forget(u, group);
     filterGroup(group);
     return true;
   }
@@ -202,31 +396,52 @@ public final class GCT {
     if (group == null) {
       return false;
     }
-    return group.handleMessage(u, j);
+    boolean handled = group.handleMessage(u, j);
+    if (group.isEmpty()) {
+      // e.g. after a game over; reap it now rather than at the next sweep.
+      lifecycle.changed(group);
+    }
+    return handled;
   }
 
 
-  // put a newly modified group into its proper set.
+  // file a newly modified group under its new status.
   private void filterGroup(Group g) {
-    if (g.isFull()) {
-      full.add(g);
-      pending.remove(g);
-    } else if (g.isEmpty()) {
-      pending.remove(g);
-      full.remove(g);
-    } else { // not full game, some players.
-      pending.add(g);
-      full.remove(g);
+    groups.update(g);
+    groupSelector.groupChanged(g);
+    lifecycle.changed(g);
+    if (lobby != null) {
+      lobby.changed();
+    }
+  }
+
+
+  // drop every reference to a finished group and the users it held.
+  private void reap(Group g, Set<User> users) {
+    format("Reaping %s, with %d users%n", g, users.size());
+    for (User u : users) {
+      forget(u, g);
+    }
+    groups.update(g);
+    groupSelector.groupChanged(g);
+    g.release();
+    if (lobby != null) {
+      lobby.changed();
     }
-    GroupViewWebsocket.reportChange(openGroups());
   }
 
 
   public static class GCTBuilder {
 
-    private final String  webSocketRoute;
-    private String        groupViewRoute;
-    private GroupSelector groupSelector = new BasicGroupSelector();
+    private final String       webSocketRoute;
+    private String             groupViewRoute;
+    private String             spectatorRoute;
+    private GroupSelector      groupSelector  = new BasicGroupSelector();
+    private Collection<String> wireDictionary = Collections.emptyList();
+    private AdmissionPolicy    admission      = AdmissionPolicy.DEFAULT;
+    private RateLimiter        limiter        = new RateLimiter();
+    private TimerWheel         timers         = TimerWheel.shared();
+    private int                loopCount      = 0;
 
 
     public GCTBuilder(String route) {
@@ -240,12 +455,55 @@ public final class GCT {
     }
 
 
+    /**
+     * Serve read-only spectators of a game at {@code route}.
+     */
+    public GCTBuilder withSpectatorRoute(String route) {
+      this.spectatorRoute = route;
+      return this;
+    }
+
+
     public GCTBuilder withGroupSelector(GroupSelector selector) {
       this.groupSelector = selector;
       return this;
     }
 
 
+    public GCTBuilder withWireDictionary(Collection<String> dictionary) {
+      this.wireDictionary = dictionary;
+      return this;
+    }
+
+
+    public GCTBuilder withAdmissionPolicy(AdmissionPolicy policy) {
+      this.admission = policy;
+      return this;
+    }
+
+
+    public GCTBuilder withRateLimiter(RateLimiter rateLimiter) {
+      this.limiter = rateLimiter;
+      return this;
+    }
+
+
+    /**
+     * Run the work of each group on one of {@code count} event loops, chosen
+     * by the group's identifier, rather than on the websocket's thread pool.
+     */
+    public GCTBuilder withGameLoops(int count) {
+      this.loopCount = count;
+      return this;
+    }
+
+
+    GCTBuilder withTimerWheel(TimerWheel wheel) {
+      this.timers = wheel;
+      return this;
+    }
+
+
     public GCT build() {
       return new GCT(this);
     }
@@ -0,0 +1,189 @@
+package edu.brown.cs.networking;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+import com.google.gson.JsonObject;
+
+/**
+ * Tracks each group of a GCT from its first user to the moment nothing refers
+ * to it. A group is CREATED when its first user joins, ACTIVE once it fills,
+ * and FINISHED when it empties, either because its game ended or because it
+ * was abandoned. A finished group is then REAPED: the users it held and the
+ * group itself are handed to the reaper, which drops every reference to them,
+ * and the group is released.
+ *
+ * The GCT reports membership changes, and a group emptied by a game-over
+ * message is reaped at once. Groups that empty on their own, such as when a
+ * disconnected user expires, are found by a sweep every SWEEP_MILLIS.
+ */
+public final class GameLifecycle {
+
+  /**
+   * The stages of a group's life.
+   */
+  public enum Stage {
+    CREATED, ACTIVE, FINISHED, REAPED
+  }
+
+  static final long                          SWEEP_MILLIS = 5000;
+
+  private final Map<Group, Record>           games        =
+      new ConcurrentHashMap<>();
+  private final BiConsumer<Group, Set<User>> reaper;
+  private final TimerWheel                   timers;
+
+  private final AtomicLong                   created      = new AtomicLong();
+  private final AtomicLong                   activated    = new AtomicLong();
+  private final AtomicLong                   abandoned    = new AtomicLong();
+  private final AtomicLong                   reaped       = new AtomicLong();
+
+
+  /**
+   * @param reaper
+   *          given each finished group, and the users that were in it, to
+   *          forget them.
+   * @param timers
+   *          the wheel the sweep runs on.
+   */
+  GameLifecycle(BiConsumer<Group, Set<User>> reaper, TimerWheel timers) {
+    this.reaper = reaper;
+    this.timers = timers;
+  }
+
+
+  /**
+   * Start sweeping for groups that have emptied on their own.
+   *
+   * @return this.
+   */
+  GameLifecycle start() {
+    timers.schedule(() -> {
+      sweep();
+      start();
+    }, SWEEP_MILLIS, TimeUnit.MILLISECONDS);
+    return this;
+  }
+
+
+  /**
+   * Note that {@code u} has joined {@code g}, which is CREATED if it is new.
+   */
+  void joined(Group g, User u) {
+    Record r = games.computeIfAbsent(g, k -> {
+      created.incrementAndGet();
+      return new Record();
+    });
+    r.users.add(u);
+    changed(g);
+  }
+
+
+  /**
+   * Move {@code g} on to the stage its membership now calls for, reaping it if
+   * it has emptied.
+   */
+  void changed(Group g) {
+    Record r = games.get(g);
+    if (r == null) {
+      return;
+    }
+    if (g.isEmpty()) {
+      finish(g, r);
+    } else if (g.isFull() && r.activate()) {
+      activated.incrementAndGet();
+    }
+  }
+
+
+  /**
+   * Reap every tracked group that has emptied.
+   *
+   * @return the number of groups reaped.
+   */
+  int sweep() {
+    long before = reaped.get();
+    for (Group g : games.keySet()) {
+      changed(g);
+    }
+    return (int) (reaped.get() - before);
+  }
+
+
+  private void finish(Group g, Record r) {
+    if (!games.remove(g, r)) {
+      return; // another thread is reaping it.
+    }
+    if (r.stage == Stage.CREATED) {
+      abandoned.incrementAndGet();
+    }
+    r.stage = Stage.FINISHED;
+    reaper.accept(g, Collections.unmodifiableSet(r.users));
+    r.stage = Stage.REAPED;
+    reaped.incrementAndGet();
+  }
+
+
+  /**
+   * @return the stage of {@code g}, or REAPED if it is no longer tracked.
+   */
+  Stage stage(Group g) {
+    Record r = games.get(g);
+    return r == null ? Stage.REAPED : r.stage;
+  }
+
+
+  /**
+   * @return the number of groups not yet reaped.
+   */
+  public int live() {
+    return games.size();
+  }
+
+
+  /**
+   * @return counts of groups by stage, and the heap in use per live group,
+   *         for monitoring. The heap figure counts everything on the heap, so
+   *         it is an upper bound that is only meaningful with many games.
+   */
+  public JsonObject stats() {
+    int live = games.size();
+    long active = games.values().stream()
+        .filter(r -> r.stage == Stage.ACTIVE).count();
+    long heap =
+        ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    JsonObject toRet = new JsonObject();
+    toRet.addProperty("live", live);
+    toRet.addProperty("waiting", live - active);
+    toRet.addProperty("active", active);
+    toRet.addProperty("created", created.get());
+    toRet.addProperty("started", activated.get());
+    toRet.addProperty("abandoned", abandoned.get());
+    toRet.addProperty("reaped", reaped.get());
+    toRet.addProperty("heapBytesPerGame", heap / Math.max(1, live));
+    return toRet;
+  }
+
+
+  private static final class Record {
+
+    private final Set<User> users = ConcurrentHashMap.newKeySet();
+    private volatile Stage  stage = Stage.CREATED;
+
+
+    private synchronized boolean activate() {
+      if (stage != Stage.CREATED) {
+        return false;
+      }
+      stage = Stage.ACTIVE;
+      return true;
+    }
+  }
+
+}
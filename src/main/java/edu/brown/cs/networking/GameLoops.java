@@ -0,0 +1,105 @@
+package edu.brown.cs.networking;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+/**
+ * A fixed set of event loops, usually one per core, each a single thread with
+ * its own queue. Every group belongs to one loop, chosen by a hash of its
+ * identifier, and all work for a group is run there in the order it was
+ * submitted. A game therefore stays on one thread, its lock is never
+ * contended, and loops share nothing with each other.
+ */
+public final class GameLoops {
+
+  private final ThreadPoolExecutor[] loops;
+
+
+  /**
+   * @param count
+   *          the number of loops; the number of cores is a good choice.
+   */
+  public GameLoops(int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("At least one loop is needed.");
+    }
+    loops = new ThreadPoolExecutor[count];
+    for (int i = 0; i < count; i++) {
+      String name = "game-loop-" + i;
+      loops[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+          new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+          });
+    }
+  }
+
+
+  /**
+   * Run {@code task} on the loop that owns {@code g}, after any work already
+   * submitted for it.
+   *
+   * @param g
+   *          the group the task works on.
+   * @param task
+   *          the work.
+   * @return a future that is done once the task has run.
+   */
+  public Future<?> submit(Group g, Runnable task) {
+    return loops[loopFor(g)].submit(task);
+  }
+
+
+  /**
+   * @return the index of the loop that owns {@code g}.
+   */
+  int loopFor(Group g) {
+    String id = g.identifier();
+    int h = id == null ? System.identityHashCode(g) : id.hashCode();
+    h ^= h >>> 16;
+    return (h & Integer.MAX_VALUE) % loops.length;
+  }
+
+
+  /**
+   * @return the number of loops.
+   */
+  public int size() {
+    return loops.length;
+  }
+
+
+  /**
+   * Stop taking work, letting what is queued finish.
+   */
+  public void shutdown() {
+    for (ThreadPoolExecutor loop : loops) {
+      loop.shutdown();
+    }
+  }
+
+
+  /**
+   * @return for each loop, the tasks waiting and the tasks run, for
+   *         monitoring.
+   */
+  public JsonObject stats() {
+    JsonArray each = new JsonArray();
+    for (ThreadPoolExecutor loop : loops) {
+      JsonObject s = new JsonObject();
+      s.addProperty("waiting", loop.getQueue().size());
+      s.addProperty("completed", loop.getCompletedTaskCount());
+      each.add(s);
+    }
+    JsonObject toRet = new JsonObject();
+    toRet.add("loops", each);
+    return toRet;
+  }
+
+}
@@ -2,6 +2,7 @@ package edu.brown.cs.networking;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import com.google.gson.JsonObject;
 
@@ -99,12 +100,112 @@ public interface Group {
   void clear();
 
 
+  /**
+   * Run the group's own timed work, such as ending the game when a user does
+   * not come back, on {@code loop}, the event loop that runs the rest of its
+   * work. Set by the GCT before the group's first user is added, when the GCT
+   * has loops. Ignored by default, for groups with no timed work.
+   *
+   * @param loop
+   *          the group's event loop.
+   */
+  default void runOn(Executor loop) {}
+
+
+  /**
+   * Free everything this group holds, once its game is over and it has been
+   * forgotten by the GCT. A released group accepts no more users.
+   */
+  default void release() {
+    clear();
+  }
+
+
   /**
    * @return all of the users that have currently connected sessions.
    */
   Collection<User> connectedUsers();
 
 
+  /**
+   * Send a message to {@code u}, a user of this group. Use this, rather than
+   * messaging {@code u} directly, for anything that is part of the game, so a
+   * group that keeps a replay of its messages can send it again to a user who
+   * reconnects having missed it.
+   *
+   * @param u
+   *          the user
+   * @param message
+   *          the message
+   * @return boolean indicating whether it could be queued.
+   */
+  default boolean send(User u, JsonObject message) {
+    return u.message(message);
+  }
+
+
+  /**
+   * Send a game state to {@code u}, a user of this group, as
+   * {@link #send(User, JsonObject)} does for other messages.
+   *
+   * @param u
+   *          the user
+   * @param state
+   *          the JSON text of the state, from API.getGameStateUpdate
+   * @return boolean indicating whether it could be queued.
+   */
+  default boolean sendState(User u, String state) {
+    return u.updateState(state);
+  }
+
+
+  /**
+   * Send the same message to every connected user. The message is encoded
+   * once, however many users there are.
+   *
+   * @param frame
+   *          the message
+   * @return boolean indicating whether it could be queued for every user.
+   */
+  default boolean broadcast(Frame frame) {
+    boolean success = true;
+    for (User u : connectedUsers()) {
+      success &= u.message(frame);
+    }
+    return success;
+  }
+
+
+  /**
+   * Attach a read-only spectator, who is sent the public game state from now
+   * on but is not one of the group's users. Not supported by default.
+   *
+   * @param spectator
+   *          the spectator
+   * @return true if {@code spectator} is now watching.
+   */
+  default boolean watch(User spectator) {
+    return false;
+  }
+
+
+  /**
+   * Detach a spectator, e.g. when its session closes.
+   *
+   * @param spectator
+   *          the spectator
+   */
+  default void unwatch(User spectator) {}
+
+
+  /**
+   * @return how many spectators are watching this group.
+   */
+  default int spectatorCount() {
+    return 0;
+  }
+
+
   /**
    * optionally record a message from the user.
    *
@@ -0,0 +1,194 @@
+package edu.brown.cs.networking;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The live groups of a GCT, each either pending (room for more users) or full.
+ * Groups are spread over shards by identity, each with its own lock, so that
+ * games changing membership at the same time rarely contend. Moving a group
+ * between pending and full, or dropping it once it is empty, touches one
+ * shard and costs O(1); counts are kept as they change rather than counted.
+ * Live groups are also indexed by identifier, e.g. for spectators to find the
+ * game they asked for.
+ */
+final class GroupRegistry {
+
+  enum Status {
+    PENDING, FULL
+  }
+
+  private static final int    DEFAULT_SHARDS = 16;
+
+  private final Shard[]       shards;
+  private final AtomicInteger pendingCount = new AtomicInteger();
+  private final AtomicInteger fullCount    = new AtomicInteger();
+  private final Map<String, Group> byID    = new ConcurrentHashMap<>();
+
+
+  GroupRegistry() {
+    this(DEFAULT_SHARDS);
+  }
+
+
+  GroupRegistry(int shardCount) {
+    shards = new Shard[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new Shard();
+    }
+  }
+
+
+  /**
+   * File {@code g} under the status it has now: pending, full, or, once it is
+   * empty, none.
+   *
+   * @param g
+   *          the group, after a change of membership.
+   * @return the group's status, or null if it was dropped for being empty.
+   */
+  Status update(Group g) {
+    Status now = g.isEmpty() ? null : g.isFull() ? Status.FULL : Status.PENDING;
+    Shard shard = shardFor(g);
+    synchronized (shard) {
+      Status before = now == null ? shard.status.remove(g) : shard.status.put(
+          g, now);
+      if (before == now) {
+        return now;
+      }
+      if (before != null) {
+        shard.members(before).remove(g);
+        counter(before).decrementAndGet();
+      } else {
+        byID.put(g.identifier(), g);
+      }
+      if (now != null) {
+        shard.members(now).add(g);
+        counter(now).incrementAndGet();
+      } else {
+        byID.remove(g.identifier(), g);
+      }
+    }
+    return now;
+  }
+
+
+  /**
+   * @param id
+   *          the identifier of a group.
+   * @return the live group with that identifier, or null if there is none.
+   */
+  Group byID(String id) {
+    return byID.get(id);
+  }
+
+
+  boolean contains(Group g) {
+    Shard shard = shardFor(g);
+    synchronized (shard) {
+      return shard.status.containsKey(g);
+    }
+  }
+
+
+  /**
+   * @return the number of live groups, pending or full.
+   */
+  int size() {
+    return pendingCount.get() + fullCount.get();
+  }
+
+
+  int pendingCount() {
+    return pendingCount.get();
+  }
+
+
+  int fullCount() {
+    return fullCount.get();
+  }
+
+
+  /**
+   * @return a snapshot of the groups with room for more users.
+   */
+  List<Group> pending() {
+    return snapshot(Status.PENDING);
+  }
+
+
+  /**
+   * @return a snapshot of the groups that are full.
+   */
+  List<Group> full() {
+    return snapshot(Status.FULL);
+  }
+
+
+  /**
+   * @return the groups with room for more users, as a view that takes a
+   *         snapshot only when iterated.
+   */
+  Collection<Group> pendingView() {
+    return new AbstractCollection<Group>() {
+      @Override
+      public Iterator<Group> iterator() {
+        return Collections.unmodifiableList(pending()).iterator();
+      }
+
+
+      @Override
+      public int size() {
+        return pendingCount();
+      }
+    };
+  }
+
+
+  private List<Group> snapshot(Status status) {
+    List<Group> toRet = new ArrayList<>(counter(status).get());
+    for (Shard shard : shards) {
+      synchronized (shard) {
+        toRet.addAll(shard.members(status));
+      }
+    }
+    return toRet;
+  }
+
+
+  private AtomicInteger counter(Status status) {
+    return status == Status.PENDING ? pendingCount : fullCount;
+  }
+
+
+  private Shard shardFor(Group g) {
+    // spread the identity hash, as neighbouring objects hash alike.
+    int h = System.identityHashCode(g);
+    h ^= h >>> 16;
+    return shards[(h & Integer.MAX_VALUE) % shards.length];
+  }
+
+
+  private static final class Shard {
+
+    private final Map<Group, Status> status  = new HashMap<>();
+    private final Set<Group>         pending = new LinkedHashSet<>();
+    private final Set<Group>         full    = new LinkedHashSet<>();
+
+
+    private Set<Group> members(Status s) {
+      return s == Status.PENDING ? pending : full;
+    }
+  }
+
+}
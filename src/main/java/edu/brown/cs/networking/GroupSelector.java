@@ -26,4 +26,16 @@ public interface GroupSelector {
    */
   Group selectFor(User u, Collection<Group> coll);
 
+
+  /**
+   * Called by the GCT after the membership of {@code g} changes, and when a
+   * group returned by {@link #selectFor(User, Collection)} is turned away. A
+   * selector that indexes its groups can re-file {@code g} here, rather than
+   * searching {@code coll} on every call.
+   *
+   * @param g
+   *          the group that changed.
+   */
+  default void groupChanged(Group g) {}
+
 }
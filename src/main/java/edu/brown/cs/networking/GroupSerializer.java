@@ -1,27 +1,38 @@
 package edu.brown.cs.networking;
 
-import java.lang.reflect.Type;
-import java.util.Collection;
+import java.io.IOException;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 
-class GroupSerializer implements JsonSerializer<Group> {
+class GroupSerializer extends TypeAdapter<Group> {
+
+  private final UserSerializer users = new UserSerializer();
+
+  @Override
+  public void write(JsonWriter out, Group src) throws IOException {
+    if (src == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name("id").value(src.identifier());
+    out.name("maxSize").value(src.maxSize());
+    out.name("currentSize").value(src.currentSize());
+    out.name("groupName").value(src.groupName());
+    out.name("connectedUsers").beginArray();
+    for (User u : src.connectedUsers()) {
+      users.write(out, u);
+    }
+    out.endArray();
+    out.endObject();
+  }
 
   @Override
-  public JsonElement serialize(Group src, Type typeOfSrc,
-      JsonSerializationContext context) {
-    JsonObject j = new JsonObject();
-    j.addProperty("id", src.identifier());
-    j.addProperty("maxSize", src.maxSize());
-    j.addProperty("currentSize", src.currentSize());
-    j.addProperty("groupName", src.groupName());
-    Collection<User> users = src.connectedUsers();
-    j.add("connectedUsers", Networking.GSON.toJsonTree(users));
-    return j;
+  public Group read(JsonReader in) {
+    throw new UnsupportedOperationException("Groups are only written.");
   }
 
 }
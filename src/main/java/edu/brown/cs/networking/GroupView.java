@@ -91,6 +91,24 @@ class GroupView implements Group {
   }
 
 
+  @Override
+  public void release() {
+    throw new UnsupportedOperationException();
+  }
+
+
+  @Override
+  public boolean watch(User spectator) {
+    throw new UnsupportedOperationException("Can't watch a view of group");
+  }
+
+
+  @Override
+  public int spectatorCount() {
+    return inner.spectatorCount();
+  }
+
+
   @Override
   public Collection<User> connectedUsers() {
     return inner.connectedUsers();
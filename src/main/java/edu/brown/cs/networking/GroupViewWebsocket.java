@@ -2,9 +2,8 @@ package edu.brown.cs.networking;
 
 import static edu.brown.cs.networking.Util.format;
 
-import java.io.IOException;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.jetty.websocket.api.Session;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
@@ -12,21 +11,24 @@ import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 
-import com.google.gson.JsonObject;
-
 @WebSocket
 public class GroupViewWebsocket {
 
-  private static GCT          gct;
-  private static Set<Session> viewers = new HashSet<>();
+  // sent by a viewer that missed a lobby update.
+  static final String                              RESYNC  = "\"RESYNC\"";
+
+  private static LobbyPublisher                    lobby;
+  private static final Map<Session, OutboundQueue> viewers =
+      new ConcurrentHashMap<>();
 
 
   @OnWebSocketConnect
   public void onConnect(Session session) throws Exception {
     format("Session %s opened connection to GroupView%n",
         session.getLocalAddress());
-    viewers.add(session);
-    sendGroupsTo(session, gct.openGroups());
+    OutboundQueue queue = new OutboundQueue(session);
+    viewers.put(session, queue);
+    lobby.addViewer(queue);
   }
 
 
@@ -34,43 +36,30 @@ public class GroupViewWebsocket {
   public void onClose(Session session, int statusCode, String reason) {
     format("Session %s closed connection to GroupView%n",
         session.getLocalAddress());
-    viewers.remove(session);
+    OutboundQueue queue = viewers.remove(session);
+    if (queue != null) {
+      lobby.removeViewer(queue);
+    }
   }
 
 
   @OnWebSocketMessage
   public void onMessage(Session session, String message) {
-    if (message.equals(Networking.HEARTBEAT)) {
-      try {
-        session.getRemote().sendString(message);
-      } catch (IOException e) {
-        return;
-      }
-    }
-    return; // ignore all messages;
-  }
-
-
-  private static void sendGroupsTo(Session s, JsonObject groups) {
-    try {
-      s.getRemote().sendString(groups.toString());
-    } catch (IOException e) {
-      format(
-          "Error sending change in groups to session %s. Doing nothing about it.%n",
-          s.getLocalAddress());
+    OutboundQueue queue = viewers.get(session);
+    if (queue == null) {
+      return;
     }
-  }
-
-
-  public static void reportChange(JsonObject groups) {
-    for (Session s : viewers) {
-      sendGroupsTo(s, groups);
+    if (message.equals(Networking.HEARTBEAT)) {
+      queue.offer(message, false);
+    } else if (message.equals(RESYNC)) {
+      lobby.resync(queue);
     }
+    return; // ignore all other messages;
   }
 
 
-  public static void setGCT(GCT gctToSet) {
-    gct = gctToSet;
+  static void setLobby(LobbyPublisher publisher) {
+    lobby = publisher;
   }
 
 }
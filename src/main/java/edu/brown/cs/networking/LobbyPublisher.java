@@ -0,0 +1,165 @@
+package edu.brown.cs.networking;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+
+/**
+ * Keeps the viewers of the lobby up to date. Changes to the open groups are
+ * gathered for WINDOW_MILLIS, then published once as a diff against the last
+ * lobby sent: the groups added, the ids of those removed, and the groups that
+ * changed. Each diff carries a sequence number one more than the last, so a
+ * viewer that misses one can ask for a resync, and gets the whole lobby again.
+ * The lobby is serialized once per window, whatever the number of viewers.
+ *
+ * A snapshot is
+ * {@code {requestType: "lobby", seq, atLimit, groups: [{group: ...}]}}, and a
+ * diff is
+ * {@code {requestType: "lobbyUpdate", seq, atLimit, added: [{group: ...}],
+ * removed: [id], changed: [{group: ...}]}}.
+ */
+final class LobbyPublisher {
+
+  static final long                    WINDOW_MILLIS = 100;
+
+  private final Supplier<JsonObject>   openGroups;
+  private final TimerWheel             timers;
+  private final Set<OutboundQueue>     viewers       = new HashSet<>();
+
+  // the lobby as last published, by group id, in the order it was listed.
+  private Map<String, JsonElement>     published     = new LinkedHashMap<>();
+  private boolean                      atLimit;
+  private long                         seq;
+  private boolean                      flushPending;
+
+
+  /**
+   * @param openGroups
+   *          the lobby now, as {@link GCT#openGroups()} gives it.
+   * @param timers
+   *          the wheel that closes each window, and whose worker publishes
+   *          it.
+   */
+  LobbyPublisher(Supplier<JsonObject> openGroups, TimerWheel timers) {
+    this.openGroups = openGroups;
+    this.timers = timers;
+    reload(openGroups.get());
+  }
+
+
+  /**
+   * Note that the lobby may have changed. The change is published when the
+   * current window closes, together with any others made in it.
+   */
+  void changed() {
+    synchronized (this) {
+      if (flushPending) {
+        return;
+      }
+      flushPending = true;
+    }
+    // the diff is encoded and sent off the wheel's thread.
+    timers.schedule(() -> timers.worker().execute(this::flush), WINDOW_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+
+  /**
+   * Send {@code viewer} the whole lobby, and every diff after it.
+   */
+  synchronized void addViewer(OutboundQueue viewer) {
+    viewers.add(viewer);
+    resync(viewer);
+  }
+
+
+  synchronized void removeViewer(OutboundQueue viewer) {
+    viewers.remove(viewer);
+  }
+
+
+  /**
+   * Send {@code viewer} the whole lobby as last published.
+   */
+  synchronized void resync(OutboundQueue viewer) {
+    JsonArray groups = new JsonArray();
+    published.values().forEach(groups::add);
+    JsonObject snapshot = header("lobby");
+    snapshot.add("groups", groups);
+    if (!viewer.offer(snapshot.toString(), false)) {
+      viewers.remove(viewer);
+    }
+  }
+
+
+  synchronized int viewerCount() {
+    return viewers.size();
+  }
+
+
+  /**
+   * Publish the changes since the last diff, if there are any. Runs when a
+   * window closes.
+   */
+  synchronized void flush() {
+    flushPending = false;
+    Map<String, JsonElement> before = published;
+    boolean wasAtLimit = atLimit;
+    reload(openGroups.get());
+
+    JsonArray added = new JsonArray();
+    JsonArray changed = new JsonArray();
+    for (Map.Entry<String, JsonElement> e : published.entrySet()) {
+      JsonElement old = before.remove(e.getKey());
+      if (old == null) {
+        added.add(e.getValue());
+      } else if (!old.equals(e.getValue())) {
+        changed.add(e.getValue());
+      }
+    }
+    JsonArray removed = new JsonArray();
+    before.keySet().forEach(id -> removed.add(new JsonPrimitive(id)));
+    if (added.size() == 0 && changed.size() == 0 && removed.size() == 0
+        && wasAtLimit == atLimit) {
+      return;
+    }
+
+    seq++;
+    JsonObject diff = header("lobbyUpdate");
+    diff.add("added", added);
+    diff.add("removed", removed);
+    diff.add("changed", changed);
+    String text = diff.toString();
+    viewers.removeIf(viewer -> !viewer.offer(text, false));
+  }
+
+
+  private void reload(JsonObject lobby) {
+    Map<String, JsonElement> now = new LinkedHashMap<>();
+    for (JsonElement view : lobby.getAsJsonArray("groups")) {
+      String id = view.getAsJsonObject().getAsJsonObject("group").get("id")
+          .getAsString();
+      now.put(id, view);
+    }
+    published = now;
+    atLimit = lobby.get("atLimit").getAsBoolean();
+  }
+
+
+  private JsonObject header(String requestType) {
+    JsonObject toRet = new JsonObject();
+    toRet.addProperty(Networking.REQUEST_IDENTIFIER, requestType);
+    toRet.addProperty("seq", seq);
+    toRet.addProperty("atLimit", atLimit);
+    return toRet;
+  }
+
+}
@@ -38,4 +38,30 @@ public final class Message {
 
   }
 
+
+  String sender() {
+    return sender;
+  }
+
+
+  int userId() {
+    return userId;
+  }
+
+
+  String content() {
+    return content;
+  }
+
+
+  long timeStamp() {
+    return timeStamp;
+  }
+
+
+  // the JSON built by asJson, if it has been asked for yet.
+  JsonObject cachedJson() {
+    return jsonRepresentation;
+  }
+
 }
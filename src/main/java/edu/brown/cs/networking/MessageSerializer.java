@@ -0,0 +1,37 @@
+package edu.brown.cs.networking;
+
+import java.io.IOException;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.internal.bind.TypeAdapters;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+
+// Writes the same fields, in the same order, as Gson's reflective adapter.
+class MessageSerializer extends TypeAdapter<Message> {
+
+  @Override
+  public void write(JsonWriter out, Message src) throws IOException {
+    if (src == null) {
+      out.nullValue();
+      return;
+    }
+    out.beginObject();
+    out.name("sender").value(src.sender());
+    out.name("userId").value(src.userId());
+    out.name("content").value(src.content());
+    out.name("timeStamp").value(src.timeStamp());
+    if (src.cachedJson() != null) {
+      out.name("jsonRepresentation");
+      TypeAdapters.JSON_ELEMENT.write(out, src.cachedJson());
+    }
+    out.endObject();
+  }
+
+  @Override
+  public Message read(JsonReader in) {
+    throw new UnsupportedOperationException("Messages are only written.");
+  }
+
+}
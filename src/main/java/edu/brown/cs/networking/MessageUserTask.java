@@ -9,6 +9,7 @@ class MessageUserTask implements Runnable {
 
   private User   u;
   private String message;
+  private JsonObject parsed;
   private GCT    gct;
 
 
@@ -19,13 +20,24 @@ class MessageUserTask implements Runnable {
   }
 
 
+  // for messages that arrived in the binary format, already decoded.
+  public MessageUserTask(User u, JsonObject parsed, GCT gct) {
+    this.u = u;
+    this.parsed = parsed;
+    this.gct = gct;
+  }
+
+
   @Override
   public void run() {
+    if (parsed != null) {
+      gct.message(u, parsed);
+      return;
+    }
     if (message.equals(Networking.HEARTBEAT)) {
       u.message(Networking.HEARTBEAT_REPLY);
       return; // do nothing else.
     }
-    Group g = gct.groupForUser(u);
     JsonObject j = null;
     try {
       j = Networking.GSON.fromJson(message, JsonObject.class);
@@ -33,7 +45,7 @@ class MessageUserTask implements Runnable {
       print("ERROR parsing json - send error message to client");
       return;
     }
-    g.handleMessage(u, j);
+    gct.message(u, j);
   }
 
 }
@@ -1,12 +1,12 @@
 package edu.brown.cs.networking;
 
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 
 // Convenience constants
@@ -21,16 +21,14 @@ public class Networking {
 
   // to be used throughout the Networking package unless conflicts
   // exist with registerTypeAdapter
-  public static final Gson       GSON                        = new GsonBuilder()
-      .registerTypeAdapter(Group.class, new GroupSerializer())
-      .registerTypeAdapter(User.class, new UserSerializer())
-      .create();
+  public static final Gson       GSON                        =
+      gsonBuilder().create();
 
   // to send when previously disconnected users have reconnected.
   public static final JsonObject GAME_READY_MESSAGE          =
       new JsonObjectBuilder()
           .addProperty(REQUEST_IDENTIFIER, "disconnectedUsers")
-          .add("users", GSON.toJsonTree(Collections.emptyList()))
+          .add("users", new JsonArray())
           .addProperty("expiresAt", -1)
           .build();
 
@@ -47,12 +45,34 @@ public class Networking {
           .addProperty("reason", "disconnectedUser")
           .build();
 
+  // to be sent to spectators when the game they watch is over.
+  public static final JsonObject GAME_OVER_SPECTATED         =
+      new JsonObjectBuilder()
+          .addProperty(REQUEST_IDENTIFIER, "gameOver")
+          .addProperty("reason", "spectatedGameOver")
+          .build();
+
   public static final JsonObject HEARTBEAT_REPLY             =
       new JsonObjectBuilder()
           .addProperty(REQUEST_IDENTIFIER, "heartbeat")
           .build();
 
 
+  /**
+   * A builder with the hand-written adapters for the networking types sent
+   * to clients (groups, users and chat messages), for packages that add
+   * adapters of their own on top.
+   *
+   * @return a new builder.
+   */
+  public static GsonBuilder gsonBuilder() {
+    return new GsonBuilder()
+        .registerTypeAdapter(Group.class, new GroupSerializer())
+        .registerTypeAdapter(User.class, new UserSerializer())
+        .registerTypeAdapter(Message.class, new MessageSerializer());
+  }
+
+
   public static JsonObject userDisconnectedMessage(final Map<User, Long> disc) {
     JsonObject message = new JsonObject();
     Set<User> disconUsers = new HashSet<>();
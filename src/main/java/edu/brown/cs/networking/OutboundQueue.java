@@ -0,0 +1,250 @@
+package edu.brown.cs.networking;
+
+import static edu.brown.cs.networking.Util.format;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.LongSupplier;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.StatusCode;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+
+/**
+ * The messages waiting to be sent to one session. Messages are queued by the
+ * game thread and written asynchronously, one at a time, so a slow client
+ * never holds up the game that is messaging it.
+ *
+ * A game state message replaces any game state message still waiting in the
+ * queue: each state is complete relative to what the client has acknowledged,
+ * so a client that falls behind only receives the latest. A client that stays
+ * too slow, with more than MAX_FRAMES messages waiting or one write taking
+ * longer than MAX_STALL_MILLIS, is disconnected.
+ */
+final class OutboundQueue {
+
+  static final int  MAX_FRAMES       = 256;
+  static final long MAX_STALL_MILLIS = 15000;
+
+
+  /**
+   * Where the queue writes to; a session, outside of tests.
+   */
+  interface Sink {
+
+    /**
+     * Start writing a frame, calling {@code callback} when done.
+     *
+     * @param frame
+     *          a String for a text frame, or a byte[] for a binary one.
+     */
+    void write(Object frame, WriteCallback callback);
+
+
+    /**
+     * @param statusCode
+     *          a websocket close code, from StatusCode.
+     */
+    void close(int statusCode, String reason);
+  }
+
+
+  private final Sink         sink;
+  private final LongSupplier clock;
+  private final Deque<Entry> waiting = new ArrayDeque<>();
+  private Entry              inFlight;
+  private long               inFlightSince;
+  private boolean            closed;
+  // set by closeWhenSent: what is waiting is still sent, then the sink closed.
+  private String             closing;
+
+
+  OutboundQueue(Session session) {
+    this(sessionSink(session), System::currentTimeMillis);
+  }
+
+
+  OutboundQueue(Sink sink, LongSupplier clock) {
+    this.sink = sink;
+    this.clock = clock;
+  }
+
+
+  /**
+   * Queue a frame to be sent.
+   *
+   * @param frame
+   *          a String for a text frame, or a byte[] for a binary one.
+   * @param state
+   *          true if the frame is a game state, which supersedes any other game
+   *          state still waiting.
+   * @return false if the client has been disconnected for being too slow.
+   */
+  boolean offer(Object frame, boolean state) {
+    Entry toWrite = null;
+    String tooSlow = null;
+    synchronized (this) {
+      if (closed || closing != null) {
+        return false;
+      }
+      if (state) {
+        Iterator<Entry> it = waiting.iterator();
+        while (it.hasNext()) {
+          if (it.next().state) {
+            it.remove();
+          }
+        }
+      }
+      if (inFlight != null
+          && clock.getAsLong() - inFlightSince > MAX_STALL_MILLIS) {
+        tooSlow = "stalled for over " + MAX_STALL_MILLIS + "ms";
+      } else if (waiting.size() >= MAX_FRAMES) {
+        tooSlow = MAX_FRAMES + " messages behind";
+      }
+      if (tooSlow != null) {
+        closed = true;
+        inFlight = null;
+        waiting.clear();
+      } else {
+        waiting.add(new Entry(frame, state));
+        if (inFlight == null) {
+          toWrite = next();
+        }
+      }
+    }
+    // outside the lock, as the write may complete, and call back, at once.
+    if (tooSlow != null) {
+      format("Disconnecting slow client, %s%n", tooSlow);
+      sink.close(StatusCode.POLICY_VIOLATION, "Too slow: " + tooSlow);
+      return false;
+    }
+    write(toWrite);
+    return true;
+  }
+
+
+  /**
+   * Close the session once the frames already queued have been written, e.g.
+   * after a last message saying why. Frames offered after this are refused.
+   *
+   * @param reason
+   *          the reason given to the client.
+   */
+  void closeWhenSent(String reason) {
+    synchronized (this) {
+      if (closed || closing != null) {
+        return;
+      }
+      closing = reason;
+      if (inFlight != null) {
+        return; // the last write to complete closes it.
+      }
+      closed = true;
+    }
+    sink.close(StatusCode.NORMAL, reason);
+  }
+
+
+  /**
+   * @return the number of frames waiting, not counting one being written.
+   */
+  synchronized int waiting() {
+    return waiting.size();
+  }
+
+
+  synchronized boolean isClosed() {
+    return closed;
+  }
+
+
+  // Takes the next frame to write, holding the lock.
+  private Entry next() {
+    inFlight = waiting.poll();
+    inFlightSince = clock.getAsLong();
+    return inFlight;
+  }
+
+
+  private void write(Entry frame) {
+    if (frame == null) {
+      return;
+    }
+    try {
+      sink.write(frame.payload, new WriteCallback() {
+        @Override
+        public void writeSuccess() {
+          Entry following;
+          String finished = null;
+          synchronized (OutboundQueue.this) {
+            following = closed ? null : next();
+            if (following == null && !closed && closing != null) {
+              closed = true;
+              finished = closing;
+            }
+          }
+          if (finished != null) {
+            sink.close(StatusCode.NORMAL, finished);
+          }
+          write(following);
+        }
+
+
+        @Override
+        public void writeFailed(Throwable x) {
+          failed(x);
+        }
+      });
+    } catch (RuntimeException e) {
+      failed(e);
+    }
+  }
+
+
+  // The session is gone; its replacement gets a new queue.
+  private void failed(Throwable x) {
+    synchronized (this) {
+      closed = true;
+      inFlight = null;
+      waiting.clear();
+    }
+    format("Failed to send message : %s%n", x.getMessage());
+  }
+
+
+  private static Sink sessionSink(Session session) {
+    return new Sink() {
+      @Override
+      public void write(Object frame, WriteCallback callback) {
+        if (frame instanceof byte[]) {
+          session.getRemote().sendBytes(ByteBuffer.wrap((byte[]) frame),
+              callback);
+        } else {
+          session.getRemote().sendString((String) frame, callback);
+        }
+      }
+
+
+      @Override
+      public void close(int statusCode, String reason) {
+        session.close(statusCode, reason);
+      }
+    };
+  }
+
+
+  private static final class Entry {
+
+    private final Object  payload;
+    private final boolean state;
+
+
+    private Entry(Object payload, boolean state) {
+      this.payload = payload;
+      this.state = state;
+    }
+  }
+
+}
@@ -0,0 +1,190 @@
+package edu.brown.cs.networking;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.gson.JsonObject;
+
+/**
+ * Limits the messages a GCT takes from its websocket, before they are parsed
+ * or reach a group's lock. Each user, and each group, has a token bucket: it
+ * holds up to a burst of tokens, refills at a steady rate, and each message
+ * takes one. A message is dropped if it is longer than MAX_MESSAGE_CHARS, or
+ * if the bucket of its user or of its group is empty, and the drops of each
+ * kind are counted.
+ *
+ * Buckets are held weakly, so those of users and groups that are gone are
+ * collected with them.
+ */
+public final class RateLimiter {
+
+  /**
+   * What became of a message.
+   */
+  public enum Verdict {
+    ADMITTED, TOO_LARGE, USER_LIMITED, GAME_LIMITED
+  }
+
+  /**
+   * Longer than any action or batch a client sends.
+   */
+  public static final int                    MAX_MESSAGE_CHARS = 16 * 1024;
+
+  // well above what a person can click, even with batches and chat.
+  static final double                        USER_RATE         = 20;
+  static final int                           USER_BURST        = 40;
+  static final double                        GAME_RATE         = 60;
+  static final int                           GAME_BURST        = 120;
+
+  private static final double                NANOS_PER_SECOND  = 1e9;
+
+  private final LoadingCache<Object, Bucket> userBuckets;
+  private final LoadingCache<Object, Bucket> gameBuckets;
+  private final LongSupplier                 nanoClock;
+  private final Map<Verdict, AtomicLong>     counts            =
+      new EnumMap<>(Verdict.class);
+
+
+  /**
+   * A limiter with the default rates.
+   */
+  public RateLimiter() {
+    this(USER_RATE, USER_BURST, GAME_RATE, GAME_BURST);
+  }
+
+
+  /**
+   * @param userRate
+   *          the messages a second a user may send, on average.
+   * @param userBurst
+   *          the messages a user may send at once, after a quiet spell.
+   * @param gameRate
+   *          the messages a second the users of a group may send together.
+   * @param gameBurst
+   *          the messages they may send together at once.
+   */
+  public RateLimiter(double userRate, int userBurst, double gameRate,
+      int gameBurst) {
+    this(userRate, userBurst, gameRate, gameBurst, System::nanoTime);
+  }
+
+
+  RateLimiter(double userRate, int userBurst, double gameRate, int gameBurst,
+      LongSupplier nanoClock) {
+    if (userRate <= 0 || gameRate <= 0 || userBurst < 1 || gameBurst < 1) {
+      throw new IllegalArgumentException("Limits must let messages through.");
+    }
+    this.nanoClock = nanoClock;
+    this.userBuckets = buckets(userRate, userBurst);
+    this.gameBuckets = buckets(gameRate, gameBurst);
+    for (Verdict v : Verdict.values()) {
+      counts.put(v, new AtomicLong());
+    }
+  }
+
+
+  private LoadingCache<Object, Bucket> buckets(double rate, int burst) {
+    return CacheBuilder.newBuilder().weakKeys()
+        .build(new CacheLoader<Object, Bucket>() {
+          @Override
+          public Bucket load(Object key) {
+            return new Bucket(rate, burst, nanoClock.getAsLong());
+          }
+        });
+  }
+
+
+  /**
+   * Take a message of {@code length} characters from {@code u}, in {@code g},
+   * if the limits allow it.
+   *
+   * @param u
+   *          the sender.
+   * @param g
+   *          the sender's group.
+   * @param length
+   *          the length of the message.
+   * @return ADMITTED if the message may be handled, otherwise why not.
+   */
+  public Verdict admit(User u, Group g, int length) {
+    Verdict v = check(u, g, length);
+    counts.get(v).incrementAndGet();
+    return v;
+  }
+
+
+  private Verdict check(User u, Group g, int length) {
+    if (length > MAX_MESSAGE_CHARS) {
+      return Verdict.TOO_LARGE;
+    }
+    long now = nanoClock.getAsLong();
+    Bucket user = userBuckets.getUnchecked(u);
+    if (!user.take(now)) {
+      return Verdict.USER_LIMITED;
+    }
+    if (!gameBuckets.getUnchecked(g).take(now)) {
+      user.refund(); // the user's own limit was not the one reached.
+      return Verdict.GAME_LIMITED;
+    }
+    return Verdict.ADMITTED;
+  }
+
+
+  /**
+   * @return the number of messages of each verdict, for monitoring.
+   */
+  public JsonObject stats() {
+    JsonObject toRet = new JsonObject();
+    toRet.addProperty("admitted", counts.get(Verdict.ADMITTED).get());
+    toRet.addProperty("tooLarge", counts.get(Verdict.TOO_LARGE).get());
+    toRet.addProperty("userLimited", counts.get(Verdict.USER_LIMITED).get());
+    toRet.addProperty("gameLimited", counts.get(Verdict.GAME_LIMITED).get());
+    return toRet;
+  }
+
+
+  private static final class Bucket {
+
+    private final double nanosPerToken;
+    private final int    burst;
+    private double       tokens;
+    private long         filledAt;
+
+
+    private Bucket(double rate, int burst, long now) {
+      this.nanosPerToken = NANOS_PER_SECOND / rate;
+      this.burst = burst;
+      this.tokens = burst;
+      this.filledAt = now;
+    }
+
+
+    // now is read before the lock, so another thread may already have taken
+    // with a later reading; time never runs backwards for a bucket.
+    private synchronized boolean take(long now) {
+      long elapsed = now - filledAt;
+      if (elapsed > 0) {
+        if (tokens < burst) {
+          tokens = Math.min(burst, tokens + elapsed / nanosPerToken);
+        }
+        filledAt = now;
+      }
+      if (tokens < 1) {
+        return false;
+      }
+      tokens--;
+      return true;
+    }
+
+
+    private synchronized void refund() {
+      tokens = Math.min(burst, tokens + 1);
+    }
+  }
+
+}
@@ -12,7 +12,6 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
-import java.util.stream.Collectors;
 
 import org.eclipse.jetty.util.ConcurrentHashSet;
 import org.eclipse.jetty.websocket.api.Session;
@@ -21,20 +20,22 @@ import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
 import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
 import org.eclipse.jetty.websocket.api.annotations.WebSocket;
 
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 
 @WebSocket
 public class ReceivingWebsocket {
 
-  private final ExecutorService   threadPool;
-  private final Map<String, User> uuidToUser;
-  private final Set<Session>      ignoreSession;
-  private static GCT              gct;
+  private final ExecutorService    threadPool;
+  // only open sessions: entries go when their session closes.
+  private final Map<Session, User> sessionToUser;
+  private final Set<Session>       ignoreSession;
+  private static GCT               gct;
 
 
   public ReceivingWebsocket() {
     threadPool = Executors.newFixedThreadPool(8);
-    uuidToUser = new ConcurrentHashMap<>();
+    sessionToUser = new ConcurrentHashMap<>();
     ignoreSession = new ConcurrentHashSet<>();
   }
 
@@ -49,7 +50,7 @@ public class ReceivingWebsocket {
       sendError(s, "RESET");
       return;
     }
-    User u = userForSession(s);
+    User u = gct.userForID(cookieID(s));
     if (u != null) { // existing user with old session, update it.
       if (!u.updateSession(s)) {
         // tried to update an open session - TWO TAB MOFO
@@ -60,7 +61,10 @@ public class ReceivingWebsocket {
     } else {
       u = createNewUser(s);
     }
-    Future<?> f = threadPool.submit(new ConnectUserTask(u, gct));
+    // from here on, messages are routed by session, not by cookie.
+    sessionToUser.put(s, u);
+    negotiateWire(u, s);
+    Future<?> f = submit(u, new ConnectUserTask(u, gct));
     try {
       f.get(); // blocks!
     } catch (InterruptedException | ExecutionException e) {
@@ -70,28 +74,45 @@ public class ReceivingWebsocket {
   }
 
 
+  // Clients opt in to the binary format with a query parameter on the
+  // websocket URL. The dictionary goes out as text, before anything binary.
+  private void negotiateWire(User u, Session s) {
+    Map<String, List<String>> params = s.getUpgradeRequest().getParameterMap();
+    List<String> format =
+        params == null ? null : params.get(BinaryWire.QUERY_PARAMETER);
+    u.setWire(null);
+    if (format != null && format.contains(BinaryWire.BINARY)) {
+      u.message(gct.wire().handshakeMessage());
+      u.setWire(gct.wire());
+    }
+  }
+
+
   private boolean sessionIsExpired(Session s) {
-    List<HttpCookie> candidates = s.getUpgradeRequest().getCookies().stream()
-        .filter(c -> c.getName().equals(Networking.USER_IDENTIFIER))
-        .collect(Collectors.toList());
-    if (candidates.size() > 1) {
-      System.out.println(
-          "Cookie formatting error - should never happen in NewWebsocket");
-    }
-    if (candidates.isEmpty()) { // no mention of UserID -> not expired, probably
-                                // new
+    String candidateID = cookieID(s);
+    if (candidateID == null) { // no mention of UserID -> not expired, probably
+                               // new
       return false;
     }
-    String candidateID = candidates.get(0).getValue();
-    if (!uuidToUser.containsKey(candidateID)) { // if we've never seen it
-                                                // before, it is expired.
-      return true;
-    }
-    // we know they have an ID, I've seen it before, we need to check with GCT
-    // if it is active.
+    // the GCT knows every id still in a game; any other is from a game that
+    // has been reaped, or was never ours.
     return !gct.userIDIsValid(candidateID);
+  }
 
 
+  // The USER_IDENTIFIER cookie of a connecting session, or null if none.
+  private static String cookieID(Session s) {
+    String id = null;
+    for (HttpCookie c : s.getUpgradeRequest().getCookies()) {
+      if (c.getName().equals(Networking.USER_IDENTIFIER)) {
+        if (id != null) {
+          System.out.println("Error! Improperly formatted cookies.");
+          continue;
+        }
+        id = c.getValue();
+      }
+    }
+    return id;
   }
 
 
@@ -102,7 +123,6 @@ public class ReceivingWebsocket {
     cookies.add(new HttpCookie(Networking.USER_IDENTIFIER, id));
 
     User u = new User(s);
-    uuidToUser.put(id, u);
     setCookie(u, cookies);
     return u;
   }
@@ -136,15 +156,15 @@ public class ReceivingWebsocket {
       ignoreSession.remove(s);
       return;
     }
-    User u = userForSession(s);
-    if (u == null) {
+    User u = sessionToUser.remove(s);
+    if (u == null || gct.groupForUser(u) == null) {
       System.out
           .println("Disconnected user we've never seen before. Do nothing");
       return; // do nothing with a disconnected user we've never seen.
     }
 
     Future<?> f =
-        threadPool.submit(new DisconnectUserTask(u, statusCode, reason, gct));
+        submit(u, new DisconnectUserTask(u, statusCode, reason, gct));
     try {
       f.get();
 
@@ -160,36 +180,63 @@ public class ReceivingWebsocket {
     if (ignoreSession.contains(s)) {
       return; // ignore messages from duplicate sessions
     }
-    System.out.println(msg);
-    User u = userForSession(s);
+    User u = admit(s, msg.length());
     if (u == null) {
-      System.out
-          .println("Message from user we've never seen before. Ignoring.");
-      return; // do nothing with an unfamiliar session
+      return;
     }
-    threadPool.submit(new MessageUserTask(u, msg, gct));
+    submit(u, new MessageUserTask(u, msg, gct));
   }
 
 
-  private User userForSession(Session s) {
-    List<HttpCookie> list = s.getUpgradeRequest().getCookies().stream()
-        .filter(c -> c.getName()
-            .equals(Networking.USER_IDENTIFIER))
-        .collect(Collectors.toList());
-
-    if (list.size() > 1) {
-      System.out.println("Error! Improperly formatted cookies. " + list.size());
+  @OnWebSocketMessage
+  public void onMessage(Session s, byte[] buf, int offset, int length) {
+    if (ignoreSession.contains(s)) {
+      return; // ignore messages from duplicate sessions
     }
-
-    if (list.isEmpty()) {
-      return null;
+    User u = admit(s, length);
+    if (u == null) {
+      return;
     }
-
-    if (gct.userIDIsValid(list.get(0).getValue())) {
-      return uuidToUser.get(list.get(0).getValue());
+    JsonElement j;
+    try {
+      j = gct.wire().decode(buf, offset, length);
+    } catch (IllegalArgumentException e) {
+      print("ERROR decoding binary message: " + e.getMessage());
+      return;
     }
+    if (!j.isJsonObject()) {
+      // the only non-object message is the heartbeat.
+      u.message(Networking.HEARTBEAT_REPLY);
+      return;
+    }
+    submit(u, new MessageUserTask(u, j.getAsJsonObject(), gct));
+  }
+
 
-    return null;
+  // On the loop that owns u's game, if the GCT has loops and u is in a game;
+  // otherwise, as for a new user, on the pool.
+  private Future<?> submit(User u, Runnable task) {
+    Future<?> f = gct.dispatch(u, task);
+    return f != null ? f : threadPool.submit(task);
+  }
+
+
+  // The sender of a message of length characters, or null if it is to be
+  // dropped: from an unfamiliar session, or over the GCT's rate limits. One
+  // lookup for the session, one for its group: the same cost however many
+  // games are live, and nothing is parsed or locked.
+  private User admit(Session s, int length) {
+    User u = sessionToUser.get(s);
+    Group g = u == null ? null : gct.groupForUser(u);
+    if (g == null) {
+      System.out
+          .println("Message from user we've never seen before. Ignoring.");
+      return null; // do nothing with an unfamiliar session
+    }
+    if (gct.limiter().admit(u, g, length) != RateLimiter.Verdict.ADMITTED) {
+      return null; // counted by the limiter; a flood is not worth a reply.
+    }
+    return u;
   }
 
 
@@ -0,0 +1,166 @@
+package edu.brown.cs.networking;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The recent messages of one game, so that a user who reconnects can be sent
+ * just the ones they missed. Every message the game sends is given the next
+ * number in one sequence, written into it as a {@code seq} field, and kept in a
+ * ring of the last MAX_FRAMES messages, or MAX_CHARS of text if that is less.
+ *
+ * A client remembers the highest seq it has seen and, on reconnecting, asks
+ * for everything after it. If the ring still reaches back that far, the
+ * messages after it that were for that user are returned, in order, with all
+ * but the last of their game states left out, since each state replaces the
+ * one before. Otherwise the gap is too large, and the game sends a full state
+ * instead.
+ *
+ * Not thread safe; a UserGroup uses it under its own lock.
+ */
+final class ReplayLog {
+
+  static final int           MAX_FRAMES = 128;
+  static final int           MAX_CHARS  = 64 * 1024;
+
+  private final Deque<Entry> ring       = new ArrayDeque<>();
+  private final int          maxFrames;
+  private final int          maxChars;
+  private long               seq;
+  private int                chars;
+
+
+  ReplayLog() {
+    this(MAX_FRAMES, MAX_CHARS);
+  }
+
+
+  ReplayLog(int maxFrames, int maxChars) {
+    this.maxFrames = maxFrames;
+    this.maxChars = maxChars;
+  }
+
+
+  /**
+   * Number a message and keep it.
+   *
+   * @param to
+   *          the user it is for, or null if it is for everyone in the game.
+   * @param text
+   *          the JSON text of the message, an object.
+   * @param state
+   *          whether it is a game state, which replaces any before it.
+   * @return the message, numbered.
+   */
+  Frame record(User to, String text, boolean state) {
+    return record(to, Frame.of(text), state);
+  }
+
+
+  /**
+   * Number a message and keep it, as {@link #record(User, String, boolean)}
+   * does. A message made from a JsonObject stays one, so it is not parsed
+   * again to be sent on the binary wire.
+   */
+  Frame record(User to, Frame message, boolean state) {
+    Entry e = new Entry(++seq, to, message.numbered(seq), state);
+    ring.addLast(e);
+    chars += e.frame.text().length();
+    while (ring.size() > maxFrames || (chars > maxChars && ring.size() > 1)) {
+      chars -= ring.removeFirst().frame.text().length();
+    }
+    return e.frame;
+  }
+
+
+  /**
+   * @param u
+   *          a user of this game.
+   * @param after
+   *          the highest seq {@code u} has seen.
+   * @return the messages for {@code u} since then, oldest first, or null if
+   *         some of them are no longer kept.
+   */
+  List<Frame> since(User u, long after) {
+    long oldest = ring.isEmpty() ? seq + 1 : ring.peekFirst().seq;
+    if (after > seq || after < oldest - 1) {
+      return null;
+    }
+    List<Frame> missed = new ArrayList<>();
+    boolean stateSeen = false;
+    for (Iterator<Entry> it = ring.descendingIterator(); it.hasNext();) {
+      Entry e = it.next();
+      if (e.seq <= after) {
+        break;
+      }
+      if (e.to != null && e.to != u) {
+        continue;
+      }
+      if (e.state) {
+        if (stateSeen) {
+          continue; // a later state replaces it.
+        }
+        stateSeen = true;
+      }
+      missed.add(e.frame);
+    }
+    Collections.reverse(missed);
+    return missed;
+  }
+
+
+  /**
+   * @return the seq of the last message recorded, or 0 if there is none.
+   */
+  long lastSeq() {
+    return seq;
+  }
+
+
+  /**
+   * @return the number of messages kept.
+   */
+  int size() {
+    return ring.size();
+  }
+
+
+  /**
+   * Forget every message, for a game that is over. Numbering carries on.
+   */
+  void clear() {
+    ring.clear();
+    chars = 0;
+  }
+
+
+  /**
+   * @return {@code text}, a JSON object, with a seq field added first.
+   */
+  static String stamp(String text, long seq) {
+    String rest = text.substring(1).trim();
+    return "{\"seq\":" + seq + (rest.startsWith("}") ? "" : ",") + rest;
+  }
+
+
+  private static final class Entry {
+
+    private final long    seq;
+    private final User    to;
+    private final Frame   frame;
+    private final boolean state;
+
+
+    private Entry(long seq, User to, Frame frame, boolean state) {
+      this.seq = seq;
+      this.to = to;
+      this.frame = frame;
+      this.state = state;
+    }
+  }
+
+}
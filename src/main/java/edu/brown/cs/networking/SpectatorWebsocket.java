@@ -0,0 +1,138 @@
+package edu.brown.cs.networking;
+
+import static edu.brown.cs.networking.Util.format;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketClose;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketConnect;
+import org.eclipse.jetty.websocket.api.annotations.OnWebSocketMessage;
+import org.eclipse.jetty.websocket.api.annotations.WebSocket;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+/**
+ * Read-only sessions watching one game, named by the GROUP_PARAMETER query
+ * parameter of the websocket URL. A spectator is sent the public game state
+ * whenever it changes, and nothing it sends but the heartbeat, as text or on
+ * the binary wire, is answered. When the game is over and released, the
+ * spectator is sent the last messages and then closed.
+ */
+@WebSocket
+public class SpectatorWebsocket {
+
+  // the identifier of the group to watch, as listed by the lobby.
+  static final String                          GROUP_PARAMETER = "game";
+
+  private static GCT                           gct;
+  private static final Map<Session, Spectator> spectators      =
+      new ConcurrentHashMap<>();
+
+
+  @OnWebSocketConnect
+  public void onConnect(Session session) throws Exception {
+    Group g = gct.groupForID(parameter(session, GROUP_PARAMETER));
+    if (g == null) {
+      refuse(session, "NO_SUCH_GAME");
+      return;
+    }
+    User u = new User(session);
+    List<String> format = session.getUpgradeRequest().getParameterMap()
+        .get(BinaryWire.QUERY_PARAMETER);
+    if (format != null && format.contains(BinaryWire.BINARY)) {
+      u.message(gct.wire().handshakeMessage());
+      u.setWire(gct.wire());
+    }
+    spectators.put(session, new Spectator(u, g));
+    if (!g.watch(u)) {
+      spectators.remove(session);
+      refuse(session, "GAME_OVER");
+      return;
+    }
+    format("Session %s is watching %s%n", session.getRemoteAddress(),
+        g.identifier());
+  }
+
+
+  @OnWebSocketClose
+  public void onClose(Session session, int statusCode, String reason) {
+    Spectator s = spectators.remove(session);
+    if (s != null) {
+      s.group.unwatch(s.user);
+    }
+  }
+
+
+  @OnWebSocketMessage
+  public void onMessage(Session session, String message) {
+    Spectator s = spectators.get(session);
+    if (s != null && message.equals(Networking.HEARTBEAT)) {
+      s.user.message(Networking.HEARTBEAT_REPLY);
+    }
+    return; // spectators have no say in the game.
+  }
+
+
+  @OnWebSocketMessage
+  public void onMessage(Session session, byte[] buf, int offset, int length) {
+    Spectator s = spectators.get(session);
+    if (s == null) {
+      return;
+    }
+    JsonElement j;
+    try {
+      j = gct.wire().decode(buf, offset, length);
+    } catch (IllegalArgumentException e) {
+      return;
+    }
+    if (!j.isJsonObject()) {
+      // the only non-object message is the heartbeat.
+      s.user.message(Networking.HEARTBEAT_REPLY);
+    }
+  }
+
+
+  private static String parameter(Session session, String name) {
+    Map<String, List<String>> params =
+        session.getUpgradeRequest().getParameterMap();
+    List<String> values = params == null ? null : params.get(name);
+    return values == null || values.isEmpty() ? null : values.get(0);
+  }
+
+
+  private static void refuse(Session session, String error) {
+    JsonObject j = new JsonObject();
+    j.addProperty(Networking.REQUEST_IDENTIFIER, "ERROR");
+    j.addProperty("description", error);
+    try {
+      session.getRemote().sendString(j.toString());
+    } catch (IOException e) {
+      e.printStackTrace();
+    }
+    session.close();
+  }
+
+
+  static void setGct(GCT gctToSet) {
+    gct = gctToSet;
+  }
+
+
+  private static final class Spectator {
+
+    private final User  user;
+    private final Group group;
+
+
+    private Spectator(User user, Group group) {
+      this.user = user;
+      this.group = group;
+    }
+  }
+
+}
@@ -0,0 +1,267 @@
+package edu.brown.cs.networking;
+
+import static edu.brown.cs.networking.Util.format;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import com.google.gson.JsonObject;
+
+/**
+ * A hashed timer wheel: one thread runs every timed task on the server, such
+ * as the expiry of a user who disconnected. Time is cut into ticks, and the
+ * wheel has a bucket per tick that it visits in turn; a task is put in the
+ * bucket of its deadline, with the number of whole turns of the wheel still to
+ * wait. Scheduling and cancelling are O(1), and tasks fire up to one tick late.
+ *
+ * Tasks run on the wheel's thread, so they must be short; anything slow,
+ * such as encoding and sending a message, is handed to {@link #worker()} or to
+ * a game's loop.
+ */
+public final class TimerWheel {
+
+  private static final long          DEFAULT_TICK_MILLIS = 100;
+  private static final int           DEFAULT_BUCKETS     = 512;
+
+  private final long                 tickMillis;
+  private final List<Queue<Timeout>> buckets;
+  private final int                  mask;
+  private final LongSupplier         clock;
+  private final long                 start;
+  private final Queue<Timeout>       incoming            =
+      new ConcurrentLinkedQueue<>();
+  private long                       tick;
+  private volatile Executor          worker              = Runnable::run;
+
+  private final AtomicInteger        pending             = new AtomicInteger();
+  private final AtomicLong           scheduled           = new AtomicLong();
+  private final AtomicLong           expired             = new AtomicLong();
+  private final AtomicLong           cancelled           = new AtomicLong();
+
+
+  private static class Holder {
+    private static final TimerWheel SHARED = new TimerWheel(
+        DEFAULT_TICK_MILLIS, DEFAULT_BUCKETS, System::currentTimeMillis)
+            .start("timer-wheel");
+  }
+
+
+  /**
+   * @return the wheel shared by every group on this server, ticking every
+   *         100ms.
+   */
+  public static TimerWheel shared() {
+    return Holder.SHARED;
+  }
+
+
+  /**
+   * Create a wheel that does not tick until {@link #start(String)} is called,
+   * or is advanced by hand with {@link #advanceTo(long)}.
+   *
+   * @param tickMillis
+   *          the length of a tick.
+   * @param bucketCount
+   *          the number of buckets, a power of two.
+   * @param clock
+   *          the current time in milliseconds.
+   */
+  TimerWheel(long tickMillis, int bucketCount, LongSupplier clock) {
+    if (Integer.bitCount(bucketCount) != 1) {
+      throw new IllegalArgumentException("Bucket count must be a power of 2.");
+    }
+    this.tickMillis = tickMillis;
+    this.buckets = new ArrayList<>(bucketCount);
+    for (int i = 0; i < bucketCount; i++) {
+      buckets.add(new ArrayDeque<>());
+    }
+    this.mask = bucketCount - 1;
+    this.clock = clock;
+    this.start = clock.getAsLong();
+  }
+
+
+  // Runs the wheel on a daemon thread, with another as its worker.
+  private TimerWheel start(String name) {
+    worker = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(), r -> {
+          Thread t = new Thread(r, name + "-worker");
+          t.setDaemon(true);
+          return t;
+        });
+    Thread worker = new Thread(() -> {
+      while (true) {
+        long next = start + (tick + 1) * tickMillis;
+        long wait = next - clock.getAsLong();
+        try {
+          if (wait > 0) {
+            Thread.sleep(wait);
+          }
+        } catch (InterruptedException e) {
+          return;
+        }
+        advanceTo(clock.getAsLong());
+      }
+    }, name);
+    worker.setDaemon(true);
+    worker.start();
+    return this;
+  }
+
+
+  /**
+   * Run {@code task} once, after {@code delay}.
+   *
+   * @param task
+   *          what to run, on the wheel's thread.
+   * @param delay
+   *          how long to wait.
+   * @param unit
+   *          the unit of {@code delay}.
+   * @return a handle that cancels the task.
+   */
+  public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+    long deadline = clock.getAsLong() + unit.toMillis(delay) - start;
+    Timeout t = new Timeout(task, Math.max(0, deadline));
+    pending.incrementAndGet();
+    scheduled.incrementAndGet();
+    incoming.add(t);
+    return t;
+  }
+
+
+  /**
+   * @return where timers hand work too slow for the wheel's thread: a thread
+   *         of its own, in order, once the wheel is started, or the wheel's
+   *         thread for a wheel advanced by hand.
+   */
+  public Executor worker() {
+    return worker;
+  }
+
+
+  /**
+   * Fire every task whose tick has passed by {@code now}. Called by the wheel's
+   * thread; tests call it directly on a wheel that was never started.
+   *
+   * @param now
+   *          the current time in milliseconds.
+   */
+  synchronized void advanceTo(long now) {
+    while ((tick + 1) * tickMillis <= now - start) {
+      placeIncoming();
+      Iterator<Timeout> it = buckets.get((int) (tick & mask)).iterator();
+      while (it.hasNext()) {
+        Timeout t = it.next();
+        if (t.state.get() == Timeout.CANCELLED) {
+          it.remove();
+        } else if (t.rounds > 0) {
+          t.rounds--;
+        } else {
+          it.remove();
+          t.expire();
+        }
+      }
+      tick++;
+    }
+  }
+
+
+  private void placeIncoming() {
+    Timeout t;
+    while ((t = incoming.poll()) != null) {
+      if (t.state.get() == Timeout.CANCELLED) {
+        continue;
+      }
+      // anything already due goes in the current bucket.
+      long due = Math.max(tick, t.deadline / tickMillis);
+      t.rounds = (due - tick) / buckets.size();
+      buckets.get((int) (due & mask)).add(t);
+    }
+  }
+
+
+  /**
+   * @return the number of tasks scheduled that have neither run nor been
+   *         cancelled.
+   */
+  public int pending() {
+    return pending.get();
+  }
+
+
+  /**
+   * @return counts of the tasks this wheel has been given, for monitoring.
+   */
+  public JsonObject stats() {
+    JsonObject toRet = new JsonObject();
+    toRet.addProperty("pending", pending.get());
+    toRet.addProperty("scheduled", scheduled.get());
+    toRet.addProperty("expired", expired.get());
+    toRet.addProperty("cancelled", cancelled.get());
+    return toRet;
+  }
+
+
+  /**
+   * A task waiting on the wheel.
+   */
+  public final class Timeout {
+
+    private static final int    WAITING   = 0;
+    private static final int    CANCELLED = 1;
+    private static final int    EXPIRED   = 2;
+
+    private final Runnable      task;
+    private final long          deadline;
+    private final AtomicInteger state     = new AtomicInteger(WAITING);
+    private long                rounds;
+
+
+    private Timeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+
+    /**
+     * Stop the task from running, if it has not already.
+     *
+     * @return true if it was cancelled, false if it had already run.
+     */
+    public boolean cancel() {
+      if (!state.compareAndSet(WAITING, CANCELLED)) {
+        return false;
+      }
+      pending.decrementAndGet();
+      cancelled.incrementAndGet();
+      return true;
+    }
+
+
+    private void expire() {
+      if (!state.compareAndSet(WAITING, EXPIRED)) {
+        return;
+      }
+      pending.decrementAndGet();
+      expired.incrementAndGet();
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        format("ERROR: Timed task failed - %s%n", e.getMessage());
+      }
+    }
+  }
+
+}
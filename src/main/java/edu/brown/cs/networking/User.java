@@ -1,8 +1,5 @@
 package edu.brown.cs.networking;
 
-import static edu.brown.cs.networking.Util.format;
-
-import java.io.IOException;
 import java.net.HttpCookie;
 
 import org.eclipse.jetty.websocket.api.Session;
@@ -24,6 +21,8 @@ public final class User {
   @Expose
   private Integer    userID;
   private JsonObject values;
+  private BinaryWire wire;
+  private OutboundQueue outbound;
 
 
   /**
@@ -50,6 +49,7 @@ public final class User {
       return false;
     }
     this.session = s;
+    outbound = new OutboundQueue(s);
     values = new JsonObject();
     for (HttpCookie cook : s.getUpgradeRequest().getCookies()) {
       values.addProperty(cook.getName(), cook.getValue());
@@ -67,23 +67,101 @@ public final class User {
 
 
   /**
-   * Send a message TO this User's currently active session.
+   * Send a message TO this User's currently active session. Messages are
+   * queued and written in the background, in the order they were sent, so this
+   * never waits on the network.
    *
    * @param json
    *          the message to send
    * @return boolean indicating success.
    */
   public boolean message(JsonObject json) {
-    if (session.isOpen()) {
-      try {
-        session.getRemote().sendString(json.toString());
-        return true;
-      } catch (IOException e) {
-        format("Failed to send message to Session %s : %s%n",
-            userID(), json.toString());
-      }
+    if (wire != null) {
+      return enqueue(wire.encode(json), false);
     }
-    return false;
+    return enqueue(json.toString(), false);
+  }
+
+
+  /**
+   * Send a message that has already been encoded, possibly for many Users, TO
+   * this User's currently active session. Use this, rather than
+   * {@link #message(JsonObject)} for each User, to send the same message to
+   * several, so it is encoded once for all of them.
+   *
+   * @param frame
+   *          the message to send
+   * @return boolean indicating success.
+   */
+  public boolean message(Frame frame) {
+    return enqueue(wire != null ? frame.bytes(wire) : frame.text(), false);
+  }
+
+
+  /**
+   * Send a game state TO this User's currently active session. If the User is
+   * behind, it replaces any game state still waiting to be sent, so only the
+   * latest is sent.
+   *
+   * @param text
+   *          the JSON text of the state, from API.getGameStateUpdate
+   * @return boolean indicating success.
+   */
+  public boolean updateState(String text) {
+    return enqueue(wire != null ? wire.encode(text) : text, true);
+  }
+
+
+  /**
+   * Send a game state that has already been encoded, possibly for many Users,
+   * TO this User's currently active session. Like
+   * {@link #updateState(String)}, it replaces any game state still waiting.
+   *
+   * @param frame
+   *          the state to send
+   * @return boolean indicating success.
+   */
+  public boolean updateState(Frame frame) {
+    return enqueue(wire != null ? frame.bytes(wire) : frame.text(), true);
+  }
+
+
+  /**
+   * Close this User's current session once the messages already sent to it
+   * have been written. Later messages are dropped.
+   *
+   * @param reason
+   *          the reason given to the client.
+   */
+  public void closeWhenSent(String reason) {
+    outbound.closeWhenSent(reason);
+  }
+
+
+  // Users that stay too slow to keep up are disconnected by the queue.
+  private boolean enqueue(Object frame, boolean state) {
+    return session.isOpen() && outbound.offer(frame, state);
+  }
+
+
+  /**
+   * Choose the wire format for messages sent to this User. It is negotiated
+   * per session, so it is set again whenever the session changes.
+   *
+   * @param binary
+   *          the binary codec to encode messages with, or null for JSON text.
+   */
+  public void setWire(BinaryWire binary) {
+    this.wire = binary;
+  }
+
+
+  /**
+   * @return the binary codec used for this User's session, or null if it
+   *         speaks JSON text.
+   */
+  public BinaryWire wire() {
+    return wire;
   }
 
 
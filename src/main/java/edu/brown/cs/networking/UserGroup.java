@@ -5,20 +5,41 @@ import static edu.brown.cs.networking.Util.print;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 
 import com.google.common.collect.EvictingQueue;
 import com.google.gson.JsonObject;
 
 public class UserGroup implements Group {
 
-  private UserTable              table;
-  private API                    api;
-  private final UserGroupBuilder myBuilder;
-  private final Queue<Message>   messageLog;
-
-  private static final int       MAX_CHAT_LOG = 10;
+  private UserTable               table;
+  private API                     api;
+  private final UserGroupBuilder  myBuilder;
+  private final Queue<Message>    messageLog;
+  private final Map<User, Expiry> expiries     = new HashMap<>();
+  private final ReplayLog         replay       = new ReplayLog();
+  private final Set<User>         spectators   = new LinkedHashSet<>();
+  // the spectator state last fanned out, to tell when there is a new one.
+  private String                  published;
+  private boolean                 publishPending;
+  private boolean                 released;
+  // where timers hand their work, so it runs on the same thread as the rest
+  // of the game's; the wheel's worker unless the GCT has loops.
+  private volatile Executor       loop;
+
+  private static final int        MAX_CHAT_LOG = 10;
+  // set by a client reconnecting in place, to the highest seq it has seen.
+  private static final String     LAST_SEQ     = "lastSeq";
+  // how long changes are gathered before spectators are sent the state.
+  static final long               SPECTATOR_WINDOW_MILLIS = 250;
 
 
   private UserGroup() {
@@ -32,6 +53,7 @@ public class UserGroup implements Group {
     messageLog = EvictingQueue.create(MAX_CHAT_LOG);
     this.myBuilder = b;
     this.table = new UserTable();
+    this.loop = b.timers.worker();
 
     if (b.apiClass != null) {
       try {
@@ -53,6 +75,10 @@ public class UserGroup implements Group {
   public boolean add(User u) {
     synchronized (this) {
 
+      if (released) {
+        return false; // the game is over.
+      }
+
       if (userReconnected(u)) {
         return true;
       }
@@ -65,10 +91,9 @@ public class UserGroup implements Group {
       table.addUser(u);
 
       for (User other : table.users()) {
-        JsonObject gs = api.getGameState(other.userID());
-        gs.addProperty(Networking.REQUEST_IDENTIFIER, "getGameState");
-        other.message(gs);
+        sendState(other, api.getGameStateUpdate(other.userID(), false));
       }
+      publish();
       if (isFull()) {
         handleMessage(u, Networking.START_GAME_MESSAGE);
         print("Game start called: " + identifier());
@@ -87,8 +112,7 @@ public class UserGroup implements Group {
   @Override
   public boolean remove(User u) {
     synchronized (this) {
-      userDisconnected(u,
-          System.currentTimeMillis() + Networking.DISCONNECT_TIMEOUT);
+      userDisconnected(u, Networking.DISCONNECT_TIMEOUT);
       return true;
     }
   }
@@ -99,7 +123,33 @@ public class UserGroup implements Group {
    */
   @Override
   public void clear() {
-    table.clear();
+    synchronized (this) {
+      expiries.values().forEach(e -> e.timeout.cancel());
+      expiries.clear();
+      table.clear();
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void release() {
+    synchronized (this) {
+      clear();
+      released = true;
+      Frame over = Frame.of(Networking.GAME_OVER_SPECTATED);
+      for (User s : spectators) {
+        s.message(over);
+        s.closeWhenSent("Game over");
+      }
+      spectators.clear();
+      published = null;
+      api = null; // the game, with its board and referee.
+      messageLog.clear();
+      replay.clear();
+    }
   }
 
 
@@ -122,7 +172,9 @@ public class UserGroup implements Group {
       }
       for (RequestProcessor req : myBuilder.reqs) {
         if (req.match(j)) {
-          return req.run(u, this, j, api);
+          boolean handled = req.run(u, this, j, api);
+          publish();
+          return handled;
         }
       }
       return false;
@@ -131,14 +183,161 @@ public class UserGroup implements Group {
   }
 
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean send(User u, JsonObject message) {
+    synchronized (this) {
+      return u.message(replay.record(u, Frame.of(message), false));
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean sendState(User u, String state) {
+    synchronized (this) {
+      return u.updateState(replay.record(u, state, true).text());
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean broadcast(Frame frame) {
+    synchronized (this) {
+      return sendToAll(connectedUsers(), frame);
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean watch(User spectator) {
+    synchronized (this) {
+      String joined =
+          released || api == null ? null : api.getSpectatorState(true);
+      if (joined == null) {
+        return false; // over, or not an API that can be watched.
+      }
+      spectators.add(spectator);
+      return spectator.updateState(joined);
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void unwatch(User spectator) {
+    synchronized (this) {
+      spectators.remove(spectator);
+    }
+  }
+
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int spectatorCount() {
+    synchronized (this) {
+      return spectators.size();
+    }
+  }
+
+
+  // Note that the spectators may need a new state. Changes are gathered for
+  // SPECTATOR_WINDOW_MILLIS, so a burst of actions costs one state, and
+  // nothing is done for a group nobody watches.
+  private void publish() {
+    if (spectators.isEmpty() || publishPending) {
+      return;
+    }
+    publishPending = true;
+    myBuilder.timers.schedule(() -> loop.execute(this::flushSpectators),
+        SPECTATOR_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+  }
+
+
+  // Fan the spectator state out, if it changed: encoded once, however many
+  // spectators there are, and offered as a state so that a spectator who is
+  // behind only gets the latest.
+  private void flushSpectators() {
+    synchronized (this) {
+      publishPending = false;
+      if (spectators.isEmpty() || api == null) {
+        return;
+      }
+      String state = api.getSpectatorState(false);
+      if (state == null || state.equals(published)) {
+        return;
+      }
+      published = state;
+      Frame frame = Frame.of(state);
+      Iterator<User> it = spectators.iterator();
+      while (it.hasNext()) {
+        if (!it.next().updateState(frame)) {
+          it.remove(); // closed, or dropped by its queue for being too slow.
+        }
+      }
+    }
+  }
+
+
+  private boolean sendToAll(Collection<User> users, Frame frame) {
+    Frame numbered = replay.record(null, frame, false);
+    boolean success = true;
+    for (User u : users) {
+      success &= u.message(numbered);
+    }
+    return success;
+  }
+
+
+  // Send u what it missed after seq, or, if that is no longer kept, its whole
+  // state and the chat log again.
+  private boolean resume(User u, long seq) {
+    List<Frame> missed = replay.since(u, seq);
+    if (missed != null) {
+      boolean success = true;
+      for (Frame f : missed) {
+        success &= u.message(f);
+      }
+      return success;
+    }
+    JsonObject logs = new JsonObject();
+    logs.addProperty(Networking.REQUEST_IDENTIFIER, "chat");
+    logs.add("logs", Networking.GSON.toJsonTree(getMessageLog()));
+    send(u, logs);
+    return api == null
+        || sendState(u, api.getGameStateUpdate(u.userID(), true));
+  }
+
+
+  private static long lastSeq(User u) {
+    try {
+      return Long.parseLong(u.getField(LAST_SEQ));
+    } catch (NumberFormatException e) {
+      return -1; // nothing to resume from.
+    }
+  }
+
+
   private boolean allUsersConnectedWithMessage() {
     if (table.allUsersConnected()) {
       return true;
     }
-    JsonObject message =
-        Networking.userDisconnectedMessage(
-            Collections.unmodifiableMap(table.afkMap()));
-    table.onlyConnectedUsers().stream().forEach(u -> u.message(message));
+    broadcast(Frame.of(Networking.userDisconnectedMessage(
+        Collections.unmodifiableMap(table.afkMap()))));
     return false;
   }
 
@@ -147,9 +346,7 @@ public class UserGroup implements Group {
    * {@inheritDoc}
    */
   public boolean hasUser(User u) {
-    boolean ret = table.contains(u);
-    System.out.println("hasUser? : " + ret);
-    return ret;
+    return table.contains(u);
   }
 
 
@@ -179,13 +376,20 @@ public class UserGroup implements Group {
   }
 
 
-  private void userDisconnected(User u, long expiresAt) {
+  private void userDisconnected(User u, long timeoutMillis) {
     if (!table.contains(u)) {
       return; // just ignore it.
     }
+    long expiresAt = System.currentTimeMillis() + timeoutMillis;
     print("DISCONNECTED AT " + expiresAt + " " + u);
     table.userAFK(u, expiresAt);
-    new Thread(new CleanupTask(u, table)).start();
+    Expiry e = new Expiry(u);
+    e.timeout = myBuilder.timers.schedule(() -> loop.execute(e),
+        timeoutMillis, TimeUnit.MILLISECONDS);
+    Expiry before = expiries.put(u, e);
+    if (before != null) {
+      before.timeout.cancel();
+    }
     allUsersConnectedWithMessage();
   }
 
@@ -196,15 +400,31 @@ public class UserGroup implements Group {
     }
     print("RECONNECTED " + u);
     table.userNotAFK(u);
+    Expiry e = expiries.remove(u);
+    if (e != null) {
+      e.timeout.cancel();
+    }
+    if (u.hasField(LAST_SEQ)) {
+      // before anything new is sent, so nothing is missed or sent twice.
+      resume(u, lastSeq(u));
+    }
     if (this.allUsersConnectedWithMessage()) {
       print("SENDING READY TO GO MESSAGE");
-      table.users().stream()
-          .forEach(usr -> usr.message(Networking.GAME_READY_MESSAGE));
+      sendToAll(table.users(), Frame.of(Networking.GAME_READY_MESSAGE));
     }
     return true;
   }
 
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void runOn(Executor gameLoop) {
+    this.loop = gameLoop;
+  }
+
+
   /**
    * {@inheritDoc}
    */
@@ -250,37 +470,30 @@ public class UserGroup implements Group {
   }
 
 
-  public class CleanupTask implements Runnable {
+  // Ends the game when a disconnected user has not come back in time.
+  private class Expiry implements Runnable {
 
-    private User      u;
-    private UserTable table;
+    private final User         u;
+    private TimerWheel.Timeout timeout;
 
 
-    public CleanupTask(User u, UserTable t) {
+    private Expiry(User u) {
       this.u = u;
-      this.table = t;
     }
 
 
     @Override
     public void run() {
-      while (true) {
-        try {
-          if (table.expired(u)) {
-            System.out.println("User expired!");
-            for (User u : table.onlyConnectedUsers()) {
-              u.message(Networking.GAME_OVER_DISCONNECTED_USER);
-            }
-            table.clear();
-            return;
-          } else {
-            Thread.sleep(1000);
-          }
-        } catch (ExpiredUserException | InterruptedException e) {
-          // thread consistency error, can just kill the thread.
+      synchronized (UserGroup.this) {
+        // a reconnect, or a newer disconnect, has taken this one's place.
+        if (expiries.get(u) != this) {
           return;
         }
-
+        expiries.remove(u);
+        print("User expired! " + u);
+        sendToAll(table.onlyConnectedUsers(),
+            Frame.of(Networking.GAME_OVER_DISCONNECTED_USER));
+        clear();
       }
     }
   }
@@ -296,6 +509,7 @@ public class UserGroup implements Group {
     private String                       identifier  = null;
     private String                       name        = null;
     private JsonObject                   apiSettings = null;
+    private TimerWheel                   timers      = TimerWheel.shared();
 
 
     public UserGroupBuilder(Class<? extends API> apiClass) {
@@ -340,6 +554,12 @@ public class UserGroup implements Group {
     }
 
 
+    public UserGroupBuilder withTimerWheel(TimerWheel timers) {
+      this.timers = timers;
+      return this;
+    }
+
+
     public UserGroup build() {
       return new UserGroup(this);
     }
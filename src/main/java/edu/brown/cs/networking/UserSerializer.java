@@ -1,24 +1,31 @@
 package edu.brown.cs.networking;
 
-import java.lang.reflect.Type;
+import java.io.IOException;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonSerializationContext;
-import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
 
-class UserSerializer implements JsonSerializer<User> {
+class UserSerializer extends TypeAdapter<User> {
 
   @Override
-  public JsonElement serialize(User src, Type typeOfSrc,
-      JsonSerializationContext context) {
-    JsonObject j = new JsonObject();
-    if(src.hasField("userName")) {
-      j.addProperty("userName", src.getField("userName"));
+  public void write(JsonWriter out, User src) throws IOException {
+    if (src == null) {
+      out.nullValue();
+      return;
     }
-    j.addProperty("id", src.userID());
-    return j;
+    out.beginObject();
+    if (src.hasField("userName")) {
+      out.name("userName").value(src.getField("userName"));
+    }
+    out.name("id").value(src.userID());
+    out.endObject();
+  }
+
+  @Override
+  public User read(JsonReader in) {
+    throw new UnsupportedOperationException("Users are only written.");
   }
 
 }
@@ -10,18 +10,23 @@ import java.util.stream.Collectors;
 
 class UserTable {
 
-  private final Set<User>       users;
-  private final Map<User, Long> afk;
+  private final Set<User>         users;
+  private final Map<String, User> byID;
+  private final Map<User, Long>   afk;
 
 
   public UserTable() {
     this.users = new HashSet<>();
+    this.byID = new HashMap<>();
     this.afk = new HashMap<>();
   }
 
 
   public boolean addUser(User u) {
     synchronized (this) {
+      if (u.hasField(Networking.USER_IDENTIFIER)) {
+        byID.put(u.getField(Networking.USER_IDENTIFIER), u);
+      }
       return users.add(u);
     }
   }
@@ -29,6 +34,9 @@ class UserTable {
 
   public boolean removeUser(User u) {
     synchronized (this) {
+      if (u.hasField(Networking.USER_IDENTIFIER)) {
+        byID.remove(u.getField(Networking.USER_IDENTIFIER), u);
+      }
       return users.remove(u);
     }
   }
@@ -66,11 +74,8 @@ class UserTable {
 
 
   public boolean contains(String id) {
-    System.out.println(users);
     synchronized (this) {
-      return users.stream()
-          .anyMatch(u -> u.hasField(Networking.USER_IDENTIFIER)
-              && u.getField(Networking.USER_IDENTIFIER).equals(id));
+      return byID.containsKey(id);
     }
   }
 
@@ -140,6 +145,7 @@ class UserTable {
   public void clear() {
     synchronized (this) {
       users.clear();
+      byID.clear();
       afk.clear();
     }
   }
@@ -980,6 +980,7 @@
 <script src="js/intersection.js"></script>
 <script src="js/path.js"></script>
 <script src="js/board.js"></script>
+<script src="js/wire.js"></script>
 <script src="js/websocket.js"></script>
 <script src="js/main.js"></script>
 <script src="js/chartist.min.js"></script>
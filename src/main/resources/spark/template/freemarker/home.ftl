@@ -79,6 +79,7 @@
 						</div>
 						<br>
 						<button id="startGameButton" class="btn btn-success" onclick="return startGamePressed()">Create Game!</button>
+						<button id="quickMatchButton" class="btn btn-primary" onclick="return quickMatchPressed()">Quick Match</button>
 						<br><br>
 						<label>Expansion</label>
 						<br>
@@ -1,6 +1,10 @@
 <#assign content>
 <#assign open = openGroups?eval>
 <#assign closed = closedGroups?eval>
+<#assign timer = timers?eval>
+<#assign game = games?eval>
+<#assign rate = limits?eval>
+<#assign stored = gameStats?eval>
 
 <div class="container-fluid">
 	<div class="text-center">
@@ -10,6 +14,10 @@
 		<#else>
 		<h4>Not at game limit (${limit})</h4>
 		</#if>		
+		<p>Games live: ${game.live!0} (waiting ${game.waiting!0}, in play ${game.active!0}; created ${game.created!0}, started ${game.started!0}, abandoned ${game.abandoned!0}, reaped ${game.reaped!0}). Heap per game: ${((game.heapBytesPerGame!0) / 1024)?round} KB</p>
+		<p>Messages admitted: ${rate.admitted!0}. Dropped: too large ${rate.tooLarge!0}, over user limit ${rate.userLimited!0}, over game limit ${rate.gameLimited!0}</p>
+		<p>Games finished: ${stored.finished!0}. Stats written ${stored.written!0}, waiting ${stored.queued!0}, dropped ${stored.dropped!0}, failed ${stored.failed!0}</p>
+		<p>Timers pending: ${timer.pending} (scheduled ${timer.scheduled}, expired ${timer.expired}, cancelled ${timer.cancelled})</p>
 	</div>
 	<div class="row">
 		<div class="col-xs-6">
@@ -47,14 +47,48 @@ webSocket.onopen = function () {
 	window.setInterval(heartbeat, 10 * 1000);
 };
 
+// The lobby as last received: open groups by id, in listed order.
+var lobbyGroups = {};
+var lobbyOrder = [];
+var lobbySeq = -1;
+
 // Handle message from the websocket
 webSocket.onmessage = function (msg) {
 	var data = JSON.parse(msg.data);
-	console.log(data);
 	if (data == "HEARTBEAT") {
 		return;
 	}
 
+	if (data.requestType == "lobby") {
+		lobbyGroups = {};
+		lobbyOrder = [];
+		lobbySeq = data.seq;
+		addLobbyGroups(data.groups);
+	} else if (data.requestType == "lobbyUpdate") {
+		if (data.seq <= lobbySeq) {
+			return; // already part of a snapshot we have.
+		}
+		if (data.seq != lobbySeq + 1) {
+			// missed an update; ask for the whole lobby again.
+			webSocket.send(JSON.stringify("RESYNC"));
+			return;
+		}
+		lobbySeq = data.seq;
+		for (var i = 0; i < data.removed.length; i++) {
+			var at = lobbyOrder.indexOf(data.removed[i]);
+			if (at >= 0) {
+				lobbyOrder.splice(at, 1);
+			}
+			delete lobbyGroups[data.removed[i]];
+		}
+		for (var i = 0; i < data.changed.length; i++) {
+			lobbyGroups[data.changed[i].group.id] = data.changed[i];
+		}
+		addLobbyGroups(data.added);
+	} else {
+		return;
+	}
+
 	$("#startGameButton").prop("disabled", data.atLimit);
 	if (data.atLimit) {
 		$("#startGameButton").text("Sorry, Game Limit Reached");
@@ -62,8 +96,18 @@ webSocket.onmessage = function (msg) {
 		$("#startGameButton").text("Start Game!");
 	}
 
-	if (data.hasOwnProperty("groups")) {
-		createJoinableGameList(data.groups);
+	createJoinableGameList(lobbyOrder.map(function (id) {
+		return lobbyGroups[id];
+	}));
+}
+
+function addLobbyGroups(groups) {
+	for (var i = 0; i < groups.length; i++) {
+		var id = groups[i].group.id;
+		if (!lobbyGroups.hasOwnProperty(id)) {
+			lobbyOrder.push(id);
+		}
+		lobbyGroups[id] = groups[i];
 	}
 }
 
@@ -170,6 +214,7 @@ function existingGameSelected(caller) {
 	}
 
 	setCookie("desiredGroupId", groupId);
+	deleteCookie("quickMatch");
 	setCookie("userName", userName);
 	setCookie("numPlayersDesired", groupSize);
 	setCookie("victoryPoints", victoryPoints);
@@ -249,11 +294,45 @@ function startGamePressed() {
 	setCookie("isDynamic", isDynamic);
 	setCookie("isStandard", isStandard);
 	setCookie("isCitiesAndKnights", isCitiesAndKnights);
+	deleteCookie("quickMatch");
 
 	deleteCookie("USER_ID");
 	return true; // will allow the get request to process.
 }
 
+/*
+ * Handle a request to join the fullest open game with the chosen settings,
+ * or start one if there is none.
+ */
+function quickMatchPressed() {
+	var userName = id("nameEntry").value;
+	var numPlayers = id("numPlayersDesired").value;
+	var victoryPoints = id("victory-points-input").value;
+	var isDecimal = $("#decimal-option").hasClass("active");
+	var isDynamic = isDecimal && $("#dynamic-rates-option").hasClass("active");
+	var isStandard = $("#default-board-option").hasClass("active");
+	var isCitiesAndKnights = $("#ck-expansion-option").hasClass("active");
+
+	if (userName == undefined || userName == "") {
+		alert("Please select a username");
+		return false;
+	}
+
+	setCookie("userName", userName);
+	setCookie("numPlayersDesired", numPlayers);
+	setCookie("victoryPoints", victoryPoints);
+	setCookie("isDecimal", isDecimal);
+	setCookie("groupName", id("game-name-entry").value);
+	setCookie("isDynamic", isDynamic);
+	setCookie("isStandard", isStandard);
+	setCookie("isCitiesAndKnights", isCitiesAndKnights);
+	setCookie("quickMatch", true);
+	deleteCookie("desiredGroupId");
+
+	deleteCookie("USER_ID");
+	return true;
+}
+
 function deleteCookie(name) {
 	document.cookie = name + '=;expires=Thu, 01 Jan 1970 00:00:01 GMT;';
 };
@@ -1,30 +1,64 @@
 // ---------- Setup ---------- //
 
+// Opt in to the compact binary wire format by loading the page with
+// ?wire=binary. Binary frames need the dictionary the server sends first.
+var wireQuery = window.location.search.indexOf("wire=binary") > -1 ? "?wire=binary"
+	: "";
+var binaryWire = null;
+
+// Every game message carries a seq, one more than the game's last. After a
+// dropped connection the socket is opened again with the highest seq seen in
+// the lastSeq cookie, and the server sends only what was missed since. A page
+// that has just loaded has nothing to resume.
+var lastSeq = 0;
+var RECONNECT_DELAY = 1000;
+deleteCookie("lastSeq");
+
 //Establish the WebSocket connection and set up event handlers
-if (document.location.hostname == "localhost") {
-	// use http
-	webSocket = new WebSocket("ws://" + location.hostname + ":" + location.port
-		+ "/action/");
-} else {
-	// we're on heroku - use https:
-	webSocket = new WebSocket("wss://" + location.hostname + ":" + location.port
-		+ "/action/");
+function openWebSocket() {
+	if (document.location.hostname == "localhost") {
+		// use http
+		webSocket = new WebSocket("ws://" + location.hostname + ":"
+			+ location.port + "/action/" + wireQuery);
+	} else {
+		// we're on heroku - use https:
+		webSocket = new WebSocket("wss://" + location.hostname + ":"
+			+ location.port + "/action/" + wireQuery);
+	}
+	webSocket.binaryType = "arraybuffer";
+	webSocket.onopen = onWebSocketOpen;
+	webSocket.onclose = onWebSocketClose;
+	webSocket.onmessage = onWebSocketMessage;
+}
+openWebSocket();
+window.setInterval(heartbeat, 10 * 1000);
+
+// Send a request in whichever format the socket speaks.
+function sendRequest(req) {
+	if (binaryWire !== null) {
+		webSocket.send(binaryWire.encode(req));
+	} else {
+		webSocket.send(JSON.stringify(req));
+	}
 }
 
 // Send a heartbeat on the websocket
 function heartbeat() {
 	var beat = "HEARTBEAT";
-	webSocket.send(JSON.stringify(beat));
+	sendRequest(beat);
 }
 
-// Requests to be send when websocket first opens
-webSocket.onopen = function () {
+// Requests to be send when websocket first opens. A resumed connection has
+// been sent what it missed already.
+function onWebSocketOpen() {
+	if (lastSeq > 0) {
+		return;
+	}
 	if (document.cookie.indexOf("USER_ID") > -1) {
 		sendGetGameStateAction();
 	}
-	window.setInterval(heartbeat, 10 * 1000);
 	sendReloadChatRequest();
-};
+}
 
 // Delete all cookies and return to home screen
 function deleteAllCookiesAndGoHome() {
@@ -36,13 +70,16 @@ function deleteAllCookiesAndGoHome() {
 }
 
 // Actions to be taken when websocket is closed
-webSocket.onclose = function () {
-	if (document.cookie.indexOf("USER_ID") > -1) {
-		window.location.reload(true);
-	} else {
+function onWebSocketClose() {
+	if (document.cookie.indexOf("USER_ID") == -1) {
 		deleteAllCookiesAndGoHome();
+	} else if (lastSeq > 0) {
+		document.cookie = "lastSeq=" + lastSeq;
+		binaryWire = null; // the server sends its dictionary again.
+		window.setTimeout(openWebSocket, RECONNECT_DELAY);
+	} else {
+		window.location.reload(true);
 	}
-
 }
 
 // When a leave game button is pressed, return to home screen
@@ -51,7 +88,7 @@ $(".leave-game-btn").click(function (event) {
 		requestType: "gameOver",
 		reason: "explicitExit"
 	};
-	webSocket.send(JSON.stringify(exit));
+	sendRequest(exit);
 	deleteAllCookiesAndGoHome();
 });
 
@@ -63,7 +100,18 @@ function sendGetGameStateAction() {
 	var playersReq = {
 		requestType: "getGameState"
 	};
-	webSocket.send(JSON.stringify(playersReq));
+	if (boardDescriptor !== null) {
+		playersReq.descriptor = boardDescriptor.hash;
+	}
+	sendRequest(playersReq);
+}
+
+function sendAckStateAction(version) {
+	var ackReq = {
+		requestType: "ackState",
+		version: version
+	};
+	sendRequest(ackReq);
 }
 
 function sendReloadChatRequest() {
@@ -71,7 +119,18 @@ function sendReloadChatRequest() {
 		requestType: "chat",
 		logs: true
 	}
-	webSocket.send(JSON.stringify(chatReq));
+	sendRequest(chatReq);
+}
+
+// Send several actions to be performed as one: if any of them fails, none of
+// them happen. Each action is an object like the ones the send functions below
+// build, without requestType.
+function sendBatch(actions) {
+	var batchReq = {
+		requestType: "batch",
+		actions: actions
+	};
+	sendRequest(batchReq);
 }
 
 function sendGetInitialStateAction() {
@@ -79,7 +138,7 @@ function sendGetInitialStateAction() {
 		requestType: "action",
 		action: "getInitialState"
 	};
-	webSocket.send(JSON.stringify(stateReq));
+	sendRequest(stateReq);
 }
 
 function sendRollDiceAction() {
@@ -88,7 +147,7 @@ function sendRollDiceAction() {
 		action: "rollDice",
 		player: playerId
 	};
-	webSocket.send(JSON.stringify(rollDiceReq));
+	sendRequest(rollDiceReq);
 }
 
 function sendBuildSettlementAction(intersectCoordinates) {
@@ -97,7 +156,7 @@ function sendBuildSettlementAction(intersectCoordinates) {
 		action: "buildSettlement",
 		coordinate: intersectCoordinates
 	};
-	webSocket.send(JSON.stringify(buildReq));
+	sendRequest(buildReq);
 }
 
 function sendPlaceSettlementAction(intersectCoordinates) {
@@ -106,7 +165,7 @@ function sendPlaceSettlementAction(intersectCoordinates) {
 		action: "placeSettlement",
 		coordinate: intersectCoordinates
 	};
-	webSocket.send(JSON.stringify(placeReq));
+	sendRequest(placeReq);
 }
 
 function sendBuildCityAction(intersectCoordinates) {
@@ -115,7 +174,7 @@ function sendBuildCityAction(intersectCoordinates) {
 		action: "buildCity",
 		coordinate: intersectCoordinates
 	};
-	webSocket.send(JSON.stringify(buildReq));
+	sendRequest(buildReq);
 }
 
 function sendBuildRoadAction(start, end) {
@@ -125,7 +184,7 @@ function sendBuildRoadAction(start, end) {
 		start: start,
 		end: end
 	};
-	webSocket.send(JSON.stringify(buildReq));
+	sendRequest(buildReq);
 }
 
 function sendPlaceRoadAction(start, end) {
@@ -135,7 +194,7 @@ function sendPlaceRoadAction(start, end) {
 		start: start,
 		end: end
 	};
-	webSocket.send(JSON.stringify(placeReq));
+	sendRequest(placeReq);
 }
 
 function sendBuyDevCardAction() {
@@ -143,7 +202,7 @@ function sendBuyDevCardAction() {
 		requestType: "action",
 		action: "buyDevCard"
 	};
-	webSocket.send(JSON.stringify(buyReq));
+	sendRequest(buyReq);
 }
 
 function sendPlayKnightAction() {
@@ -151,7 +210,7 @@ function sendPlayKnightAction() {
 		requestType: "action",
 		action: "playKnight"
 	};
-	webSocket.send(JSON.stringify(playReq));
+	sendRequest(playReq);
 }
 
 function sendPlayMonopolyAction(resource) {
@@ -160,7 +219,7 @@ function sendPlayMonopolyAction(resource) {
 		action: "playMonopoly",
 		resource: resource
 	};
-	webSocket.send(JSON.stringify(playReq));
+	sendRequest(playReq);
 }
 
 function sendPlayYearOfPlentyAction(resources) {
@@ -169,7 +228,7 @@ function sendPlayYearOfPlentyAction(resources) {
 		action: "playYearOfPlenty",
 		resources: resources
 	};
-	webSocket.send(JSON.stringify(playReq));
+	sendRequest(playReq);
 }
 
 function sendPlayRoadBuildingAction() {
@@ -177,7 +236,7 @@ function sendPlayRoadBuildingAction() {
 		requestType: "action",
 		action: "playRoadBuilding"
 	};
-	webSocket.send(JSON.stringify(playReq));
+	sendRequest(playReq);
 }
 
 function sendDropCardsAction(toDrop) {
@@ -186,7 +245,7 @@ function sendDropCardsAction(toDrop) {
 		action: "dropCards",
 		toDrop: toDrop
 	};
-	webSocket.send(JSON.stringify(dropReq));
+	sendRequest(dropReq);
 }
 
 function sendMoveRobberAction(coord) {
@@ -195,7 +254,7 @@ function sendMoveRobberAction(coord) {
 		action: "moveRobber",
 		newLocation: coord
 	};
-	webSocket.send(JSON.stringify(dropReq));
+	sendRequest(dropReq);
 }
 
 function sendTakeCardAction(playerId) {
@@ -204,7 +263,7 @@ function sendTakeCardAction(playerId) {
 		action: "takeCard",
 		takeFrom: playerId
 	};
-	webSocket.send(JSON.stringify(takeReq));
+	sendRequest(takeReq);
 }
 
 function sendTradeWithBankAction(toGive, toGet, amount) {
@@ -215,7 +274,7 @@ function sendTradeWithBankAction(toGive, toGet, amount) {
 		toGet: toGet,
 		amount: amount
 	};
-	webSocket.send(JSON.stringify(tradeReq));
+	sendRequest(tradeReq);
 }
 
 function startSetupAction() {
@@ -223,7 +282,7 @@ function startSetupAction() {
 		requestType: "action",
 		action: "startSetup"
 	};
-	webSocket.send(JSON.stringify(startReq));
+	sendRequest(startReq);
 }
 
 // ---------- Cities & Knights Action Senders ---------- //
@@ -234,7 +293,7 @@ function sendPlaceKnightAction(intersectCoordinates) {
 		action: "placeKnight",
 		coordinate: intersectCoordinates
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendActivateKnightAction(intersectCoordinates) {
@@ -243,7 +302,7 @@ function sendActivateKnightAction(intersectCoordinates) {
 		action: "activateKnight",
 		coordinate: intersectCoordinates
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendPromoteKnightAction(intersectCoordinates) {
@@ -252,7 +311,7 @@ function sendPromoteKnightAction(intersectCoordinates) {
 		action: "promoteKnight",
 		coordinate: intersectCoordinates
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendBuildCityWallAction(intersectCoordinates) {
@@ -261,7 +320,7 @@ function sendBuildCityWallAction(intersectCoordinates) {
 		action: "buildCityWall",
 		coordinate: intersectCoordinates
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendImproveCityTrackAction(track) {
@@ -270,7 +329,7 @@ function sendImproveCityTrackAction(track) {
 		action: "improveCityTrack",
 		track: track
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendPlayProgressCardAction(cardName) {
@@ -279,7 +338,7 @@ function sendPlayProgressCardAction(cardName) {
 		action: "playProgressCard",
 		card: cardName
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendEndTurnAction() {
@@ -287,7 +346,7 @@ function sendEndTurnAction() {
 		requestType: "action",
 		action: "endTurn"
 	};
-	webSocket.send(JSON.stringify(endReq));
+	sendRequest(endReq);
 }
 
 function sendKnightOrDiceAction(choseKnight) {
@@ -296,7 +355,7 @@ function sendKnightOrDiceAction(choseKnight) {
 		action: "knightOrDice",
 		choseKnight: choseKnight
 	};
-	webSocket.send(JSON.stringify(playReq));
+	sendRequest(playReq);
 }
 
 // --- Progress Card Follow-Up Action Senders --- //
@@ -308,7 +367,7 @@ function sendRemoveRoadAction(start, end) {
 		start: start,
 		end: end
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendDisplaceKnightAction(coordinate) {
@@ -317,7 +376,7 @@ function sendDisplaceKnightAction(coordinate) {
 		action: "displaceKnight",
 		coordinate: coordinate
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendStealProgressCardAction(targetPlayer) {
@@ -326,7 +385,7 @@ function sendStealProgressCardAction(targetPlayer) {
 		action: "stealProgressCard",
 		targetPlayer: targetPlayer
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendSwapHexNumbersAction(hex1, hex2) {
@@ -336,7 +395,7 @@ function sendSwapHexNumbersAction(hex1, hex2) {
 		hex1: hex1,
 		hex2: hex2
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendChooseResourceAction(resource) {
@@ -345,7 +404,7 @@ function sendChooseResourceAction(resource) {
 		action: "chooseResource",
 		resource: resource
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendChooseCommodityAction(resource) {
@@ -354,7 +413,7 @@ function sendChooseCommodityAction(resource) {
 		action: "chooseCommodity",
 		resource: resource
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendChooseOpponentCardsAction(targetPlayer) {
@@ -363,7 +422,7 @@ function sendChooseOpponentCardsAction(targetPlayer) {
 		action: "chooseOpponentCards",
 		targetPlayer: targetPlayer
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendDeserterTargetAction(targetPlayer, coordinate) {
@@ -373,7 +432,7 @@ function sendDeserterTargetAction(targetPlayer, coordinate) {
 		targetPlayer: targetPlayer,
 		coordinate: coordinate
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendPlaceMerchantAction(hex) {
@@ -382,7 +441,7 @@ function sendPlaceMerchantAction(hex) {
 		action: "placeMerchant",
 		hex: hex
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendChooseDiceAction(redDie, whiteDie) {
@@ -392,7 +451,7 @@ function sendChooseDiceAction(redDie, whiteDie) {
 		redDie: redDie,
 		whiteDie: whiteDie
 	};
-	webSocket.send(JSON.stringify(req));
+	sendRequest(req);
 }
 
 function sendProposeTradeAction(trade) {
@@ -401,7 +460,7 @@ function sendProposeTradeAction(trade) {
 		action: "proposeTrade",
 		trade: trade
 	};
-	webSocket.send(JSON.stringify(tradeReq));
+	sendRequest(tradeReq);
 }
 
 function sendReviewTradeAction(tradeAccepted) {
@@ -410,7 +469,7 @@ function sendReviewTradeAction(tradeAccepted) {
 		action: "reviewTrade",
 		tradeAccepted: tradeAccepted
 	};
-	webSocket.send(JSON.stringify(tradeReq));
+	sendRequest(tradeReq);
 }
 
 function sendTradeResponseAction(accepted, trader, tradee) {
@@ -421,7 +480,7 @@ function sendTradeResponseAction(accepted, trader, tradee) {
 		trader: trader,
 		tradee: tradee
 	};
-	webSocket.send(JSON.stringify(tradeReq));
+	sendRequest(tradeReq);
 }
 
 function sendUpdateResourceAction() {
@@ -429,27 +488,46 @@ function sendUpdateResourceAction() {
 		requestType: "action",
 		action: "updateResource"
 	};
-	webSocket.send(JSON.stringify(updateReq));
+	sendRequest(updateReq);
 }
 
 // ---------- RESPONSES ---------- //
 
-webSocket.onmessage = function (msg) {
+function onWebSocketMessage(msg) {
 	console.log(msg);
-	var data = JSON.parse(msg.data);
+	var data;
+	if (msg.data instanceof ArrayBuffer) {
+		data = binaryWire.decode(msg.data);
+	} else {
+		data = JSON.parse(msg.data);
+	}
 	console.log(data);
 
+	if (data.requestType === "wireFormat") {
+		binaryWire = new BinaryWire(data.dictionary);
+		return;
+	}
+	if (data.hasOwnProperty("seq") && data.seq > lastSeq) {
+		lastSeq = data.seq;
+	}
+
 	if (data.hasOwnProperty("requestType")) {
 		switch (data.requestType) {
 			case "chat":
 				handleChatResponse(data);
 				break;
 			case "getGameState":
-				handleGetGameState(data);
+				handleFullGameState(data);
+				break;
+			case "gameStateDelta":
+				handleGameStateDelta(data);
 				break;
 			case "action":
 				handleActionResponse(data);
 				break;
+			case "batch":
+				handleBatchResponse(data);
+				break;
 			case "setCookie":
 				handleSetCookie(data);
 				break;
@@ -472,7 +550,7 @@ webSocket.onmessage = function (msg) {
 	} else {
 		console.log("No request type indicated for response");
 	}
-};
+}
 
 // ////////////////////////////////////////
 // Chat Responses
@@ -487,7 +565,7 @@ function sendMessage(message) {
 			"requestType": "chat",
 			"message": message
 		};
-		webSocket.send(JSON.stringify(pack));
+		sendRequest(pack);
 		id("message").value = "";
 	}
 }
@@ -552,6 +630,21 @@ function handleChatResponse(data) {
  * Handles an action that was send back to the gui.
  * @param data - the action data
  */
+function handleBatchResponse(data) {
+	if (data.hasOwnProperty("requestError")) {
+		console.log(data.requestError);
+		return;
+	}
+	if (!data.success) {
+		addMessage("None of your actions were made: action "
+			+ (data.failedAction + 1) + " could not be done. " + data.message);
+		return;
+	}
+	for (var i = 0; i < data.results.length; i++) {
+		handleActionResponse(data.results[i]);
+	}
+}
+
 function handleActionResponse(data) {
 	if (data.content.hasOwnProperty("message")) {
 		addMessage(data.content.message);
@@ -780,6 +873,142 @@ function handleGetGameState(gameStateData) {
 	}
 }
 
+// ////////////////////////////////////////
+// Versioned Game State
+// ////////////////////////////////////////
+
+// Game states received from the server, by version. Deltas are applied to
+// the version they name as their base.
+var gameStatesByVersion = {};
+
+// The static board layout, kept across reloads. States refer to it by hash.
+var boardDescriptor = null;
+try {
+	boardDescriptor = JSON.parse(localStorage.getItem("boardDescriptor"));
+} catch (e) {
+	boardDescriptor = null;
+}
+
+function rememberBoardDescriptor(data) {
+	if (data.hasOwnProperty("boardDescriptor")) {
+		boardDescriptor = data.boardDescriptor;
+		try {
+			localStorage.setItem("boardDescriptor", JSON.stringify(boardDescriptor));
+		} catch (e) {
+			// storage full or disabled - keep it for this page only
+		}
+	}
+}
+
+// Fill the board of a state in from the descriptor: tiles, intersections and
+// paths are listed by descriptor index with only their changing fields.
+function expandBoard(state) {
+	var board = state.board;
+	if (!board.hasOwnProperty("descriptor")) {
+		return state;
+	}
+	if (boardDescriptor === null || boardDescriptor.hash !== board.descriptor) {
+		return null;
+	}
+	var expanded = $.extend({}, state);
+	expanded.board = {
+		tiles: [],
+		intersections: [],
+		paths: []
+	};
+	var i;
+	for (i = 0; i < board.tiles.length; i++) {
+		expanded.board.tiles.push($.extend({}, boardDescriptor.tiles[i],
+			board.tiles[i]));
+	}
+	for (i = 0; i < board.intersections.length; i++) {
+		expanded.board.intersections.push($.extend({},
+			boardDescriptor.intersections[i], board.intersections[i]));
+	}
+	for (i = 0; i < board.paths.length; i++) {
+		var layout = boardDescriptor.paths[i];
+		expanded.board.paths.push($.extend({
+			start: boardDescriptor.intersections[layout.start].coordinate,
+			end: boardDescriptor.intersections[layout.end].coordinate
+		}, board.paths[i]));
+	}
+	return expanded;
+}
+
+function renderGameState(state) {
+	var expanded = expandBoard(state);
+	if (expanded === null) {
+		// the cached descriptor is for another board; ask for it again.
+		boardDescriptor = null;
+		localStorage.removeItem("boardDescriptor");
+		sendGetGameStateAction();
+		return;
+	}
+	handleGetGameState(expanded);
+}
+
+/*
+ * Handles a full game state, remembering it as a base for later deltas.
+ * @param data - the full game state
+ */
+function handleFullGameState(data) {
+	rememberBoardDescriptor(data);
+	delete data.boardDescriptor;
+	if (data.hasOwnProperty("version")) {
+		gameStatesByVersion = {};
+		gameStatesByVersion[data.version] = data;
+		sendAckStateAction(data.version);
+	}
+	renderGameState(data);
+}
+
+/*
+ * Handles a game state delta by applying it to the state it was computed
+ * against. If that state is no longer known, a full state is requested.
+ * @param data - the delta, with base, version, set and unset fields
+ */
+function handleGameStateDelta(data) {
+	rememberBoardDescriptor(data);
+	var base = gameStatesByVersion[data.base];
+	if (base === undefined) {
+		sendGetGameStateAction();
+		return;
+	}
+	var state = JSON.parse(JSON.stringify(base));
+	for (var path in data.set) {
+		if (data.set.hasOwnProperty(path)) {
+			setStatePath(state, path.split("/"), data.set[path]);
+		}
+	}
+	for (var i = 0; i < data.unset.length; i++) {
+		setStatePath(state, data.unset[i].split("/"), undefined);
+	}
+	state.version = data.version;
+
+	for (var version in gameStatesByVersion) {
+		if (parseInt(version) < data.base) {
+			delete gameStatesByVersion[version];
+		}
+	}
+	gameStatesByVersion[data.version] = state;
+	sendAckStateAction(data.version);
+	renderGameState(state);
+}
+
+// Set (or delete, if value is undefined) the field at path in state.
+function setStatePath(state, path, value) {
+	var target = state;
+	for (var i = 0; i < path.length - 1; i++) {
+		target = target[path[i]];
+	}
+	var last = path[path.length - 1];
+	if (value === undefined) {
+		delete target[last];
+	} else {
+		target[last] = value;
+	}
+}
+
 // Send message if enter is pressed in the input field
 id("message").addEventListener("keypress", function (e) {
 	if (e.keyCode === 13) {
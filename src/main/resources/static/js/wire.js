@@ -0,0 +1,230 @@
+// ---------- Binary wire format ---------- //
+// Mirrors edu.brown.cs.networking.BinaryWire. The dictionary arrives from the
+// server in a "wireFormat" text message before any binary frame.
+
+var WIRE_NULL = 0;
+var WIRE_FALSE = 1;
+var WIRE_TRUE = 2;
+var WIRE_INTEGER = 3;
+var WIRE_DOUBLE = 4;
+var WIRE_STRING = 5;
+var WIRE_WORD = 6;
+var WIRE_ARRAY = 7;
+var WIRE_OBJECT = 8;
+var WIRE_HEX = 9;
+var WIRE_INTERSECTION = 10;
+
+var HEX_KEYS = ["x", "y", "z"];
+var INTERSECTION_KEYS = ["coord1", "coord2", "coord3"];
+
+function BinaryWire(dictionary) {
+	this.words = dictionary;
+	this.wordIndex = {};
+	for (var i = 0; i < dictionary.length; i++) {
+		this.wordIndex[dictionary[i]] = i;
+	}
+}
+
+// Decoding
+
+BinaryWire.prototype.decode = function (buffer) {
+	this.bytes = new Uint8Array(buffer);
+	this.pos = 0;
+	return this.read();
+};
+
+BinaryWire.prototype.varint = function () {
+	// Multiplication instead of shifts, so values past 2^31 survive.
+	var result = 0;
+	var scale = 1;
+	var b;
+	do {
+		b = this.bytes[this.pos++];
+		result += (b & 0x7F) * scale;
+		scale *= 128;
+	} while (b & 0x80);
+	return result;
+};
+
+BinaryWire.prototype.signed = function () {
+	var v = this.varint();
+	return v % 2 === 0 ? v / 2 : -(v + 1) / 2;
+};
+
+BinaryWire.prototype.text = function (length) {
+	var slice = this.bytes.subarray(this.pos, this.pos + length);
+	this.pos += length;
+	return new TextDecoder("utf-8").decode(slice);
+};
+
+BinaryWire.prototype.hex = function () {
+	return {
+		x: this.signed(),
+		y: this.signed(),
+		z: this.signed()
+	};
+};
+
+BinaryWire.prototype.read = function () {
+	var tag = this.bytes[this.pos++];
+	var i;
+	switch (tag) {
+		case WIRE_NULL:
+			return null;
+		case WIRE_FALSE:
+			return false;
+		case WIRE_TRUE:
+			return true;
+		case WIRE_INTEGER:
+			return this.signed();
+		case WIRE_DOUBLE:
+			var view = new DataView(this.bytes.buffer, this.bytes.byteOffset
+				+ this.pos, 8);
+			this.pos += 8;
+			return view.getFloat64(0);
+		case WIRE_STRING:
+			return this.text(this.varint());
+		case WIRE_WORD:
+			return this.words[this.varint()];
+		case WIRE_ARRAY:
+			var size = this.varint();
+			var arr = [];
+			for (i = 0; i < size; i++) {
+				arr.push(this.read());
+			}
+			return arr;
+		case WIRE_OBJECT:
+			var fields = this.varint();
+			var obj = {};
+			for (i = 0; i < fields; i++) {
+				var key = this.varint();
+				var name = key % 2 === 1 ? this.words[(key - 1) / 2] : this
+					.text(key / 2);
+				obj[name] = this.read();
+			}
+			return obj;
+		case WIRE_HEX:
+			return this.hex();
+		case WIRE_INTERSECTION:
+			return {
+				coord1: this.hex(),
+				coord2: this.hex(),
+				coord3: this.hex()
+			};
+		default:
+			throw new Error("Unknown tag " + tag);
+	}
+};
+
+// Encoding
+
+BinaryWire.prototype.encode = function (value) {
+	this.out = [];
+	this.write(value);
+	return new Uint8Array(this.out).buffer;
+};
+
+BinaryWire.prototype.writeVarint = function (v) {
+	while (v >= 128) {
+		this.out.push((v % 128) | 0x80);
+		v = Math.floor(v / 128);
+	}
+	this.out.push(v);
+};
+
+BinaryWire.prototype.writeSigned = function (v) {
+	this.writeVarint(v < 0 ? -2 * v - 1 : 2 * v);
+};
+
+BinaryWire.prototype.writeText = function (s, shift) {
+	var bytes = new TextEncoder().encode(s);
+	this.writeVarint(bytes.length * shift);
+	for (var i = 0; i < bytes.length; i++) {
+		this.out.push(bytes[i]);
+	}
+};
+
+function hasShape(value, keys, check) {
+	var own = Object.keys(value);
+	if (own.length !== keys.length) {
+		return false;
+	}
+	for (var i = 0; i < keys.length; i++) {
+		if (own[i] !== keys[i] || !check(value[keys[i]])) {
+			return false;
+		}
+	}
+	return true;
+}
+
+function isWireInteger(v) {
+	return typeof v === "number" && Number.isSafeInteger(v);
+}
+
+function isHex(v) {
+	return v !== null && typeof v === "object" && !Array.isArray(v)
+		&& hasShape(v, HEX_KEYS, isWireInteger);
+}
+
+BinaryWire.prototype.write = function (value) {
+	var i;
+	if (value === null || value === undefined) {
+		this.out.push(WIRE_NULL);
+	} else if (typeof value === "boolean") {
+		this.out.push(value ? WIRE_TRUE : WIRE_FALSE);
+	} else if (typeof value === "number") {
+		if (isWireInteger(value)) {
+			this.out.push(WIRE_INTEGER);
+			this.writeSigned(value);
+		} else {
+			this.out.push(WIRE_DOUBLE);
+			var view = new DataView(new ArrayBuffer(8));
+			view.setFloat64(0, value);
+			for (i = 0; i < 8; i++) {
+				this.out.push(view.getUint8(i));
+			}
+		}
+	} else if (typeof value === "string") {
+		if (this.wordIndex.hasOwnProperty(value)) {
+			this.out.push(WIRE_WORD);
+			this.writeVarint(this.wordIndex[value]);
+		} else {
+			this.out.push(WIRE_STRING);
+			this.writeText(value, 1);
+		}
+	} else if (Array.isArray(value)) {
+		this.out.push(WIRE_ARRAY);
+		this.writeVarint(value.length);
+		for (i = 0; i < value.length; i++) {
+			this.write(value[i]);
+		}
+	} else if (isHex(value)) {
+		this.out.push(WIRE_HEX);
+		this.writeHex(value);
+	} else if (hasShape(value, INTERSECTION_KEYS, isHex)) {
+		this.out.push(WIRE_INTERSECTION);
+		for (i = 0; i < INTERSECTION_KEYS.length; i++) {
+			this.writeHex(value[INTERSECTION_KEYS[i]]);
+		}
+	} else {
+		var keys = Object.keys(value).filter(function (k) {
+			return value[k] !== undefined;
+		});
+		this.out.push(WIRE_OBJECT);
+		this.writeVarint(keys.length);
+		for (i = 0; i < keys.length; i++) {
+			if (this.wordIndex.hasOwnProperty(keys[i])) {
+				this.writeVarint(this.wordIndex[keys[i]] * 2 + 1);
+			} else {
+				this.writeText(keys[i], 2);
+			}
+			this.write(value[keys[i]]);
+		}
+	}
+};
+
+BinaryWire.prototype.writeHex = function (hex) {
+	this.writeSigned(hex.x);
+	this.writeSigned(hex.y);
+	this.writeSigned(hex.z);
+};
@@ -1,5 +1,82 @@
 package edu.brown.cs.actions;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.api.Serialization;
+import edu.brown.cs.board.Intersection;
+import edu.brown.cs.board.Path;
+import edu.brown.cs.catan.MasterReferee;
+import edu.brown.cs.catan.Referee;
+import edu.brown.cs.events.RoadBuilt;
+
 public class PlaceRoadTest {
 
+  static JsonObject road(Path path) {
+    JsonObject params = new JsonObject();
+    params.add("start", Serialization.GSON.toJsonTree(path.getStart()
+        .getPosition()));
+    params.add("end", Serialization.GSON.toJsonTree(path.getEnd()
+        .getPosition()));
+    return params;
+  }
+
+  static Intersection onBoard(Referee ref) {
+    for (Intersection i : ref.getBoard().getIntersections().values()) {
+      if (!i.getPaths().isEmpty()) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("No intersection has a path.");
+  }
+
+  @Test
+  public void testSetupRoadIsPublished() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    ref.addPlayer("Nick", "Blue");
+    List<RoadBuilt> built = new ArrayList<>();
+    ref.getEventBus().subscribe(RoadBuilt.class, built::add);
+    Intersection i = onBoard(ref);
+    i.placeSettlement(ref.getPlayerByID(0));
+
+    PlaceRoad place = new PlaceRoad(0, false);
+    ref.addFollowUp(ImmutableList.of(place));
+    place.setupAction(ref, 0, road(i.getPaths().get(0)));
+    Map<Integer, ActionResponse> response = place.execute();
+    assertTrue(response.get(0).getSuccess());
+    assertEquals(1, built.size());
+    assertEquals(0, built.get(0).playerID());
+  }
+
+  @Test
+  public void testRoadThatCannotBePlacedIsNotPublished() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    List<RoadBuilt> built = new ArrayList<>();
+    ref.getEventBus().subscribe(RoadBuilt.class, built::add);
+    // nothing of Sean's is next to it.
+    Path path = ref.getBoard().getPaths().values().iterator().next();
+
+    PlaceRoad place = new PlaceRoad(0, false);
+    ref.addFollowUp(ImmutableList.of(place));
+    place.setupAction(ref, 0, road(path));
+    Map<Integer, ActionResponse> response = place.execute();
+    assertEquals(1, response.size());
+    assertFalse(response.get(0).getSuccess());
+    assertTrue(built.isEmpty());
+    // and it is still Sean's to place.
+    assertEquals(place, ref.getNextFollowUp(0));
+  }
+
 }
@@ -1,5 +1,63 @@
 package edu.brown.cs.actions;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.board.Path;
+import edu.brown.cs.catan.DevelopmentCard;
+import edu.brown.cs.catan.GameSettings;
+import edu.brown.cs.catan.MasterReferee;
+import edu.brown.cs.catan.Player;
+import edu.brown.cs.catan.Referee;
+import edu.brown.cs.catan.Referee.GameStatus;
+import edu.brown.cs.events.RoadBuilt;
+
 public class PlayRoadBuildingTest {
 
+  @Test
+  public void testBothFreeRoadsArePublished() {
+    JsonObject settings = new JsonObject();
+    settings.addProperty("numPlayers", 2);
+    Referee ref = new MasterReferee(new GameSettings(settings));
+    ref.addPlayer("Sean", "Red");
+    ref.addPlayer("Nick", "Blue");
+    for (Player p : ref.getPlayers()) {
+      p.addDevelopmentCard(DevelopmentCard.ROAD_BUILDING);
+    }
+    ref.setGameStatus(GameStatus.PROGRESS);
+    ref.startNextTurn();
+    Player player = ref.currentPlayer();
+    PlaceRoadTest.onBoard(ref).placeSettlement(player);
+    List<RoadBuilt> built = new ArrayList<>();
+    ref.getEventBus().subscribe(RoadBuilt.class, built::add);
+
+    assertTrue(new PlayRoadBuilding(ref, player.getID()).execute()
+        .get(player.getID()).getSuccess());
+    assertTrue(built.isEmpty());
+    for (int n = 0; n < 2; n++) {
+      FollowUpAction place = ref.getNextFollowUp(player.getID());
+      place.setupAction(ref, player.getID(),
+          PlaceRoadTest.road(placeable(ref, player)));
+      assertTrue(place.execute().get(player.getID()).getSuccess());
+    }
+    assertEquals(2, built.size());
+    assertEquals(player.getID(), built.get(1).playerID());
+  }
+
+  private static Path placeable(Referee ref, Player player) {
+    for (Path path : ref.getBoard().getPaths().values()) {
+      if (path.canPlaceRoad(player)) {
+        return path;
+      }
+    }
+    throw new IllegalStateException("Nowhere to build.");
+  }
+
 }
@@ -1,5 +1,43 @@
 package edu.brown.cs.actions;
 
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.catan.GameSettings;
+import edu.brown.cs.catan.MasterReferee;
+import edu.brown.cs.catan.Referee;
+import edu.brown.cs.events.ResourcesProduced;
+
 public class RollDiceTest {
 
+  @Test
+  public void testPublishesResourcesProduced() {
+    JsonObject settings = new JsonObject();
+    settings.addProperty("numPlayers", 2);
+    Referee ref = new MasterReferee(new GameSettings(settings));
+    ref.addPlayer("Sean", "Red");
+    ref.addPlayer("Nick", "Blue");
+    ref.startNextTurn();
+    List<ResourcesProduced> seen = new ArrayList<>();
+    ref.getEventBus().subscribe(ResourcesProduced.class, seen::add);
+    ref.setOverriddenDice(2, 6);
+    RollDice roll = new RollDice(ref, ref.currentPlayer().getID());
+    ref.addFollowUp(Collections.singletonList(roll));
+    Map<Integer, ActionResponse> responses = roll.execute();
+    assertEquals(1, seen.size());
+    assertEquals(8, seen.get(0).roll());
+    assertEquals(2, seen.get(0).redDie());
+    // No buildings yet, so nothing was produced.
+    assertEquals("8 was rolled.", responses.get(0).getMessage());
+    assertEquals("8 was rolled.", responses.get(1).getMessage());
+  }
+
 }
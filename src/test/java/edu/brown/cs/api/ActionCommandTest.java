@@ -0,0 +1,63 @@
+package edu.brown.cs.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.brown.cs.board.IntersectionCoordinate;
+import edu.brown.cs.catan.MasterReferee;
+import edu.brown.cs.catan.Referee;
+
+public class ActionCommandTest {
+
+  private static JsonObject parse(String json) {
+    return new JsonParser().parse(json).getAsJsonObject();
+  }
+
+  @Test
+  public void testReadsPlayerActionAndCoordinate() {
+    ActionCommand command = ActionCommand.fromJson(parse(
+        "{action: buildCity, player: \"2\", coordinate: {"
+            + "coord1: {x: 0, y: 0, z: 0}, coord2: {x: 1, y: 0, z: 0},"
+            + "coord3: {x: 0, y: 1, z: 0}}}"));
+    assertEquals(2, command.playerID());
+    assertEquals("buildCity", command.action());
+    assertEquals(0, command.coordinate().getCoord1().getX());
+    assertEquals(1, command.coordinate().getCoord2().getX());
+  }
+
+  @Test
+  public void testResolvesBoardIds() {
+    Referee ref = new MasterReferee();
+    BoardDescriptor board = new CatanConverter().descriptor(ref.getBoard());
+    ActionCommand command = ActionCommand.fromJson(parse(
+        "{action: buildRoad, player: 0, start: 3, end: 4, newLocation: 1}"),
+        board);
+    IntersectionCoordinate start = board.intersections().get(3).getPosition();
+    assertEquals(start, command.start());
+    assertEquals(board.intersections().get(4).getPosition(), command.end());
+    // written back for actions that read their parameters from the JSON.
+    assertTrue(command.json().get("start").isJsonObject());
+    assertEquals(board.tiles().get(1).getCoordinate().getX(), command.json()
+        .getAsJsonObject("newLocation").get("x").getAsInt());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownBoardIdIsRejected() {
+    Referee ref = new MasterReferee();
+    BoardDescriptor board = new CatanConverter().descriptor(ref.getBoard());
+    ActionCommand.fromJson(parse("{action: buildCity, player: 0, "
+        + "coordinate: 9999}"), board);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testMissingCoordinateIsRejected() {
+    ActionCommand.fromJson(parse("{action: buildCity, player: 0}"))
+        .coordinate();
+  }
+
+}
@@ -0,0 +1,85 @@
+package edu.brown.cs.api;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.catan.MasterReferee;
+
+/**
+ * Cost of turning an inbound buildRoad frame into the typed request the
+ * ActionFactory works from. The old path parsed the frame, added the player,
+ * serialized it again for performAction(String) and parsed it a second time
+ * before reading the coordinates; the new one reads the first parse directly,
+ * with locations sent as board ids. Board lookups done by the action itself
+ * are left out, as they are the same for both. Run with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) org.openjdk.jmh.Main ActionPipelineBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ActionPipelineBenchmark {
+
+  private static final Gson GSON = new Gson();
+
+  private BoardDescriptor board;
+  private String coordinateFrame;
+  private String idFrame;
+
+  @Setup
+  public void setup() {
+    board = new CatanConverter().descriptor(new MasterReferee().getBoard());
+    JsonObject frame = new JsonObject();
+    frame.addProperty("requestType", "action");
+    frame.addProperty("action", "buildRoad");
+    frame.add("start", GSON.toJsonTree(board.intersections().get(3)
+        .getPosition()));
+    frame.add("end", GSON.toJsonTree(board.intersections().get(4)
+        .getPosition()));
+    coordinateFrame = frame.toString();
+    idFrame = "{\"requestType\":\"action\",\"action\":\"buildRoad\","
+        + "\"start\":3,\"end\":4}";
+  }
+
+  @Benchmark
+  public ActionCommand reparsed() {
+    JsonObject json = GSON.fromJson(coordinateFrame, JsonObject.class);
+    json.add("player", GSON.toJsonTree(String.valueOf(0)));
+    JsonObject again = GSON.fromJson(json.toString(), JsonObject.class);
+    return ActionCommand.fromJson(again);
+  }
+
+  @Benchmark
+  public ActionCommand parsedOnce() {
+    JsonObject json = GSON.fromJson(coordinateFrame, JsonObject.class);
+    json.addProperty("player", 0);
+    return ActionCommand.fromJson(json, board);
+  }
+
+  @Benchmark
+  public ActionCommand parsedOnceWithIds() {
+    JsonObject json = GSON.fromJson(idFrame, JsonObject.class);
+    json.addProperty("player", 0);
+    return ActionCommand.fromJson(json, board);
+  }
+
+}
@@ -0,0 +1,81 @@
+package edu.brown.cs.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.brown.cs.networking.FakeGroup;
+import edu.brown.cs.networking.User;
+
+public class BatchProcessorTest {
+
+  // A group that keeps what it is asked to send.
+  private static class RecordingGroup extends FakeGroup {
+
+    private final List<JsonObject> sent = new ArrayList<>();
+
+
+    private RecordingGroup() {
+      super(2);
+    }
+
+
+    @Override
+    public boolean send(User u, JsonObject message) {
+      sent.add(message);
+      return true;
+    }
+  }
+
+
+  // Player 0, on a closed session with no cookies.
+  private static User user() {
+    UpgradeRequest request = new UpgradeRequest() {};
+    Session s = (Session) Proxy.newProxyInstance(
+        Session.class.getClassLoader(), new Class<?>[] {Session.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getUpgradeRequest":
+              return request;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            default:
+              return null;
+          }
+        });
+    User u = new User(s);
+    u.setUserID(0);
+    return u;
+  }
+
+
+  @Test
+  public void testActionThatIsNotAnObjectIsARequestError() {
+    RecordingGroup g = new RecordingGroup();
+    JsonObject batch = new JsonParser().parse("{\"requestType\":\"batch\","
+        + "\"actions\":[{\"action\":\"rollDice\"},3]}").getAsJsonObject();
+    BatchProcessor processor = new BatchProcessor();
+    assertTrue(processor.match(batch));
+    assertTrue(processor.run(user(), g, batch, new CatanAPI()));
+
+    assertEquals(1, g.sent.size());
+    JsonObject error = g.sent.get(0);
+    assertEquals("batch", error.get("requestType").getAsString());
+    assertEquals(1, error.get("failedAction").getAsInt());
+    assertTrue(error.get("requestError").getAsString()
+        .startsWith("REQUEST ERROR: "));
+  }
+
+}
@@ -1,9 +1,25 @@
 package edu.brown.cs.api;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 import org.junit.Test;
 
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.board.Intersection;
+import edu.brown.cs.board.Path;
+import edu.brown.cs.events.GameEvent;
+
 // System Tests
 public class CatanAPITest {
 
@@ -14,4 +30,190 @@ public class CatanAPITest {
     assertTrue(api != null);
   }
 
+  // A two player game waiting on the first setup settlement.
+  private static CatanAPI startedGame() {
+    return startedGame("Sean", "Nick");
+  }
+
+  /**
+   * A started game, waiting on the first setup settlement. Shared with tests
+   * in other packages that need a real game state.
+   *
+   * @param names
+   *          the players' names, one per seat.
+   * @return the game.
+   */
+  public static CatanAPI startedGame(String... names) {
+    CatanAPI api = new CatanAPI();
+    JsonObject settings = new JsonObject();
+    settings.addProperty("numPlayers", names.length);
+    api.setSettings(settings);
+    for (String name : names) {
+      JsonObject attributes = new JsonObject();
+      attributes.addProperty("userName", name);
+      api.addPlayer(attributes);
+    }
+    api.performAction(action("startGame", 0));
+    return api;
+  }
+
+  private static JsonObject action(String name, int player) {
+    JsonObject json = new JsonObject();
+    json.addProperty("action", name);
+    json.addProperty("player", player);
+    return json;
+  }
+
+  private static Intersection freeIntersection(CatanAPI api, int player) {
+    for (Intersection i : api._referee.getBoard().getIntersections()
+        .values()) {
+      if (i.canPlaceSettlement(api._referee, player)) {
+        return i;
+      }
+    }
+    throw new IllegalStateException("The board is full.");
+  }
+
+  private static JsonObject placeSettlement(int player, Intersection i) {
+    JsonObject json = action("placeSettlement", player);
+    json.add("coordinate", Serialization.GSON.toJsonTree(i.getPosition()));
+    return json;
+  }
+
+  private static JsonObject placeRoad(int player, Intersection i) {
+    Path path = i.getPaths().get(0);
+    JsonObject json = action("placeRoad", player);
+    json.add("start", Serialization.GSON.toJsonTree(i.getPosition()));
+    json.add("end", Serialization.GSON.toJsonTree(path.getOtherEnd(i)
+        .getPosition()));
+    return json;
+  }
+
+  @Test
+  public void testBatchSucceedsAsOne() {
+    CatanAPI api = startedGame();
+    int player = api._referee.currentPlayer().getID();
+    Intersection i = freeIntersection(api, player);
+    Map<Integer, JsonObject> resp = api.performBatch(Arrays.asList(
+        placeSettlement(player, i), placeRoad(player, i)));
+    JsonObject own = resp.get(player);
+    assertTrue(own.get("success").getAsBoolean());
+    assertEquals(2, own.getAsJsonArray("results").size());
+    assertEquals("placeRoad", own.getAsJsonArray("results").get(1)
+        .getAsJsonObject().get("action").getAsString());
+    assertTrue(api._referee.getBoard().getIntersections().get(i
+        .getPosition()).getBuilding() != null);
+  }
+
+  @Test
+  public void testFailedBatchRollsBack() {
+    CatanAPI api = startedGame();
+    int player = api._referee.currentPlayer().getID();
+    String before = api.getGameState(player).toString();
+    Intersection i = freeIntersection(api, player);
+    // a second settlement before the road is not allowed.
+    Map<Integer, JsonObject> resp = api.performBatch(Arrays.asList(
+        placeSettlement(player, i), placeSettlement(player, i)));
+    assertEquals(1, resp.size());
+    JsonObject own = resp.get(player);
+    assertFalse(own.get("success").getAsBoolean());
+    assertEquals(1, own.get("failedAction").getAsInt());
+    assertEquals(before, api.getGameState(player).toString());
+
+    // and the rebuilt game carries on.
+    i = freeIntersection(api, player);
+    resp = api.performBatch(Arrays.asList(placeSettlement(player, i),
+        placeRoad(player, i)));
+    assertTrue(resp.get(player).get("success").getAsBoolean());
+  }
+
+  @Test
+  public void testMalformedBatchRollsBack() {
+    CatanAPI api = startedGame();
+    int player = api._referee.currentPlayer().getID();
+    Intersection i = freeIntersection(api, player);
+    JsonObject badRoad = action("placeRoad", player);
+    badRoad.addProperty("start", 9999);
+    badRoad.addProperty("end", 0);
+    Map<Integer, JsonObject> resp = api.performBatch(Arrays.asList(
+        placeSettlement(player, i), badRoad));
+    assertEquals(1, resp.get(-1).get("failedAction").getAsInt());
+    assertNull(api._referee.getBoard().getIntersections().get(i
+        .getPosition()).getBuilding());
+  }
+
+  // A two player game after setup, waiting on the first roll.
+  private static CatanAPI pastSetup() {
+    CatanAPI api = startedGame();
+    // both players place both setup settlements and roads.
+    for (int n = 0; n < 4; n++) {
+      int player = api._referee.currentPlayer().getID();
+      Intersection i = freeIntersection(api, player);
+      assertTrue(api.performBatch(Arrays.asList(placeSettlement(player, i),
+          placeRoad(player, i))).get(player).get("success").getAsBoolean());
+    }
+    return api;
+  }
+
+  private static JsonObject buildOnEmpty(CatanAPI api, int player) {
+    Intersection empty = null;
+    for (Intersection i : api._referee.getBoard().getIntersections()
+        .values()) {
+      if (i.getBuilding() == null) {
+        empty = i;
+      }
+    }
+    JsonObject build = placeSettlement(player, empty);
+    build.addProperty("action", "buildSettlement");
+    return build;
+  }
+
+  @Test
+  public void testFailedBatchRevealsNothing() {
+    CatanAPI api = pastSetup();
+    int player = api._referee.currentPlayer().getID();
+    Random random = api._referee.getRandom();
+    Map<Integer, JsonObject> resp = api.performBatch(Arrays.asList(action(
+        "rollDice", player), buildOnEmpty(api, player)));
+    JsonObject own = resp.get(player);
+    assertEquals(1, resp.size());
+    assertEquals(3, own.entrySet().size());
+    assertFalse(own.get("success").getAsBoolean());
+    assertEquals(1, own.get("failedAction").getAsInt());
+    assertTrue(own.has("message"));
+    assertFalse(own.toString().contains("roll"));
+    // the roll is undone, but the dice are not: the next roll is a new one.
+    assertSame(random, api._referee.getRandom());
+  }
+
+  @Test
+  public void testRollBackRestoresALaterGame() {
+    CatanAPI api = pastSetup();
+    List<GameEvent> seen = new ArrayList<>();
+    api._referee.getEventBus().subscribe(GameEvent.class, seen::add);
+    int player = api._referee.currentPlayer().getID();
+    String before = api.getGameState(player).toString();
+
+    // rolling is fine, building with no resources is not.
+    JsonObject build = buildOnEmpty(api, player);
+    Map<Integer, JsonObject> resp = api.performBatch(Arrays.asList(action(
+        "rollDice", player), build));
+    assertEquals(1, resp.size());
+    assertEquals(1, resp.values().iterator().next().get("failedAction")
+        .getAsInt());
+    // the roll is undone too, and not counted in the stats.
+    assertEquals(before, api.getGameState(player).toString());
+
+    // the restored game carries on, publishing to the same subscribers, and
+    // counts its first roll.
+    resp = api.performAction(action("rollDice", player));
+    assertTrue(resp.get(player).get("success").getAsBoolean());
+    assertEquals(2, seen.size());
+    int rolls = 0;
+    for (int count : api._referee.getGameStats().getRollsArray()) {
+      rolls += count;
+    }
+    assertEquals(1, rolls);
+  }
+
 }
@@ -1,5 +1,339 @@
 package edu.brown.cs.api;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.brown.cs.actions.ActionResponse;
+import edu.brown.cs.actions.StartGame;
+import edu.brown.cs.board.Tile;
+import edu.brown.cs.board.TileType;
+import edu.brown.cs.catan.GameSettings;
+import edu.brown.cs.catan.MasterReferee;
+import edu.brown.cs.catan.Referee;
+
 public class CatanConverterTest {
 
+  private static final JsonParser PARSER = new JsonParser();
+
+  private static JsonObject parse(String json) {
+    return PARSER.parse(json).getAsJsonObject();
+  }
+
+  // Applies a gameStateDelta to a copy of base, the way the client does.
+  private static JsonObject apply(JsonObject base, JsonObject delta) {
+    JsonObject state = parse(base.toString());
+    for (Map.Entry<String, JsonElement> e : delta.get("set").getAsJsonObject()
+        .entrySet()) {
+      set(state, e.getKey().split("/"), e.getValue());
+    }
+    for (JsonElement path : delta.get("unset").getAsJsonArray()) {
+      set(state, path.getAsString().split("/"), null);
+    }
+    state.addProperty("version", delta.get("version").getAsInt());
+    return state;
+  }
+
+  private static void set(JsonObject state, String[] path, JsonElement value) {
+    JsonElement target = state;
+    for (int i = 0; i < path.length - 1; i++) {
+      target = target.isJsonArray() ? target.getAsJsonArray().get(
+          Integer.parseInt(path[i])) : target.getAsJsonObject().get(path[i]);
+    }
+    String last = path[path.length - 1];
+    if (target.isJsonArray()) {
+      JsonArray arr = target.getAsJsonArray();
+      arr.set(Integer.parseInt(last), value);
+    } else if (value == null) {
+      target.getAsJsonObject().remove(last);
+    } else {
+      target.getAsJsonObject().add(last, value);
+    }
+  }
+
+  // Drops the message fields and fills the board in from its descriptor, the
+  // way the client does before rendering.
+  private static JsonObject withoutHeader(JsonObject state,
+      JsonObject descriptor) {
+    JsonObject copy = parse(state.toString());
+    copy.remove("requestType");
+    copy.remove("version");
+    copy.remove("boardDescriptor");
+    JsonObject board = copy.getAsJsonObject("board");
+    assertEquals(descriptor.get("hash"), board.remove("descriptor"));
+    JsonArray layout = descriptor.getAsJsonArray("intersections");
+    for (String key : new String[] {"tiles", "intersections", "paths"}) {
+      JsonArray pieces = board.getAsJsonArray(key);
+      JsonArray full = new JsonArray();
+      for (int i = 0; i < pieces.size(); i++) {
+        JsonObject piece = parse(descriptor.getAsJsonArray(key).get(i)
+            .toString());
+        if (key.equals("paths")) {
+          for (String end : new String[] {"start", "end"}) {
+            piece.add(end, layout.get(piece.get(end).getAsInt())
+                .getAsJsonObject().get("coordinate"));
+          }
+        }
+        for (Map.Entry<String, JsonElement> e : pieces.get(i)
+            .getAsJsonObject().entrySet()) {
+          piece.add(e.getKey(), e.getValue());
+        }
+        full.add(piece);
+      }
+      board.add(key, full);
+    }
+    return copy;
+  }
+
+  private static JsonObject withoutHeader(JsonObject state) {
+    return withoutHeader(state, state.getAsJsonObject("boardDescriptor"));
+  }
+
+  @Test
+  public void testFirstUpdateIsFullState() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    CatanConverter converter = new CatanConverter();
+    JsonObject update = parse(converter.getGameStateUpdate(ref, 0, false));
+    assertEquals("getGameState", update.get("requestType").getAsString());
+    assertEquals(1, update.get("version").getAsInt());
+    assertEquals(converter.getGameState(ref, 0), withoutHeader(update));
+  }
+
+  @Test
+  public void testUnchangedStateSendsEmptyDelta() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    CatanConverter converter = new CatanConverter();
+    converter.getGameStateUpdate(ref, 0, false);
+    converter.acknowledgeState(0, 1);
+    JsonObject delta = parse(converter.getGameStateUpdate(ref, 0, false));
+    assertEquals("gameStateDelta", delta.get("requestType").getAsString());
+    assertEquals(1, delta.get("base").getAsInt());
+    assertEquals(2, delta.get("version").getAsInt());
+    assertTrue(delta.get("set").getAsJsonObject().entrySet().isEmpty());
+    assertEquals(0, delta.get("unset").getAsJsonArray().size());
+  }
+
+  @Test
+  public void testDeltaAppliesToAcknowledgedState() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    CatanConverter converter = new CatanConverter();
+    JsonObject full = parse(converter.getGameStateUpdate(ref, 0, false));
+    converter.acknowledgeState(0, 1);
+
+    ref.addPlayer("Nick", "Blue");
+    for (Tile t : ref.getBoard().getTiles()) {
+      if (!t.hasRobber() && t.getType() != TileType.SEA) {
+        ref.getBoard().moveRobber(t.getCoordinate());
+        break;
+      }
+    }
+    converter.stateChanged();
+    JsonObject delta = parse(converter.getGameStateUpdate(ref, 0, false));
+    assertEquals("gameStateDelta", delta.get("requestType").getAsString());
+    assertTrue(delta.get("set").getAsJsonObject().has("players"));
+    assertTrue(delta.toString().length() < full.toString().length() / 2);
+    assertTrue(!delta.has("boardDescriptor"));
+    assertEquals(converter.getGameState(ref, 0),
+        withoutHeader(apply(full, delta), full.getAsJsonObject(
+            "boardDescriptor")));
+  }
+
+  @Test
+  public void testSharedViewMatchesEachPlayersState() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    ref.addPlayer("Nick", "Blue");
+    CatanConverter converter = new CatanConverter();
+    for (int id = 0; id < 2; id++) {
+      JsonObject update = parse(converter.getGameStateUpdate(ref, id, false));
+      assertEquals(converter.getGameState(ref, id), withoutHeader(update));
+    }
+  }
+
+  @Test
+  public void testCitiesAndKnightsStateMatches() {
+    JsonObject settings = new JsonObject();
+    settings.addProperty("numPlayers", 3);
+    settings.addProperty("isCitiesAndKnights", true);
+    Referee ref = new MasterReferee(new GameSettings(settings));
+    ref.addPlayer("Sean", "Red");
+    ref.addPlayer("Nick", "Blue");
+    ref.addPlayer("Ansel", "Orange");
+    new StartGame(ref).execute();
+    CatanConverter converter = new CatanConverter();
+    for (int id = 0; id < 3; id++) {
+      JsonObject update = parse(converter.getGameStateUpdate(ref, id, false));
+      assertEquals(converter.getGameState(ref, id), withoutHeader(update));
+    }
+  }
+
+  @Test
+  public void testResponsesAreOnlyRenderedWhenRead() {
+    List<Integer> rendered = new ArrayList<>();
+    Map<Integer, ActionResponse> responses = new HashMap<>();
+    for (int id = 0; id < 3; id++) {
+      int player = id;
+      responses.put(id, ActionResponse.lazy(true, () -> {
+        rendered.add(player);
+        return "for " + player;
+      }, null));
+    }
+    Map<Integer, JsonObject> json = new CatanConverter().responseToJSON(
+        responses, this);
+    assertTrue(json.containsKey(2));
+    assertTrue(rendered.isEmpty());
+    assertEquals("for 1", json.get(1).get("message").getAsString());
+    assertEquals(Arrays.asList(1), rendered);
+  }
+
+  @Test
+  public void testViewIsReusedUntilStateChanges() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    CatanConverter converter = new CatanConverter();
+    converter.getGameStateUpdate(ref, 0, false);
+    converter.acknowledgeState(0, 1);
+    ref.addPlayer("Nick", "Blue");
+    JsonObject stale = parse(converter.getGameStateUpdate(ref, 0, false));
+    assertTrue(stale.get("set").getAsJsonObject().entrySet().isEmpty());
+    converter.stateChanged();
+    JsonObject fresh = parse(converter.getGameStateUpdate(ref, 0, false));
+    assertTrue(fresh.get("set").getAsJsonObject().has("players"));
+  }
+
+  @Test
+  public void testUnacknowledgedStateIsNotABase() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    CatanConverter converter = new CatanConverter();
+    converter.getGameStateUpdate(ref, 0, false);
+    JsonObject second = parse(converter.getGameStateUpdate(ref, 0, false));
+    assertEquals("getGameState", second.get("requestType").getAsString());
+    converter.acknowledgeState(0, 2);
+    JsonObject third = parse(converter.getGameStateUpdate(ref, 0, false));
+    assertEquals(2, third.get("base").getAsInt());
+  }
+
+  @Test
+  public void testForcedFullStateResetsBase() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    CatanConverter converter = new CatanConverter();
+    converter.getGameStateUpdate(ref, 0, false);
+    converter.acknowledgeState(0, 1);
+    JsonObject forced = parse(converter.getGameStateUpdate(ref, 0, true));
+    assertEquals("getGameState", forced.get("requestType").getAsString());
+    JsonObject next = parse(converter.getGameStateUpdate(ref, 0, false));
+    assertEquals("getGameState", next.get("requestType").getAsString());
+  }
+
+  @Test
+  public void testDescriptorSentUntilAcknowledged() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    CatanConverter converter = new CatanConverter();
+    JsonObject first = parse(converter.getGameStateUpdate(ref, 0, false));
+    String hash = first.getAsJsonObject("boardDescriptor").get("hash")
+        .getAsString();
+    assertEquals(hash, first.getAsJsonObject("board").get("descriptor")
+        .getAsString());
+    JsonObject second = parse(converter.getGameStateUpdate(ref, 0, false));
+    assertTrue(second.has("boardDescriptor"));
+    converter.acknowledgeState(0, 1);
+    JsonObject third = parse(converter.getGameStateUpdate(ref, 0, true));
+    assertTrue(!third.has("boardDescriptor"));
+  }
+
+  @Test
+  public void testCachedDescriptorIsNotResent() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    CatanConverter converter = new CatanConverter();
+    JsonObject first = parse(converter.getGameStateUpdate(ref, 0, false));
+    String hash = first.getAsJsonObject("boardDescriptor").get("hash")
+        .getAsString();
+
+    // A reconnecting client declares what it has cached.
+    CatanConverter other = new CatanConverter();
+    other.acknowledgeBoard(0, hash);
+    assertTrue(!parse(other.getGameStateUpdate(ref, 0, true))
+        .has("boardDescriptor"));
+    other.acknowledgeBoard(0, "stale");
+    assertTrue(parse(other.getGameStateUpdate(ref, 0, true))
+        .has("boardDescriptor"));
+  }
+
+  @Test
+  public void testStateIsSmallerThanLayout() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    CatanConverter converter = new CatanConverter();
+    JsonObject first = parse(converter.getGameStateUpdate(ref, 0, false));
+    JsonObject descriptor = first.getAsJsonObject("boardDescriptor");
+    assertTrue(first.get("board").toString().length() * 2 < descriptor
+        .toString().length());
+  }
+
+  @Test
+  public void testSpectatorStateIsThePublicState() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    ref.addPlayer("Nick", "Blue");
+    new StartGame(ref).execute();
+    CatanConverter converter = new CatanConverter();
+    JsonObject watched = parse(converter.getSpectatorState(ref, true));
+    assertEquals("spectatorState", watched.get("requestType").getAsString());
+    JsonObject seen = withoutHeader(watched);
+    JsonObject player = converter.getGameState(ref, 0);
+    for (String secret : new String[] {"playerID", "hand", "followUp"}) {
+      assertFalse(seen.has(secret));
+      player.remove(secret);
+    }
+    JsonObject board = player.getAsJsonObject("board");
+    for (JsonElement i : board.getAsJsonArray("intersections")) {
+      i.getAsJsonObject().addProperty("canBuildSettlement", false);
+    }
+    for (JsonElement p : board.getAsJsonArray("paths")) {
+      p.getAsJsonObject().addProperty("canBuildRoad", false);
+    }
+    assertEquals(player, seen);
+  }
+
+  @Test
+  public void testSpectatorStateIsEncodedOncePerVersion() {
+    Referee ref = new MasterReferee();
+    ref.addPlayer("Sean", "Red");
+    CatanConverter converter = new CatanConverter();
+    String first = converter.getSpectatorState(ref, false);
+    assertSame(first, converter.getSpectatorState(ref, false));
+    assertFalse(parse(first).has("boardDescriptor"));
+    converter.getGameStateUpdate(ref, 0, false); // shares the same view.
+    assertSame(first, converter.getSpectatorState(ref, false));
+
+    ref.addPlayer("Nick", "Blue");
+    converter.stateChanged();
+    String second = converter.getSpectatorState(ref, false);
+    assertNotSame(first, second);
+    assertEquals(parse(first).get("version").getAsInt() + 1,
+        parse(second).get("version").getAsInt());
+  }
+
 }
@@ -0,0 +1,114 @@
+package edu.brown.cs.api;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.lang.reflect.Proxy;
+import java.net.HttpCookie;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.junit.Test;
+
+import edu.brown.cs.networking.Group;
+import edu.brown.cs.networking.User;
+
+public class CatanGroupSelectorTest {
+
+  private final CatanGroupSelector selector = new CatanGroupSelector();
+
+
+  // A user on a closed session, with the given cookies over the defaults.
+  private static User user(String... cookies) {
+    UpgradeRequest request = new UpgradeRequest() {};
+    List<HttpCookie> list = new ArrayList<>();
+    list.add(new HttpCookie("numPlayersDesired", "4"));
+    list.add(new HttpCookie("victoryPoints", "10"));
+    list.add(new HttpCookie("userName", "player"));
+    for (int i = 0; i < cookies.length; i += 2) {
+      String name = cookies[i];
+      list.removeIf(c -> c.getName().equals(name));
+      list.add(new HttpCookie(name, cookies[i + 1]));
+    }
+    request.setCookies(list);
+    Session s = (Session) Proxy.newProxyInstance(
+        Session.class.getClassLoader(), new Class<?>[] {Session.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getUpgradeRequest":
+              return request;
+            case "isOpen":
+              return false;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            default:
+              return null;
+          }
+        });
+    return new User(s);
+  }
+
+
+  // what the GCT does with a selected group.
+  private Group join(User u) {
+    Group g = selector.selectFor(u, Collections.emptyList());
+    if (g != null) {
+      g.add(u);
+      selector.groupChanged(g);
+    }
+    return g;
+  }
+
+
+  @Test
+  public void testQuickMatchJoinsFullestCompatibleGame() {
+    Group emptier = join(user());
+    Group fuller = join(user());
+    join(user("desiredGroupId", fuller.identifier()));
+    assertEquals(2, fuller.currentSize());
+
+    assertSame(fuller, join(user("quickMatch", "true")));
+    assertEquals(3, fuller.currentSize());
+    assertSame(fuller, join(user("quickMatch", "true")));
+    assertEquals(4, fuller.currentSize());
+    // full now, so the next goes to the other.
+    assertSame(emptier, join(user("quickMatch", "true")));
+  }
+
+
+  @Test
+  public void testQuickMatchOnlyJoinsSameSettings() {
+    Group standard = join(user());
+    Group decimal = join(user("quickMatch", "true", "isDecimal", "true"));
+    assertNotSame(standard, decimal);
+    assertSame(decimal, join(user("quickMatch", "true", "isDecimal", "true")));
+    Group small = join(user("quickMatch", "true", "numPlayersDesired", "3"));
+    assertNotSame(standard, small);
+    assertEquals(3, small.maxSize());
+  }
+
+
+  @Test
+  public void testCreateGameNeverJoinsExisting() {
+    Group first = join(user());
+    assertNotSame(first, join(user()));
+  }
+
+
+  @Test
+  public void testRequestedGameMustBeOpen() {
+    Group g = join(user("numPlayersDesired", "2"));
+    assertNull(join(user("desiredGroupId", "no such game")));
+    assertSame(g, join(user("desiredGroupId", g.identifier())));
+    // full.
+    assertNull(join(user("desiredGroupId", g.identifier())));
+  }
+
+}
@@ -0,0 +1,74 @@
+package edu.brown.cs.api;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.actions.StartGame;
+import edu.brown.cs.catan.MasterReferee;
+import edu.brown.cs.catan.Referee;
+
+/**
+ * Cost of pushing one full game state to each of four players after an
+ * action: the reflective Gson tree that ActionProcessor used to send, against
+ * the streamed, shared public view. Run with the GC profiler to see
+ * allocations per push:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) org.openjdk.jmh.Main GameStateBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameStateBenchmark {
+
+  private static final int PLAYERS = 4;
+
+  private Referee ref;
+  private CatanConverter converter;
+
+  @Setup
+  public void setup() {
+    ref = new MasterReferee();
+    for (int i = 0; i < PLAYERS; i++) {
+      ref.addPlayer("Player " + i);
+    }
+    new StartGame(ref).execute();
+    converter = new CatanConverter();
+  }
+
+  @Benchmark
+  public void reflectiveTree(Blackhole bh) {
+    for (int id = 0; id < PLAYERS; id++) {
+      JsonObject gs = converter.getGameState(ref, id);
+      gs.addProperty("requestType", "getGameState");
+      bh.consume(gs.toString());
+    }
+  }
+
+  @Benchmark
+  public void streamedSharedView(Blackhole bh) {
+    converter.stateChanged();
+    for (int id = 0; id < PLAYERS; id++) {
+      bh.consume(converter.getGameStateUpdate(ref, id, true));
+    }
+  }
+
+}
@@ -0,0 +1,509 @@
+package edu.brown.cs.api;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * One simulated player for the LoadGenerator. It speaks to /action as the
+ * browser does: it keeps the game state from full states and deltas,
+ * acknowledges each version, and answers its turn and its follow ups with the
+ * first legal move it finds, after a think time. Each action carries a tag the
+ * server echoes back, so its response is told apart from those to others.
+ *
+ * A bot ends its game, as a player leaving it, when someone has won, when the
+ * game has gone on for too many turns, or when nothing has happened in it for
+ * too long.
+ */
+final class LoadBot extends WebSocketAdapter {
+
+  private static final String         TAG          = "loadTag";
+  private static final long           TIMEOUT      =
+      TimeUnit.SECONDS.toNanos(5);
+  private static final long           STALL        =
+      TimeUnit.SECONDS.toNanos(20);
+  private static final String[]       RESOURCES    =
+      {"ore", "brick", "sheep", "wood", "wheat"};
+
+  private final String                name;
+  private final LoadGenerator.Stats   stats;
+  private final ScheduledExecutorService scheduler;
+  private final long                  thinkMillis;
+  private final int                   maxTurns;
+  private final Consumer<LoadBot>     onGameOver;
+  private final Random                random;
+  private final CountDownLatch        joined       = new CountDownLatch(1);
+
+  private final Map<Integer, JsonObject> states    = new HashMap<>();
+  private JsonObject                  state;
+  private JsonObject                  descriptor;
+  private long                        stateAt      = System.nanoTime();
+  private boolean                     scheduled;
+  private String                      pending;
+  private String                      pendingTag;
+  private long                        sentAt;
+  private int                         sent;
+  private int                         failedTurn   = -1;
+  private final Set<String>           failed       = new HashSet<>();
+  private boolean                     over;
+
+
+  LoadBot(String name, LoadGenerator.Stats stats,
+      ScheduledExecutorService scheduler, long thinkMillis, int maxTurns,
+      Consumer<LoadBot> onGameOver) {
+    this.name = name;
+    this.stats = stats;
+    this.scheduler = scheduler;
+    this.thinkMillis = thinkMillis;
+    this.maxTurns = maxTurns;
+    this.onGameOver = onGameOver;
+    this.random = new Random(name.hashCode());
+  }
+
+
+  /**
+   * @return the name the bot plays under.
+   */
+  String name() {
+    return name;
+  }
+
+
+  /**
+   * Wait until the server has put the bot in a game and sent it a state.
+   *
+   * @return false if that took longer than the timeout.
+   */
+  boolean awaitJoined(long timeout, TimeUnit unit)
+      throws InterruptedException {
+    return joined.await(timeout, unit);
+  }
+
+
+  @Override
+  public void onWebSocketText(String text) {
+    stats.received(text.length());
+    JsonObject msg = new JsonParser().parse(text).getAsJsonObject();
+    String type = msg.has("requestType")
+        ? msg.get("requestType").getAsString() : "";
+    synchronized (this) {
+      if (msg.has("boardDescriptor")) {
+        descriptor = msg.remove("boardDescriptor").getAsJsonObject();
+      }
+      switch (type) {
+        case "getGameState":
+          onState(msg);
+          break;
+        case "gameStateDelta":
+          onDelta(msg);
+          break;
+        case "action":
+          onResponse(msg);
+          break;
+        case "gameOver":
+        case "ERROR":
+          end();
+          return;
+        default:
+          return; // chat, cookies, disconnects and heartbeats.
+      }
+    }
+  }
+
+
+  @Override
+  public void onWebSocketClose(int statusCode, String reason) {
+    super.onWebSocketClose(statusCode, reason);
+    synchronized (this) {
+      end();
+    }
+  }
+
+
+  private void onState(JsonObject full) {
+    keep(full);
+  }
+
+
+  private void onDelta(JsonObject delta) {
+    int base = delta.get("base").getAsInt();
+    JsonObject from = states.get(base);
+    if (from == null) {
+      send(request("getGameState")); // the browser does the same.
+      return;
+    }
+    JsonObject next = new JsonParser().parse(from.toString()).getAsJsonObject();
+    for (Map.Entry<String, JsonElement> e : delta.getAsJsonObject("set")
+        .entrySet()) {
+      setPath(next, e.getKey(), e.getValue());
+    }
+    for (JsonElement unset : delta.getAsJsonArray("unset")) {
+      setPath(next, unset.getAsString(), null);
+    }
+    next.add("version", delta.get("version"));
+    Iterator<Integer> older = states.keySet().iterator();
+    while (older.hasNext()) {
+      if (older.next() < base) {
+        older.remove();
+      }
+    }
+    keep(next);
+  }
+
+
+  private void keep(JsonObject next) {
+    int version = next.get("version").getAsInt();
+    states.put(version, next);
+    state = next;
+    stateAt = System.nanoTime();
+    JsonObject ack = request("ackState");
+    ack.addProperty("version", version);
+    send(ack);
+    joined.countDown();
+    decide();
+  }
+
+
+  // Set (or remove, if value is null) the field at a "/"-separated path.
+  private static void setPath(JsonObject root, String path,
+      JsonElement value) {
+    String[] parts = path.split("/");
+    JsonElement target = root;
+    for (int i = 0; i < parts.length - 1; i++) {
+      target = target.isJsonArray()
+          ? target.getAsJsonArray().get(Integer.parseInt(parts[i]))
+          : target.getAsJsonObject().get(parts[i]);
+    }
+    String last = parts[parts.length - 1];
+    if (target.isJsonArray()) {
+      target.getAsJsonArray().set(Integer.parseInt(last), value);
+    } else if (value == null) {
+      target.getAsJsonObject().remove(last);
+    } else {
+      target.getAsJsonObject().add(last, value);
+    }
+  }
+
+
+  private void onResponse(JsonObject response) {
+    if (pendingTag == null || !response.has(TAG)
+        || !pendingTag.equals(response.get(TAG).getAsString())) {
+      return; // another player's action.
+    }
+    JsonObject content = response.getAsJsonObject("content");
+    boolean success = content != null && content.has("success")
+        && content.get("success").getAsBoolean();
+    stats.action(System.nanoTime() - sentAt, success);
+    if (!success) {
+      failed.add(pending);
+    }
+    pending = null;
+    pendingTag = null;
+    // the state that follows every response is what the next move is made on.
+  }
+
+
+  private void decide() {
+    if (over || scheduled || pending != null || state == null) {
+      return;
+    }
+    scheduled = true;
+    scheduler.schedule(this::act, thinkMillis, TimeUnit.MILLISECONDS);
+  }
+
+
+  // chosen when it is sent, on the latest state.
+  private synchronized void act() {
+    scheduled = false;
+    if (over || pending != null) {
+      return;
+    }
+    JsonObject action = choose(state);
+    if (action == null) {
+      return; // nothing to do until the state changes.
+    }
+    if (action.get("requestType").getAsString().equals("gameOver")) {
+      send(action);
+      end();
+      return;
+    }
+    pending = action.get("action").getAsString();
+    pendingTag = name + "-" + sent++;
+    action.addProperty(TAG, pendingTag);
+    sentAt = System.nanoTime();
+    send(action);
+  }
+
+
+  /**
+   * Called about once a second. An action that has not been answered in time
+   * was dropped: by the server's limits, or because the game was waiting on
+   * another player's follow up, and such actions get no answer. The bot asks
+   * for a full state and goes on from there. A game in which nothing has
+   * happened for too long is ended.
+   */
+  synchronized void check(long now) {
+    if (over) {
+      return;
+    }
+    if (pending != null && now - sentAt > TIMEOUT) {
+      stats.unanswered();
+      pending = null;
+      pendingTag = null;
+      send(request("getGameState"));
+    } else if (started() && now - stateAt > STALL) {
+      stats.stalled();
+      send(leave());
+      end();
+    }
+  }
+
+
+  private boolean started() {
+    return state != null && descriptor != null && state.has("turnOrder")
+        && state.getAsJsonArray("turnOrder").size() > 0;
+  }
+
+
+  // The first legal move for the bot in s, or null if it is not its to move.
+  private JsonObject choose(JsonObject s) {
+    if (!started()) {
+      return null;
+    }
+    int me = s.get("playerID").getAsInt();
+    int turn = turn(s);
+    if (turn != failedTurn) {
+      failed.clear();
+      failedTurn = turn;
+    }
+    if (has(s, "winner")) {
+      return s.get("winner").getAsInt() == me ? leave() : null;
+    }
+    if (has(s, "followUp")) {
+      return followUp(s, s.getAsJsonObject("followUp"));
+    }
+    if (!has(s, "currentTurn") || s.get("currentTurn").getAsInt() != me) {
+      return null;
+    }
+    if (turn > maxTurns) {
+      return leave();
+    }
+    JsonObject hand = s.getAsJsonObject("hand");
+    JsonObject board = s.getAsJsonObject("board");
+    int place;
+    if (can(hand, "canBuildCity", "buildCity")
+        && (place = pick(board, "intersections",
+            (i, at) -> isSettlementOf(i, me))) >= 0) {
+      return with(action("buildCity"), "coordinate", coordinate(place));
+    }
+    if (can(hand, "canBuildSettlement", "buildSettlement")
+        && (place = pick(board, "intersections",
+            (i, at) -> flag(i, "canBuildSettlement"))) >= 0) {
+      return with(action("buildSettlement"), "coordinate", coordinate(place));
+    }
+    if (can(hand, "canBuildRoad", "buildRoad")
+        && (place = pick(board, "paths",
+            (p, at) -> flag(p, "canBuildRoad"))) >= 0) {
+      return road(action("buildRoad"), place);
+    }
+    return failed.contains("endTurn") ? null : action("endTurn");
+  }
+
+
+  private JsonObject followUp(JsonObject s, JsonObject followUp) {
+    String name = followUp.get("actionName").getAsString();
+    JsonObject data = followUp.has("actionData")
+        && followUp.get("actionData").isJsonObject()
+            ? followUp.getAsJsonObject("actionData") : new JsonObject();
+    JsonObject board = s.getAsJsonObject("board");
+    int place;
+    switch (name) {
+      case "rollDice":
+        return action(name);
+      case "placeSettlement":
+        place = pick(board, "intersections",
+            (i, at) -> flag(i, "canBuildSettlement"));
+        return place < 0 ? null
+            : with(action(name), "coordinate", coordinate(place));
+      case "placeRoad":
+        place = pick(board, "paths", (p, at) -> flag(p, "canBuildRoad"));
+        return place < 0 ? null : road(action(name), place);
+      case "moveRobber":
+        place = pick(board, "tiles", (t, at) -> !flag(t, "hasRobber")
+            && !layout("tiles", at).get("type").getAsString().equals("SEA"));
+        return place < 0 ? null : with(action(name), "newLocation",
+            layout("tiles", place).get("hexCoordinate"));
+      case "dropCards":
+        return with(action(name), "toDrop", drop(
+            s.getAsJsonObject("hand").getAsJsonObject("resources"),
+            data.get("numToDrop").getAsDouble()));
+      case "takeCard":
+        JsonArray from = data.getAsJsonArray("toTake");
+        return with(action(name), "takeFrom",
+            from.get(random.nextInt(from.size())));
+      default:
+        stats.unsupported();
+        return null; // a follow up of a variant the bots do not play.
+    }
+  }
+
+
+  // Drop from the largest piles first.
+  private static JsonObject drop(JsonObject resources, double count) {
+    Map<String, Double> left = new HashMap<>();
+    JsonObject toRet = new JsonObject();
+    for (String r : RESOURCES) {
+      left.put(r, resources.has(r) ? resources.get(r).getAsDouble() : 0);
+      toRet.addProperty(r, 0);
+    }
+    for (int i = 0; i < count; i++) {
+      String most = RESOURCES[0];
+      for (String r : RESOURCES) {
+        if (left.get(r) > left.get(most)) {
+          most = r;
+        }
+      }
+      left.put(most, left.get(most) - 1);
+      toRet.addProperty(most, toRet.get(most).getAsDouble() + 1);
+    }
+    return toRet;
+  }
+
+
+  private boolean can(JsonObject hand, String flag, String action) {
+    return flag(hand, flag) && !failed.contains(action);
+  }
+
+
+  private static boolean isSettlementOf(JsonObject intersection, int me) {
+    if (!has(intersection, "building")) {
+      return false;
+    }
+    JsonObject b = intersection.getAsJsonObject("building");
+    return b.get("type").getAsString().equals("settlement")
+        && b.get("player").getAsInt() == me;
+  }
+
+
+  private interface Test {
+    boolean of(JsonObject o, int index);
+  }
+
+
+  // The index of a random element of the board's list that passes t, or -1
+  // if none does.
+  private int pick(JsonObject board, String list, Test t) {
+    JsonArray arr = board.getAsJsonArray(list);
+    List<Integer> matching = new ArrayList<>();
+    for (int i = 0; i < arr.size(); i++) {
+      JsonElement e = arr.get(i);
+      if (e.isJsonObject() && t.of(e.getAsJsonObject(), i)) {
+        matching.add(i);
+      }
+    }
+    return matching.isEmpty() ? -1
+        : matching.get(random.nextInt(matching.size()));
+  }
+
+
+  // States list the board by descriptor index, with only what changes.
+  private JsonObject layout(String list, int index) {
+    return descriptor.getAsJsonArray(list).get(index).getAsJsonObject();
+  }
+
+
+  private JsonElement coordinate(int intersection) {
+    return layout("intersections", intersection).get("coordinate");
+  }
+
+
+  private JsonObject road(JsonObject o, int path) {
+    JsonObject ends = layout("paths", path);
+    return with(with(o, "start", coordinate(ends.get("start").getAsInt())),
+        "end", coordinate(ends.get("end").getAsInt()));
+  }
+
+
+  private static boolean flag(JsonObject o, String field) {
+    return has(o, field) && o.get(field).getAsBoolean();
+  }
+
+
+  private static boolean has(JsonObject o, String field) {
+    return o.has(field) && !o.get(field).isJsonNull();
+  }
+
+
+  private static int turn(JsonObject s) {
+    JsonObject gameStats = s.getAsJsonObject("stats");
+    return gameStats == null ? 0 : gameStats.get("turn").getAsInt();
+  }
+
+
+  private static JsonObject request(String type) {
+    JsonObject toRet = new JsonObject();
+    toRet.addProperty("requestType", type);
+    return toRet;
+  }
+
+
+  private static JsonObject action(String name) {
+    JsonObject toRet = request("action");
+    toRet.addProperty("action", name);
+    return toRet;
+  }
+
+
+  private static JsonObject with(JsonObject o, String field,
+      JsonElement value) {
+    o.add(field, value);
+    return o;
+  }
+
+
+
+
+  private static JsonObject leave() {
+    JsonObject toRet = request("gameOver");
+    toRet.addProperty("reason", "explicitExit");
+    return toRet;
+  }
+
+
+  private void send(JsonObject message) {
+    Session s = getSession();
+    if (s == null || !s.isOpen()) {
+      return;
+    }
+    stats.sent();
+    s.getRemote().sendStringByFuture(message.toString());
+  }
+
+
+  private void end() {
+    if (over) {
+      return;
+    }
+    over = true;
+    joined.countDown();
+    onGameOver.accept(this);
+  }
+
+}
@@ -0,0 +1,586 @@
+package edu.brown.cs.api;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.HttpCookie;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jetty.websocket.api.WebSocketAdapter;
+import org.eclipse.jetty.websocket.client.ClientUpgradeRequest;
+import org.eclipse.jetty.websocket.client.WebSocketClient;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/**
+ * Puts a server under the load of many games at once, played by LoadBots over
+ * its real websockets, and reports how it held up: action round trip
+ * latencies, message rates, and the server's CPU, heap and GC, read from its
+ * /cluster/status. Lobby viewers watch /groups meanwhile, and spectators, if
+ * asked for, watch each game through /watch. Finished games are
+ * replaced by new ones, so the server also keeps making, filling and reaping
+ * games.
+ *
+ * By default it starts a server of its own, in a new JVM with the same
+ * classpath and JVM arguments, so the two do not share a CPU budget or heap.
+ * The report is written as JSON under target/loadgen, and can be compared with
+ * one from an earlier build. Run with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) edu.brown.cs.api.LoadGenerator \
+ *     --games=8 --players=4 --seconds=60 --compare=target/loadgen/before.json
+ * </pre>
+ *
+ * Other options: --url to load a server that is already running (its CPU and
+ * heap are still read from its status), --viewers, --spectators (per game),
+ * --warmup (seconds left out
+ * of the report), --think (milliseconds a bot waits before each move),
+ * --maxTurns, --port, --label and --out.
+ */
+public final class LoadGenerator {
+
+  private static final long     JOIN_SECONDS  = 10;
+  private static final long     START_SECONDS = 30;
+  private static final int      HTTP_TIMEOUT  = 2000;
+  private static final double[] PERCENTILES   = {0.5, 0.9, 0.99, 0.999};
+  private static final String[] PERCENTILE_NAMES = {"p50", "p90", "p99",
+      "p999"};
+
+  private final Map<String, String> options;
+  private final Stats               stats     = new Stats();
+  private final List<JsonObject>    samples   = new ArrayList<>();
+  private final AtomicInteger       nextBot   = new AtomicInteger();
+  private final List<LoadBot>       bots      = new ArrayList<>();
+  private final Set<String>         watched   = new HashSet<>();
+  private final ScheduledExecutorService scheduler =
+      Executors.newScheduledThreadPool(2);
+  private final ExecutorService     joiner    =
+      Executors.newSingleThreadExecutor();
+  private final WebSocketClient     client    = new WebSocketClient();
+  private String                    base;
+
+
+  private LoadGenerator(Map<String, String> options) {
+    this.options = options;
+  }
+
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<>();
+    options.put("games", "8");
+    options.put("players", "4");
+    options.put("viewers", "2");
+    options.put("spectators", "0");
+    options.put("seconds", "60");
+    options.put("warmup", "10");
+    options.put("think", "100");
+    options.put("maxTurns", "60");
+    options.put("port", "4590");
+    options.put("out", "target/loadgen");
+    for (String arg : args) {
+      String[] kv = arg.replaceFirst("^--", "").split("=", 2);
+      if (kv.length != 2 || !options.containsKey(kv[0])
+          && !Arrays.asList("url", "label", "compare").contains(kv[0])) {
+        System.err.println("Unknown option: " + arg);
+        System.exit(1);
+      }
+      options.put(kv[0], kv[1]);
+    }
+    new LoadGenerator(options).run();
+    System.exit(0);
+  }
+
+
+  private int option(String name) {
+    return Integer.parseInt(options.get(name));
+  }
+
+
+  private void run() throws Exception {
+    File out = new File(options.get("out"));
+    out.mkdirs();
+    Process server = null;
+    if (options.containsKey("url")) {
+      base = options.get("url");
+    } else {
+      server = startServer(option("port"), new File(out, "server.log"));
+      base = "http://localhost:" + option("port");
+    }
+    try {
+      awaitServer();
+      client.start();
+      String ws = base.replaceFirst("^http", "ws");
+      for (int i = 0; i < option("viewers"); i++) {
+        client.connect(new Viewer(), new URI(ws + "/groups")).get();
+      }
+      for (int i = 0; i < option("games") * option("players"); i++) {
+        join();
+      }
+      System.out.format("%d bots in %d games, warming up for %ds%n",
+          bots.size(), option("games"), option("warmup"));
+
+      scheduler.scheduleAtFixedRate(this::tick, 1, 1, TimeUnit.SECONDS);
+      Thread.sleep(TimeUnit.SECONDS.toMillis(option("warmup")));
+      stats.reset();
+      JsonObject first = status();
+      synchronized (samples) {
+        samples.clear();
+      }
+      long start = System.nanoTime();
+      Thread.sleep(TimeUnit.SECONDS.toMillis(option("seconds")));
+      JsonObject last = status();
+      double seconds = (System.nanoTime() - start) / 1e9;
+
+      JsonObject report = report(first, last, seconds);
+      String json = new GsonBuilder().setPrettyPrinting().create()
+          .toJson(report);
+      File file = new File(out, "report-"
+          + new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date())
+          + ".json");
+      try (Writer w = new FileWriter(file)) {
+        w.write(json);
+      }
+      System.out.println(json);
+      System.out.println("Written to " + file);
+      if (options.containsKey("compare")) {
+        compare(read(new File(options.get("compare"))), report);
+      }
+    } finally {
+      scheduler.shutdownNow();
+      joiner.shutdownNow();
+      client.stop();
+      if (server != null) {
+        server.destroy();
+        server.waitFor(5, TimeUnit.SECONDS);
+      }
+    }
+  }
+
+
+  // A server of the tree under test, in its own JVM.
+  private static Process startServer(int port, File log) throws IOException {
+    List<String> command = new ArrayList<>();
+    command.add(new File(System.getProperty("java.home"), "bin/java")
+        .getPath());
+    command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+    command.add("-cp");
+    command.add(System.getProperty("java.class.path"));
+    command.add("edu.brown.cs.catan.Main");
+    ProcessBuilder pb = new ProcessBuilder(command);
+    pb.environment().put("PORT", String.valueOf(port));
+    pb.environment().remove("CATAN_NODES");
+    pb.environment().remove("CATAN_ROUTER");
+    pb.redirectErrorStream(true);
+    pb.redirectOutput(log); // the server is chatty.
+    return pb.start();
+  }
+
+
+  private void awaitServer() throws InterruptedException {
+    long deadline =
+        System.nanoTime() + TimeUnit.SECONDS.toNanos(START_SECONDS);
+    while (status() == null) {
+      if (System.nanoTime() > deadline) {
+        throw new IllegalStateException("No server answered at " + base);
+      }
+      Thread.sleep(250);
+    }
+  }
+
+
+  // The server's status, or null if it did not answer.
+  private JsonObject status() {
+    try {
+      HttpURLConnection c = (HttpURLConnection) new URL(base
+          + "/cluster/status").openConnection();
+      c.setConnectTimeout(HTTP_TIMEOUT);
+      c.setReadTimeout(HTTP_TIMEOUT);
+      try (BufferedReader in = new BufferedReader(new InputStreamReader(
+          c.getInputStream(), StandardCharsets.UTF_8))) {
+        return new JsonParser().parse(in).getAsJsonObject();
+      }
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+
+  // A new bot, asking for a quick match: bots that join one after another
+  // fill one game after another.
+  private void join() throws Exception {
+    LoadBot bot = new LoadBot("bot" + nextBot.getAndIncrement(), stats,
+        scheduler, option("think"), option("maxTurns"), this::replace);
+    ClientUpgradeRequest request = new ClientUpgradeRequest();
+    List<HttpCookie> cookies = new ArrayList<>();
+    cookies.add(new HttpCookie("userName", bot.name()));
+    cookies.add(new HttpCookie("numPlayersDesired", options.get("players")));
+    cookies.add(new HttpCookie("victoryPoints", "10"));
+    cookies.add(new HttpCookie("quickMatch", "true"));
+    request.setCookies(cookies);
+    client.connect(bot, new URI(base.replaceFirst("^http", "ws")
+        + "/action"), request).get();
+    if (!bot.awaitJoined(JOIN_SECONDS, TimeUnit.SECONDS)) {
+      throw new IllegalStateException(bot.name() + " was not put in a game");
+    }
+    synchronized (bots) {
+      bots.add(bot);
+    }
+  }
+
+
+  // A bot whose game is over makes way for a new one.
+  private void replace(LoadBot bot) {
+    synchronized (bots) {
+      if (!bots.remove(bot)) {
+        return;
+      }
+    }
+    stats.botLeft();
+    joiner.execute(() -> {
+      try {
+        bot.getSession().close();
+        join();
+      } catch (Exception e) {
+        System.err.println("Could not replace " + bot.name() + ": " + e);
+      }
+    });
+  }
+
+
+  private void tick() {
+    long now = System.nanoTime();
+    List<LoadBot> all;
+    synchronized (bots) {
+      all = new ArrayList<>(bots);
+    }
+    for (LoadBot bot : all) {
+      bot.check(now);
+    }
+    JsonObject status = status();
+    if (status != null) {
+      synchronized (samples) {
+        samples.add(status.getAsJsonObject("process"));
+      }
+      watch(status);
+    }
+  }
+
+
+  // Spectators for each game that has filled up since the last look.
+  private void watch(JsonObject status) {
+    String ws = base.replaceFirst("^http", "ws");
+    for (JsonElement g : status.getAsJsonObject("closed").getAsJsonArray(
+        "closedGroups")) {
+      String id = g.getAsJsonObject().getAsJsonObject("group").get("id")
+          .getAsString();
+      if (option("spectators") == 0 || !watched.add(id)) {
+        continue;
+      }
+      for (int i = 0; i < option("spectators"); i++) {
+        try {
+          client.connect(new Spectator(), new URI(ws + "/watch?game=" + id));
+        } catch (IOException | URISyntaxException e) {
+          System.err.println("Could not watch " + id + ": " + e);
+        }
+      }
+    }
+  }
+
+
+  private JsonObject report(JsonObject first, JsonObject last,
+      double seconds) {
+    JsonObject toRet = new JsonObject();
+    toRet.addProperty("label", options.containsKey("label")
+        ? options.get("label") : revision());
+    toRet.addProperty("date", new Date().toString());
+    JsonObject config = new JsonObject();
+    for (String o : Arrays.asList("games", "players", "viewers", "spectators",
+        "seconds", "warmup", "think", "maxTurns")) {
+      config.addProperty(o, option(o));
+    }
+    config.addProperty("url", options.containsKey("url")
+        ? options.get("url") : "forked");
+    toRet.add("config", config);
+
+    long[] latencies = stats.latencies();
+    JsonObject latency = new JsonObject();
+    for (int i = 0; i < PERCENTILES.length; i++) {
+      latency.addProperty(PERCENTILE_NAMES[i],
+          millis(percentile(latencies, PERCENTILES[i])));
+    }
+    latency.addProperty("max",
+        millis(latencies.length == 0 ? 0 : latencies[latencies.length - 1]));
+    toRet.add("latencyMillis", latency);
+
+    JsonObject actions = new JsonObject();
+    actions.addProperty("count", latencies.length);
+    actions.addProperty("perSecond", round(latencies.length / seconds));
+    actions.addProperty("failed", stats.failed.get());
+    actions.addProperty("unanswered", stats.unanswered.get());
+    actions.addProperty("stalledGames", stats.stalled.get());
+    actions.addProperty("unsupportedFollowUps", stats.unsupported.get());
+    actions.addProperty("botsReplaced", stats.left.get());
+    toRet.add("actions", actions);
+
+    JsonObject messages = new JsonObject();
+    messages.addProperty("sentPerSecond", round(stats.sent.get() / seconds));
+    messages.addProperty("receivedPerSecond",
+        round(stats.received.get() / seconds));
+    messages.addProperty("receivedKBPerSecond",
+        round(stats.receivedChars.get() / 1024.0 / seconds));
+    messages.addProperty("lobbyPerSecond",
+        round(stats.lobby.get() / seconds));
+    messages.addProperty("spectatorPerSecond",
+        round(stats.spectated.get() / seconds));
+    toRet.add("messages", messages);
+
+    toRet.add("server", server(first, last, latencies.length));
+    return toRet;
+  }
+
+
+  private JsonObject server(JsonObject first, JsonObject last,
+      int actions) {
+    JsonObject toRet = new JsonObject();
+    if (first == null || last == null) {
+      return toRet; // it did not answer.
+    }
+    JsonObject a = first.getAsJsonObject("process");
+    JsonObject b = last.getAsJsonObject("process");
+    long cpu = b.get("cpuNanos").getAsLong() - a.get("cpuNanos").getAsLong();
+    long wall = TimeUnit.MILLISECONDS.toNanos(
+        b.get("uptimeMillis").getAsLong() - a.get("uptimeMillis").getAsLong());
+    if (a.get("cpuNanos").getAsLong() >= 0 && wall > 0) {
+      toRet.addProperty("cpuPercent", round(100.0 * cpu / wall));
+      toRet.addProperty("cpuMicrosPerAction",
+          round(cpu / 1000.0 / Math.max(1, actions)));
+    }
+    toRet.addProperty("processors", b.get("processors").getAsInt());
+    long heapMax = 0;
+    long heapSum = 0;
+    int threadsMax = 0;
+    List<JsonObject> taken;
+    synchronized (samples) {
+      taken = new ArrayList<>(samples);
+    }
+    for (JsonObject s : taken) {
+      heapMax = Math.max(heapMax, s.get("heapUsed").getAsLong());
+      heapSum += s.get("heapUsed").getAsLong();
+      threadsMax = Math.max(threadsMax, s.get("threads").getAsInt());
+    }
+    toRet.addProperty("heapUsedMaxMB", heapMax >> 20);
+    toRet.addProperty("heapUsedMeanMB",
+        taken.isEmpty() ? 0 : (heapSum / taken.size()) >> 20);
+    toRet.addProperty("heapMaxMB", b.get("heapMax").getAsLong() >> 20);
+    toRet.addProperty("gcCount",
+        b.get("gcCount").getAsLong() - a.get("gcCount").getAsLong());
+    toRet.addProperty("gcMillis",
+        b.get("gcMillis").getAsLong() - a.get("gcMillis").getAsLong());
+    toRet.addProperty("threadsMax", threadsMax);
+    toRet.addProperty("liveGames", last.get("live").getAsInt());
+    JsonObject dropped = new JsonObject();
+    for (Map.Entry<String, JsonElement> e : last.getAsJsonObject("limits")
+        .entrySet()) {
+      dropped.addProperty(e.getKey(), e.getValue().getAsLong()
+          - first.getAsJsonObject("limits").get(e.getKey()).getAsLong());
+    }
+    toRet.add("messagesByVerdict", dropped);
+    return toRet;
+  }
+
+
+  private static final String[][] COMPARED = {
+      {"latencyMillis", "p50"}, {"latencyMillis", "p99"},
+      {"latencyMillis", "p999"}, {"latencyMillis", "max"},
+      {"actions", "perSecond"}, {"messages", "receivedPerSecond"},
+      {"messages", "receivedKBPerSecond"}, {"server", "cpuPercent"},
+      {"server", "cpuMicrosPerAction"}, {"server", "heapUsedMaxMB"},
+      {"server", "gcMillis"}};
+
+
+  private static void compare(JsonObject before, JsonObject after) {
+    System.out.format("%-32s %12s %12s %8s%n", before.get("label")
+        .getAsString() + " -> " + after.get("label").getAsString(), "before",
+        "after", "change");
+    for (String[] field : COMPARED) {
+      JsonObject a = before.getAsJsonObject(field[0]);
+      JsonObject b = after.getAsJsonObject(field[0]);
+      if (a == null || b == null || !a.has(field[1]) || !b.has(field[1])) {
+        continue;
+      }
+      double x = a.get(field[1]).getAsDouble();
+      double y = b.get(field[1]).getAsDouble();
+      System.out.format("%-32s %12.2f %12.2f %7.1f%%%n",
+          field[0] + "." + field[1], x, y, x == 0 ? 0 : 100 * (y - x) / x);
+    }
+  }
+
+
+  private static JsonObject read(File f) throws IOException {
+    try (FileReader in = new FileReader(f)) {
+      return new JsonParser().parse(in).getAsJsonObject();
+    }
+  }
+
+
+  // The commit under test, if this is a git checkout.
+  private static String revision() {
+    try {
+      Process p = new ProcessBuilder("git", "describe", "--always", "--dirty")
+          .redirectErrorStream(true).start();
+      try (BufferedReader in = new BufferedReader(
+          new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+        String line = in.readLine();
+        return p.waitFor() == 0 && line != null ? line : "unknown";
+      }
+    } catch (IOException | InterruptedException e) {
+      return "unknown";
+    }
+  }
+
+
+  private static long percentile(long[] sorted, double p) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int rank = (int) Math.ceil(p * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, rank))];
+  }
+
+
+  private static double millis(long nanos) {
+    return Math.round(nanos / 1e3) / 1e3;
+  }
+
+
+  private static double round(double d) {
+    return Math.round(d * 100) / 100.0;
+  }
+
+
+  /**
+   * What the bots and viewers saw, counted from the end of the warmup.
+   */
+  static final class Stats {
+
+    private final AtomicLong sent          = new AtomicLong();
+    private final AtomicLong received      = new AtomicLong();
+    private final AtomicLong receivedChars = new AtomicLong();
+    private final AtomicLong lobby         = new AtomicLong();
+    private final AtomicLong spectated     = new AtomicLong();
+    private final AtomicLong failed        = new AtomicLong();
+    private final AtomicLong unanswered    = new AtomicLong();
+    private final AtomicLong stalled       = new AtomicLong();
+    private final AtomicLong unsupported   = new AtomicLong();
+    private final AtomicLong left          = new AtomicLong();
+    private long[]           latencies     = new long[1024];
+    private int              count;
+
+
+    void sent() {
+      sent.incrementAndGet();
+    }
+
+
+    void received(int chars) {
+      received.incrementAndGet();
+      receivedChars.addAndGet(chars);
+    }
+
+
+    synchronized void action(long nanos, boolean success) {
+      if (count == latencies.length) {
+        latencies = Arrays.copyOf(latencies, count * 2);
+      }
+      latencies[count++] = nanos;
+      if (!success) {
+        failed.incrementAndGet();
+      }
+    }
+
+
+    void unanswered() {
+      unanswered.incrementAndGet();
+    }
+
+
+    void stalled() {
+      stalled.incrementAndGet();
+    }
+
+
+    void unsupported() {
+      unsupported.incrementAndGet();
+    }
+
+
+    void botLeft() {
+      left.incrementAndGet();
+    }
+
+
+    synchronized long[] latencies() {
+      long[] toRet = Arrays.copyOf(latencies, count);
+      Arrays.sort(toRet);
+      return toRet;
+    }
+
+
+    synchronized void reset() {
+      count = 0;
+      for (AtomicLong a : Arrays.asList(sent, received, receivedChars, lobby,
+          spectated, failed, unanswered, stalled, unsupported, left)) {
+        a.set(0);
+      }
+    }
+  }
+
+
+  // Watches the lobby, as the home page does.
+  private final class Viewer extends WebSocketAdapter {
+
+    @Override
+    public void onWebSocketText(String message) {
+      stats.lobby.incrementAndGet();
+    }
+  }
+
+
+  // Watches one game, as a spectator.
+  private final class Spectator extends WebSocketAdapter {
+
+    @Override
+    public void onWebSocketText(String message) {
+      stats.spectated.incrementAndGet();
+    }
+  }
+
+}
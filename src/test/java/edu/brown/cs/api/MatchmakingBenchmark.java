@@ -0,0 +1,105 @@
+package edu.brown.cs.api;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.brown.cs.networking.FakeGroup;
+import edu.brown.cs.networking.Group;
+
+/**
+ * Cost of finding a game to join with {@code openGames} open lobbies, spread
+ * over four settings signatures: a requested game by id, by the old scan of
+ * every pending group and from the index, and a quick match into the fullest
+ * compatible game. Also the cost of re-filing a game as a user joins and
+ * leaves. Run with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) org.openjdk.jmh.Main MatchmakingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatchmakingBenchmark {
+
+  private static final String[] SIGNATURES = {"a", "b", "c", "d"};
+
+  @Param({"20", "1000", "10000"})
+  private int                   openGames;
+
+  private MatchmakingIndex      index;
+  private final List<Group>     pending    = new ArrayList<>();
+  private FakeGroup             requested;
+  private int                   next;
+
+
+  @Setup
+  public void setup() {
+    index = new MatchmakingIndex();
+    pending.clear();
+    for (int i = 0; i < openGames; i++) {
+      FakeGroup g = new FakeGroup(4);
+      for (int j = 0; j <= i % 3; j++) {
+        g.join();
+      }
+      index.track(g, SIGNATURES[i % SIGNATURES.length]);
+      pending.add(g);
+      requested = g;
+    }
+  }
+
+
+  @Benchmark
+  public Object scanRequestedGame() {
+    // what CatanGroupSelector did with a desiredGroupId.
+    String id = requested.identifier();
+    Optional<Group> found = pending.stream()
+        .filter(ug -> !ug.isFull() && ug.identifier().equals(id))
+        .findFirst();
+    return found.orElse(null);
+  }
+
+
+  @Benchmark
+  public Object indexRequestedGame() {
+    return index.byId(requested.identifier());
+  }
+
+
+  @Benchmark
+  public Object indexQuickMatch() {
+    next = (next + 1) & (SIGNATURES.length - 1);
+    return index.fullestOpen(SIGNATURES[next]);
+  }
+
+
+  @Benchmark
+  public Object indexJoinAndLeave() {
+    next = (next + 1) % pending.size();
+    FakeGroup g = (FakeGroup) pending.get(next);
+    g.join();
+    index.update(g);
+    g.leave();
+    index.update(g);
+    return g;
+  }
+
+}
@@ -0,0 +1,74 @@
+package edu.brown.cs.api;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.Gson;
+
+import edu.brown.cs.actions.ActionResponse;
+import edu.brown.cs.catan.Resource;
+import edu.brown.cs.catan.Trade;
+
+/**
+ * Throughput of the shared Gson's hand-written adapters against the reflective
+ * Gson every class used to create, on an action response carrying a trade.
+ * Setup fails if the two produce different JSON. Game states are written by
+ * GameStateWriter; see GameStateBenchmark. Run with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) org.openjdk.jmh.Main SerializationBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+  private final Gson reflective = new Gson();
+
+  private ActionResponse response;
+
+  @Setup
+  public void setup() {
+    Map<Resource, Double> resources = new EnumMap<>(Resource.class);
+    resources.put(Resource.WHEAT, 1.0);
+    resources.put(Resource.ORE, -1.0);
+    Trade trade = new Trade(0, resources);
+    trade.acceptedTrade(1);
+    trade.declinedTrade(2);
+    response = new ActionResponse(true, "Trade proposed.", trade);
+
+    if (!reflective.toJson(response).equals(Serialization.GSON.toJson(
+        response))) {
+      throw new IllegalStateException("Adapters changed the JSON of "
+          + "ActionResponse");
+    }
+  }
+
+  @Benchmark
+  public String responseReflective() {
+    return reflective.toJson(response);
+  }
+
+  @Benchmark
+  public String responseAdapters() {
+    return Serialization.GSON.toJson(response);
+  }
+
+}
@@ -0,0 +1,68 @@
+package edu.brown.cs.api;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.actions.ActionResponse;
+import edu.brown.cs.board.HexCoordinate;
+import edu.brown.cs.board.IntersectionCoordinate;
+import edu.brown.cs.board.Port;
+import edu.brown.cs.catan.Resource;
+import edu.brown.cs.catan.Trade;
+
+public class SerializationTest {
+
+  // What every type was serialized with before the adapters.
+  private static final Gson REFLECTIVE = new Gson();
+
+  private static void assertSameJson(Object value) {
+    assertEquals(REFLECTIVE.toJson(value), Serialization.GSON.toJson(value));
+  }
+
+  @Test
+  public void testResponsesAndTradesAreUnchanged() {
+    Map<Resource, Double> resources = new EnumMap<>(Resource.class);
+    resources.put(Resource.WHEAT, 1.0);
+    resources.put(Resource.ORE, -2.5);
+    Trade trade = new Trade(1, resources);
+    trade.acceptedTrade(2);
+    trade.declinedTrade(3);
+    assertSameJson(trade);
+    assertSameJson(new ActionResponse(true, "Trade proposed.", trade));
+    assertSameJson(new ActionResponse(false, null, null));
+    JsonObject data = new JsonObject();
+    data.addProperty("message", "<b>");
+    assertSameJson(new ActionResponse(true, "\"quoted\"", data));
+  }
+
+  @Test
+  public void testBoardTypesAreUnchanged() {
+    HexCoordinate hex = new HexCoordinate(-1, 2, 0);
+    assertSameJson(hex);
+    assertSameJson(new IntersectionCoordinate(hex, new HexCoordinate(0, 0, 0),
+        new HexCoordinate(0, 1, 0)));
+    assertSameJson(new Port(Resource.SHEEP));
+    assertSameJson(new Port(null));
+  }
+
+  @Test
+  public void testCoordinatesAndSettingsReadBack() {
+    IntersectionCoordinate coord = new IntersectionCoordinate(
+        new HexCoordinate(-1, 2, 0), new HexCoordinate(0, 0, 0),
+        new HexCoordinate(0, 1, 0));
+    assertEquals(coord, Serialization.GSON.fromJson(
+        Serialization.GSON.toJson(coord), IntersectionCoordinate.class));
+    CatanConverter.CatanSettings settings = new CatanConverter()
+        .getSettings("{numPlayers: 3, isDecimal: true, extra: [1]}");
+    assertEquals(3, settings.getNumPlayers());
+    assertEquals(true, settings.isDecimal());
+  }
+
+}
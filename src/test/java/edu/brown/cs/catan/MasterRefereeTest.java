@@ -1,12 +1,20 @@
 package edu.brown.cs.catan;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import org.junit.Test;
 
+import com.google.gson.JsonObject;
+
 import edu.brown.cs.board.HexCoordinate;
 import edu.brown.cs.board.IntersectionCoordinate;
+import edu.brown.cs.board.Tile;
+import edu.brown.cs.board.TileType;
 
 public class MasterRefereeTest {
 
@@ -18,6 +26,57 @@ public class MasterRefereeTest {
     assertTrue(ref.getTurn().getTurnNum() == 1);
   }
 
+  @Test
+  public void testSameSeedSameGame() {
+    JsonObject settings = new JsonObject();
+    settings.addProperty("numPlayers", 4);
+    settings.addProperty("isCitiesAndKnights", true);
+    MasterReferee first = new MasterReferee(new GameSettings(settings), 42);
+    MasterReferee second = new MasterReferee(new GameSettings(settings), 42);
+    assertEquals(first.getTurnOrder(), second.getTurnOrder());
+    assertEquals(tileTypes(first), tileTypes(second));
+    assertEquals(first.drawProgressCard(ProgressCard.Category.SCIENCE),
+        second.drawProgressCard(ProgressCard.Category.SCIENCE));
+    assertEquals(first.getDevCard(), second.getDevCard());
+    assertEquals(first.getRandom().nextLong(), second.getRandom().nextLong());
+  }
+
+  @Test
+  public void testRestoreUndoesEverythingSinceSnapshot() {
+    JsonObject settings = new JsonObject();
+    settings.addProperty("numPlayers", 2);
+    settings.addProperty("isCitiesAndKnights", true);
+    MasterReferee ref = new MasterReferee(new GameSettings(settings));
+    ref.addPlayer("Sean");
+    ref.addPlayer("Nick");
+    MasterReferee.Snapshot snapshot = ref.snapshot();
+    ProgressCard next = ref.drawProgressCard(ProgressCard.Category.TRADE);
+    DevelopmentCard card = ref.getDevCard();
+    ref.getRandom().nextLong();
+    ref.addPlayer("Ansel");
+    ref.startNextTurn();
+
+    MasterReferee restored = ref.restore(snapshot);
+    assertEquals(1, restored.getTurn().getTurnNum());
+    assertEquals(2, restored.getPlayers().size());
+    assertEquals(next, restored.drawProgressCard(
+        ProgressCard.Category.TRADE));
+    assertEquals(card, restored.getDevCard());
+    // the dice are not rewound: they draw on from where they were.
+    assertTrue(restored.getRandom() == ref.getRandom());
+    assertTrue(restored.getEventBus() == ref.getEventBus());
+    // a snapshot can be restored more than once.
+    assertEquals(1, ref.restore(snapshot).getTurn().getTurnNum());
+  }
+
+  private static List<TileType> tileTypes(Referee ref) {
+    List<TileType> types = new ArrayList<>();
+    for (Tile tile : ref.getBoard().getTiles()) {
+      types.add(tile.getType());
+    }
+    return types;
+  }
+
   @Test
   public void startNextTurnTest() {
     Referee ref = new MasterReferee();
@@ -0,0 +1,74 @@
+package edu.brown.cs.events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+import edu.brown.cs.catan.ProgressCard;
+import edu.brown.cs.catan.Resource;
+
+public class EventBusTest {
+
+  @Test
+  public void testDeliversByClassThenToAll() {
+    EventBus bus = new EventBus();
+    List<String> seen = new ArrayList<>();
+    bus.subscribe(GameEvent.class, e -> seen.add("all"));
+    bus.subscribe(ProgressCardPlayed.class, e -> seen.add(e.card().name()));
+    bus.subscribe(RoadBuilt.class, e -> seen.add("road"));
+    bus.publish(new ProgressCardPlayed(0, "Sean", ProgressCard.WARLORD));
+    assertEquals(Arrays.asList("WARLORD", "all"), seen);
+  }
+
+  @Test
+  public void testUnsubscribe() {
+    EventBus bus = new EventBus();
+    List<GameEvent> seen = new ArrayList<>();
+    Consumer<GameEvent> listener = seen::add;
+    bus.subscribe(GameEvent.class, listener);
+    assertTrue(bus.unsubscribe(GameEvent.class, listener));
+    bus.publish(new ProgressCardPlayed(0, "Sean", ProgressCard.WARLORD));
+    assertTrue(seen.isEmpty());
+  }
+
+  @Test
+  public void testResourcesProducedDescribesEachPlayer() {
+    Map<Resource, Integer> counts = new EnumMap<>(Resource.class);
+    counts.put(Resource.WHEAT, 2);
+    Map<Integer, Map<Resource, Integer>> produced = new HashMap<>();
+    produced.put(1, counts);
+    ResourcesProduced event = new ResourcesProduced(3, 5, produced);
+    assertEquals(8, event.roll());
+    assertEquals("8 was rolled, you received 2 wheat.", event.describe(1));
+    assertEquals("8 was rolled.", event.describe(0));
+    assertTrue(event.producedFor(0).isEmpty());
+  }
+
+  @Test
+  public void testBarbarianAttackDescription() {
+    Map<Integer, String> names = new HashMap<>();
+    names.put(0, "Sean");
+    names.put(1, "Nick");
+    BarbarianAttackResolved lost = new BarbarianAttackResolved(1, 2, names,
+        Collections.emptyList(), Arrays.asList(0, 1),
+        Collections.singleton(1));
+    assertEquals(" Barbarians pillage! Sean's city was pillaged! Nick's city "
+        + "was pillaged! Nick lost a city wall.", lost.describe(0));
+    BarbarianAttackResolved held = new BarbarianAttackResolved(3, 2, names,
+        Arrays.asList(1), Collections.emptyList(), Collections.emptySet());
+    assertTrue(held.defended());
+    assertEquals(" Knights defended Catan! Nick earns Defender of Catan!",
+        held.describe(0));
+  }
+
+}
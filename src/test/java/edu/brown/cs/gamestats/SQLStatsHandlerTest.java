@@ -0,0 +1,154 @@
+package edu.brown.cs.gamestats;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.google.gson.JsonObject;
+
+public class SQLStatsHandlerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+
+  private static GameStats game(int winner, int... rolls) {
+    GameStats stats = new GameStats();
+    for (int roll : rolls) {
+      stats.addRoll(roll);
+    }
+    stats.addOutcome(0, "Sean", "#BF2720", winner == 0 ? 10 : 6);
+    stats.addOutcome(1, "Nick", "#115EC9", winner == 1 ? 10 : 7);
+    stats.finish(40, 10, false, winner);
+    return stats;
+  }
+
+
+  private static long count(Connection conn, String query)
+      throws SQLException {
+    try (Statement stat = conn.createStatement();
+        ResultSet rs = stat.executeQuery(query)) {
+      rs.next();
+      return rs.getLong(1);
+    }
+  }
+
+
+  private String db() {
+    return new File(folder.getRoot(), "stats/catan.sqlite3").getPath();
+  }
+
+
+  @Test
+  public void finishedGamesAreWrittenWithTheirPlayersRollsAndOutcomes()
+      throws Exception {
+    SQLStatsHandler handler = new SQLStatsHandler(db(), 16);
+    handler.storeGameStats(game(0, 6, 8, 8));
+    handler.storeGameStats(game(1, 7));
+    handler.close();
+
+    try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + db())) {
+      assertEquals(2, count(conn, "SELECT COUNT(*) FROM games;"));
+      assertEquals(4, count(conn, "SELECT COUNT(*) FROM players;"));
+      assertEquals(2, count(conn, "SELECT count FROM rolls WHERE roll = 8;"));
+      assertEquals(2, count(conn, "SELECT COUNT(*) FROM outcomes WHERE won;"));
+      assertEquals(1, count(conn, "SELECT COUNT(*) FROM outcomes o JOIN "
+          + "games g ON g.id = o.game_id WHERE o.won AND o.player_id = "
+          + "g.winner AND o.points = 10 AND g.winner = 1;"));
+      try (Statement stat = conn.createStatement();
+          ResultSet rs = stat.executeQuery("PRAGMA journal_mode;")) {
+        rs.next();
+        assertEquals("wal", rs.getString(1));
+      }
+    }
+    JsonObject stats = handler.stats();
+    assertEquals(2, stats.get("written").getAsLong());
+    assertEquals(0, stats.get("dropped").getAsLong());
+  }
+
+
+  @Test
+  public void aFullQueueDropsRatherThanWaits() throws Exception {
+    SQLStatsHandler handler = new SQLStatsHandler(db(), 2);
+    try (Connection lock = DriverManager.getConnection("jdbc:sqlite:" + db());
+        Statement stat = lock.createStatement()) {
+      // the writer waits on this lock, so nothing leaves the queue.
+      stat.execute("BEGIN EXCLUSIVE;");
+      long start = System.nanoTime();
+      for (int i = 0; i < 5; i++) {
+        handler.storeGameStats(game(0));
+      }
+      assertTrue((System.nanoTime() - start) / 1000000 < 1000);
+      stat.execute("COMMIT;");
+    }
+    handler.close();
+    JsonObject stats = handler.stats();
+    assertTrue(stats.get("dropped").getAsLong() >= 2);
+    assertEquals(5, stats.get("written").getAsLong()
+        + stats.get("dropped").getAsLong());
+    assertEquals(0, stats.get("failed").getAsLong());
+  }
+
+
+  @Test
+  public void aBadGameCostsOnlyItself() throws Exception {
+    SQLStatsHandler handler = new SQLStatsHandler(db(), 16);
+    GameStats bad = new GameStats();
+    bad.addOutcome(0, "Sean", "#BF2720", 10);
+    bad.addOutcome(0, "Sean", "#BF2720", 10); // the same player twice.
+    bad.finish(40, 10, false, 0);
+    try (Connection lock = DriverManager.getConnection("jdbc:sqlite:" + db());
+        Statement stat = lock.createStatement()) {
+      // held until all are queued, so the last three are one batch.
+      stat.execute("BEGIN EXCLUSIVE;");
+      handler.storeGameStats(game(0, 6));
+      handler.storeGameStats(game(1, 8));
+      handler.storeGameStats(bad);
+      handler.storeGameStats(game(0, 9));
+      stat.execute("COMMIT;");
+    }
+    handler.close();
+    JsonObject stats = handler.stats();
+    assertEquals(3, stats.get("written").getAsLong());
+    assertEquals(1, stats.get("failed").getAsLong());
+    try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + db())) {
+      assertEquals(3, count(conn, "SELECT COUNT(*) FROM games;"));
+      assertEquals(6, count(conn, "SELECT COUNT(*) FROM players;"));
+    }
+  }
+
+
+  @Test
+  public void statsStoredAfterCloseAreCountedAsDropped() throws Exception {
+    SQLStatsHandler handler = new SQLStatsHandler(db(), 16);
+    handler.close();
+    handler.storeGameStats(game(0, 6));
+    JsonObject stats = handler.stats();
+    assertEquals(1, stats.get("dropped").getAsLong());
+    assertEquals(0, stats.get("queued").getAsLong());
+  }
+
+
+  @Test
+  public void aFinishedGameNoLongerChanges() {
+    GameStats stats = game(0, 6);
+    stats.addRoll(6);
+    stats.addOutcome(2, "Ansel", "#DFA629", 3);
+    stats.finish(99, 12, true, 1);
+    assertEquals(1, stats.getRollsArray()[4]);
+    assertEquals(2, stats.getOutcomes().size());
+    assertEquals(40, stats.getTurns());
+    assertEquals(Integer.valueOf(0), stats.getWinner());
+  }
+
+}
@@ -0,0 +1,47 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class AdmissionPolicyTest {
+
+  private double heap = 0.5;
+  private double load = 1.0;
+  private long   now  = 0;
+
+
+  private AdmissionPolicy policy(int maxGroups) {
+    return new AdmissionPolicy(maxGroups, 0.85, 4.0, () -> heap, () -> load,
+        () -> now);
+  }
+
+
+  @Test
+  public void testGroupLimit() {
+    AdmissionPolicy policy = policy(3);
+    assertTrue(policy.admits(2));
+    assertFalse(policy.admits(3));
+  }
+
+
+  @Test
+  public void testHeadroomIsMeasuredAtMostOnceASecond() {
+    AdmissionPolicy policy = policy(100);
+    assertTrue(policy.admits(0));
+    heap = 0.9;
+    assertTrue(policy.admits(0));
+    now += 1000;
+    assertFalse(policy.admits(0));
+    heap = 0.5;
+    load = 5.0;
+    now += 1000;
+    assertFalse(policy.admits(0));
+    // no load average on this platform.
+    load = -1;
+    now += 1000;
+    assertTrue(policy.admits(0));
+  }
+
+}
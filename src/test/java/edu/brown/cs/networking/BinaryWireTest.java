@@ -0,0 +1,57 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+import edu.brown.cs.api.CatanAPI;
+import edu.brown.cs.api.CatanAPITest;
+import edu.brown.cs.api.WireDictionary;
+
+public class BinaryWireTest {
+
+  private static final BinaryWire WIRE = new BinaryWire(WireDictionary.words());
+
+  private static JsonElement roundTrip(String json) {
+    byte[] bytes = WIRE.encode(json);
+    return WIRE.decode(bytes, 0, bytes.length);
+  }
+
+  @Test
+  public void testGameStateRoundTrips() {
+    CatanAPI api = CatanAPITest.startedGame("Sean", "Nick", "Ansel", "Jay");
+    String text = api.getGameStateUpdate(0, true);
+    assertEquals(new JsonParser().parse(text), roundTrip(text));
+  }
+
+  @Test
+  public void testGameStateShrinks() {
+    CatanAPI api = CatanAPITest.startedGame("Sean", "Nick", "Ansel", "Jay");
+    String text = api.getGameStateUpdate(0, true);
+    int textSize = text.getBytes(StandardCharsets.UTF_8).length;
+    int binarySize = WIRE.encode(text).length;
+    assertTrue(binarySize * 4 < textSize);
+  }
+
+  @Test
+  public void testValuesRoundTrip() {
+    String json = "{\"requestType\":\"chat\",\"content\":\"h\\u00e9llo\","
+        + "\"n\":-300,\"big\":12345678901,\"d\":0.5,\"flag\":false,"
+        + "\"none\":null,\"list\":[1,\"x\",[]],\"hex\":{\"x\":-1,\"y\":2,"
+        + "\"z\":0},\"notHex\":{\"x\":1,\"y\":2},\"wheat\":3}";
+    assertEquals(new JsonParser().parse(json), roundTrip(json));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTruncatedMessageIsRejected() {
+    byte[] bytes = WIRE.encode("{\"requestType\":\"chat\"}");
+    WIRE.decode(bytes, 0, bytes.length - 1);
+  }
+
+}
@@ -0,0 +1,183 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+
+public class ClusterRouterTest {
+
+  private static final String           A        = "http://localhost:4568";
+  private static final String           B        = "http://localhost:4569";
+
+  private final Map<String, JsonObject> statuses = new HashMap<>();
+  private final Map<String, String>     cookies  = new HashMap<>();
+  private final Set<String>             live     = new HashSet<>();
+  private ClusterRouter                 router;
+
+
+  @Before
+  public void setUp() {
+    router = new ClusterRouter(Arrays.asList(A, B), statuses::get,
+        (node, id) -> live.contains(node + " " + id),
+        new TimerWheel(100, 16, () -> 0));
+  }
+
+
+  // a node's status, as GCT.clusterStatus gives it, with one open group of
+  // each size given.
+  private static JsonObject status(int node, int live, boolean atLimit,
+      int... openSizes) {
+    JsonArray open = new JsonArray();
+    for (int i = 0; i < openSizes.length; i++) {
+      JsonObject group = new JsonObject();
+      group.addProperty("id", node + "-start-" + i + "-secret");
+      group.addProperty("maxSize", openSizes[i]);
+      JsonObject view = new JsonObject();
+      view.add("group", group);
+      open.add(view);
+    }
+    JsonObject openGroups = new JsonObject();
+    openGroups.add("groups", open);
+    openGroups.addProperty("atLimit", atLimit);
+    JsonObject closedGroups = new JsonObject();
+    closedGroups.add("closedGroups", new JsonArray());
+    JsonObject games = new JsonObject();
+    games.addProperty("live", live);
+    games.addProperty("heapBytesPerGame", 1000 * (node + 1));
+
+    JsonObject s = new JsonObject();
+    s.addProperty("node", node);
+    s.addProperty("live", live);
+    s.addProperty("limit", 100);
+    s.add("open", openGroups);
+    s.add("closed", closedGroups);
+    s.add("games", games);
+    return s;
+  }
+
+
+  @Test
+  public void nodeOfReadsTheIdPrefix() {
+    assertEquals(DistinctRandom.nodeId(),
+        DistinctRandom.nodeOf(DistinctRandom.getString()));
+    assertEquals(35, DistinctRandom.nodeOf("z-1-2-3"));
+    assertEquals(-1, DistinctRandom.nodeOf("no_dash"));
+    assertEquals(-1, DistinctRandom.nodeOf("-1-2"));
+    assertEquals(-1, DistinctRandom.nodeOf(null));
+  }
+
+
+  @Test
+  public void onlyALiveUserOnAnUpNodeIsValid() {
+    statuses.put(B, status(1, 0, false));
+    router.poll();
+    live.add(B + " 1-user-live");
+    live.add(A + " 0-user-live");
+    assertTrue(router.userIDIsValid("1-user-live"));
+    assertFalse("a stale id", router.userIDIsValid("1-user-gone"));
+    assertFalse("its node is down", router.userIDIsValid("0-user-live"));
+    assertFalse(router.userIDIsValid("no_node"));
+    assertFalse(router.userIDIsValid(null));
+  }
+
+
+  @Test
+  public void newGamesGoToTheLeastLoadedNode() {
+    statuses.put(A, status(0, 5, false));
+    statuses.put(B, status(1, 2, false));
+    router.poll();
+    assertEquals(B, router.nodeFor(cookies));
+
+    statuses.put(B, status(1, 2, true));
+    router.poll();
+    assertEquals("a node at its limit takes no games", A,
+        router.nodeFor(cookies));
+  }
+
+
+  @Test
+  public void gamesAndUsersArePinnedToTheirOwner() {
+    statuses.put(A, status(0, 1, false));
+    statuses.put(B, status(1, 9, true));
+    router.poll();
+
+    cookies.put("desiredGroupId", "1-start-0-secret");
+    assertEquals(B, router.nodeFor(cookies));
+
+    cookies.clear();
+    cookies.put(Networking.USER_IDENTIFIER, "1-start-7-secret");
+    assertEquals(B, router.nodeFor(cookies));
+  }
+
+
+  @Test
+  public void quickMatchPrefersANodeWithAnOpenGameOfThatSize() {
+    statuses.put(A, status(0, 1, false, 2));
+    statuses.put(B, status(1, 9, false, 4));
+    router.poll();
+    cookies.put("quickMatch", "true");
+    cookies.put("numPlayersDesired", "4");
+    assertEquals(B, router.nodeFor(cookies));
+
+    cookies.put("numPlayersDesired", "3");
+    assertEquals(A, router.nodeFor(cookies));
+  }
+
+
+  @Test
+  public void nodesThatAreDownAreLeftOut() {
+    statuses.put(A, status(0, 3, false, 4, 4));
+    statuses.put(B, status(1, 0, false, 2));
+    router.poll();
+    assertEquals(3, router.openGroups().getAsJsonArray("groups").size());
+    assertEquals(200, router.groupLimit());
+
+    statuses.remove(B);
+    router.poll();
+    assertEquals(A, router.nodeFor(cookies));
+    cookies.put("desiredGroupId", "1-start-0-secret");
+    assertNull("the game went down with its node", router.nodeFor(cookies));
+    assertEquals(2, router.openGroups().getAsJsonArray("groups").size());
+    assertEquals(1, router.stats().get("nodesUp").getAsInt());
+  }
+
+
+  @Test
+  public void theClusterIsAtItsLimitWhenEveryNodeIs() {
+    statuses.put(A, status(0, 1, true));
+    statuses.put(B, status(1, 1, false));
+    router.poll();
+    assertFalse(router.openGroups().get("atLimit").getAsBoolean());
+
+    statuses.put(B, status(1, 1, true));
+    router.poll();
+    assertTrue(router.openGroups().get("atLimit").getAsBoolean());
+    assertNull(router.nodeFor(cookies));
+  }
+
+
+  @Test
+  public void statsAreSummedAcrossNodes() {
+    statuses.put(A, status(0, 3, false));
+    statuses.put(B, status(1, 4, false));
+    router.poll();
+    JsonObject stats = router.stats();
+    assertEquals(7, stats.get("live").getAsInt());
+    assertEquals(2000, stats.get("heapBytesPerGame").getAsInt());
+    assertEquals(2, stats.get("nodes").getAsInt());
+  }
+
+}
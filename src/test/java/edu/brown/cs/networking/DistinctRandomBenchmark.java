@@ -0,0 +1,81 @@
+package edu.brown.cs.networking;
+
+import static edu.brown.cs.networking.Util.format;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Ids per second from four threads at once, for DistinctRandom and for the old
+ * scheme: a random UUID checked against a set of every id so far (here a
+ * concurrent set, as the old HashSet was not safe to share). At the end of each
+ * trial, the old scheme's set size and an estimate of the heap it holds are
+ * printed; DistinctRandom holds nothing. Add {@code -prof gc} for allocation
+ * per id. Run with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) org.openjdk.jmh.Main DistinctRandomBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class DistinctRandomBenchmark {
+
+  // a 36 char String, its array, and a set entry, on a 64-bit JVM.
+  private static final int BYTES_PER_UUID_ENTRY = 40 + 56 + 32 + 16;
+
+  private Set<String>      usedAlready;
+
+
+  @Setup
+  public void setup() {
+    usedAlready = ConcurrentHashMap.newKeySet();
+  }
+
+
+  @TearDown
+  public void report() {
+    if (!usedAlready.isEmpty()) {
+      format("%nUUID set held %d ids, about %d MB%n", usedAlready.size(),
+          (long) usedAlready.size() * BYTES_PER_UUID_ENTRY >> 20);
+    }
+  }
+
+
+  @Benchmark
+  public String distinctRandom() {
+    return DistinctRandom.getString();
+  }
+
+
+  @Benchmark
+  public String uuidSet() {
+    String newid = UUID.randomUUID().toString();
+    while (!usedAlready.add(newid)) {
+      newid = UUID.randomUUID().toString();
+    }
+    return newid;
+  }
+
+}
@@ -0,0 +1,51 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class DistinctRandomTest {
+
+  @Test
+  public void testIdsAreDistinctAcrossThreads() throws InterruptedException {
+    Set<String> ids = ConcurrentHashMap.newKeySet();
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    for (int t = 0; t < 8; t++) {
+      pool.execute(() -> {
+        for (int i = 0; i < 10000; i++) {
+          ids.add(DistinctRandom.getString());
+        }
+      });
+    }
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+    assertEquals(80000, ids.size());
+  }
+
+
+  @Test
+  public void testIdsAreCompactAndCookieSafe() {
+    String id = DistinctRandom.getString();
+    assertTrue(id, id.matches("[0-9a-z]+(-[0-9a-z]+){3}"));
+    assertTrue(id, id.length() <= 40);
+    assertTrue(id.startsWith(Integer.toString(DistinctRandom.nodeId(), 36)));
+  }
+
+
+  @Test
+  public void testConsecutiveIdsDifferInTheirRandomPart() {
+    String a = DistinctRandom.getString();
+    String b = DistinctRandom.getString();
+    assertNotEquals(a.substring(a.lastIndexOf('-')),
+        b.substring(b.lastIndexOf('-')));
+  }
+
+}
@@ -0,0 +1,120 @@
+package edu.brown.cs.networking;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.gson.JsonObject;
+
+// A group that only counts its members, for tests and benchmarks.
+public class FakeGroup implements Group {
+
+  private final int maxSize;
+  private int       size;
+
+
+  public FakeGroup(int maxSize) {
+    this.maxSize = maxSize;
+  }
+
+
+  public void join() {
+    size++;
+  }
+
+
+  public void leave() {
+    size--;
+  }
+
+
+  @Override
+  public boolean add(User u) {
+    join();
+    return true;
+  }
+
+
+  @Override
+  public boolean remove(User u) {
+    leave();
+    return true;
+  }
+
+
+  @Override
+  public boolean handleMessage(User u, JsonObject message) {
+    return false;
+  }
+
+
+  @Override
+  public String identifier() {
+    return Integer.toHexString(System.identityHashCode(this));
+  }
+
+
+  @Override
+  public String groupName() {
+    return "fake";
+  }
+
+
+  @Override
+  public int maxSize() {
+    return maxSize;
+  }
+
+
+  @Override
+  public int currentSize() {
+    return size;
+  }
+
+
+  @Override
+  public boolean isFull() {
+    return size >= maxSize;
+  }
+
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+
+  @Override
+  public boolean hasUser(String uuid) {
+    return false;
+  }
+
+
+  @Override
+  public boolean hasUser(User u) {
+    return false;
+  }
+
+
+  @Override
+  public void clear() {
+    size = 0;
+  }
+
+
+  @Override
+  public Collection<User> connectedUsers() {
+    return Collections.emptyList();
+  }
+
+
+  @Override
+  public void logMessage(Message m) {}
+
+
+  @Override
+  public List<Message> getMessageLog() {
+    return Collections.emptyList();
+  }
+
+}
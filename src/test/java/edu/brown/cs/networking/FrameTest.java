@@ -0,0 +1,54 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+
+public class FrameTest {
+
+  @Test
+  public void testTextIsFixedWhenMade() {
+    JsonObject json = new JsonObject();
+    json.addProperty("requestType", "chat");
+    Frame frame = Frame.of(json);
+    json.addProperty("message", "later");
+    assertEquals("{\"requestType\":\"chat\"}", frame.text());
+  }
+
+  @Test
+  public void testBinaryIsEncodedOncePerWire() {
+    BinaryWire wire = new BinaryWire(Arrays.asList("requestType", "chat"));
+    Frame frame = Frame.of("{\"requestType\":\"chat\",\"n\":3}");
+    byte[] bytes = frame.bytes(wire);
+    assertSame(bytes, frame.bytes(wire));
+    assertEquals(frame.text(), wire.decode(bytes, 0, bytes.length)
+        .toString());
+    BinaryWire other = new BinaryWire(Arrays.asList("chat"));
+    assertEquals(frame.text(), other.decode(frame.bytes(other), 0,
+        frame.bytes(other).length).toString());
+  }
+
+  @Test
+  public void testJsonIsEncodedWithoutItsText() {
+    BinaryWire wire = new BinaryWire(Arrays.asList("requestType", "chat"));
+    JsonObject json = new JsonObject();
+    json.addProperty("requestType", "chat");
+    json.addProperty("n", 3);
+    Frame frame = Frame.of(json);
+    assertArrayEquals(wire.encode(frame.text()), frame.bytes(wire));
+
+    Frame numbered = frame.numbered(7);
+    assertEquals("{\"seq\":7,\"requestType\":\"chat\",\"n\":3}",
+        numbered.text());
+    assertEquals(ReplayLog.stamp(frame.text(), 7), numbered.text());
+    assertArrayEquals(wire.encode(numbered.text()), numbered.bytes(wire));
+    assertEquals("{\"requestType\":\"chat\",\"n\":3}", json.toString());
+  }
+
+}
@@ -0,0 +1,62 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+
+import org.junit.Test;
+
+public class GCTTest {
+
+  // A group that filled between being chosen and the add.
+  private static class TakenGroup extends FakeGroup {
+
+    private TakenGroup() {
+      super(4);
+    }
+
+
+    @Override
+    public boolean add(User u) {
+      return false;
+    }
+  }
+
+
+  // Offers the given groups in turn, then none.
+  private static GroupSelector offering(Group... offers) {
+    Deque<Group> left = new ArrayDeque<>(Arrays.asList(offers));
+    return (User u, Collection<Group> coll) -> left.poll();
+  }
+
+
+  @Test
+  public void testUserTurnedAwayByChosenGroupTriesTheNext() {
+    FakeGroup next = new FakeGroup(4);
+    GCT gct = new GCT.GCTBuilder(null)
+        .withGroupSelector(offering(new TakenGroup(), next)).build();
+    assertTrue(gct.add(new User(UserTableTest.session("sean"))));
+    assertEquals(1, next.currentSize());
+  }
+
+
+  @Test
+  public void testPlacementGivesUpAfterEveryAttemptFails() {
+    Group[] offers = new Group[GCT.PLACEMENT_ATTEMPTS + 1];
+    for (int i = 0; i < GCT.PLACEMENT_ATTEMPTS; i++) {
+      offers[i] = new TakenGroup();
+    }
+    FakeGroup last = new FakeGroup(4);
+    offers[GCT.PLACEMENT_ATTEMPTS] = last;
+    GCT gct = new GCT.GCTBuilder(null).withGroupSelector(offering(offers))
+        .build();
+    assertFalse(gct.add(new User(UserTableTest.session("sean"))));
+    assertEquals(0, last.currentSize());
+  }
+
+}
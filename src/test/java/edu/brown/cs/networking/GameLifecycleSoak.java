@@ -0,0 +1,123 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+import java.net.HttpCookie;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.api.CatanGroupSelector;
+
+/**
+ * Plays 10000 two-player games of Catan through a GCT, each ending in a game
+ * over, and checks that everything they reached is freed: heap in use after a
+ * collection must not grow between the first thousand games and the last.
+ * It takes about half a minute, so it is left out of the usual test run. Run
+ * with:
+ *
+ * <pre>
+ * mvn test -Dtest=GameLifecycleSoak
+ * </pre>
+ */
+public class GameLifecycleSoak {
+
+  private static final int  GAMES          = 10000;
+  private static final long MAX_GROWTH     = 32L << 20;
+
+  private final TimerWheel  timers         = new TimerWheel(100, 8, () -> 0);
+  private final GCT         gct            = new GCT.GCTBuilder(null)
+      .withGroupSelector(new CatanGroupSelector()).withTimerWheel(timers)
+      .build();
+  private int               nextUser;
+
+
+  // A new user on a closed session, asking for a quick two-player game.
+  private User user() {
+    UpgradeRequest request = new UpgradeRequest() {};
+    List<HttpCookie> cookies = new ArrayList<>();
+    cookies.add(new HttpCookie(Networking.USER_IDENTIFIER,
+        "soak" + nextUser++));
+    cookies.add(new HttpCookie("userName", "player"));
+    cookies.add(new HttpCookie("numPlayersDesired", "2"));
+    cookies.add(new HttpCookie("victoryPoints", "10"));
+    cookies.add(new HttpCookie("quickMatch", "true"));
+    request.setCookies(cookies);
+    return new User((Session) Proxy.newProxyInstance(
+        Session.class.getClassLoader(), new Class<?>[] {Session.class},
+        (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getUpgradeRequest":
+              return request;
+            case "isOpen":
+              return false;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            default:
+              return null;
+          }
+        }));
+  }
+
+
+  private Group play() {
+    User a = user();
+    User b = user();
+    assertTrue(gct.add(a));
+    assertTrue(gct.add(b));
+    Group g = gct.groupForUser(a);
+    JsonObject over = new JsonObject();
+    over.addProperty(Networking.REQUEST_IDENTIFIER, "gameOver");
+    gct.message(a, over);
+    assertNull(gct.groupForUser(b));
+    assertFalse(gct.userIDIsValid(b.getField(Networking.USER_IDENTIFIER)));
+    return g;
+  }
+
+
+  private static long heapAfterGC() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+
+  @Test
+  public void testMemoryIsSteadyOverManyGames() {
+    WeakReference<Group> first = new WeakReference<>(play());
+    for (int i = 1; i < GAMES / 10; i++) {
+      play();
+    }
+    long early = heapAfterGC();
+    for (int i = GAMES / 10; i < GAMES; i++) {
+      play();
+    }
+    long late = heapAfterGC();
+    Util.format("Heap after %d games: %d KB, after %d: %d KB%n", GAMES / 10,
+        early >> 10, GAMES, late >> 10);
+
+    assertEquals(0, gct.lifecycle().live());
+    assertEquals(GAMES, gct.lifecycle().stats().get("reaped").getAsInt());
+    assertEquals(0, gct.openGroups().getAsJsonArray("groups").size());
+    assertEquals(0,
+        gct.closedGroups().getAsJsonArray("closedGroups").size());
+    assertNull("a finished game is still reachable", first.get());
+    assertTrue("heap grew by " + ((late - early) >> 10) + " KB",
+        late - early < MAX_GROWTH);
+  }
+
+}
@@ -0,0 +1,85 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class GameLifecycleTest {
+
+  private long              now    = 0;
+  private final TimerWheel  timers = new TimerWheel(100, 8, () -> now);
+  private final List<Group> reaped = new ArrayList<>();
+  private final Set<User>   freed  = new HashSet<>();
+
+  private final GameLifecycle lifecycle = new GameLifecycle((g, users) -> {
+    reaped.add(g);
+    freed.addAll(users);
+  }, timers);
+
+
+  @Test
+  public void testGameGoesThroughEachStage() {
+    FakeGroup g = new FakeGroup(2);
+    User a = new User(UserTableTest.session("a"));
+    User b = new User(UserTableTest.session("b"));
+    g.join();
+    lifecycle.joined(g, a);
+    assertSame(GameLifecycle.Stage.CREATED, lifecycle.stage(g));
+    g.join();
+    lifecycle.joined(g, b);
+    assertSame(GameLifecycle.Stage.ACTIVE, lifecycle.stage(g));
+    g.clear();
+    lifecycle.changed(g);
+    assertSame(GameLifecycle.Stage.REAPED, lifecycle.stage(g));
+    assertEquals(1, reaped.size());
+    assertEquals(2, freed.size());
+    assertTrue(freed.contains(a) && freed.contains(b));
+    assertEquals(0, lifecycle.live());
+    assertEquals(1, lifecycle.stats().get("started").getAsInt());
+  }
+
+
+  @Test
+  public void testSweepReapsGamesThatEmptiedOnTheirOwn() {
+    lifecycle.start();
+    FakeGroup abandoned = new FakeGroup(4);
+    FakeGroup waiting = new FakeGroup(4);
+    abandoned.join();
+    lifecycle.joined(abandoned, new User(UserTableTest.session("a")));
+    waiting.join();
+    lifecycle.joined(waiting, new User(UserTableTest.session("b")));
+
+    abandoned.clear(); // e.g. its only user expired.
+    timers.advanceTo(now + GameLifecycle.SWEEP_MILLIS + 100);
+    assertEquals(1, reaped.size());
+    assertSame(abandoned, reaped.get(0));
+    assertEquals(1, lifecycle.live());
+    assertEquals(1, lifecycle.stats().get("abandoned").getAsInt());
+
+    // the sweep keeps going.
+    waiting.clear();
+    timers.advanceTo(now + 2 * GameLifecycle.SWEEP_MILLIS + 200);
+    assertEquals(2, reaped.size());
+  }
+
+
+  @Test
+  public void testGameIsReapedOnce() {
+    FakeGroup g = new FakeGroup(2);
+    g.join();
+    lifecycle.joined(g, new User(UserTableTest.session("a")));
+    g.clear();
+    lifecycle.changed(g);
+    lifecycle.changed(g);
+    assertEquals(0, lifecycle.sweep());
+    assertEquals(1, reaped.size());
+  }
+
+}
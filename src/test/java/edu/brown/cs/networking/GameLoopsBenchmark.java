@@ -0,0 +1,105 @@
+package edu.brown.cs.networking;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Messages handled per second across 256 games, each message taking the
+ * game's lock and doing a little work. The websocket's shared pool of 8
+ * threads is compared with {@code loops} game loops; set {@code loops} to the
+ * machine's core counts to see how the loops scale. Run with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) org.openjdk.jmh.Main GameLoopsBenchmark -p loops=1,2,4,8
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameLoopsBenchmark {
+
+  private static final int GAMES    = 256;
+  private static final int MESSAGES = 4096;
+  private static final int WORK     = 2000;
+
+  @Param({"1"})
+  private int              loops;
+
+  private FakeGroup[]      games;
+  private GameLoops        gameLoops;
+  private ExecutorService  pool;
+
+
+  @Setup
+  public void setup() {
+    games = new FakeGroup[GAMES];
+    for (int i = 0; i < GAMES; i++) {
+      games[i] = new FakeGroup(4);
+    }
+    gameLoops = new GameLoops(loops);
+    pool = Executors.newFixedThreadPool(8);
+  }
+
+
+  @TearDown
+  public void tearDown() {
+    gameLoops.shutdown();
+    pool.shutdown();
+  }
+
+
+  // what handling one message costs a game.
+  private static Runnable handle(FakeGroup g, CountDownLatch done) {
+    return () -> {
+      synchronized (g) {
+        Blackhole.consumeCPU(WORK);
+      }
+      done.countDown();
+    };
+  }
+
+
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES)
+  public void sharedPool() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(MESSAGES);
+    for (int i = 0; i < MESSAGES; i++) {
+      pool.execute(handle(games[i % GAMES], done));
+    }
+    done.await();
+  }
+
+
+  @Benchmark
+  @OperationsPerInvocation(MESSAGES)
+  public void gameLoops() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(MESSAGES);
+    for (int i = 0; i < MESSAGES; i++) {
+      FakeGroup g = games[i % GAMES];
+      gameLoops.submit(g, handle(g, done));
+    }
+    done.await();
+  }
+
+}
@@ -0,0 +1,62 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class GameLoopsTest {
+
+  @Test
+  public void testGroupRunsInOrderOnOneThread()
+      throws InterruptedException, ExecutionException {
+    GameLoops loops = new GameLoops(4);
+    FakeGroup g = new FakeGroup(4);
+    List<Integer> order = new ArrayList<>();
+    Set<Thread> threads = new HashSet<>();
+    Future<?> last = null;
+    for (int i = 0; i < 1000; i++) {
+      int n = i;
+      last = loops.submit(g, () -> {
+        order.add(n);
+        threads.add(Thread.currentThread());
+      });
+    }
+    last.get();
+    assertEquals(1, threads.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, (int) order.get(i));
+    }
+    loops.shutdown();
+  }
+
+
+  @Test
+  public void testGroupsAreSpreadOverLoops() {
+    GameLoops loops = new GameLoops(4);
+    int[] perLoop = new int[loops.size()];
+    for (int i = 0; i < 4000; i++) {
+      perLoop[loops.loopFor(new FakeGroup(4))]++;
+    }
+    for (int count : perLoop) {
+      assertTrue("uneven: " + count, count > 800 && count < 1200);
+    }
+    loops.shutdown();
+  }
+
+
+  @Test
+  public void testWithoutLoopsGCTLeavesWorkToCaller() {
+    GCT gct = new GCT.GCTBuilder(null).build();
+    User u = new User(UserTableTest.session("nobody"));
+    assertEquals(null, gct.dispatch(u, () -> {}));
+  }
+
+}
@@ -0,0 +1,143 @@
+package edu.brown.cs.networking;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.util.ConcurrentHashSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of a membership change (a user joining a group, then leaving it) with
+ * {@code liveGroups} games on the node, from four threads at once. The old GCT
+ * kept two concurrent sets and re-scanned both on every change; the registry
+ * moves the one group between shards. Also the cost of listing the lobby. Run
+ * with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) org.openjdk.jmh.Main GroupRegistryBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class GroupRegistryBenchmark {
+
+  @Param({"20", "1000", "10000"})
+  private int                 liveGroups;
+
+  private GroupRegistry       registry;
+  private final Set<Group>    pending = new ConcurrentHashSet<>();
+  private final Set<Group>    full    = new ConcurrentHashSet<>();
+
+
+  // Each thread changes only its own groups.
+  @State(Scope.Thread)
+  public static class Games {
+
+    private final FakeGroup[] own = new FakeGroup[64];
+    private int               next;
+
+
+    @Setup
+    public void setup(GroupRegistryBenchmark b) {
+      for (int i = 0; i < own.length; i++) {
+        own[i] = b.register(new FakeGroup(4));
+      }
+    }
+
+
+    FakeGroup next() {
+      next = (next + 1) & (own.length - 1);
+      return own[next];
+    }
+  }
+
+
+  @Setup
+  public void setup() {
+    registry = new GroupRegistry();
+    pending.clear();
+    full.clear();
+    for (int i = 0; i < liveGroups; i++) {
+      register(new FakeGroup(4));
+    }
+  }
+
+
+  private FakeGroup register(FakeGroup g) {
+    g.join();
+    g.join();
+    g.join();
+    registry.update(g);
+    pending.add(g);
+    return g;
+  }
+
+
+  @Benchmark
+  public Object registryJoinAndLeave(Games games) {
+    FakeGroup g = games.next();
+    g.join();
+    registry.update(g);
+    g.leave();
+    return registry.update(g);
+  }
+
+
+  @Benchmark
+  public Object scanJoinAndLeave(Games games) {
+    FakeGroup g = games.next();
+    g.join();
+    filter(g);
+    g.leave();
+    filter(g);
+    return g;
+  }
+
+
+  @Benchmark
+  public Object registryLobby() {
+    return registry.pending();
+  }
+
+
+  // What GCT.filterGroup did, including the refresh in openGroups.
+  private void filter(Group g) {
+    if (g.isFull()) {
+      full.add(g);
+      pending.remove(g);
+    } else {
+      pending.add(g);
+      full.remove(g);
+    }
+    for (Group f : full) {
+      if (!f.isFull()) {
+        full.remove(f);
+        pending.add(f);
+      }
+    }
+    for (Group p : pending) {
+      if (p.isFull()) {
+        pending.remove(p);
+        full.add(p);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,102 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class GroupRegistryTest {
+
+  @Test
+  public void testGroupsMoveBetweenPendingAndFull() {
+    GroupRegistry registry = new GroupRegistry(4);
+    FakeGroup g = new FakeGroup(2);
+    g.join();
+    assertEquals(GroupRegistry.Status.PENDING, registry.update(g));
+    assertTrue(registry.pending().contains(g));
+    g.join();
+    assertEquals(GroupRegistry.Status.FULL, registry.update(g));
+    assertFalse(registry.pending().contains(g));
+    assertTrue(registry.full().contains(g));
+    assertEquals(0, registry.pendingCount());
+    assertEquals(1, registry.fullCount());
+
+    g.clear();
+    assertNull(registry.update(g));
+    assertFalse(registry.contains(g));
+    assertEquals(0, registry.size());
+  }
+
+  @Test
+  public void testLiveGroupsAreFoundByID() {
+    GroupRegistry registry = new GroupRegistry(4);
+    FakeGroup g = new FakeGroup(2);
+    assertNull(registry.byID(g.identifier()));
+    g.join();
+    registry.update(g);
+    assertTrue(registry.byID(g.identifier()) == g);
+    g.join();
+    registry.update(g);
+    assertTrue(registry.byID(g.identifier()) == g);
+
+    g.clear();
+    registry.update(g);
+    assertNull(registry.byID(g.identifier()));
+  }
+
+  @Test
+  public void testCountsMatchContents() {
+    GroupRegistry registry = new GroupRegistry(8);
+    List<FakeGroup> groups = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      FakeGroup g = new FakeGroup(4);
+      g.join();
+      if (i % 3 == 0) {
+        g.join();
+        g.join();
+        g.join();
+      }
+      registry.update(g);
+      registry.update(g); // unchanged, so not counted twice.
+      groups.add(g);
+    }
+    assertEquals(1000, registry.size());
+    assertEquals(334, registry.fullCount());
+    assertEquals(registry.full().size(), registry.fullCount());
+    assertEquals(registry.pending().size(), registry.pendingCount());
+  }
+
+  @Test
+  public void testConcurrentUpdatesKeepCountsExact() throws Exception {
+    GroupRegistry registry = new GroupRegistry();
+    Thread[] threads = new Thread[4];
+    for (int t = 0; t < threads.length; t++) {
+      threads[t] = new Thread(() -> {
+        for (int i = 0; i < 2000; i++) {
+          FakeGroup g = new FakeGroup(2);
+          g.join();
+          registry.update(g);
+          g.join();
+          registry.update(g);
+          if (i % 2 == 0) {
+            g.clear();
+            registry.update(g);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertEquals(4000, registry.fullCount());
+    assertEquals(0, registry.pendingCount());
+    assertEquals(4000, registry.full().size());
+  }
+
+}
@@ -0,0 +1,144 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+public class LobbyPublisherTest {
+
+  // Records every frame, completing each write at once.
+  private static class RecordingSink implements OutboundQueue.Sink {
+
+    private final List<JsonObject> received = new ArrayList<>();
+
+
+    @Override
+    public void write(Object frame, WriteCallback callback) {
+      received.add(new JsonParser().parse((String) frame).getAsJsonObject());
+      callback.writeSuccess();
+    }
+
+
+    @Override
+    public void close(int statusCode, String reason) {}
+
+
+    JsonObject last() {
+      return received.get(received.size() - 1);
+    }
+  }
+
+  private long                       now   = 0;
+  private final Map<String, Integer> lobby = new LinkedHashMap<>();
+
+
+  // the lobby as GCT.openGroups would give it.
+  private JsonObject openGroups() {
+    JsonArray groups = new JsonArray();
+    lobby.forEach((id, size) -> {
+      JsonObject group = new JsonObject();
+      group.addProperty("id", id);
+      group.addProperty("currentSize", size);
+      JsonObject view = new JsonObject();
+      view.add("group", group);
+      groups.add(view);
+    });
+    JsonObject toRet = new JsonObject();
+    toRet.add("groups", groups);
+    toRet.addProperty("atLimit", false);
+    return toRet;
+  }
+
+
+  @Test
+  public void testNewViewerGetsSnapshot() {
+    lobby.put("a", 1);
+    TimerWheel timers = new TimerWheel(10, 8, () -> now);
+    LobbyPublisher publisher = new LobbyPublisher(this::openGroups, timers);
+    RecordingSink sink = new RecordingSink();
+    publisher.addViewer(new OutboundQueue(sink, () -> now));
+    JsonObject snapshot = sink.last();
+    assertEquals("lobby", snapshot.get("requestType").getAsString());
+    assertEquals(0, snapshot.get("seq").getAsLong());
+    assertEquals(1, snapshot.getAsJsonArray("groups").size());
+  }
+
+
+  @Test
+  public void testBurstOfChangesIsOneDiff() {
+    lobby.put("a", 1);
+    lobby.put("b", 1);
+    TimerWheel timers = new TimerWheel(10, 8, () -> now);
+    LobbyPublisher publisher = new LobbyPublisher(this::openGroups, timers);
+    RecordingSink sink = new RecordingSink();
+    publisher.addViewer(new OutboundQueue(sink, () -> now));
+
+    lobby.put("c", 1);
+    publisher.changed();
+    lobby.put("a", 2);
+    publisher.changed();
+    lobby.remove("b");
+    publisher.changed();
+    assertEquals(1, timers.pending());
+    timers.advanceTo(now + LobbyPublisher.WINDOW_MILLIS + 10);
+
+    assertEquals(2, sink.received.size());
+    JsonObject diff = sink.last();
+    assertEquals("lobbyUpdate", diff.get("requestType").getAsString());
+    assertEquals(1, diff.get("seq").getAsLong());
+    assertEquals("[{\"group\":{\"id\":\"c\",\"currentSize\":1}}]",
+        diff.get("added").toString());
+    assertEquals("[\"b\"]", diff.get("removed").toString());
+    assertEquals("[{\"group\":{\"id\":\"a\",\"currentSize\":2}}]",
+        diff.get("changed").toString());
+  }
+
+
+  @Test
+  public void testNothingSentWithoutChange() {
+    lobby.put("a", 1);
+    TimerWheel timers = new TimerWheel(10, 8, () -> now);
+    LobbyPublisher publisher = new LobbyPublisher(this::openGroups, timers);
+    RecordingSink sink = new RecordingSink();
+    publisher.addViewer(new OutboundQueue(sink, () -> now));
+    publisher.changed();
+    timers.advanceTo(now + LobbyPublisher.WINDOW_MILLIS + 10);
+    assertEquals(1, sink.received.size());
+
+    // the next change still gets the next sequence number.
+    lobby.put("a", 2);
+    publisher.changed();
+    timers.advanceTo(now + 2 * LobbyPublisher.WINDOW_MILLIS + 20);
+    assertEquals(1, sink.last().get("seq").getAsLong());
+  }
+
+
+  @Test
+  public void testResyncSendsPublishedLobby() {
+    TimerWheel timers = new TimerWheel(10, 8, () -> now);
+    LobbyPublisher publisher = new LobbyPublisher(this::openGroups, timers);
+    RecordingSink sink = new RecordingSink();
+    OutboundQueue viewer = new OutboundQueue(sink, () -> now);
+    publisher.addViewer(viewer);
+    lobby.put("a", 1);
+    publisher.changed();
+    timers.advanceTo(now + LobbyPublisher.WINDOW_MILLIS + 10);
+    publisher.resync(viewer);
+    JsonObject snapshot = sink.last();
+    assertEquals("lobby", snapshot.get("requestType").getAsString());
+    assertEquals(1, snapshot.get("seq").getAsLong());
+    assertTrue(snapshot.get("groups").toString().contains("\"a\""));
+  }
+
+}
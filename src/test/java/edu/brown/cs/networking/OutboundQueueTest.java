@@ -0,0 +1,141 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.Test;
+
+public class OutboundQueueTest {
+
+  // Records writes, completing each one when the test says so.
+  private static class FakeSink implements OutboundQueue.Sink {
+
+    private final List<Object> written = new ArrayList<>();
+    private WriteCallback      pending;
+    private String             closedFor;
+
+
+    @Override
+    public void write(Object frame, WriteCallback callback) {
+      assertNull("wrote while a write was in flight", pending);
+      written.add(frame);
+      pending = callback;
+    }
+
+
+    @Override
+    public void close(int statusCode, String reason) {
+      closedFor = reason;
+    }
+
+
+    void complete() {
+      WriteCallback callback = pending;
+      pending = null;
+      callback.writeSuccess();
+    }
+  }
+
+  private long now = 0;
+
+
+  @Test
+  public void testWritesOneAtATimeInOrder() {
+    FakeSink sink = new FakeSink();
+    OutboundQueue queue = new OutboundQueue(sink, () -> now);
+    assertTrue(queue.offer("a", false));
+    assertTrue(queue.offer("b", false));
+    assertTrue(queue.offer("c", false));
+    assertEquals(1, sink.written.size());
+    sink.complete();
+    sink.complete();
+    assertEquals(3, sink.written.size());
+    sink.complete();
+    assertEquals("[a, b, c]", sink.written.toString());
+    assertEquals(0, queue.waiting());
+  }
+
+
+  @Test
+  public void testWaitingStateIsReplaced() {
+    FakeSink sink = new FakeSink();
+    OutboundQueue queue = new OutboundQueue(sink, () -> now);
+    queue.offer("action 1", false);
+    queue.offer("state 1", true);
+    queue.offer("action 2", false);
+    queue.offer("state 2", true);
+    queue.offer("state 3", true);
+    assertEquals(2, queue.waiting());
+    sink.complete();
+    sink.complete();
+    sink.complete();
+    assertEquals("[action 1, action 2, state 3]", sink.written.toString());
+  }
+
+
+  @Test
+  public void testClientTooFarBehindIsDisconnected() {
+    FakeSink sink = new FakeSink();
+    OutboundQueue queue = new OutboundQueue(sink, () -> now);
+    // one in flight, then a full queue ending in a state.
+    for (int i = 0; i < OutboundQueue.MAX_FRAMES; i++) {
+      assertTrue(queue.offer("chat " + i, false));
+    }
+    assertTrue(queue.offer("state", true));
+    assertEquals(OutboundQueue.MAX_FRAMES, queue.waiting());
+    // a newer state still takes the old one's place.
+    assertTrue(queue.offer("state", true));
+    assertFalse(queue.isClosed());
+    assertFalse(queue.offer("chat", false));
+    assertTrue(queue.isClosed());
+    assertNotNull(sink.closedFor);
+    assertFalse(queue.offer("more", false));
+  }
+
+
+  @Test
+  public void testCloseWhenSentSendsWhatIsWaitingFirst() {
+    FakeSink sink = new FakeSink();
+    OutboundQueue queue = new OutboundQueue(sink, () -> now);
+    queue.offer("state", true);
+    queue.offer("game over", false);
+    queue.closeWhenSent("Game over");
+    assertFalse(queue.offer("late", false));
+    assertNull(sink.closedFor);
+    sink.complete();
+    assertNull(sink.closedFor);
+    sink.complete();
+    assertEquals("[state, game over]", sink.written.toString());
+    assertEquals("Game over", sink.closedFor);
+    assertTrue(queue.isClosed());
+
+    // with nothing waiting, it closes at once.
+    FakeSink idle = new FakeSink();
+    new OutboundQueue(idle, () -> now).closeWhenSent("Game over");
+    assertEquals("Game over", idle.closedFor);
+  }
+
+
+  @Test
+  public void testStalledWriteDisconnects() {
+    FakeSink sink = new FakeSink();
+    OutboundQueue queue = new OutboundQueue(sink, () -> now);
+    queue.offer("a", false);
+    now += OutboundQueue.MAX_STALL_MILLIS;
+    assertTrue(queue.offer("b", false));
+    now += 1;
+    assertFalse(queue.offer("c", false));
+    assertTrue(sink.closedFor.contains("stalled"));
+    // a write finishing after the disconnect sends nothing more.
+    sink.complete();
+    assertEquals(1, sink.written.size());
+  }
+
+}
@@ -0,0 +1,69 @@
+package edu.brown.cs.networking;
+
+import static edu.brown.cs.networking.UserTableTest.session;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+
+/**
+ * The cost of turning away one message from a flooding client, against the
+ * least that was done for it before: parsing it. The flooder's bucket is kept
+ * empty, so every message is dropped. Run with:
+ *
+ * <pre>
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.cp -Dmdep.includeScope=test
+ * java -cp target/test-classes:target/classes:$(cat target/test.cp) org.openjdk.jmh.Main RateLimiterBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+  private static final String ACTION =
+      "{\"requestType\":\"action\",\"action\":\"placeRoad\","
+          + "\"start\":{\"x\":1,\"y\":0,\"z\":-1},"
+          + "\"end\":{\"x\":1,\"y\":1,\"z\":-1}}";
+
+  private RateLimiter         limiter;
+  private User                flooder;
+  private Group               game;
+
+
+  @Setup
+  public void setup() {
+    limiter = new RateLimiter(1, 1, 1000, 1000);
+    flooder = new User(session("flooder"));
+    game = new FakeGroup(4);
+    limiter.admit(flooder, game, ACTION.length());
+  }
+
+
+  @Benchmark
+  public RateLimiter.Verdict dropped() {
+    return limiter.admit(flooder, game, ACTION.length());
+  }
+
+
+  @Benchmark
+  public JsonElement parsedOnly() {
+    return new JsonParser().parse(ACTION);
+  }
+
+}
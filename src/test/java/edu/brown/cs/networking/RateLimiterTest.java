@@ -0,0 +1,99 @@
+package edu.brown.cs.networking;
+
+import static edu.brown.cs.networking.UserTableTest.session;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+
+import edu.brown.cs.networking.RateLimiter.Verdict;
+
+public class RateLimiterTest {
+
+  private static final long SECOND = 1_000_000_000L;
+
+  private long              now    = 0;
+  private final User        sean   = new User(session("sean"));
+  private final User        nick   = new User(session("nick"));
+  private final Group       game   = new FakeGroup(4);
+
+
+  @Test
+  public void aUserMayBurstThenIsHeldToTheRate() {
+    RateLimiter limiter = new RateLimiter(2, 3, 100, 100, () -> now);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Verdict.ADMITTED, limiter.admit(sean, game, 10));
+    }
+    assertEquals(Verdict.USER_LIMITED, limiter.admit(sean, game, 10));
+    assertEquals("others are not held back", Verdict.ADMITTED,
+        limiter.admit(nick, game, 10));
+
+    now += SECOND / 2; // one token back, at two a second.
+    assertEquals(Verdict.ADMITTED, limiter.admit(sean, game, 10));
+    assertEquals(Verdict.USER_LIMITED, limiter.admit(sean, game, 10));
+
+    now += 60 * SECOND; // no more than the burst builds up.
+    for (int i = 0; i < 3; i++) {
+      assertEquals(Verdict.ADMITTED, limiter.admit(sean, game, 10));
+    }
+    assertEquals(Verdict.USER_LIMITED, limiter.admit(sean, game, 10));
+  }
+
+
+  @Test
+  public void aLateClockReadingTakesNoTokensAway() {
+    now = 10 * SECOND;
+    RateLimiter limiter = new RateLimiter(1, 2, 100, 100, () -> now);
+    assertEquals(Verdict.ADMITTED, limiter.admit(sean, game, 10));
+
+    // read before another thread's take, so older than the bucket's clock.
+    now = 9 * SECOND;
+    assertEquals(Verdict.ADMITTED, limiter.admit(sean, game, 10));
+    now = 10 * SECOND; // and it does not count that second twice.
+    assertEquals(Verdict.USER_LIMITED, limiter.admit(sean, game, 10));
+    now = 11 * SECOND;
+    assertEquals(Verdict.ADMITTED, limiter.admit(sean, game, 10));
+  }
+
+
+  @Test
+  public void aGameIsLimitedAcrossItsUsers() {
+    RateLimiter limiter = new RateLimiter(100, 3, 1, 4, () -> now);
+    assertEquals(Verdict.ADMITTED, limiter.admit(sean, game, 10));
+    assertEquals(Verdict.ADMITTED, limiter.admit(sean, game, 10));
+    assertEquals(Verdict.ADMITTED, limiter.admit(nick, game, 10));
+    assertEquals(Verdict.ADMITTED, limiter.admit(nick, game, 10));
+    assertEquals(Verdict.GAME_LIMITED, limiter.admit(sean, game, 10));
+    assertEquals(Verdict.ADMITTED, limiter.admit(sean, new FakeGroup(4), 10));
+    assertEquals("the game's drop did not cost sean a token",
+        Verdict.USER_LIMITED, limiter.admit(sean, new FakeGroup(4), 10));
+  }
+
+
+  @Test
+  public void longMessagesAreDroppedWithoutTakingAToken() {
+    RateLimiter limiter = new RateLimiter(1, 1, 1, 1, () -> now);
+    assertEquals(Verdict.TOO_LARGE,
+        limiter.admit(sean, game, RateLimiter.MAX_MESSAGE_CHARS + 1));
+    assertEquals(Verdict.ADMITTED,
+        limiter.admit(sean, game, RateLimiter.MAX_MESSAGE_CHARS));
+  }
+
+
+  @Test
+  public void dropsAreCountedByKind() {
+    RateLimiter limiter = new RateLimiter(100, 1, 100, 2, () -> now);
+    limiter.admit(sean, game, 10);
+    limiter.admit(sean, game, 10);
+    limiter.admit(nick, game, 10);
+    limiter.admit(new User(session("ansel")), game, 10);
+    limiter.admit(nick, game, Integer.MAX_VALUE);
+    JsonObject stats = limiter.stats();
+    assertEquals(2, stats.get("admitted").getAsInt());
+    assertEquals(1, stats.get("userLimited").getAsInt());
+    assertEquals(1, stats.get("gameLimited").getAsInt());
+    assertEquals(1, stats.get("tooLarge").getAsInt());
+  }
+
+}
@@ -0,0 +1,105 @@
+package edu.brown.cs.networking;
+
+import static edu.brown.cs.networking.UserTableTest.session;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import com.google.gson.JsonParser;
+
+public class ReplayLogTest {
+
+  private final User sean = new User(session("sean"));
+  private final User nick = new User(session("nick"));
+
+
+  private static List<Long> seqs(List<Frame> frames) {
+    List<Long> toRet = new ArrayList<>();
+    for (Frame f : frames) {
+      toRet.add(new JsonParser().parse(f.text()).getAsJsonObject().get("seq")
+          .getAsLong());
+    }
+    return toRet;
+  }
+
+
+  @Test
+  public void stampsTheSeqIntoEachMessage() {
+    assertEquals("{\"seq\":3,\"a\":1}", ReplayLog.stamp("{\"a\":1}", 3));
+    assertEquals("{\"seq\":4}", ReplayLog.stamp("{}", 4));
+    assertEquals("{\"seq\":5}", ReplayLog.stamp("{ }", 5));
+
+    ReplayLog log = new ReplayLog();
+    assertEquals("{\"seq\":1,\"a\":1}",
+        log.record(sean, "{\"a\":1}", false).text());
+    assertEquals(1, log.lastSeq());
+  }
+
+
+  @Test
+  public void replaysOnlyWhatTheUserMissed() {
+    ReplayLog log = new ReplayLog();
+    log.record(null, "{\"n\":1}", false);
+    log.record(sean, "{\"n\":2}", false);
+    log.record(nick, "{\"n\":3}", false);
+    log.record(null, "{\"n\":4}", false);
+
+    assertEquals(listOf(2, 4), seqs(log.since(sean, 1)));
+    assertEquals(listOf(3, 4), seqs(log.since(nick, 1)));
+    assertEquals(listOf(1, 3, 4), seqs(log.since(nick, 0)));
+    assertEquals(listOf(), seqs(log.since(sean, 4)));
+  }
+
+
+  @Test
+  public void onlyTheLatestStateIsReplayed() {
+    ReplayLog log = new ReplayLog();
+    log.record(sean, "{\"state\":1}", true);
+    log.record(sean, "{\"chat\":1}", false);
+    log.record(nick, "{\"state\":1}", true);
+    log.record(sean, "{\"state\":2}", true);
+
+    assertEquals(listOf(2, 4), seqs(log.since(sean, 0)));
+    assertEquals(listOf(3), seqs(log.since(nick, 0)));
+  }
+
+
+  @Test
+  public void aGapPastTheRingIsRefused() {
+    ReplayLog log = new ReplayLog(3, Integer.MAX_VALUE);
+    for (int i = 0; i < 5; i++) {
+      log.record(null, "{}", false);
+    }
+    assertEquals(3, log.size());
+    assertEquals(listOf(3, 4, 5), seqs(log.since(sean, 2)));
+    assertNull("seq 2 is gone", log.since(sean, 1));
+    assertNull("not a seq of this game", log.since(sean, 6));
+  }
+
+
+  @Test
+  public void theRingIsBoundedByText() {
+    ReplayLog log = new ReplayLog(100, 40);
+    for (int i = 0; i < 5; i++) {
+      log.record(null, "{\"pad\":\"xxxxxx\"}", false); // 23 chars, stamped
+    }
+    assertEquals(1, log.size());
+    log.clear();
+    assertEquals(0, log.size());
+    assertEquals(5, log.lastSeq());
+  }
+
+
+  private static List<Long> listOf(long... seqs) {
+    List<Long> toRet = new ArrayList<>();
+    for (long s : seqs) {
+      toRet.add(s);
+    }
+    return toRet;
+  }
+
+}
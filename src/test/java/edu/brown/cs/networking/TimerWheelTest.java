@@ -0,0 +1,82 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class TimerWheelTest {
+
+  private long now = 1000;
+
+
+  @Test
+  public void testFiresOnceDeadlinePasses() {
+    TimerWheel wheel = new TimerWheel(100, 8, () -> now);
+    List<String> fired = new ArrayList<>();
+    wheel.schedule(() -> fired.add("a"), 250, TimeUnit.MILLISECONDS);
+    wheel.schedule(() -> fired.add("b"), 50, TimeUnit.MILLISECONDS);
+    assertEquals(2, wheel.pending());
+    wheel.advanceTo(now + 100);
+    assertEquals("[b]", fired.toString());
+    wheel.advanceTo(now + 250);
+    assertEquals("[b]", fired.toString());
+    wheel.advanceTo(now + 300);
+    assertEquals("[b, a]", fired.toString());
+    assertEquals(0, wheel.pending());
+  }
+
+
+  @Test
+  public void testWaitsWholeTurnsOfTheWheel() {
+    // 8 buckets of 100ms: a 2.05s delay goes round more than twice.
+    TimerWheel wheel = new TimerWheel(100, 8, () -> now);
+    List<String> fired = new ArrayList<>();
+    wheel.schedule(() -> fired.add("late"), 2050, TimeUnit.MILLISECONDS);
+    wheel.schedule(() -> fired.add("early"), 450, TimeUnit.MILLISECONDS);
+    wheel.advanceTo(now + 500);
+    assertEquals("[early]", fired.toString());
+    wheel.advanceTo(now + 2000);
+    assertEquals("[early]", fired.toString());
+    wheel.advanceTo(now + 2100);
+    assertEquals("[early, late]", fired.toString());
+  }
+
+
+  @Test
+  public void testCancelledTaskNeverRuns() {
+    TimerWheel wheel = new TimerWheel(100, 8, () -> now);
+    List<String> fired = new ArrayList<>();
+    TimerWheel.Timeout t =
+        wheel.schedule(() -> fired.add("a"), 200, TimeUnit.MILLISECONDS);
+    wheel.advanceTo(now + 100);
+    assertTrue(t.cancel());
+    assertFalse(t.cancel());
+    wheel.advanceTo(now + 1000);
+    assertTrue(fired.isEmpty());
+    assertEquals(0, wheel.pending());
+    assertEquals(1, wheel.stats().get("cancelled").getAsInt());
+    assertEquals(0, wheel.stats().get("expired").getAsInt());
+  }
+
+
+  @Test
+  public void testFailingTaskDoesNotStopTheWheel() {
+    TimerWheel wheel = new TimerWheel(100, 8, () -> now);
+    List<String> fired = new ArrayList<>();
+    TimerWheel.Timeout t = wheel.schedule(() -> {
+      throw new IllegalStateException("boom");
+    }, 0, TimeUnit.MILLISECONDS);
+    wheel.schedule(() -> fired.add("a"), 0, TimeUnit.MILLISECONDS);
+    wheel.advanceTo(now + 100);
+    assertEquals("[a]", fired.toString());
+    assertFalse(t.cancel());
+    assertEquals(2, wheel.stats().get("expired").getAsInt());
+  }
+
+}
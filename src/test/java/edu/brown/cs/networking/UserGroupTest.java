@@ -0,0 +1,308 @@
+package edu.brown.cs.networking;
+
+import static edu.brown.cs.networking.UserTableTest.session;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.net.HttpCookie;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.jetty.websocket.api.RemoteEndpoint;
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.eclipse.jetty.websocket.api.WriteCallback;
+import org.junit.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.brown.cs.networking.UserGroup.UserGroupBuilder;
+
+public class UserGroupTest {
+
+  private long now = 0;
+
+
+  private UserGroup group(TimerWheel timers) {
+    return new UserGroupBuilder(BasicAPI.class).withSize(2)
+        .withTimerWheel(timers).build();
+  }
+
+
+  @Test
+  public void testDisconnectedUserExpires() {
+    TimerWheel timers = new TimerWheel(1000, 8, () -> now);
+    UserGroup g = group(timers);
+    User sean = new User(session("sean"));
+    g.add(sean);
+    g.add(new User(session("nick")));
+    g.remove(sean);
+    assertEquals(1, timers.pending());
+    timers.advanceTo(now + Networking.DISCONNECT_TIMEOUT - 1000);
+    assertFalse(g.isEmpty());
+    timers.advanceTo(now + Networking.DISCONNECT_TIMEOUT + 1000);
+    assertTrue(g.isEmpty());
+    assertEquals(0, timers.pending());
+  }
+
+
+  @Test
+  public void testExpiryRunsOnTheGroupsLoop() {
+    TimerWheel timers = new TimerWheel(1000, 8, () -> now);
+    UserGroup g = group(timers);
+    List<Runnable> loop = new ArrayList<>();
+    g.runOn(loop::add);
+    User sean = new User(session("sean"));
+    g.add(sean);
+    g.add(new User(session("nick")));
+    g.remove(sean);
+    timers.advanceTo(now + Networking.DISCONNECT_TIMEOUT + 1000);
+    assertFalse(g.isEmpty());
+    assertEquals(1, loop.size());
+    loop.get(0).run();
+    assertTrue(g.isEmpty());
+  }
+
+
+  @Test
+  public void testReconnectCancelsExpiry() {
+    TimerWheel timers = new TimerWheel(1000, 8, () -> now);
+    UserGroup g = group(timers);
+    User sean = new User(session("sean"));
+    g.add(sean);
+    g.add(new User(session("nick")));
+    g.remove(sean);
+    assertTrue(g.add(sean));
+    assertEquals(0, timers.pending());
+    timers.advanceTo(now + 2 * Networking.DISCONNECT_TIMEOUT);
+    assertEquals(2, g.currentSize());
+  }
+
+
+  // A session with the given cookies that is open until open[0] is cleared,
+  // and records the requestType and seq of every message written to it.
+  private static Session recording(List<String> sent, boolean[] open,
+      HttpCookie... cookies) {
+    UpgradeRequest request = new UpgradeRequest() {};
+    List<HttpCookie> list = new ArrayList<>();
+    for (HttpCookie c : cookies) {
+      list.add(c);
+    }
+    request.setCookies(list);
+    RemoteEndpoint remote = (RemoteEndpoint) Proxy.newProxyInstance(
+        RemoteEndpoint.class.getClassLoader(),
+        new Class<?>[] {RemoteEndpoint.class}, (proxy, method, args) -> {
+          if (method.getName().equals("sendString")) {
+            JsonObject j = new JsonParser().parse((String) args[0])
+                .getAsJsonObject();
+            sent.add(j.get(Networking.REQUEST_IDENTIFIER).getAsString() + " "
+                + j.get("seq"));
+            ((WriteCallback) args[1]).writeSuccess();
+          }
+          return null;
+        });
+    return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+        new Class<?>[] {Session.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getUpgradeRequest":
+              return request;
+            case "getRemote":
+              return remote;
+            case "isOpen":
+              return open[0];
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            default:
+              return null;
+          }
+        });
+  }
+
+
+  private static String lastSeq(List<String> sent) {
+    String last = sent.get(sent.size() - 1);
+    return last.substring(last.indexOf(' ') + 1);
+  }
+
+
+  private static JsonObject chat(String requestType) {
+    JsonObject j = new JsonObject();
+    j.addProperty(Networking.REQUEST_IDENTIFIER, requestType);
+    return j;
+  }
+
+
+  @Test
+  public void testReconnectReplaysOnlyWhatWasMissed() {
+    UserGroup g = group(new TimerWheel(1000, 8, () -> now));
+    List<String> sent = new ArrayList<>();
+    boolean[] open = {true};
+    User sean = new User(recording(sent, open,
+        new HttpCookie(Networking.USER_IDENTIFIER, "sean")));
+    g.add(sean);
+    g.add(new User(session("nick")));
+    assertEquals(2, sent.size());
+    String seen = lastSeq(sent);
+
+    // the connection drops before the server notices.
+    open[0] = false;
+    g.send(sean, chat("missed"));
+    g.broadcast(Frame.of(chat("missedToo")));
+    g.remove(sean);
+
+    sent.clear();
+    sean.updateSession(recording(sent, new boolean[] {true},
+        new HttpCookie(Networking.USER_IDENTIFIER, "sean"),
+        new HttpCookie("lastSeq", seen)));
+    assertTrue(g.add(sean));
+    // what it missed, then the notice that everyone is back.
+    assertEquals("[missed 4, missedToo 5, disconnectedUsers 6, "
+        + "disconnectedUsers 7]", sent.toString());
+  }
+
+
+  @Test
+  public void testReconnectTooFarBehindGetsTheWholeState() {
+    UserGroup g = group(new TimerWheel(1000, 8, () -> now));
+    List<String> sent = new ArrayList<>();
+    boolean[] open = {true};
+    User sean = new User(recording(sent, open,
+        new HttpCookie(Networking.USER_IDENTIFIER, "sean")));
+    g.add(sean);
+    g.add(new User(session("nick")));
+    String seen = lastSeq(sent);
+
+    open[0] = false;
+    for (int i = 0; i < ReplayLog.MAX_FRAMES; i++) {
+      g.broadcast(Frame.of(chat("chat")));
+    }
+    g.remove(sean);
+
+    sent.clear();
+    sean.updateSession(recording(sent, new boolean[] {true},
+        new HttpCookie(Networking.USER_IDENTIFIER, "sean"),
+        new HttpCookie("lastSeq", seen)));
+    assertTrue(g.add(sean));
+    // two states, the chats and the disconnect notice were numbered before.
+    long last = 3 + ReplayLog.MAX_FRAMES + 1;
+    assertEquals("[chat " + (last + 1) + ", getGameState " + (last + 2)
+        + ", disconnectedUsers " + (last + 3) + "]", sent.toString());
+  }
+
+  // A game whose state changes with every action, and counts how often its
+  // spectator state is encoded.
+  public static class WatchedAPI extends BasicAPI {
+
+    private static int encodes;
+    private int        version;
+    private int        encodedVersion = -1;
+    private String     encoded;
+
+
+    @Override
+    public Map<Integer, JsonObject> performAction(String action) {
+      version++;
+      return Collections.emptyMap();
+    }
+
+
+    @Override
+    public String getSpectatorState(boolean withBoard) {
+      if (withBoard) {
+        return "{\"requestType\":\"spectatorState\",\"board\":{}}";
+      }
+      if (encodedVersion != version) {
+        encodes++;
+        encodedVersion = version;
+        encoded = "{\"requestType\":\"spectatorState\",\"version\":"
+            + version + "}";
+      }
+      return encoded;
+    }
+  }
+
+
+  private static final RequestProcessor ACTIONS = new RequestProcessor() {
+
+    @Override
+    public boolean run(User user, Group g, JsonObject json, API api) {
+      if (json.get(Networking.REQUEST_IDENTIFIER).getAsString()
+          .equals("action")) {
+        api.performAction(json);
+      }
+      return true;
+    }
+
+
+    @Override
+    public boolean match(JsonObject json) {
+      return true;
+    }
+  };
+
+
+  // past the end of the spectators' window, wherever the wheel's ticks fall.
+  private void closeWindow(TimerWheel timers) {
+    now += 2 * UserGroup.SPECTATOR_WINDOW_MILLIS;
+    timers.advanceTo(now);
+  }
+
+
+  @Test
+  public void testSpectatorsShareOneStatePerWindow() {
+    WatchedAPI.encodes = 0;
+    TimerWheel timers = new TimerWheel(100, 8, () -> now);
+    UserGroup g = new UserGroupBuilder(WatchedAPI.class).withSize(2)
+        .withRequestProcessors(Collections.singletonList(ACTIONS))
+        .withTimerWheel(timers).build();
+    User sean = new User(session("sean"));
+    g.add(sean);
+    g.add(new User(session("nick")));
+
+    List<List<String>> seen = new ArrayList<>();
+    List<User> spectators = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      List<String> sent = new ArrayList<>();
+      seen.add(sent);
+      User s = new User(recording(sent, new boolean[] {true}));
+      spectators.add(s);
+      assertTrue(g.watch(s));
+    }
+    assertEquals(3, g.spectatorCount());
+    assertEquals("[spectatorState null]", seen.get(0).toString());
+
+    // a burst of actions within one window is one state.
+    g.handleMessage(sean, chat("action"));
+    g.handleMessage(sean, chat("action"));
+    assertEquals(1, seen.get(0).size());
+    closeWindow(timers);
+    g.handleMessage(sean, chat("chat")); // the state is unchanged.
+    closeWindow(timers);
+    g.handleMessage(sean, chat("action"));
+    closeWindow(timers);
+    for (List<String> sent : seen) {
+      assertEquals(3, sent.size());
+    }
+    assertEquals("once per state sent, not per spectator", 2,
+        WatchedAPI.encodes);
+
+    g.unwatch(spectators.get(0));
+    g.handleMessage(sean, chat("action"));
+    closeWindow(timers);
+    assertEquals(3, seen.get(0).size());
+    assertEquals(4, seen.get(1).size());
+
+    g.release();
+    assertEquals(0, g.spectatorCount());
+    assertEquals("gameOver null", seen.get(1).get(4));
+    assertFalse(g.watch(new User(session("late"))));
+  }
+
+}
@@ -0,0 +1,70 @@
+package edu.brown.cs.networking;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.net.HttpCookie;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jetty.websocket.api.Session;
+import org.eclipse.jetty.websocket.api.UpgradeRequest;
+import org.junit.Test;
+
+public class UserTableTest {
+
+  // A closed session whose upgrade request carries the given USER_ID.
+  static Session session(String id) {
+    UpgradeRequest request = new UpgradeRequest() {};
+    List<HttpCookie> cookies = new ArrayList<>();
+    if (id != null) {
+      cookies.add(new HttpCookie(Networking.USER_IDENTIFIER, id));
+    }
+    request.setCookies(cookies);
+    return (Session) Proxy.newProxyInstance(Session.class.getClassLoader(),
+        new Class<?>[] {Session.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "getUpgradeRequest":
+              return request;
+            case "isOpen":
+              return false;
+            case "hashCode":
+              return System.identityHashCode(proxy);
+            case "equals":
+              return proxy == args[0];
+            default:
+              return null;
+          }
+        });
+  }
+
+  @Test
+  public void testLooksUpUsersByID() {
+    UserTable table = new UserTable();
+    User sean = new User(session("sean"));
+    User nick = new User(session("nick"));
+    table.addUser(sean);
+    table.addUser(nick);
+    assertTrue(table.contains("sean"));
+    assertTrue(table.contains("nick"));
+    assertFalse(table.contains("ansel"));
+
+    table.removeUser(sean);
+    assertFalse(table.contains("sean"));
+    assertTrue(table.contains("nick"));
+
+    table.clear();
+    assertFalse(table.contains("nick"));
+  }
+
+  @Test
+  public void testUsersWithoutAnIDAreStillHeld() {
+    UserTable table = new UserTable();
+    User anonymous = new User(session(null));
+    table.addUser(anonymous);
+    assertTrue(table.contains(anonymous));
+    assertFalse(table.contains((String) null));
+  }
+
+}